@@ -51,6 +51,16 @@ public class WorldpayException extends RuntimeException {
         super(message);
     }
 
+    /**
+     * Create a new exception
+     *
+     * @param message exception message
+     * @param cause   the cause
+     */
+    public WorldpayException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
     public ApiError getApiError() {
         return apiError;
     }
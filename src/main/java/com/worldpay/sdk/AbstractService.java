@@ -14,6 +14,12 @@
 
 package com.worldpay.sdk;
 
+import com.worldpay.gateway.clearwater.client.core.exception.WorldpayException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
 /**
  * Parent service class.
  */
@@ -24,6 +30,11 @@ class AbstractService {
      */
     protected Http http;
 
+    /**
+     * Executor running the future returning calls made without an explicit executor.
+     */
+    protected Executor executor;
+
     /**
      * Create a new service with the http connector.
      *
@@ -33,4 +44,68 @@ class AbstractService {
         this.http = http;
     }
 
+    /**
+     * Create a new service with the http connector and the default executor of future returning calls.
+     *
+     * @param http     {@link Http}
+     * @param executor default {@link Executor}
+     */
+    protected AbstractService(Http http, Executor executor) {
+        this.http = http;
+        this.executor = executor;
+    }
+
+    /**
+     * Run a blocking call on the given executor. The returned future completes exceptionally with a
+     * {@link WorldpayException} if the call fails or the executor rejects it, or with the {@link Error} the call
+     * threw.
+     *
+     * @param call     the blocking call
+     * @param executor the executor running the call
+     *
+     * @return a future completed with the result of the call
+     */
+    protected <T> CompletableFuture<T> async(final Supplier<T> call, Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("executor cannot be null");
+        }
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    future.complete(call.get());
+                } catch (Exception e) {
+                    future.completeExceptionally(toWorldpayException(e));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(toWorldpayException(e));
+        }
+        return future;
+    }
+
+    /**
+     * Run a blocking call without result on the given executor.
+     *
+     * @param call     the blocking call
+     * @param executor the executor running the call
+     *
+     * @return a future completed once the call returns
+     */
+    protected CompletableFuture<Void> async(final Runnable call, Executor executor) {
+        return async(() -> {
+            call.run();
+            return null;
+        }, executor);
+    }
+
+    private static WorldpayException toWorldpayException(Exception e) {
+        if (e instanceof WorldpayException) {
+            return (WorldpayException) e;
+        }
+        return new WorldpayException(e.getMessage(), e);
+    }
+
 }
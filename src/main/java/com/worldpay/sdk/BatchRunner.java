@@ -0,0 +1,190 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+import com.worldpay.gateway.clearwater.client.core.exception.WorldpayException;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.function.Function;
+
+/**
+ * Runs a gateway call for every item of an {@link Iterable} with bounded concurrency, blocking until every outcome
+ * has been handed to a {@link ResultSink}. Items are read from the iterable lazily, at most {@code maxConcurrency}
+ * items are held at any time.
+ */
+final class BatchRunner {
+
+    /**
+     * Private constructor.
+     */
+    private BatchRunner() {
+    }
+
+    /**
+     * Run the batch and collect the outcomes.
+     *
+     * @param items          the inputs
+     * @param operation      gateway call made for every input
+     * @param maxConcurrency maximum number of calls in flight
+     *
+     * @return the outcome of every input, in completion order
+     */
+    static <I, T> List<OperationResult<I, T>> run(Iterable<? extends I> items,
+                                                  Function<I, CompletableFuture<T>> operation, int maxConcurrency) {
+        List<OperationResult<I, T>> results = new ArrayList<>();
+        run(items, operation, maxConcurrency, results::add);
+        return results;
+    }
+
+    /**
+     * Run the batch, handing every outcome to the sink.
+     *
+     * @param items          the inputs
+     * @param operation      gateway call made for every input
+     * @param maxConcurrency maximum number of calls in flight
+     * @param sink           receiver of the outcomes
+     */
+    static <I, T> void run(Iterable<? extends I> items, Function<I, CompletableFuture<T>> operation,
+                           int maxConcurrency, ResultSink<I, T> sink) {
+        if (items == null) {
+            throw new IllegalArgumentException("items cannot be null");
+        }
+        if (sink == null) {
+            throw new IllegalArgumentException("sink cannot be null");
+        }
+        SinkSubscriber<I, T> subscriber = new SinkSubscriber<>(sink);
+        new BulkOperationPublisher<>(new IterablePublisher<I>(items), operation, maxConcurrency).subscribe(subscriber);
+        subscriber.await();
+    }
+
+    /**
+     * Publisher reading an iterable on demand. Requests are only made from the drain loop of
+     * {@link BulkOperationPublisher}, so the iterator is never accessed concurrently.
+     */
+    private static final class IterablePublisher<I> implements Flow.Publisher<I> {
+
+        private final Iterable<? extends I> items;
+
+        IterablePublisher(Iterable<? extends I> items) {
+            this.items = items;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super I> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+
+                private Iterator<? extends I> iterator;
+
+                private boolean done;
+
+                @Override
+                public void request(long n) {
+                    if (done) {
+                        return;
+                    }
+                    try {
+                        if (iterator == null) {
+                            iterator = items.iterator();
+                        }
+                        for (long i = 0; i < n && iterator.hasNext(); i++) {
+                            subscriber.onNext(iterator.next());
+                        }
+                        if (!iterator.hasNext()) {
+                            done = true;
+                            subscriber.onComplete();
+                        }
+                    } catch (RuntimeException e) {
+                        done = true;
+                        subscriber.onError(e);
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                    done = true;
+                }
+            });
+        }
+    }
+
+    /**
+     * Subscriber handing every outcome to the sink and releasing the caller once the batch is over.
+     */
+    private static final class SinkSubscriber<I, T> implements Flow.Subscriber<OperationResult<I, T>> {
+
+        private final ResultSink<I, T> sink;
+
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private Flow.Subscription subscription;
+
+        private volatile RuntimeException failure;
+
+        SinkSubscriber(ResultSink<I, T> sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(OperationResult<I, T> result) {
+            if (failure != null) {
+                return;
+            }
+            try {
+                sink.accept(result);
+            } catch (RuntimeException e) {
+                failure = e;
+                subscription.cancel();
+                done.countDown();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            failure = throwable instanceof WorldpayException
+                      ? (WorldpayException) throwable
+                      : new WorldpayException("Batch aborted: " + throwable.getMessage(), throwable);
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+
+        void await() {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                subscription.cancel();
+                Thread.currentThread().interrupt();
+                throw new WorldpayException("Interrupted while waiting for the batch to complete", e);
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+}
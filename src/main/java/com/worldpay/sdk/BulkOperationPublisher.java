@@ -0,0 +1,288 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+import com.worldpay.gateway.clearwater.client.core.exception.WorldpayException;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * {@link Flow.Publisher} applying an asynchronous gateway call to every item of a source publisher.
+ * <p>
+ * Items are only requested from the source once the subscriber has requested the matching results, and no more than
+ * {@code maxConcurrency} calls are in flight at any time, so a slow subscriber throttles the calls made to the
+ * gateway. Results are published in completion order, each one carries the input it was made for. A failed call is
+ * published as a failed {@link OperationResult} and does not terminate the stream, an error of the source is
+ * signalled once the calls in flight have been published.
+ * <p>
+ * Supports a single subscriber.
+ *
+ * @param <I> type of the input
+ * @param <T> type of the response
+ */
+final class BulkOperationPublisher<I, T> implements Flow.Publisher<OperationResult<I, T>> {
+
+    /**
+     * Source of the inputs.
+     */
+    private final Flow.Publisher<I> source;
+
+    /**
+     * Gateway call made for every input.
+     */
+    private final Function<I, CompletableFuture<T>> operation;
+
+    /**
+     * Maximum number of calls in flight.
+     */
+    private final int maxConcurrency;
+
+    /**
+     * Whether the publisher has been subscribed to.
+     */
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    /**
+     * Constructor
+     *
+     * @param source         source of the inputs
+     * @param operation      gateway call made for every input
+     * @param maxConcurrency maximum number of calls in flight
+     */
+    BulkOperationPublisher(Flow.Publisher<I> source, Function<I, CompletableFuture<T>> operation,
+                           int maxConcurrency) {
+        if (source == null) {
+            throw new IllegalArgumentException("source cannot be null");
+        }
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be positive");
+        }
+        this.source = source;
+        this.operation = operation;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super OperationResult<I, T>> subscriber) {
+        if (subscriber == null) {
+            throw new NullPointerException("subscriber cannot be null");
+        }
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("Only one subscriber is supported"));
+            return;
+        }
+        source.subscribe(new BulkSubscription<>(subscriber, operation, maxConcurrency));
+    }
+
+    /**
+     * Subscriber to the source and subscription handed to the downstream subscriber. Signals to the downstream
+     * subscriber and requests to the source are only made from {@link #drain()}, which is never run concurrently.
+     */
+    private static final class BulkSubscription<I, T> implements Flow.Subscriber<I>, Flow.Subscription {
+
+        private final Flow.Subscriber<? super OperationResult<I, T>> downstream;
+
+        private final Function<I, CompletableFuture<T>> operation;
+
+        private final int maxConcurrency;
+
+        /**
+         * Completed results not yet published.
+         */
+        private final Queue<OperationResult<I, T>> results = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Results requested by the downstream subscriber and not yet published.
+         */
+        private final AtomicLong demand = new AtomicLong();
+
+        /**
+         * Items requested from the source and not yet received.
+         */
+        private final AtomicLong requested = new AtomicLong();
+
+        /**
+         * Calls in flight.
+         */
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        /**
+         * Number of pending drain passes, the thread moving it from zero runs the drain loop.
+         */
+        private final AtomicInteger wip = new AtomicInteger();
+
+        private volatile Flow.Subscription upstream;
+
+        private volatile boolean done;
+
+        private volatile Throwable error;
+
+        private volatile boolean cancelled;
+
+        /**
+         * Whether the downstream subscriber has been sent a terminal signal, only accessed from the drain loop.
+         */
+        private boolean terminated;
+
+        BulkSubscription(Flow.Subscriber<? super OperationResult<I, T>> downstream,
+                         Function<I, CompletableFuture<T>> operation, int maxConcurrency) {
+            this.downstream = downstream;
+            this.operation = operation;
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            if (upstream != null) {
+                subscription.cancel();
+                return;
+            }
+            upstream = subscription;
+            downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void onNext(I item) {
+            inFlight.incrementAndGet();
+            requested.decrementAndGet();
+            CompletableFuture<T> call;
+            try {
+                call = operation.apply(item);
+            } catch (RuntimeException e) {
+                call = new CompletableFuture<>();
+                call.completeExceptionally(e);
+            }
+            call.whenComplete((response, failure) -> {
+                results.offer(failure == null ? OperationResult.<I, T>success(item, response)
+                                              : OperationResult.<I, T>failure(item, toWorldpayException(failure)));
+                inFlight.decrementAndGet();
+                drain();
+            });
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            done = true;
+            drain();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                upstream.cancel();
+                onError(new IllegalArgumentException("Requested count must be positive, got " + n));
+                return;
+            }
+            long current;
+            long next;
+            do {
+                current = demand.get();
+                next = current + n < 0 ? Long.MAX_VALUE : current + n;
+            } while (!demand.compareAndSet(current, next));
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            upstream.cancel();
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                if (cancelled || terminated) {
+                    results.clear();
+                } else {
+                    emit();
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emit() {
+            long available = demand.get();
+            long emitted = 0;
+            while (emitted != available && !cancelled) {
+                OperationResult<I, T> result = results.poll();
+                if (result == null) {
+                    break;
+                }
+                downstream.onNext(result);
+                emitted++;
+            }
+            if (emitted > 0 && available != Long.MAX_VALUE) {
+                demand.addAndGet(-emitted);
+            }
+            if (cancelled) {
+                return;
+            }
+            if (done) {
+                if (inFlight.get() == 0 && results.isEmpty()) {
+                    terminated = true;
+                    if (error != null) {
+                        downstream.onError(error);
+                    } else {
+                        downstream.onComplete();
+                    }
+                }
+                return;
+            }
+            long pending = requested.get() + inFlight.get();
+            long wanted = Math.min(demand.get() - pending - results.size(), maxConcurrency - pending);
+            if (wanted > 0) {
+                requested.addAndGet(wanted);
+                upstream.request(wanted);
+            }
+        }
+
+        private static WorldpayException toWorldpayException(Throwable failure) {
+            Throwable cause = failure instanceof CompletionException && failure.getCause() != null
+                              ? failure.getCause() : failure;
+            if (cause instanceof WorldpayException) {
+                return (WorldpayException) cause;
+            }
+            return new WorldpayException(cause.getMessage(), cause);
+        }
+    }
+}
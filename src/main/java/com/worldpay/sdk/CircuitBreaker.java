@@ -0,0 +1,276 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker of one endpoint, see {@link CircuitBreakerPolicy}.
+ * <p>
+ * Lock free: the state is an immutable {@link Phase} replaced by compare and set, so that only the thread winning a
+ * transition notifies the listener, and the outcomes are counted in a ring of time buckets updated atomically. Counts
+ * are approximate when a bucket is recycled while calls complete, which does not matter for a rate.
+ */
+class CircuitBreaker {
+
+    /**
+     * Number of buckets the window is divided into.
+     */
+    private static final int BUCKETS = 10;
+
+    private final String endpoint;
+
+    private final CircuitBreakerPolicy policy;
+
+    private final LongSupplier nanoClock;
+
+    private final long bucketNanos;
+
+    private final long slowCallNanos;
+
+    private final long openNanos;
+
+    private final AtomicReference<Phase> phase;
+
+    /**
+     * Time of each bucket, in bucket units, identifying the period it counts.
+     */
+    private final AtomicLongArray epochs = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLongArray calls = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLongArray failures = new AtomicLongArray(BUCKETS);
+
+    private final AtomicLongArray slowCalls = new AtomicLongArray(BUCKETS);
+
+    /**
+     * @param endpoint the endpoint guarded
+     * @param policy   the settings
+     */
+    CircuitBreaker(String endpoint, CircuitBreakerPolicy policy) {
+        this(endpoint, policy, System::nanoTime);
+    }
+
+    /**
+     * @param endpoint  the endpoint guarded
+     * @param policy    the settings
+     * @param nanoClock source of the time in nanoseconds
+     */
+    CircuitBreaker(String endpoint, CircuitBreakerPolicy policy, LongSupplier nanoClock) {
+        this.endpoint = endpoint;
+        this.policy = policy;
+        this.nanoClock = nanoClock;
+        this.bucketNanos = Math.max(1, TimeUnit.MILLISECONDS.toNanos(policy.getWindow()) / BUCKETS);
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(policy.getSlowCallDuration());
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(policy.getOpenDuration());
+        long now = nanoClock.getAsLong();
+        this.phase = new AtomicReference<>(new Phase(CircuitState.CLOSED, now));
+        for (int i = 0; i < BUCKETS; i++) {
+            epochs.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * @return the current state
+     */
+    CircuitState getState() {
+        return phase.get().state;
+    }
+
+    /**
+     * Execute the request unless the circuit is open, and record its outcome unless it is a hedged attempt which was
+     * cancelled.
+     *
+     * @param transport the transport
+     * @param request   the request
+     *
+     * @return the response
+     *
+     * @throws IOException                 if the exchange fails
+     * @throws CircuitBreakerOpenException if the call is rejected
+     */
+    TransportResponse execute(HttpTransport transport, TransportRequest request) throws IOException {
+        Phase permit = acquire();
+        long start = nanoClock.getAsLong();
+        TransportResponse response = null;
+        try {
+            response = transport.execute(request);
+            boolean failed = policy.isFailure(response.getStatusCode());
+            record(permit, !failed, nanoClock.getAsLong() - start);
+            return response;
+        } catch (IOException | RuntimeException e) {
+            if (Hedger.isCancelled()) {
+                release(permit);
+            } else {
+                record(permit, false, nanoClock.getAsLong() - start);
+            }
+            if (response != null) {
+                try {
+                    response.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return the phase the call is made in
+     *
+     * @throws CircuitBreakerOpenException if the call is rejected
+     */
+    Phase acquire() {
+        while (true) {
+            Phase current = phase.get();
+            switch (current.state) {
+                case CLOSED:
+                    return current;
+                case OPEN:
+                    long now = nanoClock.getAsLong();
+                    if (now - current.since < openNanos) {
+                        throw new CircuitBreakerOpenException(endpoint, CircuitState.OPEN);
+                    }
+                    transition(current, new Phase(CircuitState.HALF_OPEN, now));
+                    break;
+                default:
+                    if (current.probes.incrementAndGet() > policy.getProbeCalls()) {
+                        throw new CircuitBreakerOpenException(endpoint, CircuitState.HALF_OPEN);
+                    }
+                    return current;
+            }
+        }
+    }
+
+    /**
+     * Give back the permit of a call which was cancelled, its outcome telling nothing of the health of the service.
+     *
+     * @param permit the phase the call was made in
+     */
+    void release(Phase permit) {
+        if (permit.state == CircuitState.HALF_OPEN) {
+            permit.probes.decrementAndGet();
+        }
+    }
+
+    /**
+     * @param permit   the phase the call was made in
+     * @param success  whether the call succeeded
+     * @param duration the duration of the call in nanoseconds
+     */
+    void record(Phase permit, boolean success, long duration) {
+        boolean slow = duration >= slowCallNanos;
+        if (permit.state == CircuitState.HALF_OPEN) {
+            if (!success || slow) {
+                transition(permit, new Phase(CircuitState.OPEN, nanoClock.getAsLong()));
+            } else if (permit.successes.incrementAndGet() == policy.getProbeCalls()) {
+                transition(permit, new Phase(CircuitState.CLOSED, nanoClock.getAsLong()));
+            }
+            return;
+        }
+        Phase current = phase.get();
+        if (current.state != CircuitState.CLOSED) {
+            return;
+        }
+        long epoch = Math.floorDiv(nanoClock.getAsLong(), bucketNanos);
+        int index = (int) Math.floorMod(epoch, (long) BUCKETS);
+        long bucketEpoch = epochs.get(index);
+        if (bucketEpoch != epoch && epochs.compareAndSet(index, bucketEpoch, epoch)) {
+            calls.set(index, 0);
+            failures.set(index, 0);
+            slowCalls.set(index, 0);
+        }
+        calls.incrementAndGet(index);
+        if (success && !slow) {
+            return;
+        }
+        if (!success) {
+            failures.incrementAndGet(index);
+        }
+        if (slow) {
+            slowCalls.incrementAndGet(index);
+        }
+        if (shouldOpen(epoch, Math.floorDiv(current.since, bucketNanos))) {
+            transition(current, new Phase(CircuitState.OPEN, nanoClock.getAsLong()));
+        }
+    }
+
+    /**
+     * @param epoch      the current bucket time
+     * @param sinceEpoch the bucket time at which the circuit closed, earlier buckets are not counted
+     *
+     * @return whether the failure or slow call rate over the window reaches its threshold
+     */
+    private boolean shouldOpen(long epoch, long sinceEpoch) {
+        long total = 0;
+        long failed = 0;
+        long slow = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long bucketEpoch = epochs.get(i);
+            if (bucketEpoch > epoch - BUCKETS && bucketEpoch >= sinceEpoch) {
+                total += calls.get(i);
+                failed += failures.get(i);
+                slow += slowCalls.get(i);
+            }
+        }
+        if (total < policy.getMinimumCalls() || total == 0) {
+            return false;
+        }
+        return failed * 100 >= policy.getFailureRateThreshold() * total
+               || slow * 100 >= policy.getSlowCallRateThreshold() * total;
+    }
+
+    private void transition(Phase from, Phase to) {
+        if (phase.compareAndSet(from, to)) {
+            CircuitBreakerListener listener = policy.getListener();
+            if (listener != null) {
+                listener.onStateTransition(endpoint, from.state, to.state);
+            }
+        }
+    }
+
+    /**
+     * A state and the time it was entered at, replaced as a whole on each transition.
+     */
+    static final class Phase {
+
+        private final CircuitState state;
+
+        /**
+         * Time in nanoseconds the state was entered at.
+         */
+        private final long since;
+
+        /**
+         * Probe calls let through, while half open.
+         */
+        private final AtomicInteger probes = new AtomicInteger();
+
+        /**
+         * Probe calls which succeeded, while half open.
+         */
+        private final AtomicInteger successes = new AtomicInteger();
+
+        Phase(CircuitState state, long since) {
+            this.state = state;
+            this.since = since;
+        }
+    }
+}
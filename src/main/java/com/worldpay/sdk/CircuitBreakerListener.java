@@ -0,0 +1,30 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+/**
+ * Listener notified of the state transitions of the circuit breakers, e.g. to raise an alert when an endpoint trips.
+ * Called on the thread making the call which caused the transition, so it should return quickly.
+ */
+@FunctionalInterface
+public interface CircuitBreakerListener {
+
+    /**
+     * @param endpoint the endpoint, e.g. {@code /orders/{code}/capture}
+     * @param from     the previous state
+     * @param to       the new state
+     */
+    void onStateTransition(String endpoint, CircuitState from, CircuitState to);
+}
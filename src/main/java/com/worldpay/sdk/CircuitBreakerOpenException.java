@@ -0,0 +1,49 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+import com.worldpay.gateway.clearwater.client.core.exception.WorldpayException;
+
+/**
+ * Thrown without reaching the service when the circuit breaker of the endpoint is open, or half open with all its
+ * probe calls in flight.
+ */
+public class CircuitBreakerOpenException extends WorldpayException {
+
+    private static final long serialVersionUID = 4185302279386461923L;
+
+    /**
+     * Endpoint of the rejected call.
+     */
+    private final String endpoint;
+
+    /**
+     * Create a new exception
+     *
+     * @param endpoint the endpoint of the rejected call
+     * @param state    the state of its circuit breaker
+     */
+    public CircuitBreakerOpenException(String endpoint, CircuitState state) {
+        super("Circuit breaker " + state + " for " + endpoint);
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * @return the endpoint of the rejected call, e.g. {@code /orders/{code}/capture}
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+/**
+ * Settings of the circuit breakers guarding each endpoint of the service: {@code /orders},
+ * {@code /orders/{code}}, {@code /orders/{code}/capture}, {@code /orders/{code}/refund} and {@code /tokens}.
+ * <p>
+ * A circuit opens when, over the sliding window, enough calls were made and the share of the failed calls or of the
+ * slow calls reaches its threshold. Calls fail with an I/O error or a 5xx status; client errors are the caller's and
+ * count as successes. While open, calls fail fast with a {@link CircuitBreakerOpenException}. Once the open duration
+ * has elapsed a few probe calls are let through: the circuit closes when they all succeed and opens again as soon as
+ * one of them fails or is slow.
+ */
+public class CircuitBreakerPolicy {
+
+    private final int failureRateThreshold;
+
+    private final int slowCallRateThreshold;
+
+    private final long slowCallDuration;
+
+    private final long window;
+
+    private final int minimumCalls;
+
+    private final long openDuration;
+
+    private final int probeCalls;
+
+    private final CircuitBreakerListener listener;
+
+    /**
+     * Private constructor, to be used only by {@link Builder}
+     *
+     * @param builder the builder holding the settings
+     */
+    private CircuitBreakerPolicy(Builder builder) {
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.slowCallRateThreshold = builder.slowCallRateThreshold;
+        this.slowCallDuration = builder.slowCallDuration;
+        this.window = builder.window;
+        this.minimumCalls = builder.minimumCalls;
+        this.openDuration = builder.openDuration;
+        this.probeCalls = builder.probeCalls;
+        this.listener = builder.listener;
+    }
+
+    public int getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public int getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    public long getSlowCallDuration() {
+        return slowCallDuration;
+    }
+
+    public long getWindow() {
+        return window;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    public long getOpenDuration() {
+        return openDuration;
+    }
+
+    public int getProbeCalls() {
+        return probeCalls;
+    }
+
+    public CircuitBreakerListener getListener() {
+        return listener;
+    }
+
+    /**
+     * @param statusCode the HTTP status code of a response
+     *
+     * @return whether the response counts as a failure of the service
+     */
+    public boolean isFailure(int statusCode) {
+        return statusCode >= 500;
+    }
+
+    /**
+     * Builder class to build {@link CircuitBreakerPolicy}
+     */
+    public static class Builder {
+
+        /**
+         * Percentage of failed calls opening the circuit.
+         */
+        private int failureRateThreshold = 50;
+
+        /**
+         * Percentage of slow calls opening the circuit.
+         */
+        private int slowCallRateThreshold = 80;
+
+        /**
+         * Time in milliseconds from which a call is slow.
+         */
+        private long slowCallDuration = 10000;
+
+        /**
+         * Time in milliseconds over which the calls are counted.
+         */
+        private long window = 10000;
+
+        /**
+         * Number of calls in the window below which the circuit stays closed.
+         */
+        private int minimumCalls = 20;
+
+        /**
+         * Time in milliseconds the circuit stays open before letting probe calls through.
+         */
+        private long openDuration = 30000;
+
+        /**
+         * Number of probe calls let through while half open.
+         */
+        private int probeCalls = 5;
+
+        /**
+         * Listener notified of the state transitions, may be null.
+         */
+        private CircuitBreakerListener listener;
+
+        public Builder() {
+        }
+
+        public Builder setFailureRateThreshold(int failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        public Builder setSlowCallRateThreshold(int slowCallRateThreshold) {
+            this.slowCallRateThreshold = slowCallRateThreshold;
+            return this;
+        }
+
+        public Builder setSlowCallDuration(long slowCallDuration) {
+            this.slowCallDuration = slowCallDuration;
+            return this;
+        }
+
+        public Builder setWindow(long window) {
+            this.window = window;
+            return this;
+        }
+
+        public Builder setMinimumCalls(int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+            return this;
+        }
+
+        public Builder setOpenDuration(long openDuration) {
+            this.openDuration = openDuration;
+            return this;
+        }
+
+        public Builder setProbeCalls(int probeCalls) {
+            if (probeCalls < 1) {
+                throw new IllegalArgumentException("probeCalls must be at least 1");
+            }
+            this.probeCalls = probeCalls;
+            return this;
+        }
+
+        public Builder setListener(CircuitBreakerListener listener) {
+            this.listener = listener;
+            return this;
+        }
+
+        /**
+         * Build {@link CircuitBreakerPolicy}
+         *
+         * @return {@link CircuitBreakerPolicy}
+         */
+        public CircuitBreakerPolicy build() {
+            return new CircuitBreakerPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The circuit breakers of a client, one per endpoint.
+ */
+class CircuitBreakers {
+
+    /**
+     * Placeholder of the order code in endpoint names.
+     */
+    private static final String CODE = "{code}";
+
+    private static final String TOKENS = "tokens";
+
+    private final CircuitBreakerPolicy policy;
+
+    private final ConcurrentMap<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    /**
+     * @param policy the settings of the circuit breakers
+     */
+    CircuitBreakers(CircuitBreakerPolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * @param uri    the full URI of a request
+     * @param offset the position of the resource path in the URI, following the base URI
+     *
+     * @return the circuit breaker of the endpoint of the request
+     */
+    CircuitBreaker forUri(String uri, int offset) {
+        return forEndpoint(endpointOf(uri, offset));
+    }
+
+    /**
+     * @param endpoint the endpoint, e.g. {@code /orders/{code}/capture}
+     *
+     * @return its circuit breaker
+     */
+    CircuitBreaker forEndpoint(String endpoint) {
+        CircuitBreaker circuitBreaker = circuitBreakers.get(endpoint);
+        if (circuitBreaker == null) {
+            circuitBreaker = circuitBreakers.computeIfAbsent(endpoint, name -> new CircuitBreaker(name, policy));
+        }
+        return circuitBreaker;
+    }
+
+    /**
+     * Name the endpoint of a resource path, replacing the order code: {@code /orders/abc/refund} is
+     * {@code /orders/{code}/refund}. Every token operation is named {@code /tokens}.
+     *
+     * @param uri    the full URI of a request
+     * @param offset the position of the resource path in the URI
+     *
+     * @return the endpoint
+     */
+    static String endpointOf(String uri, int offset) {
+        int end = uri.indexOf('?', offset);
+        if (end < 0) {
+            end = uri.length();
+        }
+        int start = offset < end && uri.charAt(offset) == '/' ? offset + 1 : offset;
+        int rootEnd = uri.indexOf('/', start);
+        if (rootEnd < 0 || rootEnd >= end - 1) {
+            return "/" + uri.substring(start, rootEnd < 0 || rootEnd > end ? end : rootEnd);
+        }
+        String root = uri.substring(start, rootEnd);
+        if (TOKENS.equals(root)) {
+            return "/" + TOKENS;
+        }
+        int codeEnd = uri.indexOf('/', rootEnd + 1);
+        if (codeEnd < 0 || codeEnd >= end - 1) {
+            return "/" + root + "/" + CODE;
+        }
+        return "/" + root + "/" + CODE + "/" + uri.substring(codeEnd + 1, end);
+    }
+}
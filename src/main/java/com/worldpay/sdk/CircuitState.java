@@ -0,0 +1,37 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+/**
+ * State of the circuit breaker of an endpoint.
+ */
+public enum CircuitState {
+
+    /**
+     * Calls go through, their outcome is recorded.
+     */
+    CLOSED,
+
+    /**
+     * Calls fail fast with a {@link CircuitBreakerOpenException} until the open duration has elapsed.
+     */
+    OPEN,
+
+    /**
+     * A limited number of probe calls go through, the others fail fast. The circuit closes once every probe has
+     * succeeded and opens again on the first probe which fails.
+     */
+    HALF_OPEN
+}
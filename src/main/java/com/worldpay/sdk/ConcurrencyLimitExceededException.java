@@ -0,0 +1,48 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+import com.worldpay.gateway.clearwater.client.core.exception.WorldpayException;
+
+/**
+ * Thrown without reaching the service when the calls in flight are at the concurrency limit and the call could not
+ * wait for a permit.
+ */
+public class ConcurrencyLimitExceededException extends WorldpayException {
+
+    private static final long serialVersionUID = 7318809525419937764L;
+
+    /**
+     * Concurrency limit when the call was rejected.
+     */
+    private final int limit;
+
+    /**
+     * Create a new exception
+     *
+     * @param limit the concurrency limit when the call was rejected
+     */
+    public ConcurrencyLimitExceededException(int limit) {
+        super("Concurrency limit of " + limit + " calls in flight exceeded");
+        this.limit = limit;
+    }
+
+    /**
+     * @return the concurrency limit when the call was rejected
+     */
+    public int getLimit() {
+        return limit;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+/**
+ * Settings of the adaptive limit on the number of calls in flight to the service.
+ * <p>
+ * The limit follows a gradient of the latency: each response compares the recent round trip time with the lowest
+ * one observed. While the service answers as fast as when idle the limit grows, by about the square root of the
+ * limit; when the round trip time rises beyond the tolerance the limit shrinks in proportion, and a failed call (I/O
+ * error, 429 or 5xx response) cuts it by the backoff ratio. Every thousand calls the limit is lowered to its square
+ * root for a moment, to measure the round trip time of the idle service again. Calls over the limit wait in a queue,
+ * and fail with a {@link ConcurrencyLimitExceededException} when the queue is full or they waited for the maximum
+ * queue wait.
+ */
+public class ConcurrencyLimitPolicy {
+
+    private final int initialLimit;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double rttTolerance;
+
+    private final double backoffRatio;
+
+    private final int maxQueueDepth;
+
+    private final long maxQueueWait;
+
+    /**
+     * Private constructor, to be used only by {@link Builder}
+     *
+     * @param builder the builder holding the settings
+     */
+    private ConcurrencyLimitPolicy(Builder builder) {
+        this.initialLimit = builder.initialLimit;
+        this.minLimit = builder.minLimit;
+        this.maxLimit = builder.maxLimit;
+        this.rttTolerance = builder.rttTolerance;
+        this.backoffRatio = builder.backoffRatio;
+        this.maxQueueDepth = builder.maxQueueDepth;
+        this.maxQueueWait = builder.maxQueueWait;
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public double getRttTolerance() {
+        return rttTolerance;
+    }
+
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth;
+    }
+
+    public long getMaxQueueWait() {
+        return maxQueueWait;
+    }
+
+    /**
+     * Builder class to build {@link ConcurrencyLimitPolicy}
+     */
+    public static class Builder {
+
+        /**
+         * Number of calls in flight allowed before any response is observed.
+         */
+        private int initialLimit = 20;
+
+        private int minLimit = 1;
+
+        private int maxLimit = 200;
+
+        /**
+         * Ratio of the recent to the lowest round trip time tolerated before the limit shrinks.
+         */
+        private double rttTolerance = 1.5;
+
+        /**
+         * Factor applied to the limit when a call fails.
+         */
+        private double backoffRatio = 0.9;
+
+        /**
+         * Number of calls which may wait for a permit, 0 to reject the calls over the limit at once.
+         */
+        private int maxQueueDepth = 100;
+
+        /**
+         * Time in milliseconds a call may wait for a permit.
+         */
+        private long maxQueueWait = 500;
+
+        public Builder() {
+        }
+
+        public Builder setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        public Builder setMinLimit(int minLimit) {
+            if (minLimit < 1) {
+                throw new IllegalArgumentException("minLimit must be at least 1");
+            }
+            this.minLimit = minLimit;
+            return this;
+        }
+
+        public Builder setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        public Builder setRttTolerance(double rttTolerance) {
+            if (rttTolerance < 1) {
+                throw new IllegalArgumentException("rttTolerance must be at least 1");
+            }
+            this.rttTolerance = rttTolerance;
+            return this;
+        }
+
+        public Builder setBackoffRatio(double backoffRatio) {
+            if (!(backoffRatio > 0 && backoffRatio < 1)) {
+                throw new IllegalArgumentException("backoffRatio must be between 0 and 1");
+            }
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        public Builder setMaxQueueDepth(int maxQueueDepth) {
+            this.maxQueueDepth = maxQueueDepth;
+            return this;
+        }
+
+        public Builder setMaxQueueWait(long maxQueueWait) {
+            this.maxQueueWait = maxQueueWait;
+            return this;
+        }
+
+        /**
+         * Build {@link ConcurrencyLimitPolicy}
+         *
+         * @return {@link ConcurrencyLimitPolicy}
+         */
+        public ConcurrencyLimitPolicy build() {
+            if (minLimit > maxLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+                throw new IllegalArgumentException("Limits must satisfy minLimit <= initialLimit <= maxLimit");
+            }
+            return new ConcurrencyLimitPolicy(this);
+        }
+    }
+}
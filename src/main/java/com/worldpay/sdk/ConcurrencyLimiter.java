@@ -0,0 +1,251 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Adaptive limit on the calls in flight, see {@link ConcurrencyLimitPolicy}.
+ * <p>
+ * The permits and the limit are guarded by a lock held only to count and to update the limit, never during a call.
+ * Waiting calls are woken in arrival order. The fields read by {@link ConcurrencyMetrics} are volatile so that
+ * observing them does not contend with the calls.
+ */
+class ConcurrencyLimiter {
+
+    /**
+     * Number of samples averaged by the recent round trip time.
+     */
+    private static final int SHORT_WINDOW = 10;
+
+    /**
+     * Number of samples after which the limit is lowered to measure the round trip time of the idle service again.
+     */
+    private static final int PROBE_INTERVAL = 1000;
+
+    /**
+     * Share of the new estimate blended into the limit at each sample.
+     */
+    private static final double SMOOTHING = 0.2;
+
+    private final ConcurrencyLimitPolicy policy;
+
+    private final LongSupplier nanoClock;
+
+    private final long maxQueueWaitNanos;
+
+    /**
+     * Fair, so that a call arriving while others wait for a permit queues behind them instead of barging in.
+     */
+    private final ReentrantLock lock = new ReentrantLock(true);
+
+    private final Condition available = lock.newCondition();
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Exact limit, guarded by the lock.
+     */
+    private double estimate;
+
+    /**
+     * Recent round trip time and lowest round trip time since the last probe, in nanoseconds, guarded by the lock;
+     * 0 until the first sample.
+     */
+    private double shortRtt;
+
+    private double minRtt;
+
+    /**
+     * Samples until the next probe, guarded by the lock.
+     */
+    private int untilProbe = PROBE_INTERVAL;
+
+    private volatile int limit;
+
+    private volatile int inFlight;
+
+    private volatile int queueDepth;
+
+    /**
+     * @param policy the settings
+     */
+    ConcurrencyLimiter(ConcurrencyLimitPolicy policy) {
+        this(policy, System::nanoTime);
+    }
+
+    /**
+     * @param policy    the settings
+     * @param nanoClock source of the time in nanoseconds
+     */
+    ConcurrencyLimiter(ConcurrencyLimitPolicy policy, LongSupplier nanoClock) {
+        this.policy = policy;
+        this.nanoClock = nanoClock;
+        this.maxQueueWaitNanos = TimeUnit.MILLISECONDS.toNanos(policy.getMaxQueueWait());
+        this.estimate = policy.getInitialLimit();
+        this.limit = policy.getInitialLimit();
+    }
+
+    /**
+     * Take a permit, waiting in the queue while the calls in flight are at the limit.
+     *
+     * @return the time the call started, as given by the clock, to be handed back to {@link #release}
+     *
+     * @throws ConcurrencyLimitExceededException if the queue is full or the maximum queue wait elapsed
+     * @throws InterruptedIOException            if the thread is interrupted while waiting
+     */
+    long acquire() throws InterruptedIOException {
+        lock.lock();
+        try {
+            if (inFlight >= limit) {
+                await();
+            }
+            inFlight++;
+        } finally {
+            lock.unlock();
+        }
+        return nanoClock.getAsLong();
+    }
+
+    /**
+     * Wait for a permit, the lock being held.
+     *
+     * @throws ConcurrencyLimitExceededException if the queue is full or the maximum queue wait elapsed
+     * @throws InterruptedIOException            if the thread is interrupted while waiting
+     */
+    private void await() throws InterruptedIOException {
+        if (queueDepth >= policy.getMaxQueueDepth()) {
+            throw reject();
+        }
+        queueDepth++;
+        try {
+            long remaining = maxQueueWaitNanos;
+            while (inFlight >= limit) {
+                if (remaining <= 0) {
+                    throw reject();
+                }
+                remaining = available.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a concurrency permit");
+        } finally {
+            queueDepth--;
+        }
+    }
+
+    /**
+     * @return the exception rejecting a call
+     */
+    private ConcurrencyLimitExceededException reject() {
+        rejected.increment();
+        return new ConcurrencyLimitExceededException(limit);
+    }
+
+    /**
+     * Give the permit back and adjust the limit to the outcome of the call.
+     *
+     * @param start  the time the call started, returned by {@link #acquire()}
+     * @param failed whether the call failed with an I/O error, a 429 or a 5xx response
+     */
+    void release(long start, boolean failed) {
+        long rtt = nanoClock.getAsLong() - start;
+        lock.lock();
+        try {
+            int previous = limit;
+            update(rtt, failed, inFlight);
+            inFlight--;
+            if (limit > previous) {
+                available.signalAll();
+            } else if (inFlight < limit) {
+                available.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Give the permit back without adjusting the limit, when the call was not made.
+     */
+    void cancel() {
+        lock.lock();
+        try {
+            inFlight--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Update the limit from a sample, the lock being held.
+     *
+     * @param rtt      the round trip time of the call in nanoseconds
+     * @param failed   whether the call failed
+     * @param inFlight the number of calls in flight, this one included
+     */
+    private void update(long rtt, boolean failed, int inFlight) {
+        if (failed) {
+            setEstimate(estimate * policy.getBackoffRatio());
+            return;
+        }
+        double sample = Math.max(1, rtt);
+        if (--untilProbe <= 0) {
+            // the lowest round trip time may have been measured under load, or the service may have slowed down
+            untilProbe = PROBE_INTERVAL;
+            minRtt = 0;
+            setEstimate(Math.sqrt(estimate));
+        }
+        shortRtt = shortRtt == 0 ? sample : shortRtt + (sample - shortRtt) / SHORT_WINDOW;
+        minRtt = minRtt == 0 ? sample : Math.min(minRtt, sample);
+        if (inFlight < estimate / 2) {
+            // the demand is below the limit, which says nothing of the capacity of the service
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, policy.getRttTolerance() * minRtt / shortRtt));
+        double target = estimate * gradient + Math.sqrt(estimate);
+        setEstimate(estimate * (1 - SMOOTHING) + target * SMOOTHING);
+    }
+
+    /**
+     * @param value the new exact limit, bounded by the policy
+     */
+    private void setEstimate(double value) {
+        estimate = Math.max(policy.getMinLimit(), Math.min(policy.getMaxLimit(), value));
+        limit = (int) estimate;
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    int getInFlight() {
+        return inFlight;
+    }
+
+    int getQueueDepth() {
+        return queueDepth;
+    }
+
+    long getRejected() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+/**
+ * Live view of the adaptive concurrency limit of a client, see {@link ConcurrencyLimitPolicy}.
+ */
+public class ConcurrencyMetrics {
+
+    private final ConcurrencyLimiter limiter;
+
+    /**
+     * @param limiter the limiter observed
+     */
+    ConcurrencyMetrics(ConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    /**
+     * @return the number of calls currently allowed in flight
+     */
+    public int getLimit() {
+        return limiter.getLimit();
+    }
+
+    /**
+     * @return the number of calls in flight
+     */
+    public int getInFlight() {
+        return limiter.getInFlight();
+    }
+
+    /**
+     * @return the number of calls waiting for a permit
+     */
+    public int getQueueDepth() {
+        return limiter.getQueueDepth();
+    }
+
+    /**
+     * @return the number of calls rejected since the client was created
+     */
+    public long getRejected() {
+        return limiter.getRejected();
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrencyMetrics{" +
+               "limit=" + getLimit() +
+               ", inFlight=" + getInFlight() +
+               ", queueDepth=" + getQueueDepth() +
+               ", rejected=" + getRejected() +
+               '}';
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of new and reused connections recorded by a {@link HttpTransport}.
+ */
+public class ConnectionMetrics {
+
+    /**
+     * Number of exchanges which received a response.
+     */
+    private final LongAdder exchanges = new LongAdder();
+
+    /**
+     * Number of connections opened.
+     */
+    private final LongAdder newConnections = new LongAdder();
+
+    /**
+     * Record an exchange which received a response.
+     */
+    public void recordExchange() {
+        exchanges.increment();
+    }
+
+    /**
+     * Record a newly opened connection.
+     */
+    public void recordNewConnection() {
+        newConnections.increment();
+    }
+
+    /**
+     * @return the number of exchanges which received a response
+     */
+    public long getExchanges() {
+        return exchanges.sum();
+    }
+
+    /**
+     * @return the number of connections opened
+     */
+    public long getNewConnections() {
+        return newConnections.sum();
+    }
+
+    /**
+     * @return the number of exchanges served by a connection that was already open
+     */
+    public long getReusedConnections() {
+        return Math.max(0, exchanges.sum() - newConnections.sum());
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionMetrics{" +
+               "exchanges=" + getExchanges() +
+               ", newConnections=" + getNewConnections() +
+               ", reusedConnections=" + getReusedConnections() +
+               '}';
+    }
+}
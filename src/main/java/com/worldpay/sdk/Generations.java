@@ -0,0 +1,67 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Generation of the cached entries, bumped by every invalidation, so that a value fetched before an invalidation is
+ * not cached after it.
+ * <p>
+ * Keys share a fixed number of counters by hash: an invalidation of one key may make a concurrent fill of another key
+ * skip the cache, which costs a request but never serves a stale value.
+ */
+class Generations {
+
+    /**
+     * Number of counters, a power of two.
+     */
+    private static final int STRIPES = 1024;
+
+    private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+    /**
+     * @param key the key
+     *
+     * @return the current generation of the key, to be read before fetching its value
+     */
+    long get(String key) {
+        return generations.get(index(key));
+    }
+
+    /**
+     * Start a new generation of the key, before its entries are removed.
+     *
+     * @param key the key
+     */
+    void bump(String key) {
+        generations.incrementAndGet(index(key));
+    }
+
+    /**
+     * @param key        the key
+     * @param generation the generation read before fetching the value
+     *
+     * @return whether the key was not invalidated since
+     */
+    boolean isCurrent(String key, long generation) {
+        return generations.get(index(key)) == generation;
+    }
+
+    private static int index(String key) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+}
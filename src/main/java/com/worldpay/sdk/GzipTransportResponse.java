@@ -0,0 +1,136 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+import com.worldpay.sdk.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+
+import static com.worldpay.sdk.util.WorldpayLibraryConstants.CONTENT_ENCODING;
+import static com.worldpay.sdk.util.WorldpayLibraryConstants.GZIP;
+
+/**
+ * {@link TransportResponse} decompressing a gzip encoded payload as it is read. The {@code Content-Encoding} and
+ * {@code Content-Length} headers, which describe the compressed payload, are hidden.
+ */
+class GzipTransportResponse implements TransportResponse {
+
+    private static final String CONTENT_LENGTH = "Content-Length";
+
+    /**
+     * Size of the buffer of the gzip decoder.
+     */
+    private static final int BUFFER_SIZE = 8192;
+
+    private final TransportResponse response;
+
+    private InputStream body;
+
+    private GZIPInputStream gzip;
+
+    /**
+     * @param response the response with a gzip encoded payload
+     */
+    GzipTransportResponse(TransportResponse response) {
+        this.response = response;
+    }
+
+    /**
+     * Decompress the payload of the response if it is gzip encoded.
+     *
+     * @param response the transport response
+     *
+     * @return a response with a decompressed payload, or {@code response} itself if it is not encoded
+     */
+    static TransportResponse decode(TransportResponse response) {
+        String encoding = response.getHeader(CONTENT_ENCODING);
+        if (encoding == null) {
+            return response;
+        }
+        encoding = encoding.trim();
+        return GZIP.equalsIgnoreCase(encoding) || "x-gzip".equalsIgnoreCase(encoding)
+               ? new GzipTransportResponse(response) : response;
+    }
+
+    @Override
+    public int getStatusCode() throws IOException {
+        return response.getStatusCode();
+    }
+
+    @Override
+    public String getHeader(String name) {
+        return isHidden(name) ? null : response.getHeader(name);
+    }
+
+    @Override
+    public Map<String, List<String>> getHeaders() {
+        Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        for (Map.Entry<String, List<String>> header : response.getHeaders().entrySet()) {
+            if (!isHidden(header.getKey())) {
+                headers.put(header.getKey(), header.getValue());
+            }
+        }
+        return Collections.unmodifiableMap(headers);
+    }
+
+    /**
+     * @return the decompressed payload, null if the response has none
+     */
+    @Override
+    public InputStream getBody() throws IOException {
+        if (body == null) {
+            InputStream encoded = response.getBody();
+            if (encoded == null) {
+                return null;
+            }
+            // an empty payload carries no gzip header
+            PushbackInputStream in = new PushbackInputStream(StreamUtils.closeShield(encoded), 1);
+            int first = in.read();
+            if (first == -1) {
+                body = in;
+            } else {
+                in.unread(first);
+                gzip = new GZIPInputStream(in, BUFFER_SIZE);
+                body = gzip;
+            }
+        }
+        return body;
+    }
+
+    /**
+     * Release the decoder, then let the transport response drain what is left of the compressed payload.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (gzip != null) {
+                gzip.close();
+            }
+        } finally {
+            response.close();
+        }
+    }
+
+    private static boolean isHidden(String name) {
+        return CONTENT_ENCODING.equalsIgnoreCase(name) || CONTENT_LENGTH.equalsIgnoreCase(name);
+    }
+}
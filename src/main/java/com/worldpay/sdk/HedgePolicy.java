@@ -0,0 +1,130 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+/**
+ * Settings of hedged GET requests, such as {@link OrderService#findOrder} and {@link TokenService#get}.
+ * <p>
+ * When a GET has not been answered after the hedge delay, a second identical request is sent on another connection;
+ * the first response wins and the other request is cancelled. The delay is the given percentile of the latency of
+ * the recent GETs, or the initial delay until enough of them were observed. Hedges are capped to a share of the
+ * GETs, so that a slow service does not receive twice the traffic.
+ * <p>
+ * The cancelled request is interrupted, which aborts it with the {@link Http2Transport}. Reads of the default
+ * {@link UrlConnectionTransport} do not respond to interrupts: the cancelled request then holds its connection until
+ * its response arrives, which is discarded, or its read timeout elapses.
+ */
+public class HedgePolicy {
+
+    private final double percentile;
+
+    private final long initialDelay;
+
+    private final long minDelay;
+
+    private final int maxHedgeRate;
+
+    /**
+     * Private constructor, to be used only by {@link Builder}
+     *
+     * @param builder the builder holding the settings
+     */
+    private HedgePolicy(Builder builder) {
+        this.percentile = builder.percentile;
+        this.initialDelay = builder.initialDelay;
+        this.minDelay = builder.minDelay;
+        this.maxHedgeRate = builder.maxHedgeRate;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public long getInitialDelay() {
+        return initialDelay;
+    }
+
+    public long getMinDelay() {
+        return minDelay;
+    }
+
+    public int getMaxHedgeRate() {
+        return maxHedgeRate;
+    }
+
+    /**
+     * Builder class to build {@link HedgePolicy}
+     */
+    public static class Builder {
+
+        /**
+         * Percentile of the latency of the recent GETs after which a hedge is sent.
+         */
+        private double percentile = 95;
+
+        /**
+         * Time in milliseconds after which a hedge is sent until enough GETs were observed.
+         */
+        private long initialDelay = 100;
+
+        /**
+         * Lowest hedge delay in milliseconds.
+         */
+        private long minDelay = 5;
+
+        /**
+         * Highest number of hedges per hundred GETs.
+         */
+        private int maxHedgeRate = 10;
+
+        public Builder() {
+        }
+
+        public Builder setPercentile(double percentile) {
+            if (!(percentile > 0 && percentile < 100)) {
+                throw new IllegalArgumentException("percentile must be between 0 and 100");
+            }
+            this.percentile = percentile;
+            return this;
+        }
+
+        public Builder setInitialDelay(long initialDelay) {
+            this.initialDelay = initialDelay;
+            return this;
+        }
+
+        public Builder setMinDelay(long minDelay) {
+            this.minDelay = minDelay;
+            return this;
+        }
+
+        public Builder setMaxHedgeRate(int maxHedgeRate) {
+            if (maxHedgeRate < 0 || maxHedgeRate > 100) {
+                throw new IllegalArgumentException("maxHedgeRate must be between 0 and 100");
+            }
+            this.maxHedgeRate = maxHedgeRate;
+            return this;
+        }
+
+        /**
+         * Build {@link HedgePolicy}
+         *
+         * @return {@link HedgePolicy}
+         */
+        public HedgePolicy build() {
+            return new HedgePolicy(this);
+        }
+    }
+}
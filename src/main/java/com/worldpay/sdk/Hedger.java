@@ -0,0 +1,346 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends hedged GET requests, see {@link HedgePolicy}.
+ * <p>
+ * Both attempts run on threads of the hedger while the caller waits for the first response. They never run on the
+ * executor of the client: a bounded executor busy with future returning calls would otherwise leave the callers
+ * waiting for attempts which cannot start. The losing attempt is interrupted, and its response closed should it
+ * arrive anyway; a cancelled attempt is not counted as a failure by the circuit breaker nor the concurrency limit,
+ * see {@link #isCancelled()}. Reads of {@link java.net.HttpURLConnection} do not respond to interrupts, so with
+ * the default transport the loser holds its connection until its response arrives or its read timeout elapses.
+ * The hedge delay is recomputed from a ring of the
+ * latest latencies every {@value #REFRESH_INTERVAL} samples, by a single thread at a time. The hedge rate is capped
+ * by credits earned by every GET and spent by every hedge.
+ */
+class Hedger {
+
+    /**
+     * Number of latencies kept, a power of two.
+     */
+    private static final int SAMPLES = 1024;
+
+    /**
+     * Number of latencies observed before the percentile replaces the initial delay.
+     */
+    private static final int MIN_SAMPLES = 128;
+
+    private static final int REFRESH_INTERVAL = 128;
+
+    /**
+     * Credits spent by a hedge; a GET earns the maximum hedge rate.
+     */
+    private static final long HEDGE_COST = 100;
+
+    /**
+     * Number of hedges which may be sent in a row.
+     */
+    private static final long BURST = 10;
+
+    /**
+     * Attempt run by the current thread, null outside of an attempt.
+     */
+    private static final ThreadLocal<Attempt> CURRENT = new ThreadLocal<>();
+
+    private final HedgePolicy policy;
+
+    private final Executor executor;
+
+    /**
+     * Executor created by this hedger, shut down when it is closed.
+     */
+    private final ExecutorService ownedExecutor;
+
+    private final long minDelayNanos;
+
+    private final AtomicLongArray latencies = new AtomicLongArray(SAMPLES);
+
+    private final AtomicLong samples = new AtomicLong();
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private final AtomicLong credits = new AtomicLong(BURST * HEDGE_COST);
+
+    private final LongAdder hedges = new LongAdder();
+
+    private volatile long delayNanos;
+
+    /**
+     * @param policy the settings
+     */
+    Hedger(HedgePolicy policy) {
+        this(policy, newAttemptPool());
+    }
+
+    /**
+     * @param policy   the settings
+     * @param executor executor running the attempts, which must not queue them
+     */
+    Hedger(HedgePolicy policy, Executor executor) {
+        this.policy = policy;
+        this.executor = executor;
+        this.ownedExecutor = executor instanceof ExecutorService ? (ExecutorService) executor : null;
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(policy.getMinDelay());
+        this.delayNanos = Math.max(minDelayNanos, TimeUnit.MILLISECONDS.toNanos(policy.getInitialDelay()));
+    }
+
+    /**
+     * Make the attempt, and a second one if the first has not answered after the hedge delay and the hedge rate
+     * allows it.
+     *
+     * @param attempt an attempt of the request, which may run twice at the same time
+     *
+     * @return the first response
+     *
+     * @throws IOException if every attempt made failed
+     */
+    TransportResponse execute(Callable<TransportResponse> attempt) throws IOException {
+        earnCredit();
+        Race race = new Race(attempt);
+        Attempt primary = race.start();
+        Attempt hedge = null;
+        try {
+            TransportResponse response = race.await(delayNanos);
+            if (response != null) {
+                return response;
+            }
+            if (spendCredit()) {
+                hedges.increment();
+                hedge = race.start();
+            }
+            return race.await(-1);
+        } finally {
+            primary.cancel();
+            if (hedge != null) {
+                hedge.cancel();
+            }
+        }
+    }
+
+    /**
+     * @return whether the current thread runs a hedged attempt which lost the race, so that its failure is the
+     * consequence of its cancellation rather than a failure of the service
+     */
+    static boolean isCancelled() {
+        Attempt current = CURRENT.get();
+        return current != null && current.cancelled;
+    }
+
+    /**
+     * Stop the threads of the hedger once the attempts in progress are over.
+     */
+    void close() {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    /**
+     * @return the current hedge delay in nanoseconds
+     */
+    long getDelayNanos() {
+        return delayNanos;
+    }
+
+    /**
+     * @return the number of hedges sent
+     */
+    long getHedges() {
+        return hedges.sum();
+    }
+
+    private void earnCredit() {
+        long max = BURST * HEDGE_COST;
+        while (true) {
+            long current = credits.get();
+            if (current >= max || credits.compareAndSet(current, Math.min(max, current + policy.getMaxHedgeRate()))) {
+                return;
+            }
+        }
+    }
+
+    private boolean spendCredit() {
+        while (true) {
+            long current = credits.get();
+            if (current < HEDGE_COST) {
+                return false;
+            }
+            if (credits.compareAndSet(current, current - HEDGE_COST)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Pool of daemon threads which never queues an attempt: a thread is started whenever none is idle, so there are at
+     * most two per GET in progress, and idle threads exit after a minute.
+     */
+    private static ExecutorService newAttemptPool() {
+        final AtomicInteger count = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "worldpay-hedge-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                                      threadFactory);
+    }
+
+    /**
+     * Record the latency of a successful attempt, and refresh the hedge delay periodically.
+     *
+     * @param latencyNanos the latency in nanoseconds
+     */
+    private void record(long latencyNanos) {
+        long count = samples.getAndIncrement() + 1;
+        latencies.set((int) (count - 1) & (SAMPLES - 1), latencyNanos);
+        if (count % REFRESH_INTERVAL == 0 && count >= MIN_SAMPLES && refreshing.compareAndSet(false, true)) {
+            try {
+                int size = (int) Math.min(count, SAMPLES);
+                long[] sorted = new long[size];
+                for (int i = 0; i < size; i++) {
+                    sorted[i] = latencies.get(i);
+                }
+                Arrays.sort(sorted);
+                int rank = (int) Math.ceil(policy.getPercentile() / 100 * size) - 1;
+                delayNanos = Math.max(minDelayNanos, sorted[Math.max(0, rank)]);
+            } finally {
+                refreshing.set(false);
+            }
+        }
+    }
+
+    /**
+     * Attempts of one request racing for the first response.
+     */
+    private final class Race {
+
+        private final Callable<TransportResponse> attempt;
+
+        private final CompletableFuture<TransportResponse> winner = new CompletableFuture<>();
+
+        /**
+         * Attempts started which have not failed.
+         */
+        private final AtomicInteger pending = new AtomicInteger();
+
+        Race(Callable<TransportResponse> attempt) {
+            this.attempt = attempt;
+        }
+
+        Attempt start() {
+            pending.incrementAndGet();
+            Attempt task = new Attempt(this);
+            executor.execute(task.future);
+            return task;
+        }
+
+        private void run(Attempt task) {
+            long start = System.nanoTime();
+            CURRENT.set(task);
+            try {
+                TransportResponse response = attempt.call();
+                record(System.nanoTime() - start);
+                if (!winner.complete(response)) {
+                    response.close();
+                }
+            } catch (Throwable e) {
+                if (pending.decrementAndGet() == 0) {
+                    winner.completeExceptionally(e);
+                }
+            } finally {
+                CURRENT.remove();
+            }
+        }
+
+        /**
+         * @param timeoutNanos the time to wait in nanoseconds, negative to wait until an attempt completes
+         *
+         * @return the first response, null if none came within the timeout
+         *
+         * @throws IOException if every attempt started failed
+         */
+        TransportResponse await(long timeoutNanos) throws IOException {
+            try {
+                return timeoutNanos < 0 ? winner.get() : winner.get(timeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                return null;
+            } catch (InterruptedException e) {
+                // a response arriving now is closed by its attempt
+                winner.cancel(false);
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the response");
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw new IOException(cause);
+            }
+        }
+    }
+
+    /**
+     * One attempt of a race.
+     */
+    private static final class Attempt {
+
+        private final FutureTask<Void> future;
+
+        /**
+         * Whether the attempt was cancelled, set before it is interrupted.
+         */
+        private volatile boolean cancelled;
+
+        Attempt(Race race) {
+            this.future = new FutureTask<>(() -> race.run(this), null);
+        }
+
+        void cancel() {
+            if (!future.isDone()) {
+                cancelled = true;
+                future.cancel(true);
+            }
+        }
+    }
+}
@@ -16,15 +16,20 @@ package com.worldpay.sdk;
 
 import com.worldpay.gateway.clearwater.client.core.dto.ApiError;
 import com.worldpay.gateway.clearwater.client.core.exception.WorldpayException;
-import com.worldpay.sdk.util.HttpUrlConnection;
+import com.worldpay.sdk.util.JsonCodec;
 import com.worldpay.sdk.util.JsonParser;
-import com.worldpay.sdk.util.WorldpayLibraryConstants;
+import com.worldpay.sdk.util.StreamUtils;
 
-import java.io.DataOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
+import java.io.InterruptedIOException;
 import java.net.URL;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.jar.Attributes;
 import java.util.jar.Manifest;
 
@@ -33,7 +38,7 @@ import static com.worldpay.sdk.util.WorldpayLibraryConstants.*;
 /**
  * Class to handle HTTP requests and responses.
  */
-class Http {
+class Http implements Closeable {
 
     private static final String systemProperties;
 
@@ -50,6 +55,16 @@ class Http {
                            BUILD;
     }
 
+    /**
+     * Library version, read once from the manifest.
+     */
+    private static final String VERSION = readVersion();
+
+    /**
+     * Value of the client user agent header.
+     */
+    private static final String USER_AGENT = systemProperties + VERSION;
+
     /**
      * Enumeration for HTTP methods.
      */
@@ -71,14 +86,143 @@ class Http {
     private String serviceKey;
 
     /**
-     * Http object.
+     * Transport used to reach the service.
+     */
+    private final HttpTransport transport;
+
+    /**
+     * How JSON request payloads are sent.
+     */
+    private final StreamingMode streamingMode;
+
+    /**
+     * Codec converting payloads to and from JSON.
+     */
+    private final JsonCodec codec;
+
+    /**
+     * Size in bytes from which request payloads are compressed with gzip, negative to never compress them.
+     */
+    private final int compressionThreshold;
+
+    /**
+     * When and how often failed calls are attempted again.
+     */
+    private final RetryPolicy retryPolicy;
+
+    /**
+     * Circuit breakers of the endpoints, null when disabled.
+     */
+    private final CircuitBreakers circuitBreakers;
+
+    /**
+     * Rate limiter of the calls made with the service key, null when disabled.
+     */
+    private final RateLimiter rateLimiter;
+
+    /**
+     * Adaptive limit on the calls in flight, null when disabled.
+     */
+    private final ConcurrencyLimiter concurrencyLimiter;
+
+    /**
+     * Sender of hedged GET requests, null when disabled.
+     */
+    private final Hedger hedger;
+
+    /**
+     * Coalescer of concurrent identical GETs, keyed by response type and resource path; null when disabled.
+     */
+    private final SingleFlight<String> singleFlight;
+
+    /**
+     * Resources recently not found, null when disabled.
+     */
+    private final NegativeCache negativeCache;
+
+    /**
+     * Headers sent with every request, computed once and shared by all requests.
+     */
+    private final Map<String, String> defaultHeaders;
+
+    /**
+     * Http object using the default {@link UrlConnectionTransport}.
      *
      * @param baseUri    Base URI for connection
      * @param serviceKey default service key for connection
      */
     public Http(String baseUri, String serviceKey) {
-        this.baseUri = baseUri;
-        this.serviceKey = serviceKey;
+        this(baseUri, serviceKey, new UrlConnectionTransport());
+    }
+
+    /**
+     * Http object.
+     *
+     * @param baseUri    Base URI for connection
+     * @param serviceKey default service key for connection
+     * @param transport  transport used to reach the service
+     */
+    public Http(String baseUri, String serviceKey, HttpTransport transport) {
+        this(baseUri, serviceKey, transport, StreamingMode.FIXED_LENGTH);
+    }
+
+    /**
+     * Http object.
+     *
+     * @param baseUri       Base URI for connection
+     * @param serviceKey    default service key for connection
+     * @param transport     transport used to reach the service
+     * @param streamingMode how JSON request payloads are sent
+     */
+    public Http(String baseUri, String serviceKey, HttpTransport transport, StreamingMode streamingMode) {
+        this(baseUri, serviceKey, transport, streamingMode, JsonParser.getDefaultCodec());
+    }
+
+    /**
+     * Http object.
+     *
+     * @param baseUri       Base URI for connection
+     * @param serviceKey    default service key for connection
+     * @param transport     transport used to reach the service
+     * @param streamingMode how JSON request payloads are sent
+     * @param codec         codec converting payloads to and from JSON
+     */
+    public Http(String baseUri, String serviceKey, HttpTransport transport, StreamingMode streamingMode,
+                JsonCodec codec) {
+        this(new Builder().setBaseUri(baseUri).setServiceKey(serviceKey).setTransport(transport)
+                 .setStreamingMode(streamingMode).setCodec(codec));
+    }
+
+    /**
+     * Private constructor, to be used only by {@link Builder}
+     *
+     * @param builder the builder holding the settings
+     */
+    private Http(Builder builder) {
+        this.baseUri = builder.baseUri;
+        this.serviceKey = builder.serviceKey;
+        this.transport = builder.transport;
+        this.streamingMode = builder.streamingMode;
+        this.codec = builder.codec;
+        this.compressionThreshold = builder.compressionThreshold;
+        this.retryPolicy = builder.retryPolicy;
+        CircuitBreakerPolicy circuitBreakerPolicy = builder.circuitBreakerPolicy;
+        this.circuitBreakers = circuitBreakerPolicy == null ? null : new CircuitBreakers(circuitBreakerPolicy);
+        this.rateLimiter = builder.rateLimitPolicy == null ? null : new RateLimiter(builder.rateLimitPolicy);
+        ConcurrencyLimitPolicy concurrencyLimitPolicy = builder.concurrencyLimitPolicy;
+        this.concurrencyLimiter =
+            concurrencyLimitPolicy == null ? null : new ConcurrencyLimiter(concurrencyLimitPolicy);
+        this.hedger = builder.hedgePolicy == null ? null : new Hedger(builder.hedgePolicy);
+        this.singleFlight = builder.requestCoalescing ? new SingleFlight<>() : null;
+        NegativeCachePolicy negativeCachePolicy = builder.negativeCachePolicy;
+        this.negativeCache = negativeCachePolicy == null ? null : new NegativeCache(negativeCachePolicy);
+        Map<String, String> headers = new LinkedHashMap<>();
+        headers.put(ACCEPT, APPLICATION_JSON);
+        headers.put(ACCEPT_ENCODING, GZIP);
+        headers.put(CONTENT_TYPE, APPLICATION_JSON);
+        headers.put(AUTHORIZATION, serviceKey);
+        headers.put(WP_CLIENT_USER_AGENT, USER_AGENT);
+        this.defaultHeaders = Collections.unmodifiableMap(headers);
     }
 
     /**
@@ -91,7 +235,7 @@ class Http {
      * @return the converted object
      */
     public <T> T post(String resourcePath, Object request, final Class<T> responseType) {
-        HttpURLConnection postRequest = createRequest(RequestMethod.POST, resourcePath, request);
+        TransportRequest postRequest = createRequest(RequestMethod.POST, resourcePath, request);
         return execute(postRequest, responseType);
     }
 
@@ -102,7 +246,7 @@ class Http {
      * @param request      the Object which needs to be serialized and sent as POST payload, may be null
      */
     public void post(String resourcePath, Object request) {
-        HttpURLConnection postRequest = createRequest(RequestMethod.POST, resourcePath, request);
+        TransportRequest postRequest = createRequest(RequestMethod.POST, resourcePath, request);
         execute(postRequest);
     }
 
@@ -116,7 +260,7 @@ class Http {
      * @return the converted object
      */
     public <T> T put(String resourcePath, Object request, final Class<T> responseType) {
-        HttpURLConnection putRequest = createRequest(RequestMethod.PUT, resourcePath, request);
+        TransportRequest putRequest = createRequest(RequestMethod.PUT, resourcePath, request);
         return execute(putRequest, responseType);
     }
 
@@ -127,12 +271,13 @@ class Http {
      * @param request      the Object which needs to be serialised and sent as payload, may be null
      */
     public void put(String resourcePath, Object request) {
-        HttpURLConnection putRequest = createRequest(RequestMethod.PUT, resourcePath, request);
+        TransportRequest putRequest = createRequest(RequestMethod.PUT, resourcePath, request);
         execute(putRequest);
     }
 
     /**
-     * Return the representation obtained by GET.
+     * Return the representation obtained by GET. With request coalescing, callers asking for the same resource while
+     * a GET is in flight share its outcome. With the negative cache, a resource recently not found fails at once.
      *
      * @param resourcePath the location of the resource e.g. /order/123
      * @param responseType the type of the return value
@@ -140,10 +285,61 @@ class Http {
      * @return the converted object
      */
     public <T> T get(String resourcePath, final Class<T> responseType) {
-        HttpURLConnection getRequest = createRequest(RequestMethod.GET, resourcePath, responseType);
+        if (negativeCache == null) {
+            return fetch(resourcePath, responseType);
+        }
+        negativeCache.check(resourcePath);
+        try {
+            return fetch(resourcePath, responseType);
+        } catch (WorldpayException e) {
+            negativeCache.record(resourcePath, e);
+            throw e;
+        }
+    }
+
+    /**
+     * Return the representation obtained by GET, sharing the GET in flight for the same resource when coalescing.
+     *
+     * @param resourcePath the location of the resource e.g. /order/123
+     * @param responseType the type of the return value
+     *
+     * @return the converted object
+     */
+    private <T> T fetch(String resourcePath, final Class<T> responseType) {
+        if (singleFlight != null) {
+            return singleFlight.execute(responseType.getName() + ' ' + resourcePath,
+                                        () -> execute(createRequest(RequestMethod.GET, resourcePath, null),
+                                                      responseType));
+        }
+        TransportRequest getRequest = createRequest(RequestMethod.GET, resourcePath, null);
         return execute(getRequest, responseType);
     }
 
+    /**
+     * Create a new resource using POST and hand the payload of the response to the reader.
+     *
+     * @param resourcePath the location of the resource e.g. /order/123
+     * @param request      the Object which needs to be serialized and sent as POST payload, may be null
+     * @param reader       reader consuming the payload
+     *
+     * @return the result of the reader
+     */
+    <T> T post(String resourcePath, Object request, ResponseReader<T> reader) {
+        return execute(createRequest(RequestMethod.POST, resourcePath, request), reader);
+    }
+
+    /**
+     * Hand the payload of the representation obtained by GET to the reader.
+     *
+     * @param resourcePath the location of the resource e.g. /order/123
+     * @param reader       reader consuming the payload
+     *
+     * @return the result of the reader
+     */
+    <T> T get(String resourcePath, ResponseReader<T> reader) {
+        return execute(createRequest(RequestMethod.GET, resourcePath, null), reader);
+    }
+
     /**
      * Delete an existing resource using DELETE with no return.
      *
@@ -151,23 +347,282 @@ class Http {
      * @param request      the Object which needs to be serialised and sent as payload, may be null
      */
     public void delete(String resourcePath, Object request) {
-        HttpURLConnection putRequest = createRequest(RequestMethod.DELETE, resourcePath, request);
-        execute(putRequest);
+        TransportRequest deleteRequest = createRequest(RequestMethod.DELETE, resourcePath, request);
+        execute(deleteRequest);
     }
 
     /**
-     * Convert object to string representation.
+     * Create a new resource using POST and return the response as received, without converting it.
      *
-     * @param request object to convert
+     * @param resourcePath the location of the resource e.g. /order/123
+     * @param request      the Object which needs to be serialized and sent as POST payload, may be null
+     *
+     * @return the response, which the caller must close
+     */
+    public RawResponse postRaw(String resourcePath, Object request) {
+        return executeRaw(createRequest(RequestMethod.POST, resourcePath, request));
+    }
+
+    /**
+     * Updates an existing resource using PUT and return the response as received, without converting it.
      *
-     * @return String representation of the {@code request}
+     * @param resourcePath the location of the resource e.g. /order/123
+     * @param request      the Object which needs to be serialised and sent as payload, may be null
+     *
+     * @return the response, which the caller must close
      */
-    private String toJson(Object request) {
+    public RawResponse putRaw(String resourcePath, Object request) {
+        return executeRaw(createRequest(RequestMethod.PUT, resourcePath, request));
+    }
+
+    /**
+     * Return the representation obtained by GET as received, without converting it.
+     *
+     * @param resourcePath the location of the resource e.g. /order/123
+     *
+     * @return the response, which the caller must close
+     */
+    public RawResponse getRaw(String resourcePath) {
+        return executeRaw(createRequest(RequestMethod.GET, resourcePath, null));
+    }
+
+    /**
+     * @return the connection counters of the underlying transport
+     */
+    public ConnectionMetrics getConnectionMetrics() {
+        return transport.getConnectionMetrics();
+    }
+
+    /**
+     * @return the concurrency limit and queue depth, null when the concurrency limit is disabled
+     */
+    public ConcurrencyMetrics getConcurrencyMetrics() {
+        return concurrencyLimiter == null ? null : new ConcurrencyMetrics(concurrencyLimiter);
+    }
+
+    /**
+     * Close the underlying transport.
+     *
+     * @throws IOException if the transport fails to close
+     */
+    @Override
+    public void close() throws IOException {
+        if (hedger != null) {
+            hedger.close();
+        }
+        transport.close();
+    }
+
+    /**
+     * Create the payload of the request, serialized straight to UTF-8 bytes or streamed depending on the
+     * {@link StreamingMode}.
+     *
+     * @param request object to send, may be null
+     *
+     * @return the payload
+     */
+    private RequestBody createBody(Object request) {
+        if (request == null) {
+            return RequestBody.EMPTY;
+        }
+        if (streamingMode == StreamingMode.CHUNKED) {
+            return RequestBody.ofJson(request, codec);
+        }
         try {
-            return JsonParser.toJson(request);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+            return RequestBody.ofBytes(codec.write(request));
+        } catch (IOException e) {
+            throw new WorldpayException("Cannot convert the request to JSON: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @param body the payload
+     *
+     * @return whether the payload is to be compressed, payloads of unknown length being compressed whenever enabled
+     */
+    private boolean shouldCompress(RequestBody body) {
+        if (compressionThreshold < 0 || body == RequestBody.EMPTY) {
+            return false;
         }
+        long length = body.contentLength();
+        return length < 0 || length >= compressionThreshold;
+    }
+
+    /**
+     * @param body the payload
+     *
+     * @return the payload compressed with gzip
+     */
+    private static RequestBody compress(RequestBody body) {
+        try {
+            return RequestBody.gzip(body);
+        } catch (IOException e) {
+            throw new WorldpayException("Cannot compress the request: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Hand the request to the transport, decompressing the payload of the response if it is gzip encoded.
+     *
+     * @param request the request
+     *
+     * @return the response
+     *
+     * @throws IOException if the exchange fails
+     */
+    private TransportResponse send(TransportRequest request) throws IOException {
+        CircuitBreaker circuitBreaker =
+            circuitBreakers == null ? null : circuitBreakers.forUri(request.getUri(), baseUri.length());
+        if (!retryPolicy.isEnabled()) {
+            if (retryPolicy.getAttemptTimeout() > 0) {
+                request.setTimeout(retryPolicy.getAttemptTimeout());
+            }
+            return GzipTransportResponse.decode(hedge(request, circuitBreaker));
+        }
+        long budget = retryPolicy.getTimeBudget();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budget > 0 ? budget : Long.MAX_VALUE / 4);
+        for (int attempt = 1; ; attempt++) {
+            request.setTimeout(attemptTimeout(deadline));
+            TransportResponse response = null;
+            try {
+                response = hedge(request, circuitBreaker);
+                if (!retryPolicy.isRetryable(response.getStatusCode()) || !backOff(attempt, deadline, response)) {
+                    return GzipTransportResponse.decode(response);
+                }
+            } catch (IOException e) {
+                closeQuietly(response);
+                if (!retryPolicy.isRetryable(e) || !backOff(attempt, deadline, null)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Make one attempt of the request, hedged when it is a GET and hedging is enabled.
+     *
+     * @param request        the request
+     * @param circuitBreaker the circuit breaker of the endpoint, may be null
+     *
+     * @return the response
+     *
+     * @throws IOException if the exchange fails
+     */
+    private TransportResponse hedge(TransportRequest request, CircuitBreaker circuitBreaker) throws IOException {
+        if (hedger == null || !GET.equals(request.getMethod())) {
+            return attempt(request, circuitBreaker);
+        }
+        return hedger.execute(() -> attempt(request, circuitBreaker));
+    }
+
+    /**
+     * Make one attempt of the request, once let through by the rate limiter and the concurrency limiter, and through
+     * the circuit breaker of its endpoint, when enabled.
+     *
+     * @param request        the request
+     * @param circuitBreaker the circuit breaker of the endpoint, may be null
+     *
+     * @return the response
+     *
+     * @throws IOException if the exchange fails
+     */
+    private TransportResponse attempt(TransportRequest request, CircuitBreaker circuitBreaker) throws IOException {
+        if (rateLimiter == null) {
+            return concurrencyLimiter == null ? exchange(request, circuitBreaker) : limit(request, circuitBreaker);
+        }
+        rateLimiter.acquire();
+        TransportResponse response =
+            concurrencyLimiter == null ? exchange(request, circuitBreaker) : limit(request, circuitBreaker);
+        rateLimiter.onResponse(response);
+        return response;
+    }
+
+    /**
+     * Exchange the request within the concurrency limit, adjusting the limit to the outcome.
+     *
+     * @param request        the request
+     * @param circuitBreaker the circuit breaker of the endpoint, may be null
+     *
+     * @return the response
+     *
+     * @throws IOException if the exchange fails
+     */
+    private TransportResponse limit(TransportRequest request, CircuitBreaker circuitBreaker) throws IOException {
+        long start = concurrencyLimiter.acquire();
+        TransportResponse response = null;
+        try {
+            response = exchange(request, circuitBreaker);
+            int statusCode = response.getStatusCode();
+            concurrencyLimiter.release(start, statusCode == HTTP_TOO_MANY_REQUESTS || statusCode >= 500);
+            return response;
+        } catch (IOException e) {
+            closeQuietly(response);
+            if (Hedger.isCancelled()) {
+                concurrencyLimiter.cancel();
+            } else {
+                concurrencyLimiter.release(start, true);
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            concurrencyLimiter.cancel();
+            throw e;
+        }
+    }
+
+    /**
+     * @param request        the request
+     * @param circuitBreaker the circuit breaker of the endpoint, may be null
+     *
+     * @return the response of the transport, through the circuit breaker when enabled
+     *
+     * @throws IOException if the exchange fails
+     */
+    private TransportResponse exchange(TransportRequest request, CircuitBreaker circuitBreaker) throws IOException {
+        return circuitBreaker == null ? transport.execute(request) : circuitBreaker.execute(transport, request);
+    }
+
+    /**
+     * @param deadline the time, as given by {@link System#nanoTime()}, by which the call has to complete
+     *
+     * @return the timeout in milliseconds of the next attempt, at most what is left of the time budget, zero for the
+     * transport default when neither the attempts nor the call are limited
+     */
+    private long attemptTimeout(long deadline) {
+        long attemptTimeout = retryPolicy.getAttemptTimeout();
+        if (retryPolicy.getTimeBudget() <= 0) {
+            return attemptTimeout;
+        }
+        long remaining = Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+        return attemptTimeout > 0 ? Math.min(attemptTimeout, remaining) : remaining;
+    }
+
+    /**
+     * Wait before the next attempt, unless the attempts or the time budget of the call are exhausted.
+     *
+     * @param attempt  the number of the attempt which failed, starting at 1
+     * @param deadline the time, as given by {@link System#nanoTime()}, by which the call has to complete
+     * @param response the retryable response of the failed attempt, closed before waiting, or null
+     *
+     * @return whether the call is to be attempted again
+     *
+     * @throws InterruptedIOException if the thread is interrupted while waiting
+     */
+    private boolean backOff(int attempt, long deadline, TransportResponse response) throws InterruptedIOException {
+        if (attempt >= retryPolicy.getMaxAttempts()) {
+            return false;
+        }
+        long backoff = retryPolicy.getBackoff(attempt);
+        if (deadline - System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(backoff) <= 0) {
+            return false;
+        }
+        closeQuietly(response);
+        try {
+            Thread.sleep(backoff);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted before attempt " + (attempt + 1));
+        }
+        return true;
     }
 
     /**
@@ -178,20 +633,76 @@ class Http {
      *
      * @return an instance of the {@code responseType}
      */
-    private <T> T execute(HttpURLConnection request, final Class<T> responseType) {
-        return getHandler(request, responseType);
+    private <T> T execute(TransportRequest request, final Class<T> responseType) {
+        try (TransportResponse response = send(request)) {
+            return getHandler(response, responseType);
+        } catch (IOException e) {
+            throw new WorldpayException(e.getMessage());
+        }
+    }
+
+    /**
+     * Execute the request and hand the payload of a successful response to the reader.
+     *
+     * @param request the request
+     * @param reader  reader consuming the payload
+     *
+     * @return the result of the reader
+     */
+    private <T> T execute(TransportRequest request, ResponseReader<T> reader) {
+        try (TransportResponse response = send(request)) {
+            errorHandler(response);
+            return reader.read(StreamUtils.closeShield(response.getBody()));
+        } catch (IOException e) {
+            throw new WorldpayException(e.getMessage());
+        }
+    }
+
+    /**
+     * Execute the request to be used when no response is expected. The payload is still read to the end when the
+     * response is closed so that the connection can be reused.
+     *
+     * @param request the request
+     */
+    private void execute(TransportRequest request) {
+        try (TransportResponse response = send(request)) {
+            errorHandler(response);
+        } catch (IOException e) {
+            throw new WorldpayException(e.getMessage());
+        }
     }
 
     /**
-     * Execute the request to be used when no response is expected
+     * Execute the request and hand the response over without reading it. Error statuses are returned, not thrown.
      *
      * @param request the request
+     *
+     * @return the response
+     */
+    private RawResponse executeRaw(TransportRequest request) {
+        TransportResponse response = null;
+        try {
+            response = send(request);
+            return new RawResponse(response);
+        } catch (IOException e) {
+            closeQuietly(response);
+            throw new WorldpayException(e.getMessage());
+        }
+    }
+
+    /**
+     * Close the response after a failure, keeping the original error.
+     *
+     * @param response the response, may be null
      */
-    private void execute(HttpURLConnection request) {
+    private static void closeQuietly(TransportResponse response) {
+        if (response == null) {
+            return;
+        }
         try {
-            errorHandler(request);
+            response.close();
         } catch (IOException e) {
-            throw new RuntimeException(e);
+            // the original failure is reported
         }
     }
 
@@ -203,80 +714,208 @@ class Http {
      *
      * @return new request object
      */
-    private HttpURLConnection createRequest(RequestMethod method, String uri, Object request) {
-        String fullUri = baseUri + uri;
-        HttpURLConnection httpURLConnection = HttpUrlConnection.getConnection(fullUri);
-        try {
-            httpURLConnection.setRequestProperty(AUTHORIZATION, serviceKey);
-            final String propertiesWithVersion = systemProperties.concat(getVersion());
-            httpURLConnection.setRequestProperty(WP_CLIENT_USER_AGENT, propertiesWithVersion);
-
-            DataOutputStream dataOutputStream;
-            switch (method) {
-                case GET:
-                    httpURLConnection.setRequestMethod(GET);
-                    break;
-                case POST:
-                    httpURLConnection.setRequestMethod(POST);
-                    dataOutputStream = new DataOutputStream(httpURLConnection.getOutputStream());
-                    if (request != null) {
-                        dataOutputStream.writeBytes(toJson(request));
-                    }
-                    break;
-                case PUT:
-                    httpURLConnection.setRequestMethod(PUT);
-                    dataOutputStream = new DataOutputStream(httpURLConnection.getOutputStream());
-                    if (request != null) {
-                        dataOutputStream.writeBytes(toJson(request));
+    private TransportRequest createRequest(RequestMethod method, String uri, Object request) {
+        TransportRequest transportRequest = new TransportRequest(method.name(), baseUri + uri, defaultHeaders);
+
+        switch (method) {
+            case POST:
+            case PUT:
+                RequestBody body = createBody(request);
+                if (shouldCompress(body)) {
+                    body = compress(body);
+                    transportRequest.setHeader(CONTENT_ENCODING, GZIP);
+                }
+                if (retryPolicy.isEnabled()) {
+                    body = RequestBody.replayable(body);
+                    if (method == RequestMethod.POST) {
+                        transportRequest.setHeader(retryPolicy.getIdempotencyKeyHeader(), UUID.randomUUID().toString());
                     }
-                    break;
-                case DELETE:
-                    httpURLConnection.setRequestMethod(DELETE);
-                    break;
-            }
-        } catch (IOException e) {
-            throw new WorldpayException(e.getMessage());
+                }
+                transportRequest.setBody(body);
+                break;
+            default:
+                break;
         }
-        return httpURLConnection;
+        return transportRequest;
     }
 
     /**
-     * @param connection   http url connection
+     * @param response     the transport response
      * @param responseType the expected response type
      *
      * @return an instance of {@code responseType}
      */
-    private <T> T getHandler(HttpURLConnection connection, final Class<T> responseType) {
-        try {
-            errorHandler(connection);
-            InputStream is = connection.getInputStream();
-            return JsonParser.toObject(is, responseType);
-        } catch (IOException e) {
-            throw new WorldpayException(e.getMessage());
-        }
+    private <T> T getHandler(TransportResponse response, final Class<T> responseType) throws IOException {
+        errorHandler(response);
+        InputStream is = StreamUtils.closeShield(response.getBody());
+        return codec.read(is, responseType);
     }
 
     /**
-     * Examines the {@code response} and throws {@link WorldpayException} if an error response is detected
+     * Examines the {@code response} and throws {@link WorldpayException} if an error response is detected, a
+     * {@link RateLimitExceededException} for 429 Too Many Requests
      *
      * @throws IOException       if it fails to parse the error message contained in the response
      * @throws WorldpayException if an erroneous response is detected
      */
-    private void errorHandler(HttpURLConnection connection) throws IOException {
-        if (connection.getResponseCode() >= HTTP_ERROR_CODE_300) {
-            InputStream is = connection.getErrorStream();
-            ApiError error = JsonParser.toObject(is, ApiError.class);
+    private void errorHandler(TransportResponse response) throws IOException {
+        int statusCode = response.getStatusCode();
+        if (statusCode >= HTTP_ERROR_CODE_300) {
+            InputStream is = StreamUtils.closeShield(response.getBody());
+            ApiError error = is == null
+                             ? new ApiError.Builder().setHttpStatusCode(statusCode)
+                                 .setMessage("HTTP status " + statusCode).build()
+                             : codec.read(is, ApiError.class);
+            if (statusCode == HTTP_TOO_MANY_REQUESTS) {
+                throw new RateLimitExceededException(
+                    error, RateLimiter.retryAfter(response.getHeader(RETRY_AFTER), System.currentTimeMillis()));
+            }
             throw new WorldpayException(error, "API error: " + error.getMessage());
         }
     }
 
+    /**
+     * Builder class to build {@link Http}
+     */
+    static class Builder {
+
+        private String baseUri;
+
+        private String serviceKey;
+
+        private HttpTransport transport;
+
+        private StreamingMode streamingMode = StreamingMode.FIXED_LENGTH;
+
+        private JsonCodec codec = JsonParser.getDefaultCodec();
+
+        /**
+         * Size in bytes from which request payloads are compressed with gzip, negative to never compress them;
+         * payloads of unknown length are compressed whenever enabled.
+         */
+        private int compressionThreshold = -1;
+
+        private RetryPolicy retryPolicy = RetryPolicy.NONE;
+
+        /**
+         * Settings of the circuit breakers, null to disable them.
+         */
+        private CircuitBreakerPolicy circuitBreakerPolicy;
+
+        /**
+         * Settings of the rate limiter, null to disable it.
+         */
+        private RateLimitPolicy rateLimitPolicy;
+
+        /**
+         * Settings of the adaptive concurrency limit, null to disable it.
+         */
+        private ConcurrencyLimitPolicy concurrencyLimitPolicy;
+
+        /**
+         * Settings of hedged GET requests, null to disable them.
+         */
+        private HedgePolicy hedgePolicy;
+
+        /**
+         * Whether concurrent identical GETs share one request.
+         */
+        private boolean requestCoalescing;
+
+        /**
+         * Settings of the negative cache, null to disable it.
+         */
+        private NegativeCachePolicy negativeCachePolicy;
+
+        Builder setBaseUri(String baseUri) {
+            this.baseUri = baseUri;
+            return this;
+        }
+
+        Builder setServiceKey(String serviceKey) {
+            this.serviceKey = serviceKey;
+            return this;
+        }
+
+        Builder setTransport(HttpTransport transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        Builder setStreamingMode(StreamingMode streamingMode) {
+            this.streamingMode = streamingMode;
+            return this;
+        }
+
+        Builder setCodec(JsonCodec codec) {
+            this.codec = codec;
+            return this;
+        }
+
+        Builder setCompressionThreshold(int compressionThreshold) {
+            this.compressionThreshold = compressionThreshold;
+            return this;
+        }
+
+        Builder setRetryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        Builder setCircuitBreakerPolicy(CircuitBreakerPolicy circuitBreakerPolicy) {
+            this.circuitBreakerPolicy = circuitBreakerPolicy;
+            return this;
+        }
+
+        Builder setRateLimitPolicy(RateLimitPolicy rateLimitPolicy) {
+            this.rateLimitPolicy = rateLimitPolicy;
+            return this;
+        }
+
+        Builder setConcurrencyLimitPolicy(ConcurrencyLimitPolicy concurrencyLimitPolicy) {
+            this.concurrencyLimitPolicy = concurrencyLimitPolicy;
+            return this;
+        }
+
+        Builder setHedgePolicy(HedgePolicy hedgePolicy) {
+            this.hedgePolicy = hedgePolicy;
+            return this;
+        }
+
+        Builder setRequestCoalescing(boolean requestCoalescing) {
+            this.requestCoalescing = requestCoalescing;
+            return this;
+        }
+
+        Builder setNegativeCachePolicy(NegativeCachePolicy negativeCachePolicy) {
+            this.negativeCachePolicy = negativeCachePolicy;
+            return this;
+        }
+
+        /**
+         * Build {@link Http}
+         *
+         * @return {@link Http}
+         */
+        Http build() {
+            return new Http(this);
+        }
+    }
+
+    /**
+     * @return the library version from the manifest, or N/A when not running from a JAR
+     */
+    public String getVersion() {
+        return VERSION;
+    }
+
     /**
      * Looks up the manifest file and pulls the version out
      *
      * @return Version
      */
-    public String getVersion() {
-        Class clazz = this.getClass();
+    private static String readVersion() {
+        Class clazz = Http.class;
         String className = clazz.getSimpleName() + ".class";
         String classPath = clazz.getResource(className).toString();
         final String versionNotAvailable = "N/A";
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+import com.worldpay.sdk.util.StreamUtils;
+import com.worldpay.sdk.util.WorldpayLibraryConstants;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link HttpTransport} backed by {@link HttpClient} preferring HTTP/2, so that many in-flight requests to the same
+ * host are multiplexed over a handful of connections. When the server does not negotiate h2 the client falls back to
+ * HTTP/1.1 transparently.
+ */
+public class Http2Transport implements HttpTransport {
+
+    /**
+     * Client executing the requests.
+     */
+    private final HttpClient httpClient;
+
+    /**
+     * Number of exchanges served over HTTP/2.
+     */
+    private final LongAdder http2Exchanges = new LongAdder();
+
+    /**
+     * Number of exchanges which fell back to HTTP/1.1.
+     */
+    private final LongAdder http11Exchanges = new LongAdder();
+
+    /**
+     * Create a transport with a default HTTP/2 client.
+     */
+    public Http2Transport() {
+        this(HttpClient.newBuilder()
+                 .version(HttpClient.Version.HTTP_2)
+                 .connectTimeout(Duration.ofMillis(WorldpayLibraryConstants.CONNECTION_TIMEOUT))
+                 .build());
+    }
+
+    /**
+     * Create a transport using the given client, e.g. one configured with a specific {@code SSLContext} or executor.
+     *
+     * @param httpClient the client
+     */
+    public Http2Transport(HttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException {
+        HttpRequest.BodyPublisher body = request.getBody() == null
+                                         ? HttpRequest.BodyPublishers.noBody()
+                                         : HttpRequest.BodyPublishers.ofByteArray(request.getBody().toByteArray());
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(request.getUri()))
+            .timeout(Duration.ofMillis(request.getTimeout() > 0 ? request.getTimeout()
+                                                                : WorldpayLibraryConstants.SOCKET_TIMEOUT))
+            .method(request.getMethod(), body);
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            builder.setHeader(header.getKey(), header.getValue());
+        }
+        HttpResponse<InputStream> response;
+        try {
+            response = httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(e.getMessage());
+        }
+        if (response.version() == HttpClient.Version.HTTP_2) {
+            http2Exchanges.increment();
+        } else {
+            http11Exchanges.increment();
+        }
+        return new HttpClientResponse(response);
+    }
+
+    /**
+     * @return the number of exchanges served over HTTP/2
+     */
+    public long getHttp2Exchanges() {
+        return http2Exchanges.sum();
+    }
+
+    /**
+     * @return the number of exchanges which fell back to HTTP/1.1
+     */
+    public long getHttp11Exchanges() {
+        return http11Exchanges.sum();
+    }
+
+    @Override
+    public void close() {
+        // the client releases its connections once it is no longer referenced
+    }
+
+    /**
+     * {@link TransportResponse} wrapping a {@link HttpResponse}.
+     */
+    private static class HttpClientResponse implements TransportResponse {
+
+        private final HttpResponse<InputStream> response;
+
+        HttpClientResponse(HttpResponse<InputStream> response) {
+            this.response = response;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return response.statusCode();
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return response.headers().firstValue(name).orElse(null);
+        }
+
+        @Override
+        public Map<String, List<String>> getHeaders() {
+            return response.headers().map();
+        }
+
+        @Override
+        public InputStream getBody() {
+            return response.body();
+        }
+
+        @Override
+        public void close() throws IOException {
+            StreamUtils.drainAndClose(response.body());
+        }
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Transport used by {@link Http} to exchange requests and responses with the Worldpay REST service.
+ * <p>
+ * Implementations must be thread safe, a single instance is shared by all services of a {@link WorldpayRestClient}.
+ */
+public interface HttpTransport extends Closeable {
+
+    /**
+     * Send the request and return the response. The caller must close the returned response so that the
+     * underlying connection can be released.
+     *
+     * @param request the request to send
+     *
+     * @return the response
+     *
+     * @throws IOException if the request could not be sent or the response could not be read
+     */
+    TransportResponse execute(TransportRequest request) throws IOException;
+
+    /**
+     * Counters of new and reused connections. Transports which do not track their connections return empty
+     * metrics.
+     *
+     * @return the connection metrics
+     */
+    default ConnectionMetrics getConnectionMetrics() {
+        return new ConnectionMetrics();
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+import com.worldpay.gateway.clearwater.client.core.dto.ApiError;
+import com.worldpay.gateway.clearwater.client.core.exception.WorldpayException;
+import com.worldpay.sdk.cache.RotatingBloomFilter;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Remembers the resources recently not found, keyed by resource path, so that looking them up again fails at once.
+ * <p>
+ * The paths are kept in a {@link RotatingBloomFilter}. The API error of the last 404 received for each collection,
+ * such as {@code /tokens}, is kept apart, without its original request, and thrown again for the resources of the
+ * collection found in the filter.
+ */
+class NegativeCache {
+
+    private static final int HTTP_NOT_FOUND = 404;
+
+    private final RotatingBloomFilter filter;
+
+    /**
+     * API error of the last 404 of each collection, keyed by the path of the collection.
+     */
+    private final ConcurrentMap<String, ApiError> errors = new ConcurrentHashMap<>();
+
+    /**
+     * @param policy the settings of the negative cache
+     */
+    NegativeCache(NegativeCachePolicy policy) {
+        this.filter = new RotatingBloomFilter(policy.getMaxMemory(), policy.getExpireAfter(),
+                                              policy.getFalsePositiveRate());
+    }
+
+    /**
+     * Fail if the resource was recently not found.
+     *
+     * @param resourcePath the location of the resource e.g. /order/123
+     *
+     * @throws WorldpayException with the API error of the last 404 of the collection, if the resource was recently
+     *                           not found
+     */
+    void check(String resourcePath) {
+        if (!filter.mightContain(resourcePath)) {
+            return;
+        }
+        ApiError error = errors.get(collectionOf(resourcePath));
+        if (error != null) {
+            throw new WorldpayException(error, "API error: " + error.getMessage());
+        }
+    }
+
+    /**
+     * Remember the resource if the failure of its lookup is a 404 Not Found.
+     *
+     * @param resourcePath the location of the resource e.g. /order/123
+     * @param failure      the failure of the lookup
+     */
+    void record(String resourcePath, WorldpayException failure) {
+        ApiError error = failure.getApiError();
+        if (error == null || error.getHttpStatusCode() == null || error.getHttpStatusCode() != HTTP_NOT_FOUND) {
+            return;
+        }
+        errors.put(collectionOf(resourcePath), new ApiError.Builder()
+            .setHttpStatusCode(error.getHttpStatusCode())
+            .setCustomCode(error.getCustomCode())
+            .setMessage(error.getMessage())
+            .setDescription(error.getDescription())
+            .setErrorHelpUrl(error.getErrorHelpUrl())
+            .build());
+        filter.put(resourcePath);
+    }
+
+    private static String collectionOf(String resourcePath) {
+        int slash = resourcePath.lastIndexOf('/');
+        return slash <= 0 ? "" : resourcePath.substring(0, slash);
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+/**
+ * Settings of the negative cache, remembering the tokens and orders recently not found.
+ * <p>
+ * When {@link TokenService#get} or {@link OrderService#findOrder} receives a 404 Not Found, the resource is recorded
+ * in a probabilistic filter of fixed memory; looking it up again fails at once with the same
+ * {@link com.worldpay.gateway.clearwater.client.core.exception.WorldpayException} and API error, without a call to the
+ * gateway, for at most the time to live. The filter may report a resource never looked up as not found, at the false
+ * positive rate, and may forget a resource before its time to live.
+ */
+public class NegativeCachePolicy {
+
+    private final int maxMemory;
+
+    private final long expireAfter;
+
+    private final double falsePositiveRate;
+
+    /**
+     * Private constructor, to be used only by {@link Builder}
+     *
+     * @param builder the builder holding the settings
+     */
+    private NegativeCachePolicy(Builder builder) {
+        this.maxMemory = builder.maxMemory;
+        this.expireAfter = builder.expireAfter;
+        this.falsePositiveRate = builder.falsePositiveRate;
+    }
+
+    public int getMaxMemory() {
+        return maxMemory;
+    }
+
+    public long getExpireAfter() {
+        return expireAfter;
+    }
+
+    public double getFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    /**
+     * Builder class to build {@link NegativeCachePolicy}
+     */
+    public static class Builder {
+
+        /**
+         * Memory in bytes taken by the filter.
+         */
+        private int maxMemory = 64 * 1024;
+
+        /**
+         * Time in milliseconds a resource not found is remembered at most.
+         */
+        private long expireAfter = 60000;
+
+        /**
+         * Rate at which a resource never looked up is reported as not found.
+         */
+        private double falsePositiveRate = 0.0001;
+
+        public Builder() {
+        }
+
+        public Builder setMaxMemory(int maxMemory) {
+            if (maxMemory < 16) {
+                throw new IllegalArgumentException("maxMemory must be at least 16 bytes");
+            }
+            this.maxMemory = maxMemory;
+            return this;
+        }
+
+        public Builder setExpireAfter(long expireAfter) {
+            if (expireAfter < 1) {
+                throw new IllegalArgumentException("expireAfter must be at least 1");
+            }
+            this.expireAfter = expireAfter;
+            return this;
+        }
+
+        public Builder setFalsePositiveRate(double falsePositiveRate) {
+            if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+                throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+            }
+            this.falsePositiveRate = falsePositiveRate;
+            return this;
+        }
+
+        /**
+         * Build {@link NegativeCachePolicy}
+         *
+         * @return {@link NegativeCachePolicy}
+         */
+        public NegativeCachePolicy build() {
+            return new NegativeCachePolicy(this);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+import com.worldpay.gateway.clearwater.client.core.dto.ApiError;
+import com.worldpay.gateway.clearwater.client.core.exception.WorldpayException;
+
+/**
+ * Outcome of one item of a bulk operation: the input it was made for and either the response or the failure.
+ *
+ * @param <I> type of the input
+ * @param <T> type of the response
+ */
+public final class OperationResult<I, T> {
+
+    /**
+     * Input of the operation.
+     */
+    private final I input;
+
+    /**
+     * Response, null on failure or for operations without a response.
+     */
+    private final T response;
+
+    /**
+     * Failure, null on success.
+     */
+    private final WorldpayException error;
+
+    private OperationResult(I input, T response, WorldpayException error) {
+        this.input = input;
+        this.response = response;
+        this.error = error;
+    }
+
+    /**
+     * Create a successful result.
+     *
+     * @param input    input of the operation
+     * @param response response of the operation, may be null
+     *
+     * @return the result
+     */
+    public static <I, T> OperationResult<I, T> success(I input, T response) {
+        return new OperationResult<>(input, response, null);
+    }
+
+    /**
+     * Create a failed result.
+     *
+     * @param input input of the operation
+     * @param error the failure
+     *
+     * @return the result
+     */
+    public static <I, T> OperationResult<I, T> failure(I input, WorldpayException error) {
+        return new OperationResult<>(input, null, error);
+    }
+
+    public I getInput() {
+        return input;
+    }
+
+    public T getResponse() {
+        return response;
+    }
+
+    public WorldpayException getError() {
+        return error;
+    }
+
+    /**
+     * @return the {@link ApiError} returned by the gateway, null on success or when no response was received
+     */
+    public ApiError getApiError() {
+        return error == null ? null : error.getApiError();
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    @Override
+    public String toString() {
+        return "OperationResult{input=" + input + ", response=" + response + ", error=" + error + '}';
+    }
+}
@@ -20,7 +20,16 @@ import com.worldpay.gateway.clearwater.client.core.dto.request.OrderAuthorizatio
 import com.worldpay.gateway.clearwater.client.core.dto.request.OrderRequest;
 import com.worldpay.gateway.clearwater.client.core.dto.request.RefundOrderRequest;
 import com.worldpay.gateway.clearwater.client.core.dto.response.OrderResponse;
+import com.worldpay.gateway.clearwater.client.core.exception.WorldpayException;
 import com.worldpay.gateway.clearwater.client.ui.dto.order.Transaction;
+import com.worldpay.sdk.cache.MappedFileCache;
+import com.worldpay.sdk.cache.TinyLfuCache;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
 
 /**
  * Service used for the order related operations.
@@ -33,29 +42,35 @@ public class OrderService extends AbstractService {
     private static final String ORDERS_URL = "/orders";
 
     /**
-     * URL for Authorise 3DS order
+     * URL prefix of an order, followed by the order code, for Authorise 3DS, FIND and CANCEL ORDER
      */
-    private static final String AUTHORIZE_3DS_URL = "/orders/%s";
+    private static final String ORDER_URL = "/orders/";
 
     /**
-     * URL for REFUND ORDER
+     * URL suffix for REFUND ORDER, following the order URL
      */
-    private static final String REFUND_URL = "/orders/%s/refund";
+    private static final String REFUND_SUFFIX = "/refund";
 
     /**
-     * URL for REFUND ORDER
+     * URL suffix for CAPTURE ORDER, following the order URL
      */
-    private static final String FIND_ORDER_URL = "/orders/%s";
+    private static final String CAPTURE_SUFFIX = "/capture";
 
     /**
-     * URL for CANCEL ORDER
+     * Cache of the orders, keyed by order code, null when disabled.
      */
-    private static final String CANCEL_ORDER_URL = "/orders/%s";
+    private final TinyLfuCache<String, Transaction> cache;
 
     /**
-     * URL for CAPTURE ORDER
+     * Off-heap store of the orders, behind the cache; null when disabled.
      */
-    private static final String CAPTURE_URL = "/orders/%s/capture";
+    private final MappedFileCache<Transaction> store;
+
+    /**
+     * Generations of the orders, shared by the services of a client, so that an order found before an invalidation
+     * is not cached after it.
+     */
+    private final Generations generations;
 
     /**
      * Constructor
@@ -63,7 +78,58 @@ public class OrderService extends AbstractService {
      * @param http {@link Http}
      */
     protected OrderService(Http http) {
-        super(http);
+        this(http, null, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param http     {@link Http}
+     * @param executor default {@link Executor} of the future returning calls
+     */
+    protected OrderService(Http http, Executor executor) {
+        this(http, executor, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param http     {@link Http}
+     * @param executor default {@link Executor} of the future returning calls
+     * @param cache    cache of the orders, keyed by order code, null to disable it
+     */
+    protected OrderService(Http http, Executor executor, TinyLfuCache<String, Transaction> cache) {
+        this(http, executor, cache, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param http     {@link Http}
+     * @param executor default {@link Executor} of the future returning calls
+     * @param cache    cache of the orders, keyed by order code, null to disable it
+     * @param store    off-heap store of the orders, looked up on a miss of the cache; null to disable it
+     */
+    protected OrderService(Http http, Executor executor, TinyLfuCache<String, Transaction> cache,
+                           MappedFileCache<Transaction> store) {
+        this(http, executor, cache, store, new Generations());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param http        {@link Http}
+     * @param executor    default {@link Executor} of the future returning calls
+     * @param cache       cache of the orders, keyed by order code, null to disable it
+     * @param store       off-heap store of the orders, looked up on a miss of the cache; null to disable it
+     * @param generations generations of the orders, shared with the other services using the cache and the store
+     */
+    OrderService(Http http, Executor executor, TinyLfuCache<String, Transaction> cache,
+                 MappedFileCache<Transaction> store, Generations generations) {
+        super(http, executor);
+        this.cache = cache;
+        this.store = store;
+        this.generations = generations;
     }
 
     /**
@@ -74,7 +140,7 @@ public class OrderService extends AbstractService {
      * @return {@link OrderResponse} object
      */
     public OrderResponse create(OrderRequest orderRequest) {
-        return http.post(ORDERS_URL, orderRequest, OrderResponse.class);
+        return cache(http.post(ORDERS_URL, orderRequest, OrderResponse.class));
     }
 
     /**
@@ -84,11 +150,17 @@ public class OrderService extends AbstractService {
      */
     public void refund(String orderCode) {
         AssertUtils.hasText(orderCode, "Order Code");
-        http.post(String.format(REFUND_URL, orderCode), null);
+        try {
+            http.post(ORDER_URL + orderCode + REFUND_SUFFIX, null);
+        } finally {
+            invalidate(orderCode);
+        }
     }
 
     /**
-     * Find the order identified by order code.
+     * Find the order identified by order code. When the client caches orders, an order found, created, authorized or
+     * captured recently is returned from the cache, as the same instance for every caller, or decoded from the
+     * off-heap store.
      *
      * @param orderCode Order code
      *
@@ -96,7 +168,29 @@ public class OrderService extends AbstractService {
      */
     public Transaction findOrder(String orderCode) {
         AssertUtils.hasText(orderCode, "Order Code");
-        return http.get(String.format(FIND_ORDER_URL, orderCode), Transaction.class);
+        if (cache == null && store == null) {
+            return http.get(ORDER_URL + orderCode, Transaction.class);
+        }
+        Transaction transaction = cache == null ? null : cache.getIfPresent(orderCode);
+        if (transaction != null) {
+            return transaction;
+        }
+        long generation = generations.get(orderCode);
+        transaction = store == null ? null : store.getIfPresent(orderCode);
+        if (transaction == null) {
+            transaction = http.get(ORDER_URL + orderCode, Transaction.class);
+            if (store != null) {
+                store.put(orderCode, transaction);
+            }
+        }
+        if (cache != null) {
+            cache.put(orderCode, transaction);
+        }
+        if (!generations.isCurrent(orderCode, generation)) {
+            // invalidated while the order was fetched: the invalidation may have run before the puts above
+            remove(orderCode);
+        }
+        return transaction;
     }
 
     /**
@@ -110,7 +204,16 @@ public class OrderService extends AbstractService {
     public OrderResponse authorize3Ds(String orderCode, OrderAuthorizationRequest orderAuthorizationRequest) {
 
         validateOrderAuthorizationRequest(orderAuthorizationRequest);
-        return http.put(String.format(AUTHORIZE_3DS_URL, orderCode), orderAuthorizationRequest, OrderResponse.class);
+        invalidate(orderCode);
+        long generation = generations.get(orderCode);
+        OrderResponse orderResponse;
+        try {
+            orderResponse = http.put(ORDER_URL + orderCode, orderAuthorizationRequest, OrderResponse.class);
+        } finally {
+            invalidate(orderCode);
+        }
+        // the call invalidated the order once more: any other invalidation means the response may be stale
+        return cache(orderResponse, generation + 1);
     }
 
     /**
@@ -121,7 +224,11 @@ public class OrderService extends AbstractService {
      */
     public void refund(String orderCode, int amount) {
         AssertUtils.hasText(orderCode, "Order Code");
-        http.post(String.format(REFUND_URL, orderCode), new RefundOrderRequest(amount));
+        try {
+            http.post(ORDER_URL + orderCode + REFUND_SUFFIX, new RefundOrderRequest(amount));
+        } finally {
+            invalidate(orderCode);
+        }
     }
 
     /**
@@ -131,7 +238,11 @@ public class OrderService extends AbstractService {
      */
     public void cancel(String orderCode) {
         AssertUtils.hasText(orderCode, "Order Code");
-        http.delete(String.format(CANCEL_ORDER_URL, orderCode), null);
+        try {
+            http.delete(ORDER_URL + orderCode, null);
+        } finally {
+            invalidate(orderCode);
+        }
     }
 
     /**
@@ -144,7 +255,509 @@ public class OrderService extends AbstractService {
      */
     public OrderResponse capture(CaptureOrderRequest captureOrderRequest, String orderCode) {
         AssertUtils.hasText(orderCode, "Order Code");
-        return http.post(String.format(CAPTURE_URL, orderCode), captureOrderRequest, OrderResponse.class);
+        invalidate(orderCode);
+        long generation = generations.get(orderCode);
+        OrderResponse orderResponse;
+        try {
+            orderResponse = http.post(ORDER_URL + orderCode + CAPTURE_SUFFIX, captureOrderRequest, OrderResponse.class);
+        } finally {
+            invalidate(orderCode);
+        }
+        // the call invalidated the order once more: any other invalidation means the response may be stale
+        return cache(orderResponse, generation + 1);
+    }
+
+    /**
+     * Create an order with the specified request, reading the response into a new {@link OrderView} instead of an
+     * {@link OrderResponse}.
+     *
+     * @param orderRequest {@link OrderRequest} object
+     *
+     * @return {@link OrderView} over the response
+     */
+    public OrderView createView(OrderRequest orderRequest) {
+        return createView(orderRequest, new OrderView());
+    }
+
+    /**
+     * Create an order with the specified request, reading the response into the given {@link OrderView} instead of
+     * an {@link OrderResponse}.
+     *
+     * @param orderRequest {@link OrderRequest} object
+     * @param view         the view to rebind, reusing its buffer
+     *
+     * @return {@code view}
+     */
+    public OrderView createView(OrderRequest orderRequest, OrderView view) {
+        return http.post(ORDERS_URL, orderRequest, view::read);
+    }
+
+    /**
+     * Find the order identified by order code, reading the response into a new {@link OrderView} instead of a
+     * {@link Transaction}.
+     *
+     * @param orderCode Order code
+     *
+     * @return {@link OrderView} over the response
+     */
+    public OrderView findOrderView(String orderCode) {
+        return findOrderView(orderCode, new OrderView());
+    }
+
+    /**
+     * Find the order identified by order code, reading the response into the given {@link OrderView} instead of a
+     * {@link Transaction}.
+     *
+     * @param orderCode Order code
+     * @param view      the view to rebind, reusing its buffer
+     *
+     * @return {@code view}
+     */
+    public OrderView findOrderView(String orderCode, OrderView view) {
+        AssertUtils.hasText(orderCode, "Order Code");
+        return http.get(ORDER_URL + orderCode, view::read);
+    }
+
+    /**
+     * Create an order with the specified request and return the response as received, without converting it to an
+     * {@link OrderResponse}. Error statuses are returned rather than thrown.
+     *
+     * @param orderRequest {@link OrderRequest} object
+     *
+     * @return {@link RawResponse} which the caller must close
+     */
+    public RawResponse createRaw(OrderRequest orderRequest) {
+        return http.postRaw(ORDERS_URL, orderRequest);
+    }
+
+    /**
+     * Find the order identified by order code and return the response as received, without converting it to a
+     * {@link Transaction}. Error statuses are returned rather than thrown.
+     *
+     * @param orderCode Order code
+     *
+     * @return {@link RawResponse} which the caller must close
+     */
+    public RawResponse findOrderRaw(String orderCode) {
+        AssertUtils.hasText(orderCode, "Order Code");
+        return http.getRaw(ORDER_URL + orderCode);
+    }
+
+    /**
+     * Authorize the given order using 3DS and return the response as received, without converting it to an
+     * {@link OrderResponse}. Error statuses are returned rather than thrown.
+     *
+     * @param orderCode                 The order to authorize
+     * @param orderAuthorizationRequest The request details
+     *
+     * @return {@link RawResponse} which the caller must close
+     */
+    public RawResponse authorize3DsRaw(String orderCode, OrderAuthorizationRequest orderAuthorizationRequest) {
+        validateOrderAuthorizationRequest(orderAuthorizationRequest);
+        invalidate(orderCode);
+        try {
+            return http.putRaw(ORDER_URL + orderCode, orderAuthorizationRequest);
+        } finally {
+            invalidate(orderCode);
+        }
+    }
+
+    /**
+     * Capture the authorized amount from the order identified by order code and return the response as received,
+     * without converting it to an {@link OrderResponse}. Error statuses are returned rather than thrown.
+     *
+     * @param captureOrderRequest {@link CaptureOrderRequest}
+     * @param orderCode           Order code
+     *
+     * @return {@link RawResponse} which the caller must close
+     */
+    public RawResponse captureRaw(CaptureOrderRequest captureOrderRequest, String orderCode) {
+        AssertUtils.hasText(orderCode, "Order Code");
+        invalidate(orderCode);
+        try {
+            return http.postRaw(ORDER_URL + orderCode + CAPTURE_SUFFIX, captureOrderRequest);
+        } finally {
+            invalidate(orderCode);
+        }
+    }
+
+    /**
+     * Create an order with the specified request without blocking the calling thread.
+     *
+     * @param orderRequest {@link OrderRequest} object
+     * @param executor     executor running the blocking call
+     *
+     * @return future of the {@link OrderResponse}, completed exceptionally with a {@link WorldpayException} on failure
+     */
+    public CompletableFuture<OrderResponse> createAsync(OrderRequest orderRequest, Executor executor) {
+        return async(() -> create(orderRequest), executor);
+    }
+
+    /**
+     * Refund the order identified by order code without blocking the calling thread.
+     *
+     * @param orderCode Order code
+     * @param executor  executor running the blocking call
+     *
+     * @return future completed once refunded, or exceptionally with a {@link WorldpayException} on failure
+     */
+    public CompletableFuture<Void> refundAsync(String orderCode, Executor executor) {
+        return async(() -> refund(orderCode), executor);
+    }
+
+    /**
+     * Partially refund the order identified by order code without blocking the calling thread.
+     *
+     * @param orderCode the order to be refunded
+     * @param amount    the amount to be refunded
+     * @param executor  executor running the blocking call
+     *
+     * @return future completed once refunded, or exceptionally with a {@link WorldpayException} on failure
+     */
+    public CompletableFuture<Void> refundAsync(String orderCode, int amount, Executor executor) {
+        return async(() -> refund(orderCode, amount), executor);
+    }
+
+    /**
+     * Find the order identified by order code without blocking the calling thread.
+     *
+     * @param orderCode Order code
+     * @param executor  executor running the blocking call
+     *
+     * @return future of the {@link Transaction}, completed exceptionally with a {@link WorldpayException} on failure
+     */
+    public CompletableFuture<Transaction> findOrderAsync(String orderCode, Executor executor) {
+        return async(() -> findOrder(orderCode), executor);
+    }
+
+    /**
+     * Authorize the given order using 3DS without blocking the calling thread.
+     *
+     * @param orderCode                 The order to authorize
+     * @param orderAuthorizationRequest The request details
+     * @param executor                  executor running the blocking call
+     *
+     * @return future of the {@link OrderResponse}, completed exceptionally with a {@link WorldpayException} on failure
+     */
+    public CompletableFuture<OrderResponse> authorize3DsAsync(String orderCode,
+                                                              OrderAuthorizationRequest orderAuthorizationRequest,
+                                                              Executor executor) {
+        return async(() -> authorize3Ds(orderCode, orderAuthorizationRequest), executor);
+    }
+
+    /**
+     * Cancel the order identified by order code without blocking the calling thread.
+     *
+     * @param orderCode Order code
+     * @param executor  executor running the blocking call
+     *
+     * @return future completed once cancelled, or exceptionally with a {@link WorldpayException} on failure
+     */
+    public CompletableFuture<Void> cancelAsync(String orderCode, Executor executor) {
+        return async(() -> cancel(orderCode), executor);
+    }
+
+    /**
+     * Capture the authorized amount from the order identified by order code without blocking the calling thread.
+     *
+     * @param captureOrderRequest {@link CaptureOrderRequest}
+     * @param orderCode           Order code
+     * @param executor            executor running the blocking call
+     *
+     * @return future of the {@link OrderResponse}, completed exceptionally with a {@link WorldpayException} on failure
+     */
+    public CompletableFuture<OrderResponse> captureAsync(CaptureOrderRequest captureOrderRequest, String orderCode,
+                                                         Executor executor) {
+        return async(() -> capture(captureOrderRequest, orderCode), executor);
+    }
+
+    /**
+     * Create an order with the specified request on the default executor of the client.
+     *
+     * @param orderRequest {@link OrderRequest} object
+     *
+     * @return future of the {@link OrderResponse}, completed exceptionally with a {@link WorldpayException} on failure
+     */
+    public CompletableFuture<OrderResponse> createAsync(OrderRequest orderRequest) {
+        return createAsync(orderRequest, executor);
+    }
+
+    /**
+     * Refund the order identified by order code on the default executor of the client.
+     *
+     * @param orderCode Order code
+     *
+     * @return future completed once refunded, or exceptionally with a {@link WorldpayException} on failure
+     */
+    public CompletableFuture<Void> refundAsync(String orderCode) {
+        return refundAsync(orderCode, executor);
+    }
+
+    /**
+     * Partially refund the order identified by order code on the default executor of the client.
+     *
+     * @param orderCode the order to be refunded
+     * @param amount    the amount to be refunded
+     *
+     * @return future completed once refunded, or exceptionally with a {@link WorldpayException} on failure
+     */
+    public CompletableFuture<Void> refundAsync(String orderCode, int amount) {
+        return refundAsync(orderCode, amount, executor);
+    }
+
+    /**
+     * Find the order identified by order code on the default executor of the client.
+     *
+     * @param orderCode Order code
+     *
+     * @return future of the {@link Transaction}, completed exceptionally with a {@link WorldpayException} on failure
+     */
+    public CompletableFuture<Transaction> findOrderAsync(String orderCode) {
+        return findOrderAsync(orderCode, executor);
+    }
+
+    /**
+     * Authorize the given order using 3DS on the default executor of the client.
+     *
+     * @param orderCode                 The order to authorize
+     * @param orderAuthorizationRequest The request details
+     *
+     * @return future of the {@link OrderResponse}, completed exceptionally with a {@link WorldpayException} on failure
+     */
+    public CompletableFuture<OrderResponse> authorize3DsAsync(String orderCode,
+                                                              OrderAuthorizationRequest orderAuthorizationRequest) {
+        return authorize3DsAsync(orderCode, orderAuthorizationRequest, executor);
+    }
+
+    /**
+     * Cancel the order identified by order code on the default executor of the client.
+     *
+     * @param orderCode Order code
+     *
+     * @return future completed once cancelled, or exceptionally with a {@link WorldpayException} on failure
+     */
+    public CompletableFuture<Void> cancelAsync(String orderCode) {
+        return cancelAsync(orderCode, executor);
+    }
+
+    /**
+     * Capture the authorized amount from the order identified by order code on the default executor of the client.
+     *
+     * @param captureOrderRequest {@link CaptureOrderRequest}
+     * @param orderCode           Order code
+     *
+     * @return future of the {@link OrderResponse}, completed exceptionally with a {@link WorldpayException} on failure
+     */
+    public CompletableFuture<OrderResponse> captureAsync(CaptureOrderRequest captureOrderRequest, String orderCode) {
+        return captureAsync(captureOrderRequest, orderCode, executor);
+    }
+
+    /**
+     * Create an order for every request published by {@code orderRequests}.
+     * <p>
+     * Requests are pulled from the source only as the subscriber requests results, with at most
+     * {@code maxConcurrency} calls in flight, so a slow subscriber throttles the calls made to the gateway. Results
+     * are published in completion order, a failed order is published as a failed {@link OperationResult} and does
+     * not end the stream. The returned publisher supports a single subscriber.
+     *
+     * @param orderRequests  publisher of {@link OrderRequest}
+     * @param maxConcurrency maximum number of calls in flight
+     * @param executor       executor running the blocking calls
+     *
+     * @return publisher of the {@link OperationResult} of every order
+     */
+    public Flow.Publisher<OperationResult<OrderRequest, OrderResponse>> createAll(
+        Flow.Publisher<OrderRequest> orderRequests, int maxConcurrency, Executor executor) {
+        return new BulkOperationPublisher<>(orderRequests, orderRequest -> createAsync(orderRequest, executor),
+                                            maxConcurrency);
+    }
+
+    /**
+     * Create an order for every request published by {@code orderRequests} on the default executor of the client.
+     *
+     * @param orderRequests  publisher of {@link OrderRequest}
+     * @param maxConcurrency maximum number of calls in flight
+     *
+     * @return publisher of the {@link OperationResult} of every order
+     *
+     * @see #createAll(Flow.Publisher, int, Executor)
+     */
+    public Flow.Publisher<OperationResult<OrderRequest, OrderResponse>> createAll(
+        Flow.Publisher<OrderRequest> orderRequests, int maxConcurrency) {
+        return createAll(orderRequests, maxConcurrency, executor);
+    }
+
+    /**
+     * Create an order for every request, with at most {@code maxConcurrency} calls in flight, handing each outcome
+     * to the sink as soon as it is known. A failed order does not abort the batch. Blocks until every order has been
+     * handed to the sink.
+     *
+     * @param orderRequests  the {@link OrderRequest}s, read lazily
+     * @param maxConcurrency maximum number of calls in flight
+     * @param sink           receiver of the outcomes
+     *
+     * @throws WorldpayException if the sink or the iterable fails, or the calling thread is interrupted
+     */
+    public void createAll(Iterable<OrderRequest> orderRequests, int maxConcurrency,
+                          ResultSink<OrderRequest, OrderResponse> sink) {
+        BatchRunner.run(orderRequests, orderRequest -> createAsync(orderRequest), maxConcurrency, sink);
+    }
+
+    /**
+     * Create an order for every request, with at most {@code maxConcurrency} calls in flight.
+     *
+     * @param orderRequests  the {@link OrderRequest}s
+     * @param maxConcurrency maximum number of calls in flight
+     *
+     * @return the outcome of every order, in completion order
+     *
+     * @see #createAll(Iterable, int, ResultSink)
+     */
+    public List<OperationResult<OrderRequest, OrderResponse>> createAll(Iterable<OrderRequest> orderRequests,
+                                                                        int maxConcurrency) {
+        return BatchRunner.run(orderRequests, orderRequest -> createAsync(orderRequest), maxConcurrency);
+    }
+
+    /**
+     * Capture every order, keyed by order code, with at most {@code maxConcurrency} calls in flight, handing each
+     * outcome to the sink as soon as it is known. A failed capture does not abort the batch. Blocks until every
+     * capture has been handed to the sink.
+     *
+     * @param captures       pairs of order code and {@link CaptureOrderRequest}, e.g. the entry set of a map
+     * @param maxConcurrency maximum number of calls in flight
+     * @param sink           receiver of the outcomes
+     *
+     * @throws WorldpayException if the sink or the iterable fails, or the calling thread is interrupted
+     */
+    public void captureAll(Iterable<? extends Map.Entry<String, CaptureOrderRequest>> captures, int maxConcurrency,
+                           ResultSink<Map.Entry<String, CaptureOrderRequest>, OrderResponse> sink) {
+        BatchRunner.run(captures, capture -> captureAsync(capture.getValue(), capture.getKey()), maxConcurrency,
+                        sink);
+    }
+
+    /**
+     * Capture every order, keyed by order code, with at most {@code maxConcurrency} calls in flight.
+     *
+     * @param captures       pairs of order code and {@link CaptureOrderRequest}, e.g. the entry set of a map
+     * @param maxConcurrency maximum number of calls in flight
+     *
+     * @return the outcome of every capture, in completion order
+     *
+     * @see #captureAll(Iterable, int, ResultSink)
+     */
+    public List<OperationResult<Map.Entry<String, CaptureOrderRequest>, OrderResponse>> captureAll(
+        Iterable<? extends Map.Entry<String, CaptureOrderRequest>> captures, int maxConcurrency) {
+        return BatchRunner.run(captures, capture -> captureAsync(capture.getValue(), capture.getKey()),
+                               maxConcurrency);
+    }
+
+    /**
+     * Refund every order, keyed by order code, with at most {@code maxConcurrency} calls in flight, handing each
+     * outcome to the sink as soon as it is known. A null amount refunds the order in full. A failed refund does not
+     * abort the batch. Blocks until every refund has been handed to the sink.
+     *
+     * @param refunds        pairs of order code and amount to refund, e.g. the entry set of a map
+     * @param maxConcurrency maximum number of calls in flight
+     * @param sink           receiver of the outcomes
+     *
+     * @throws WorldpayException if the sink or the iterable fails, or the calling thread is interrupted
+     */
+    public void refundAll(Iterable<? extends Map.Entry<String, Integer>> refunds, int maxConcurrency,
+                          ResultSink<Map.Entry<String, Integer>, Void> sink) {
+        BatchRunner.run(refunds, this::refundAsync, maxConcurrency, sink);
+    }
+
+    /**
+     * Refund every order, keyed by order code, with at most {@code maxConcurrency} calls in flight.
+     *
+     * @param refunds        pairs of order code and amount to refund, a null amount refunds in full
+     * @param maxConcurrency maximum number of calls in flight
+     *
+     * @return the outcome of every refund, in completion order
+     *
+     * @see #refundAll(Iterable, int, ResultSink)
+     */
+    public List<OperationResult<Map.Entry<String, Integer>, Void>> refundAll(
+        Iterable<? extends Map.Entry<String, Integer>> refunds, int maxConcurrency) {
+        return BatchRunner.run(refunds, this::refundAsync, maxConcurrency);
+    }
+
+    private CompletableFuture<Void> refundAsync(Map.Entry<String, Integer> refund) {
+        return refund.getValue() == null ? refundAsync(refund.getKey())
+                                         : refundAsync(refund.getKey(), refund.getValue());
+    }
+
+    /**
+     * Removes the order from the cache and the store of the client, so that the next {@link #findOrder} retrieves it
+     * again.
+     *
+     * @param orderCode Order code
+     */
+    public void invalidate(String orderCode) {
+        if (orderCode == null) {
+            return;
+        }
+        generations.bump(orderCode);
+        remove(orderCode);
+    }
+
+    /**
+     * @param orderCode the order code
+     */
+    private void remove(String orderCode) {
+        if (cache != null) {
+            cache.invalidate(orderCode);
+        }
+        if (store != null) {
+            store.invalidate(orderCode);
+        }
+    }
+
+    /**
+     * Write the order created by a call through to the cache and the store.
+     *
+     * @param orderResponse the order returned by the call
+     *
+     * @return the order returned by the call
+     */
+    private OrderResponse cache(OrderResponse orderResponse) {
+        if (orderResponse == null || orderResponse.getOrderCode() == null) {
+            return orderResponse;
+        }
+        return cache(orderResponse, generations.get(orderResponse.getOrderCode()));
+    }
+
+    /**
+     * Write the order returned by a call through to the cache and the store, in place of the order found before the
+     * call, unless the order was invalidated since the given generation: a refund or a cancel which completed in the
+     * meantime makes the response stale.
+     *
+     * @param orderResponse the order returned by the call
+     * @param generation    the generation the order must still be at
+     *
+     * @return the order returned by the call
+     */
+    private OrderResponse cache(OrderResponse orderResponse, long generation) {
+        if ((cache == null && store == null) || orderResponse == null || orderResponse.getOrderCode() == null) {
+            return orderResponse;
+        }
+        String orderCode = orderResponse.getOrderCode();
+        if (!generations.isCurrent(orderCode, generation)) {
+            return orderResponse;
+        }
+        Transaction transaction = new Transaction();
+        transaction.setOrderResponse(orderResponse);
+        if (cache != null) {
+            cache.put(orderCode, transaction);
+        }
+        if (store != null) {
+            store.put(orderCode, transaction);
+        }
+        if (!generations.isCurrent(orderCode, generation)) {
+            // invalidated while the order was written: the invalidation may have run before the puts above
+            remove(orderCode);
+        }
+        return orderResponse;
     }
 
     /**
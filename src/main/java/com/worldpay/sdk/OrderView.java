@@ -0,0 +1,466 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+import com.worldpay.gateway.clearwater.client.core.dto.response.OrderResponse;
+import com.worldpay.gateway.clearwater.client.core.exception.WorldpayException;
+import com.worldpay.gateway.clearwater.client.ui.dto.order.Transaction;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Reusable view over the JSON payload of an {@link OrderResponse}, or of a {@link Transaction} wrapping one, which
+ * decodes a member only when it is asked for. Nothing but the payload is held: there is no object graph, the members
+ * which are never read are skipped over without being decoded, and the buffer the payload is read into is kept from
+ * one call to the next.
+ * <p>
+ * A view is rebound by each call it is passed to, or by {@link #wrap(byte[], int, int)}, which invalidates the values
+ * previously decoded. Instances are not thread safe.
+ */
+public class OrderView {
+
+    /**
+     * Capacity of the buffer the first payload is read into, doubled as needed.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Position of the order object when it has not been located yet.
+     */
+    private static final int UNRESOLVED = -2;
+
+    /**
+     * Position of the order object, or of a member, which is absent from the payload.
+     */
+    private static final int ABSENT = -1;
+
+    private static final int ORDER_CODE = 1;
+
+    private static final int PAYMENT_STATUS = 1 << 1;
+
+    private static final int AMOUNT = 1 << 2;
+
+    /**
+     * Buffer owned by the view, reused by every payload read from a response.
+     */
+    private byte[] buffer;
+
+    private byte[] bytes;
+
+    private int start;
+
+    private int end;
+
+    /**
+     * Position of the opening brace of the order object.
+     */
+    private int order = ABSENT;
+
+    /**
+     * Members already decoded, as a combination of {@link #ORDER_CODE}, {@link #PAYMENT_STATUS} and {@link #AMOUNT}.
+     */
+    private int decoded;
+
+    private String orderCode;
+
+    private String paymentStatus;
+
+    private Integer amount;
+
+    /**
+     * Bind the view to a payload, which is not copied and must not change while the view is in use.
+     *
+     * @param json   the JSON of an {@link OrderResponse} or of a {@link Transaction}
+     * @param offset the position of the payload in {@code json}
+     * @param length the length of the payload
+     *
+     * @return this view
+     */
+    public OrderView wrap(byte[] json, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, json.length);
+        bytes = json;
+        start = offset;
+        end = offset + length;
+        order = UNRESOLVED;
+        decoded = 0;
+        orderCode = null;
+        paymentStatus = null;
+        amount = null;
+        return this;
+    }
+
+    /**
+     * Bind the view to a payload, which is not copied and must not change while the view is in use.
+     *
+     * @param json the JSON of an {@link OrderResponse} or of a {@link Transaction}
+     *
+     * @return this view
+     */
+    public OrderView wrap(byte[] json) {
+        return wrap(json, 0, json.length);
+    }
+
+    /**
+     * Read the payload into the buffer of the view and bind the view to it.
+     *
+     * @param in the payload, may be null
+     *
+     * @return this view
+     *
+     * @throws IOException if the payload cannot be read
+     */
+    OrderView read(InputStream in) throws IOException {
+        if (buffer == null) {
+            buffer = new byte[INITIAL_CAPACITY];
+        }
+        int length = 0;
+        if (in != null) {
+            int read;
+            while ((read = in.read(buffer, length, buffer.length - length)) != -1) {
+                length += read;
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+        }
+        return wrap(buffer, 0, length);
+    }
+
+    /**
+     * @return the order code, or null if absent
+     */
+    public String getOrderCode() {
+        if ((decoded & ORDER_CODE) == 0) {
+            orderCode = getString("orderCode");
+            decoded |= ORDER_CODE;
+        }
+        return orderCode;
+    }
+
+    /**
+     * @return the payment status, or null if absent
+     */
+    public String getPaymentStatus() {
+        if ((decoded & PAYMENT_STATUS) == 0) {
+            paymentStatus = getString("paymentStatus");
+            decoded |= PAYMENT_STATUS;
+        }
+        return paymentStatus;
+    }
+
+    /**
+     * @return the amount, or null if absent
+     */
+    public Integer getAmount() {
+        if ((decoded & AMOUNT) == 0) {
+            amount = getInteger("amount");
+            decoded |= AMOUNT;
+        }
+        return amount;
+    }
+
+    /**
+     * Decode any member of the order holding a string. Unlike the dedicated getters, the value is decoded again on
+     * every call.
+     *
+     * @param name the name of the member
+     *
+     * @return the value, or null if absent
+     */
+    public String getString(String name) {
+        int value = findMember(name);
+        return value == ABSENT ? null : decodeString(value);
+    }
+
+    /**
+     * Decode any member of the order holding an integer. Unlike the dedicated getters, the value is decoded again on
+     * every call.
+     *
+     * @param name the name of the member
+     *
+     * @return the value, or null if absent
+     */
+    public Integer getInteger(String name) {
+        int value = findMember(name);
+        return value == ABSENT ? null : decodeInteger(value);
+    }
+
+    /**
+     * @param name the name of a member of the order
+     *
+     * @return the position of its value, or {@link #ABSENT}
+     */
+    private int findMember(String name) {
+        if (order == UNRESOLVED) {
+            order = locateOrder();
+        }
+        return order == ABSENT ? ABSENT : findMember(order, name);
+    }
+
+    /**
+     * @return the position of the order object, either the root or its {@code orderResponse} member
+     */
+    private int locateOrder() {
+        int root = skipWhitespace(start);
+        if (root == end) {
+            return ABSENT;
+        }
+        expect(root, '{');
+        int nested = findMember(root, "orderResponse");
+        return nested != ABSENT && bytes[nested] == '{' ? nested : root;
+    }
+
+    /**
+     * Scan the members of an object, skipping over the values of the others without decoding them.
+     *
+     * @param object the position of the opening brace
+     * @param name   the name of the member
+     *
+     * @return the position of its value, or {@link #ABSENT}
+     */
+    private int findMember(int object, String name) {
+        int i = skipWhitespace(object + 1);
+        if (at(i) == '}') {
+            return ABSENT;
+        }
+        while (true) {
+            expect(i, '"');
+            int keyEnd = skipString(i);
+            boolean match = matches(i + 1, keyEnd - 1, name);
+            i = skipWhitespace(keyEnd);
+            expect(i, ':');
+            i = skipWhitespace(i + 1);
+            if (match) {
+                return i;
+            }
+            i = skipWhitespace(skipValue(i));
+            if (at(i) != ',') {
+                expect(i, '}');
+                return ABSENT;
+            }
+            i = skipWhitespace(i + 1);
+        }
+    }
+
+    /**
+     * @return the value at the position, null for a JSON null and the text of the other scalars
+     */
+    private String decodeString(int i) {
+        if (at(i) != '"') {
+            int valueEnd = skipValue(i);
+            return matches(i, valueEnd, "null") ? null : new String(bytes, i, valueEnd - i, StandardCharsets.US_ASCII);
+        }
+        int from = i + 1;
+        int to = skipString(i) - 1;
+        for (int p = from; p < to; p++) {
+            if (bytes[p] == '\\') {
+                return unescape(from, to);
+            }
+        }
+        return new String(bytes, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the content of a string holding escape sequences
+     */
+    private String unescape(int from, int to) {
+        StringBuilder text = new StringBuilder(to - from);
+        int segment = from;
+        int p = from;
+        while (p < to) {
+            if (bytes[p] != '\\') {
+                p++;
+                continue;
+            }
+            text.append(new String(bytes, segment, p - segment, StandardCharsets.UTF_8));
+            byte escaped = at(p + 1);
+            switch (escaped) {
+                case '"':
+                case '\\':
+                case '/':
+                    text.append((char) escaped);
+                    break;
+                case 'b':
+                    text.append('\b');
+                    break;
+                case 'f':
+                    text.append('\f');
+                    break;
+                case 'n':
+                    text.append('\n');
+                    break;
+                case 'r':
+                    text.append('\r');
+                    break;
+                case 't':
+                    text.append('\t');
+                    break;
+                case 'u':
+                    if (p + 6 > to) {
+                        throw malformed(p);
+                    }
+                    try {
+                        text.append((char) Integer.parseInt(
+                            new String(bytes, p + 2, 4, StandardCharsets.US_ASCII), 16));
+                    } catch (NumberFormatException e) {
+                        throw malformed(p);
+                    }
+                    p += 4;
+                    break;
+                default:
+                    throw malformed(p);
+            }
+            p += 2;
+            segment = p;
+        }
+        return text.append(new String(bytes, segment, to - segment, StandardCharsets.UTF_8)).toString();
+    }
+
+    /**
+     * @return the value at the position, null for a JSON null; strings and decimals are coerced as Jackson does
+     */
+    private Integer decodeInteger(int i) {
+        if (at(i) == '"') {
+            String text = decodeString(i);
+            try {
+                return text.isEmpty() ? null : Integer.valueOf(text.trim());
+            } catch (NumberFormatException e) {
+                throw malformed(i);
+            }
+        }
+        int valueEnd = skipValue(i);
+        if (matches(i, valueEnd, "null")) {
+            return null;
+        }
+        boolean negative = bytes[i] == '-';
+        int p = negative ? i + 1 : i;
+        if (valueEnd - p > 0 && valueEnd - p <= 9) {
+            int value = 0;
+            while (p < valueEnd && bytes[p] >= '0' && bytes[p] <= '9') {
+                value = value * 10 + (bytes[p++] - '0');
+            }
+            if (p == valueEnd) {
+                return negative ? -value : value;
+            }
+        }
+        try {
+            return new BigDecimal(new String(bytes, i, valueEnd - i, StandardCharsets.US_ASCII))
+                .toBigInteger().intValueExact();
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw malformed(i);
+        }
+    }
+
+    /**
+     * @return the position following the value starting at {@code i}
+     */
+    private int skipValue(int i) {
+        byte b = at(i);
+        if (b == '"') {
+            return skipString(i);
+        }
+        if (b == '{' || b == '[') {
+            int depth = 0;
+            do {
+                b = at(i);
+                if (b == '"') {
+                    i = skipString(i);
+                    continue;
+                }
+                if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    depth--;
+                }
+                i++;
+            } while (depth > 0);
+            return i;
+        }
+        int from = i;
+        while (i < end && !isDelimiter(bytes[i])) {
+            i++;
+        }
+        if (i == from) {
+            throw malformed(i);
+        }
+        return i;
+    }
+
+    /**
+     * @return the position following the closing quote of the string starting at {@code i}
+     */
+    private int skipString(int i) {
+        i++;
+        while (true) {
+            byte b = at(i);
+            if (b == '"') {
+                return i + 1;
+            }
+            i += b == '\\' ? 2 : 1;
+        }
+    }
+
+    private int skipWhitespace(int i) {
+        while (i < end && isWhitespace(bytes[i])) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * @return true if the bytes in the range are the ASCII characters of {@code text}
+     */
+    private boolean matches(int from, int to, String text) {
+        if (to - from != text.length()) {
+            return false;
+        }
+        for (int k = 0; k < text.length(); k++) {
+            if (bytes[from + k] != text.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private byte at(int i) {
+        if (i >= end) {
+            throw malformed(i);
+        }
+        return bytes[i];
+    }
+
+    private void expect(int i, char c) {
+        if (at(i) != c) {
+            throw malformed(i);
+        }
+    }
+
+    private WorldpayException malformed(int i) {
+        return new WorldpayException("Malformed JSON payload at offset " + (i - start));
+    }
+
+    private static boolean isDelimiter(byte b) {
+        return b == ',' || b == '}' || b == ']' || isWhitespace(b);
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t';
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+import com.worldpay.sdk.util.WorldpayLibraryConstants;
+import org.apache.hc.client5.http.classic.methods.HttpUriRequestBase;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.ManagedHttpClientConnectionFactory;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.io.ManagedHttpClientConnection;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.io.HttpConnectionFactory;
+import org.apache.hc.core5.http.io.entity.EntityTemplate;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * {@link HttpTransport} backed by a pooled Apache HttpClient 5. Gives control over the pool size, per route limits,
+ * idle eviction and connection time to live.
+ * <p>
+ * Requires {@code org.apache.httpcomponents.client5:httpclient5} on the classpath.
+ */
+public class PoolingHttpClientTransport implements HttpTransport {
+
+    /**
+     * Connection counters.
+     */
+    private final ConnectionMetrics metrics = new ConnectionMetrics();
+
+    /**
+     * Connection manager holding the pool.
+     */
+    private final PoolingHttpClientConnectionManager connectionManager;
+
+    /**
+     * Client executing the requests.
+     */
+    private final CloseableHttpClient httpClient;
+
+    /**
+     * Configuration of the requests without a timeout of their own.
+     */
+    private final RequestConfig requestConfig;
+
+    /**
+     * Private constructor, to be used only by {@link Builder}
+     *
+     * @param builder the builder holding the pool settings
+     */
+    private PoolingHttpClientTransport(Builder builder) {
+        ConnectionConfig.Builder connectionConfig = ConnectionConfig.custom()
+            .setConnectTimeout(Timeout.ofMilliseconds(WorldpayLibraryConstants.CONNECTION_TIMEOUT))
+            .setSocketTimeout(Timeout.ofMilliseconds(WorldpayLibraryConstants.SOCKET_TIMEOUT));
+        if (builder.connectionTimeToLive > 0) {
+            connectionConfig.setTimeToLive(TimeValue.ofMilliseconds(builder.connectionTimeToLive));
+        }
+        this.connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+            .setMaxConnTotal(builder.maxConnections)
+            .setMaxConnPerRoute(builder.maxConnectionsPerRoute)
+            .setDefaultConnectionConfig(connectionConfig.build())
+            .setConnectionFactory(new CountingConnectionFactory(metrics))
+            .build();
+        this.requestConfig = RequestConfig.custom()
+            .setConnectionRequestTimeout(Timeout.ofMilliseconds(builder.connectionRequestTimeout))
+            .setResponseTimeout(Timeout.ofMilliseconds(WorldpayLibraryConstants.SOCKET_TIMEOUT))
+            .build();
+        this.httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .setDefaultRequestConfig(requestConfig)
+            .evictExpiredConnections()
+            .evictIdleConnections(TimeValue.ofMilliseconds(builder.idleConnectionTimeout))
+            .disableContentCompression()
+            .disableAutomaticRetries()
+            .build();
+    }
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException {
+        HttpUriRequestBase httpRequest = new HttpUriRequestBase(request.getMethod(), URI.create(request.getUri()));
+        for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+            httpRequest.setHeader(header.getKey(), header.getValue());
+        }
+        if (request.getTimeout() > 0) {
+            Timeout timeout = Timeout.ofMilliseconds(request.getTimeout());
+            httpRequest.setConfig(RequestConfig.copy(requestConfig)
+                                      .setConnectionRequestTimeout(timeout)
+                                      .setResponseTimeout(timeout)
+                                      .build());
+        }
+        RequestBody body = request.getBody();
+        if (body != null) {
+            httpRequest.setEntity(new EntityTemplate(body.contentLength(), ContentType.APPLICATION_JSON, null,
+                                                     body::writeTo));
+        }
+        ClassicHttpResponse response = httpClient.executeOpen(null, httpRequest, null);
+        metrics.recordExchange();
+        return new HttpClientResponse(response);
+    }
+
+    @Override
+    public ConnectionMetrics getConnectionMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    /**
+     * {@link TransportResponse} wrapping a {@link ClassicHttpResponse}.
+     */
+    private static class HttpClientResponse implements TransportResponse {
+
+        private final ClassicHttpResponse response;
+
+        HttpClientResponse(ClassicHttpResponse response) {
+            this.response = response;
+        }
+
+        @Override
+        public int getStatusCode() {
+            return response.getCode();
+        }
+
+        @Override
+        public String getHeader(String name) {
+            Header header = response.getFirstHeader(name);
+            return header == null ? null : header.getValue();
+        }
+
+        @Override
+        public Map<String, List<String>> getHeaders() {
+            Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (Header header : response.getHeaders()) {
+                headers.computeIfAbsent(header.getName(), name -> new ArrayList<>()).add(header.getValue());
+            }
+            return Collections.unmodifiableMap(headers);
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            HttpEntity entity = response.getEntity();
+            return entity == null ? null : entity.getContent();
+        }
+
+        /**
+         * Consume the payload before closing, closing an unread response discards the connection instead of
+         * returning it to the pool.
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                EntityUtils.consume(response.getEntity());
+            } finally {
+                response.close();
+            }
+        }
+    }
+
+    /**
+     * Connection factory recording every connection it creates.
+     */
+    private static class CountingConnectionFactory implements HttpConnectionFactory<ManagedHttpClientConnection> {
+
+        private final ConnectionMetrics metrics;
+
+        CountingConnectionFactory(ConnectionMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public ManagedHttpClientConnection createConnection(Socket socket) throws IOException {
+            metrics.recordNewConnection();
+            return ManagedHttpClientConnectionFactory.INSTANCE.createConnection(socket);
+        }
+    }
+
+    /**
+     * Builder class to build {@link PoolingHttpClientTransport}
+     */
+    public static class Builder {
+
+        /**
+         * Maximum number of pooled connections.
+         */
+        private int maxConnections = 50;
+
+        /**
+         * Maximum number of pooled connections per route.
+         */
+        private int maxConnectionsPerRoute = 50;
+
+        /**
+         * Time in milliseconds after which idle connections are evicted from the pool.
+         */
+        private long idleConnectionTimeout = 30000;
+
+        /**
+         * Maximum life time in milliseconds of a pooled connection, zero or less means unlimited.
+         */
+        private long connectionTimeToLive;
+
+        /**
+         * Time in milliseconds to wait for a connection from the pool.
+         */
+        private long connectionRequestTimeout = WorldpayLibraryConstants.CONNECTION_TIMEOUT;
+
+        public Builder() {
+        }
+
+        public Builder setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+            return this;
+        }
+
+        public Builder setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            return this;
+        }
+
+        public Builder setIdleConnectionTimeout(long idleConnectionTimeout) {
+            this.idleConnectionTimeout = idleConnectionTimeout;
+            return this;
+        }
+
+        public Builder setConnectionTimeToLive(long connectionTimeToLive) {
+            this.connectionTimeToLive = connectionTimeToLive;
+            return this;
+        }
+
+        public Builder setConnectionRequestTimeout(long connectionRequestTimeout) {
+            this.connectionRequestTimeout = connectionRequestTimeout;
+            return this;
+        }
+
+        /**
+         * Build {@link PoolingHttpClientTransport}
+         *
+         * @return {@link PoolingHttpClientTransport}
+         */
+        public PoolingHttpClientTransport build() {
+            if (maxConnections < 1 || maxConnectionsPerRoute < 1) {
+                throw new IllegalArgumentException("maxConnections and maxConnectionsPerRoute must be positive");
+            }
+            return new PoolingHttpClientTransport(this);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+import com.worldpay.gateway.clearwater.client.core.dto.ApiError;
+import com.worldpay.gateway.clearwater.client.core.exception.WorldpayException;
+
+/**
+ * Thrown when the service answers 429 Too Many Requests, or without reaching the service when the rate limiter of
+ * the client cannot let the call through within its maximum wait.
+ */
+public class RateLimitExceededException extends WorldpayException {
+
+    private static final long serialVersionUID = -2630718934710356127L;
+
+    /**
+     * Time in milliseconds after which a call may be let through, negative when unknown.
+     */
+    private final long retryAfter;
+
+    /**
+     * Create a new exception for a call rejected by the client
+     *
+     * @param retryAfter the time in milliseconds after which a call may be let through
+     */
+    public RateLimitExceededException(long retryAfter) {
+        super("Rate limit exceeded, retry after " + retryAfter + " ms");
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Create a new exception for a call rejected by the service
+     *
+     * @param apiError   the error returned by the service
+     * @param retryAfter the time in milliseconds given by the service, negative when unknown
+     */
+    public RateLimitExceededException(ApiError apiError, long retryAfter) {
+        super(apiError, "API error: " + apiError.getMessage());
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * @return the time in milliseconds after which a call may be let through, negative when unknown
+     */
+    public long getRetryAfter() {
+        return retryAfter;
+    }
+}
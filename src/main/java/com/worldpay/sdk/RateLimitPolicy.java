@@ -0,0 +1,110 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+/**
+ * Settings of the rate limiter pacing the calls made with a service key.
+ * <p>
+ * Calls are let through at a steady rate, with bursts of up to {@code burst} calls after a quiet period. A call over
+ * the rate waits for its turn, or fails with a {@link RateLimitExceededException} when its turn is further away than
+ * the maximum wait. The limiter also follows the service: after a 429 or 503 response with a {@code Retry-After}
+ * header, or a response announcing that no call is left in the current period, no call is let through before the
+ * time given by the service.
+ */
+public class RateLimitPolicy {
+
+    private final double permitsPerSecond;
+
+    private final int burst;
+
+    private final long maxWait;
+
+    /**
+     * Private constructor, to be used only by {@link Builder}
+     *
+     * @param builder the builder holding the settings
+     */
+    private RateLimitPolicy(Builder builder) {
+        this.permitsPerSecond = builder.permitsPerSecond;
+        this.burst = builder.burst;
+        this.maxWait = builder.maxWait;
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    public long getMaxWait() {
+        return maxWait;
+    }
+
+    /**
+     * Builder class to build {@link RateLimitPolicy}
+     */
+    public static class Builder {
+
+        /**
+         * Sustained number of calls per second.
+         */
+        private double permitsPerSecond = 10;
+
+        /**
+         * Number of calls let through at once after a quiet period.
+         */
+        private int burst = 10;
+
+        /**
+         * Time in milliseconds a call may wait for its turn before being rejected.
+         */
+        private long maxWait = 30000;
+
+        public Builder() {
+        }
+
+        public Builder setPermitsPerSecond(double permitsPerSecond) {
+            if (!(permitsPerSecond > 0)) {
+                throw new IllegalArgumentException("permitsPerSecond must be positive");
+            }
+            this.permitsPerSecond = permitsPerSecond;
+            return this;
+        }
+
+        public Builder setBurst(int burst) {
+            if (burst < 1) {
+                throw new IllegalArgumentException("burst must be at least 1");
+            }
+            this.burst = burst;
+            return this;
+        }
+
+        public Builder setMaxWait(long maxWait) {
+            this.maxWait = maxWait;
+            return this;
+        }
+
+        /**
+         * Build {@link RateLimitPolicy}
+         *
+         * @return {@link RateLimitPolicy}
+         */
+        public RateLimitPolicy build() {
+            return new RateLimitPolicy(this);
+        }
+    }
+}
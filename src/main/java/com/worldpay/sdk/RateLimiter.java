@@ -0,0 +1,228 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static com.worldpay.sdk.util.WorldpayLibraryConstants.HTTP_SERVICE_UNAVAILABLE;
+import static com.worldpay.sdk.util.WorldpayLibraryConstants.HTTP_TOO_MANY_REQUESTS;
+import static com.worldpay.sdk.util.WorldpayLibraryConstants.RETRY_AFTER;
+
+/**
+ * Rate limiter of the calls made with a service key, see {@link RateLimitPolicy}.
+ * <p>
+ * Implements the generic cell rate algorithm: the only state is the theoretical arrival time of the next call,
+ * advanced by one emission interval per call with a compare and set, so that acquiring a permit is lock free and
+ * costs a single atomic update. A call may arrive up to {@code burst - 1} intervals ahead of that time; later calls
+ * reserve their slot and wait for it. Hints of the service push the arrival time forward.
+ */
+class RateLimiter {
+
+    private static final String[] REMAINING_HEADERS = {"RateLimit-Remaining", "X-RateLimit-Remaining"};
+
+    private static final String[] RESET_HEADERS = {"RateLimit-Reset", "X-RateLimit-Reset"};
+
+    /**
+     * Reset values from which the header holds an epoch time in seconds rather than a delay.
+     */
+    private static final long EPOCH_SECONDS = 1_000_000_000L;
+
+    private final LongSupplier nanoClock;
+
+    /**
+     * Nanoseconds between two calls at the sustained rate.
+     */
+    private final long intervalNanos;
+
+    /**
+     * Nanoseconds a call may arrive ahead of the theoretical arrival time.
+     */
+    private final long toleranceNanos;
+
+    private final long maxWaitNanos;
+
+    /**
+     * Theoretical arrival time of the next call, as given by the clock.
+     */
+    private final AtomicLong arrival;
+
+    /**
+     * @param policy the settings
+     */
+    RateLimiter(RateLimitPolicy policy) {
+        this(policy, System::nanoTime);
+    }
+
+    /**
+     * @param policy    the settings
+     * @param nanoClock source of the time in nanoseconds
+     */
+    RateLimiter(RateLimitPolicy policy, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        this.intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / policy.getPermitsPerSecond()));
+        this.toleranceNanos = intervalNanos * (policy.getBurst() - 1);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(policy.getMaxWait());
+        this.arrival = new AtomicLong(nanoClock.getAsLong() - toleranceNanos);
+    }
+
+    /**
+     * Wait until the call may be made.
+     *
+     * @throws RateLimitExceededException if the call cannot be made within the maximum wait
+     * @throws InterruptedIOException     if the thread is interrupted while waiting
+     */
+    void acquire() throws InterruptedIOException {
+        long wait = reserve();
+        if (wait > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the rate limiter");
+            }
+        }
+    }
+
+    /**
+     * Reserve the slot of the next call.
+     *
+     * @return the time in nanoseconds to wait for the slot, 0 when the call may be made now
+     *
+     * @throws RateLimitExceededException if the slot is further away than the maximum wait; nothing is reserved
+     */
+    long reserve() {
+        while (true) {
+            long now = nanoClock.getAsLong();
+            long current = arrival.get();
+            long start = current - now > 0 ? current : now;
+            long wait = start - now - toleranceNanos;
+            if (wait > maxWaitNanos) {
+                throw new RateLimitExceededException(TimeUnit.NANOSECONDS.toMillis(wait));
+            }
+            if (arrival.compareAndSet(current, start + intervalNanos)) {
+                return Math.max(0, wait);
+            }
+        }
+    }
+
+    /**
+     * Follow the hints of the service: a {@code Retry-After} header on a 429 or 503 response, or a
+     * {@code RateLimit-Remaining} of 0 with its {@code RateLimit-Reset} (also with the {@code X-} prefix). A 429
+     * response without hint empties the bucket.
+     *
+     * @param response the response
+     *
+     * @throws IOException if the status of the response cannot be read
+     */
+    void onResponse(TransportResponse response) throws IOException {
+        int statusCode = response.getStatusCode();
+        long delayMillis = -1;
+        if (statusCode == HTTP_TOO_MANY_REQUESTS || statusCode == HTTP_SERVICE_UNAVAILABLE) {
+            delayMillis = retryAfter(response.getHeader(RETRY_AFTER), System.currentTimeMillis());
+        }
+        if (delayMillis < 0 && isExhausted(response)) {
+            delayMillis = reset(response, System.currentTimeMillis());
+        }
+        if (delayMillis >= 0) {
+            pauseFor(TimeUnit.MILLISECONDS.toNanos(delayMillis));
+        } else if (statusCode == HTTP_TOO_MANY_REQUESTS) {
+            pauseFor(intervalNanos + toleranceNanos);
+        }
+    }
+
+    /**
+     * Let no call through for the given time.
+     *
+     * @param delayNanos the time in nanoseconds
+     */
+    void pauseFor(long delayNanos) {
+        long until = nanoClock.getAsLong() + delayNanos + toleranceNanos;
+        while (true) {
+            long current = arrival.get();
+            if (current - until >= 0 || arrival.compareAndSet(current, until)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param response the response
+     *
+     * @return whether the response announces that no call is left in the current period
+     */
+    private static boolean isExhausted(TransportResponse response) {
+        for (String name : REMAINING_HEADERS) {
+            String remaining = response.getHeader(name);
+            if (remaining != null) {
+                return "0".equals(remaining.trim());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param response  the response
+     * @param nowMillis the current epoch time in milliseconds
+     *
+     * @return the time in milliseconds until the current period ends, negative when unknown
+     */
+    private static long reset(TransportResponse response, long nowMillis) {
+        for (String name : RESET_HEADERS) {
+            String reset = response.getHeader(name);
+            if (reset != null) {
+                try {
+                    long seconds = Long.parseLong(reset.trim());
+                    return seconds >= EPOCH_SECONDS
+                           ? Math.max(0, seconds * 1000 - nowMillis)
+                           : TimeUnit.SECONDS.toMillis(Math.max(0, seconds));
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param value     the value of a {@code Retry-After} header, a number of seconds or an HTTP date; may be null
+     * @param nowMillis the current epoch time in milliseconds
+     *
+     * @return the time in milliseconds to wait, negative when the value is missing or invalid
+     */
+    static long retryAfter(String value, long nowMillis) {
+        if (value == null || value.isEmpty()) {
+            return -1;
+        }
+        String trimmed = value.trim();
+        try {
+            return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(trimmed)));
+        } catch (NumberFormatException e) {
+            // an HTTP date
+        }
+        try {
+            long at = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+            return Math.max(0, at - nowMillis);
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+import com.worldpay.sdk.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Response of the service returned as it was received, without binding the payload to a DTO and without turning error
+ * statuses into exceptions. The payload can be consumed once, as a stream, as a {@link ByteBuffer} or by transferring
+ * it to a channel. The response must be closed so that the connection can be reused.
+ */
+public class RawResponse implements Closeable {
+
+    /**
+     * Size of the buffer used to transfer the payload to a channel.
+     */
+    private static final int TRANSFER_BUFFER_SIZE = 8192;
+
+    /**
+     * Largest payload size trusted from the {@code Content-Length} header to size a {@link ByteBuffer} up front.
+     */
+    private static final int MAX_PRESIZED_LENGTH = 16 * 1024 * 1024;
+
+    private static final InputStream EMPTY = new ByteArrayInputStream(new byte[0]);
+
+    private final TransportResponse response;
+
+    private final int statusCode;
+
+    private boolean consumed;
+
+    /**
+     * @param response the transport response, owned and closed by this object
+     *
+     * @throws IOException if the status cannot be read
+     */
+    RawResponse(TransportResponse response) throws IOException {
+        this.response = response;
+        this.statusCode = response.getStatusCode();
+    }
+
+    /**
+     * @return the HTTP status code
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * @param name the header name
+     *
+     * @return the first value of the header, or null if the header is absent
+     */
+    public String getHeader(String name) {
+        return response.getHeader(name);
+    }
+
+    /**
+     * @return every header with its values, keyed by case insensitive name
+     */
+    public Map<String, List<String>> getHeaders() {
+        return response.getHeaders();
+    }
+
+    /**
+     * The payload as read from the connection. Closing the stream does not release the connection, close this response
+     * instead.
+     *
+     * @return the payload, empty if the response has none
+     *
+     * @throws IOException if the payload cannot be opened
+     */
+    public InputStream getBody() throws IOException {
+        if (consumed) {
+            throw new IllegalStateException("The payload has already been consumed");
+        }
+        consumed = true;
+        InputStream body = response.getBody();
+        return body == null ? EMPTY : StreamUtils.closeShield(body);
+    }
+
+    /**
+     * Read the whole payload into a single buffer, sized from the {@code Content-Length} header when present.
+     *
+     * @return a buffer ready to be read, holding the payload
+     *
+     * @throws IOException if the payload cannot be read
+     */
+    public ByteBuffer toByteBuffer() throws IOException {
+        InputStream body = getBody();
+        int length = getContentLength();
+        if (length < 0) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(TRANSFER_BUFFER_SIZE);
+            byte[] buffer = new byte[TRANSFER_BUFFER_SIZE];
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return ByteBuffer.wrap(out.toByteArray());
+        }
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        int read;
+        while (offset < length && (read = body.read(bytes, offset, length - offset)) != -1) {
+            offset += read;
+        }
+        return ByteBuffer.wrap(bytes, 0, offset);
+    }
+
+    /**
+     * Write the payload to the channel as it is read from the connection, through one reused buffer and without holding
+     * the whole payload in memory.
+     *
+     * @param channel the destination, left open
+     *
+     * @return the number of bytes written
+     *
+     * @throws IOException if the payload cannot be read or written
+     */
+    public long transferTo(WritableByteChannel channel) throws IOException {
+        InputStream body = getBody();
+        byte[] bytes = new byte[TRANSFER_BUFFER_SIZE];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long transferred = 0;
+        int read;
+        while ((read = body.read(bytes)) != -1) {
+            buffer.limit(read).position(0);
+            while (buffer.hasRemaining()) {
+                transferred += channel.write(buffer);
+            }
+        }
+        return transferred;
+    }
+
+    /**
+     * Release the connection, reading whatever is left of the payload so that it can be reused.
+     *
+     * @throws IOException if the response cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        response.close();
+    }
+
+    /**
+     * @return the length announced by the {@code Content-Length} header, or -1 if absent, invalid or too large
+     */
+    private int getContentLength() {
+        String header = response.getHeader("Content-Length");
+        if (header == null) {
+            return -1;
+        }
+        try {
+            long length = Long.parseLong(header.trim());
+            return length < 0 || length > MAX_PRESIZED_LENGTH ? -1 : (int) length;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+import com.worldpay.sdk.util.JsonCodec;
+import com.worldpay.sdk.util.JsonParser;
+import com.worldpay.sdk.util.StreamUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Payload of a {@link TransportRequest}, written by the transport straight to the connection.
+ * <p>
+ * A body of known length is sent with a {@code Content-Length} header, a body of unknown length is streamed with
+ * chunked transfer encoding. Bodies can be written more than once.
+ */
+public abstract class RequestBody {
+
+    /**
+     * Empty payload.
+     */
+    public static final RequestBody EMPTY = ofBytes(new byte[0]);
+
+    /**
+     * Size of the buffer of the gzip encoder.
+     */
+    private static final int GZIP_BUFFER_SIZE = 8192;
+
+    /**
+     * @return the length of the payload in bytes, or -1 if unknown until written
+     */
+    public abstract long contentLength();
+
+    /**
+     * Write the payload. The stream is not closed.
+     *
+     * @param out the stream to write to
+     *
+     * @throws IOException if the payload cannot be written
+     */
+    public abstract void writeTo(OutputStream out) throws IOException;
+
+    /**
+     * @return the payload, serialized first if the length is unknown
+     *
+     * @throws IOException if the payload cannot be serialized
+     */
+    public byte[] toByteArray() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeTo(out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Create a payload of known length.
+     *
+     * @param bytes the payload
+     *
+     * @return the body
+     */
+    public static RequestBody ofBytes(final byte[] bytes) {
+        return new RequestBody() {
+            @Override
+            public long contentLength() {
+                return bytes.length;
+            }
+
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                out.write(bytes);
+            }
+
+            @Override
+            public byte[] toByteArray() {
+                return bytes;
+            }
+        };
+    }
+
+    /**
+     * Create a payload from a string, encoded in UTF-8.
+     *
+     * @param content the payload
+     *
+     * @return the body
+     */
+    public static RequestBody ofString(String content) {
+        return ofBytes(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Create a payload serializing the object to JSON with the default codec as it is written, without buffering the
+     * document.
+     *
+     * @param object the object to serialize
+     *
+     * @return the body, of unknown length
+     */
+    public static RequestBody ofJson(Object object) {
+        return ofJson(object, JsonParser.getDefaultCodec());
+    }
+
+    /**
+     * Create a payload serializing the object to JSON as it is written, without buffering the document.
+     *
+     * @param object the object to serialize
+     * @param codec  the codec serializing the object
+     *
+     * @return the body, of unknown length
+     */
+    public static RequestBody ofJson(final Object object, final JsonCodec codec) {
+        return new RequestBody() {
+            @Override
+            public long contentLength() {
+                return -1;
+            }
+
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                codec.write(out, object);
+            }
+        };
+    }
+
+    /**
+     * Compress a payload with gzip, to be sent with a {@code Content-Encoding: gzip} header. A payload of known length
+     * is compressed once, a payload of unknown length is compressed as it is written.
+     *
+     * @param body the payload
+     *
+     * @return the compressed body
+     *
+     * @throws IOException if a payload of known length cannot be compressed
+     */
+    public static RequestBody gzip(final RequestBody body) throws IOException {
+        if (body.contentLength() >= 0) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min(body.contentLength() / 2 + 32,
+                                                                                 GZIP_BUFFER_SIZE));
+            body.gzipTo(out);
+            return ofBytes(out.toByteArray());
+        }
+        return new RequestBody() {
+            @Override
+            public long contentLength() {
+                return -1;
+            }
+
+            @Override
+            public void writeTo(OutputStream out) throws IOException {
+                body.gzipTo(out);
+            }
+        };
+    }
+
+    /**
+     * Make a payload of unknown length replayable: it is still streamed the first time it is written, while a copy is
+     * kept for the next writes, so that it is serialized only once however many times a request is attempted.
+     *
+     * @param body the payload
+     *
+     * @return the replayable body, or {@code body} itself if its length is known
+     */
+    public static RequestBody replayable(final RequestBody body) {
+        if (body.contentLength() >= 0) {
+            return body;
+        }
+        return new RequestBody() {
+
+            private volatile byte[] copy;
+
+            @Override
+            public long contentLength() {
+                byte[] bytes = copy;
+                return bytes == null ? -1 : bytes.length;
+            }
+
+            @Override
+            public void writeTo(final OutputStream out) throws IOException {
+                byte[] bytes = copy;
+                if (bytes != null) {
+                    out.write(bytes);
+                    return;
+                }
+                final ByteArrayOutputStream recorded = new ByteArrayOutputStream();
+                body.writeTo(new FilterOutputStream(out) {
+                    @Override
+                    public void write(int b) throws IOException {
+                        out.write(b);
+                        recorded.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        out.write(b, off, len);
+                        recorded.write(b, off, len);
+                    }
+                });
+                copy = recorded.toByteArray();
+            }
+        };
+    }
+
+    /**
+     * Write the payload compressed with gzip. The stream is not closed.
+     *
+     * @param out the stream to write to
+     *
+     * @throws IOException if the payload cannot be written
+     */
+    private void gzipTo(OutputStream out) throws IOException {
+        try (GZIPOutputStream gzip = new GZIPOutputStream(StreamUtils.closeShield(out), GZIP_BUFFER_SIZE)) {
+            writeTo(gzip);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Consumes the payload of a successful response.
+ *
+ * @param <T> the type of the result
+ */
+@FunctionalInterface
+interface ResponseReader<T> {
+
+    /**
+     * @param body the payload, null if the response has none; closed by the caller
+     *
+     * @return the result
+     *
+     * @throws IOException if the payload cannot be read
+     */
+    T read(InputStream body) throws IOException;
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+/**
+ * Receives the outcome of every item of a batch as soon as it is known, so that large batches do not have to be held
+ * in memory. Calls are never made concurrently, but may come from different threads.
+ *
+ * @param <I> type of the input
+ * @param <T> type of the response
+ */
+@FunctionalInterface
+public interface ResultSink<I, T> {
+
+    /**
+     * Receive the outcome of one item. An exception thrown here aborts the batch.
+     *
+     * @param result the outcome
+     */
+    void accept(OperationResult<I, T> result);
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+import com.worldpay.sdk.util.WorldpayLibraryConstants;
+
+import javax.net.ssl.SSLHandshakeException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.BitSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * When and how often a failed call is attempted again. Calls are retried after an I/O error or a response with a
+ * retryable status code, waiting between attempts for an exponentially growing backoff with full jitter. All the
+ * attempts of a call share one time budget, each attempt being given at most what is left of it.
+ * <p>
+ * While retries are enabled, POST requests carry an idempotency key header, the same for every attempt of a call, so
+ * that the service can tell a retried order, capture or refund from a new one. Request payloads are serialized once
+ * and replayed by later attempts.
+ */
+public class RetryPolicy {
+
+    /**
+     * Header carrying the idempotency key by default.
+     */
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
+    /**
+     * Policy making a single attempt, with the transport timeouts.
+     */
+    public static final RetryPolicy NONE = new Builder().setMaxAttempts(1).setTimeBudget(0).setAttemptTimeout(0)
+        .build();
+
+    private final int maxAttempts;
+
+    private final long initialBackoff;
+
+    private final long maxBackoff;
+
+    private final long attemptTimeout;
+
+    private final long timeBudget;
+
+    private final BitSet retryableStatusCodes;
+
+    private final boolean retryOnIOException;
+
+    private final String idempotencyKeyHeader;
+
+    /**
+     * Private constructor, to be used only by {@link Builder}
+     *
+     * @param builder the builder holding the settings
+     */
+    private RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoff = builder.initialBackoff;
+        this.maxBackoff = builder.maxBackoff;
+        this.attemptTimeout = builder.attemptTimeout;
+        this.timeBudget = builder.timeBudget;
+        this.retryableStatusCodes = (BitSet) builder.retryableStatusCodes.clone();
+        this.retryOnIOException = builder.retryOnIOException;
+        this.idempotencyKeyHeader = builder.idempotencyKeyHeader;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getAttemptTimeout() {
+        return attemptTimeout;
+    }
+
+    public long getTimeBudget() {
+        return timeBudget;
+    }
+
+    public String getIdempotencyKeyHeader() {
+        return idempotencyKeyHeader;
+    }
+
+    /**
+     * @return whether a call may be attempted more than once
+     */
+    public boolean isEnabled() {
+        return maxAttempts > 1;
+    }
+
+    /**
+     * @param statusCode the HTTP status code of a response
+     *
+     * @return whether a call answered with this status may be attempted again
+     */
+    public boolean isRetryable(int statusCode) {
+        return statusCode >= 0 && retryableStatusCodes.get(statusCode);
+    }
+
+    /**
+     * Connection resets, refused connections, timeouts and truncated responses are retryable. Interruptions and
+     * failed TLS handshakes are not, another attempt would fail the same way.
+     *
+     * @param e the I/O error of an attempt
+     *
+     * @return whether a call which failed with this error may be attempted again
+     */
+    public boolean isRetryable(IOException e) {
+        if (!retryOnIOException || e instanceof SSLHandshakeException) {
+            return false;
+        }
+        return !(e instanceof InterruptedIOException) || e instanceof SocketTimeoutException;
+    }
+
+    /**
+     * Full jitter backoff: a random time between zero and the exponential backoff, capped.
+     *
+     * @param attempt the number of the attempt which failed, starting at 1
+     *
+     * @return the time in milliseconds to wait before the next attempt
+     */
+    public long getBackoff(int attempt) {
+        int shift = Math.min(attempt - 1, 30);
+        long ceiling = Math.min(maxBackoff, initialBackoff << shift);
+        return ceiling <= 0 ? 0 : ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * Builder class to build {@link RetryPolicy}
+     */
+    public static class Builder {
+
+        /**
+         * Number of attempts of a call, the first one included.
+         */
+        private int maxAttempts = 3;
+
+        /**
+         * Backoff in milliseconds after the first attempt, doubled after each of the next ones.
+         */
+        private long initialBackoff = 100;
+
+        /**
+         * Cap in milliseconds of the backoff.
+         */
+        private long maxBackoff = 2000;
+
+        /**
+         * Time in milliseconds an attempt may take, zero for the transport default.
+         */
+        private long attemptTimeout = 20000;
+
+        /**
+         * Time in milliseconds shared by all the attempts of a call and the backoffs between them, zero for no limit.
+         */
+        private long timeBudget = WorldpayLibraryConstants.SOCKET_TIMEOUT;
+
+        /**
+         * Status codes of the responses which are retried.
+         */
+        private final BitSet retryableStatusCodes = new BitSet();
+
+        /**
+         * Whether calls failing with an I/O error are retried.
+         */
+        private boolean retryOnIOException = true;
+
+        /**
+         * Header carrying the idempotency key of POST requests.
+         */
+        private String idempotencyKeyHeader = IDEMPOTENCY_KEY;
+
+        public Builder() {
+            setRetryableStatusCodes(408, 500, 502, 503, 504);
+        }
+
+        public Builder setMaxAttempts(int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("maxAttempts must be at least 1");
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public Builder setInitialBackoff(long initialBackoff) {
+            this.initialBackoff = initialBackoff;
+            return this;
+        }
+
+        public Builder setMaxBackoff(long maxBackoff) {
+            this.maxBackoff = maxBackoff;
+            return this;
+        }
+
+        public Builder setAttemptTimeout(long attemptTimeout) {
+            this.attemptTimeout = attemptTimeout;
+            return this;
+        }
+
+        public Builder setTimeBudget(long timeBudget) {
+            this.timeBudget = timeBudget;
+            return this;
+        }
+
+        /**
+         * Status codes of the responses which are retried, 408, 500, 502, 503 and 504 by default.
+         *
+         * @param statusCodes the HTTP status codes, replacing the previous ones
+         *
+         * @return {@link Builder} for method chaining
+         */
+        public Builder setRetryableStatusCodes(int... statusCodes) {
+            retryableStatusCodes.clear();
+            for (int statusCode : statusCodes) {
+                retryableStatusCodes.set(statusCode);
+            }
+            return this;
+        }
+
+        public Builder setRetryOnIOException(boolean retryOnIOException) {
+            this.retryOnIOException = retryOnIOException;
+            return this;
+        }
+
+        public Builder setIdempotencyKeyHeader(String idempotencyKeyHeader) {
+            this.idempotencyKeyHeader = idempotencyKeyHeader;
+            return this;
+        }
+
+        /**
+         * Build {@link RetryPolicy}
+         *
+         * @return {@link RetryPolicy}
+         */
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
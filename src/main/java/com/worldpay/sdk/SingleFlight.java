@@ -0,0 +1,92 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+import com.worldpay.gateway.clearwater.client.core.exception.WorldpayException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent identical calls: the first caller of a key makes the call, and callers arriving while it is in
+ * flight wait for its outcome instead of making their own. The outcome, a result or an exception, is handed to every
+ * waiter as is; it is forgotten as soon as the call completes, so that a later caller makes a new call.
+ *
+ * @param <K> the type of the keys identifying identical calls
+ */
+class SingleFlight<K> {
+
+    private final ConcurrentMap<K, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Make the call, or wait for the identical call in flight.
+     *
+     * @param key  the key identifying the call
+     * @param call the call
+     *
+     * @return the result of the call, the same instance for every waiter
+     *
+     * @throws WorldpayException or any runtime exception of the call, the same instance for every waiter
+     */
+    @SuppressWarnings("unchecked")
+    <V> V execute(K key, Supplier<V> call) {
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> leader = inFlight.putIfAbsent(key, flight);
+        if (leader != null) {
+            return (V) await(leader);
+        }
+        V result;
+        try {
+            result = call.get();
+        } catch (RuntimeException | Error e) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(e);
+            throw e;
+        }
+        inFlight.remove(key, flight);
+        flight.complete(result);
+        return result;
+    }
+
+    /**
+     * @return the number of calls in flight
+     */
+    int size() {
+        return inFlight.size();
+    }
+
+    /**
+     * @param leader the call in flight
+     *
+     * @return its result
+     */
+    private static Object await(CompletableFuture<Object> leader) {
+        try {
+            return leader.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new WorldpayException("Interrupted while waiting for the identical call in flight", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw (Error) cause;
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+/**
+ * How JSON request payloads are sent.
+ */
+public enum StreamingMode {
+
+    /**
+     * Serialize the payload to UTF-8 bytes first and send it with a {@code Content-Length} header, the default.
+     */
+    FIXED_LENGTH,
+
+    /**
+     * Serialize the payload straight to the connection with chunked transfer encoding, without holding the document
+     * in memory. HTTP/2 has no chunked encoding, {@link Http2Transport}
+     * serializes such payloads before sending them.
+     */
+    CHUNKED
+}
@@ -17,8 +17,13 @@ package com.worldpay.sdk;
 import com.worldpay.gateway.clearwater.client.core.dto.request.TokenRequest;
 import com.worldpay.gateway.clearwater.client.core.dto.response.TokenResponse;
 import com.worldpay.gateway.clearwater.client.core.exception.WorldpayException;
+import com.worldpay.sdk.cache.MappedFileCache;
+import com.worldpay.sdk.cache.TinyLfuCache;
 import org.apache.commons.lang.StringUtils;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
 /**
  * Service used for the token related operations.
  */
@@ -29,17 +34,64 @@ public class TokenService extends AbstractService {
      */
     private static final String TOKENS_URL = "/tokens";
 
+    /**
+     * Cache of the tokens retrieved, null when disabled.
+     */
+    private final TinyLfuCache<String, TokenResponse> cache;
+
+    /**
+     * Off-heap store of the tokens retrieved, behind the cache; null when disabled.
+     */
+    private final MappedFileCache<TokenResponse> store;
+
     /**
      * Constructor
      *
      * @param http {@link Http}
      */
     protected TokenService(Http http) {
-        super(http);
+        this(http, null, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param http     {@link Http}
+     * @param executor default {@link Executor} of the future returning calls
+     */
+    protected TokenService(Http http, Executor executor) {
+        this(http, executor, null);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param http     {@link Http}
+     * @param executor default {@link Executor} of the future returning calls
+     * @param cache    cache of the tokens retrieved, null to disable it
+     */
+    protected TokenService(Http http, Executor executor, TinyLfuCache<String, TokenResponse> cache) {
+        this(http, executor, cache, null);
     }
 
     /**
-     * Retrieves the token information.
+     * Constructor
+     *
+     * @param http     {@link Http}
+     * @param executor default {@link Executor} of the future returning calls
+     * @param cache    cache of the tokens retrieved, null to disable it
+     * @param store    off-heap store of the tokens retrieved, looked up on a miss of the cache; null to disable it
+     */
+    protected TokenService(Http http, Executor executor, TinyLfuCache<String, TokenResponse> cache,
+                           MappedFileCache<TokenResponse> store) {
+        super(http, executor);
+        this.cache = cache;
+        this.store = store;
+    }
+
+    /**
+     * Retrieves the token information. When the client caches tokens, a token retrieved recently is returned from the
+     * cache, as the same instance for every caller, or decoded from the off-heap store.
      *
      * @param token token id.
      *
@@ -47,7 +99,39 @@ public class TokenService extends AbstractService {
      */
     public TokenResponse get(String token) {
         validate(token);
-        return http.get(TOKENS_URL + "/" + token, TokenResponse.class);
+        if (cache == null && store == null) {
+            return http.get(TOKENS_URL + "/" + token, TokenResponse.class);
+        }
+        TokenResponse response = cache == null ? null : cache.getIfPresent(token);
+        if (response != null) {
+            return response;
+        }
+        response = store == null ? null : store.getIfPresent(token);
+        if (response == null) {
+            response = http.get(TOKENS_URL + "/" + token, TokenResponse.class);
+            if (store != null) {
+                store.put(token, response);
+            }
+        }
+        if (cache != null) {
+            cache.put(token, response);
+        }
+        return response;
+    }
+
+    /**
+     * Removes the token from the cache and the store of the client, so that the next {@link #get} retrieves it
+     * again.
+     *
+     * @param token token id.
+     */
+    public void invalidate(String token) {
+        if (cache != null) {
+            cache.invalidate(token);
+        }
+        if (store != null) {
+            store.invalidate(token);
+        }
     }
 
     /**
@@ -64,4 +148,75 @@ public class TokenService extends AbstractService {
     public TokenResponse create(TokenRequest token) {
         return http.post(TOKENS_URL + "/", token,  TokenResponse.class);
     }
+
+    /**
+     * Retrieves the token information as received, without converting it to a {@link TokenResponse}. Error statuses
+     * are returned rather than thrown.
+     *
+     * @param token token id.
+     *
+     * @return {@link RawResponse} which the caller must close
+     */
+    public RawResponse getRaw(String token) {
+        validate(token);
+        return http.getRaw(TOKENS_URL + "/" + token);
+    }
+
+    /**
+     * Creates a token and returns the response as received, without converting it to a {@link TokenResponse}. Error
+     * statuses are returned rather than thrown.
+     *
+     * @param token the token request
+     *
+     * @return {@link RawResponse} which the caller must close
+     */
+    public RawResponse createRaw(TokenRequest token) {
+        return http.postRaw(TOKENS_URL + "/", token);
+    }
+
+    /**
+     * Retrieves the token information without blocking the calling thread.
+     *
+     * @param token    token id.
+     * @param executor executor running the blocking call
+     *
+     * @return future of the {@link TokenResponse}, completed exceptionally with a {@link WorldpayException} on failure
+     */
+    public CompletableFuture<TokenResponse> getAsync(String token, Executor executor) {
+        return async(() -> get(token), executor);
+    }
+
+    /**
+     * Creates a token without blocking the calling thread.
+     *
+     * @param token    the token request
+     * @param executor executor running the blocking call
+     *
+     * @return future of the {@link TokenResponse}, completed exceptionally with a {@link WorldpayException} on failure
+     */
+    public CompletableFuture<TokenResponse> createAsync(TokenRequest token, Executor executor) {
+        return async(() -> create(token), executor);
+    }
+
+    /**
+     * Retrieves the token information on the default executor of the client.
+     *
+     * @param token token id.
+     *
+     * @return future of the {@link TokenResponse}, completed exceptionally with a {@link WorldpayException} on failure
+     */
+    public CompletableFuture<TokenResponse> getAsync(String token) {
+        return getAsync(token, executor);
+    }
+
+    /**
+     * Creates a token on the default executor of the client.
+     *
+     * @param token the token request
+     *
+     * @return future of the {@link TokenResponse}, completed exceptionally with a {@link WorldpayException} on failure
+     */
+    public CompletableFuture<TokenResponse> createAsync(TokenRequest token) {
+        return createAsync(token, executor);
+    }
 }
@@ -0,0 +1,153 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Request handed over to a {@link HttpTransport}.
+ */
+public class TransportRequest {
+
+    /**
+     * HTTP method.
+     */
+    private final String method;
+
+    /**
+     * Full URI of the resource.
+     */
+    private final String uri;
+
+    /**
+     * Request headers, shared read-only with other requests until a header is set.
+     */
+    private Map<String, String> headers;
+
+    /**
+     * Whether {@link #headers} is owned by this request.
+     */
+    private boolean ownHeaders;
+
+    /**
+     * Request payload, null when no payload is sent.
+     */
+    private RequestBody body;
+
+    /**
+     * Time in milliseconds the transport may wait for the response, zero for the transport default.
+     */
+    private long timeout;
+
+    /**
+     * Create a new request.
+     *
+     * @param method the HTTP method
+     * @param uri    the full URI of the resource
+     */
+    public TransportRequest(String method, String uri) {
+        this(method, uri, Collections.<String, String>emptyMap());
+    }
+
+    /**
+     * Create a new request starting with the given headers. The map is not copied unless a header is set on the
+     * request, so the same map can be shared by every request of a client.
+     *
+     * @param method         the HTTP method
+     * @param uri            the full URI of the resource
+     * @param defaultHeaders the initial headers, an unmodifiable map
+     */
+    public TransportRequest(String method, String uri, Map<String, String> defaultHeaders) {
+        this.method = method;
+        this.uri = uri;
+        this.headers = defaultHeaders;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public String getUri() {
+        return uri;
+    }
+
+    public Map<String, String> getHeaders() {
+        return ownHeaders ? Collections.unmodifiableMap(headers) : headers;
+    }
+
+    public RequestBody getBody() {
+        return body;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * Limit the time the transport may wait to connect and for the response, e.g. to what is left of the time budget
+     * of a call which is retried.
+     *
+     * @param timeout the timeout in milliseconds, zero for the transport default
+     *
+     * @return this request for method chaining
+     */
+    public TransportRequest setTimeout(long timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+
+    /**
+     * Set a request header, replacing any previous value.
+     *
+     * @param name  header name
+     * @param value header value
+     *
+     * @return this request for method chaining
+     */
+    public TransportRequest setHeader(String name, String value) {
+        if (!ownHeaders) {
+            headers = new LinkedHashMap<>(headers);
+            ownHeaders = true;
+        }
+        headers.put(name, value);
+        return this;
+    }
+
+    /**
+     * Set the request payload.
+     *
+     * @param body the payload, may be empty but not null when the method requires a payload
+     *
+     * @return this request for method chaining
+     */
+    public TransportRequest setBody(RequestBody body) {
+        this.body = body;
+        return this;
+    }
+
+    /**
+     * Set the request payload, encoded in UTF-8.
+     *
+     * @param body the payload, may be empty but not null when the method requires a payload
+     *
+     * @return this request for method chaining
+     */
+    public TransportRequest setBody(String body) {
+        this.body = body == null ? null : RequestBody.ofString(body);
+        return this;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Response returned by a {@link HttpTransport}. Closing the response releases the underlying connection.
+ */
+public interface TransportResponse extends Closeable {
+
+    /**
+     * @return the HTTP status code
+     *
+     * @throws IOException if the status could not be read
+     */
+    int getStatusCode() throws IOException;
+
+    /**
+     * @param name the header name
+     *
+     * @return the first value of the header, or null if absent
+     */
+    String getHeader(String name);
+
+    /**
+     * @return every header with its values, keyed by case insensitive name, empty unless the transport exposes them
+     */
+    default Map<String, List<String>> getHeaders() {
+        return Collections.emptyMap();
+    }
+
+    /**
+     * @return the response payload, may be null when the response has no payload
+     *
+     * @throws IOException if the payload could not be opened
+     */
+    InputStream getBody() throws IOException;
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+/**
+ * Built-in {@link HttpTransport} implementations.
+ */
+public enum TransportType {
+
+    /**
+     * {@link UrlConnectionTransport}, the default.
+     */
+    URL_CONNECTION,
+
+    /**
+     * {@link PoolingHttpClientTransport}, requires Apache HttpClient 5 on the classpath.
+     */
+    POOLED,
+
+    /**
+     * {@link Http2Transport}, multiplexes requests over HTTP/2 and falls back to HTTP/1.1.
+     */
+    HTTP2
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk;
+
+import com.worldpay.sdk.util.HttpUrlConnection;
+import com.worldpay.sdk.util.StreamUtils;
+import com.worldpay.sdk.util.WorldpayLibraryConstants;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Default {@link HttpTransport} backed by {@link HttpURLConnection}. Connection reuse is left to the JDK keep-alive
+ * cache, which only takes a connection back once its response has been read to the end and closed.
+ * <p>
+ * New connections are counted for HTTPS only, the JDK offers no hook to observe plain HTTP sockets.
+ */
+public class UrlConnectionTransport implements HttpTransport {
+
+    /**
+     * Connection counters.
+     */
+    private final ConnectionMetrics metrics = new ConnectionMetrics();
+
+    /**
+     * Socket factory counting the TLS connections opened. A single instance is kept as the JDK keep-alive cache only
+     * reuses connections created by the same factory.
+     */
+    private final SSLSocketFactory sslSocketFactory =
+        new CountingSSLSocketFactory(HttpsURLConnection.getDefaultSSLSocketFactory(), metrics);
+
+    @Override
+    public TransportResponse execute(TransportRequest request) throws IOException {
+        HttpURLConnection connection = HttpUrlConnection.getConnection(request.getUri());
+        boolean secure = connection instanceof HttpsURLConnection;
+        if (secure) {
+            ((HttpsURLConnection) connection).setSSLSocketFactory(sslSocketFactory);
+        }
+        if (request.getTimeout() > 0) {
+            int timeout = (int) Math.min(request.getTimeout(), Integer.MAX_VALUE);
+            connection.setConnectTimeout(Math.min(timeout, WorldpayLibraryConstants.CONNECTION_TIMEOUT));
+            connection.setReadTimeout(timeout);
+        }
+        try {
+            connection.setRequestMethod(request.getMethod());
+            for (Map.Entry<String, String> header : request.getHeaders().entrySet()) {
+                connection.setRequestProperty(header.getKey(), header.getValue());
+            }
+            RequestBody body = request.getBody();
+            if (body != null) {
+                if (body.contentLength() < 0) {
+                    connection.setChunkedStreamingMode(0);
+                } else {
+                    connection.setFixedLengthStreamingMode(body.contentLength());
+                }
+                try (OutputStream out = connection.getOutputStream()) {
+                    body.writeTo(out);
+                }
+            }
+            connection.getResponseCode();
+        } catch (IOException e) {
+            connection.disconnect();
+            throw e;
+        }
+        if (secure) {
+            metrics.recordExchange();
+        }
+        return new UrlConnectionResponse(connection);
+    }
+
+    @Override
+    public ConnectionMetrics getConnectionMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void close() {
+        // connections are owned by the JDK keep-alive cache
+    }
+
+    /**
+     * {@link TransportResponse} wrapping a {@link HttpURLConnection}.
+     */
+    private static class UrlConnectionResponse implements TransportResponse {
+
+        private final HttpURLConnection connection;
+
+        private InputStream body;
+
+        UrlConnectionResponse(HttpURLConnection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public int getStatusCode() throws IOException {
+            return connection.getResponseCode();
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return connection.getHeaderField(name);
+        }
+
+        @Override
+        public Map<String, List<String>> getHeaders() {
+            Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            for (Map.Entry<String, List<String>> header : connection.getHeaderFields().entrySet()) {
+                // the status line is listed under a null name
+                if (header.getKey() != null) {
+                    headers.put(header.getKey(), header.getValue());
+                }
+            }
+            return Collections.unmodifiableMap(headers);
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            if (body == null) {
+                body = getStatusCode() >= HttpURLConnection.HTTP_BAD_REQUEST ? connection.getErrorStream()
+                                                                             : connection.getInputStream();
+            }
+            return body;
+        }
+
+        /**
+         * Read whatever is left of the payload, error payloads included, so that the JDK returns the socket to the
+         * keep-alive cache.
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                getBody();
+            } catch (IOException e) {
+                connection.disconnect();
+                return;
+            }
+            StreamUtils.drainAndClose(body);
+        }
+    }
+
+    /**
+     * {@link SSLSocketFactory} recording every socket it creates as a new connection.
+     */
+    private static class CountingSSLSocketFactory extends SSLSocketFactory {
+
+        private final SSLSocketFactory delegate;
+
+        private final ConnectionMetrics metrics;
+
+        CountingSSLSocketFactory(SSLSocketFactory delegate, ConnectionMetrics metrics) {
+            this.delegate = delegate;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public String[] getDefaultCipherSuites() {
+            return delegate.getDefaultCipherSuites();
+        }
+
+        @Override
+        public String[] getSupportedCipherSuites() {
+            return delegate.getSupportedCipherSuites();
+        }
+
+        @Override
+        public Socket createSocket() throws IOException {
+            metrics.recordNewConnection();
+            return delegate.createSocket();
+        }
+
+        @Override
+        public Socket createSocket(Socket socket, String host, int port, boolean autoClose) throws IOException {
+            metrics.recordNewConnection();
+            return delegate.createSocket(socket, host, port, autoClose);
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            metrics.recordNewConnection();
+            return delegate.createSocket(host, port);
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+            metrics.recordNewConnection();
+            return delegate.createSocket(host, port, localHost, localPort);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+            metrics.recordNewConnection();
+            return delegate.createSocket(host, port);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress, int localPort)
+            throws IOException {
+            metrics.recordNewConnection();
+            return delegate.createSocket(address, port, localAddress, localPort);
+        }
+    }
+}
@@ -14,8 +14,28 @@
 
 package com.worldpay.sdk;
 
+import com.worldpay.gateway.clearwater.client.core.dto.response.TokenResponse;
+import com.worldpay.gateway.clearwater.client.core.exception.WorldpayException;
+import com.worldpay.gateway.clearwater.client.ui.dto.order.Transaction;
+import com.worldpay.sdk.cache.MappedFileCache;
+import com.worldpay.sdk.cache.TinyLfuCache;
+import com.worldpay.sdk.codec.GeneratedJsonCodec;
+import com.worldpay.sdk.util.JacksonJsonCodec;
+import com.worldpay.sdk.util.JsonCodec;
+import com.worldpay.sdk.util.JsonParser;
 import com.worldpay.sdk.util.PropertyUtils;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Main interface for interacting with the Worldpay Payment Gateway REST service.<br><br>
  * <p>
@@ -40,14 +60,67 @@ import com.worldpay.sdk.util.PropertyUtils;
  *       System.out.println("Error message: " + e.getError().getMessage());
  *   }
  * </pre>
+ * <p>
+ * The transport and its connection pool can be configured with a {@link Builder}:
+ * <pre>
+ *
+ *   WorldpayRestClient restClient = new WorldpayRestClient.Builder()
+ *       .setServiceKey("YOUR_SERVICE_KEY")
+ *       .setTransportType(TransportType.POOLED)
+ *       .setMaxConnections(200)
+ *       .setMaxConnectionsPerRoute(200)
+ *       .build();
+ * </pre>
  */
-public class WorldpayRestClient {
+public class WorldpayRestClient implements Closeable {
+
+    /**
+     * Number of pooled connections, and of threads of the default executor, unless set otherwise.
+     */
+    private static final int DEFAULT_MAX_CONNECTIONS = 50;
+
+    /**
+     * Number of future returning calls the default executor queues while its threads are busy.
+     */
+    private static final int QUEUE_CAPACITY = 1000;
 
     /**
      * Http.
      */
     private Http http;
 
+    /**
+     * Executor running the future returning calls when no executor is given.
+     */
+    private Executor executor;
+
+    /**
+     * Executor created by this client, shut down when the client is closed.
+     */
+    private ExecutorService ownedExecutor;
+
+    /**
+     * Cache of the tokens retrieved, null when disabled.
+     */
+    private TinyLfuCache<String, TokenResponse> tokenCache;
+
+    /**
+     * Cache of the orders, keyed by order code, null when disabled.
+     */
+    private TinyLfuCache<String, Transaction> orderCache;
+
+    /**
+     * Off-heap stores of the tokens and of the orders, null when disabled.
+     */
+    private MappedFileCache<TokenResponse> tokenStore;
+
+    private MappedFileCache<Transaction> orderStore;
+
+    /**
+     * Generations of the orders, shared by the order services of this client.
+     */
+    private final Generations orderGenerations = new Generations();
+
     /**
      * Create a new client with the specified base URL and the service key.
      *
@@ -64,6 +137,69 @@ public class WorldpayRestClient {
         }
 
         this.http = new Http(baseUrl, serviceKey);
+        this.ownedExecutor = newDaemonThreadPool(DEFAULT_MAX_CONNECTIONS);
+        this.executor = ownedExecutor;
+    }
+
+    /**
+     * Create a new client with the specified base URL, service key and transport.
+     *
+     * @param baseUrl    URL for connecting to the service, cannot be null
+     * @param serviceKey the service key for authentication, cannot be null
+     * @param transport  the {@link HttpTransport} used to reach the service, cannot be null
+     */
+    public WorldpayRestClient(String baseUrl, String serviceKey, HttpTransport transport) {
+        if (baseUrl == null) {
+            throw new IllegalArgumentException("baseUrl cannot be null");
+        }
+
+        if (serviceKey == null) {
+            throw new IllegalArgumentException("serviceKey cannot be null");
+        }
+
+        if (transport == null) {
+            throw new IllegalArgumentException("transport cannot be null");
+        }
+
+        this.http = new Http(baseUrl, serviceKey, transport);
+        this.ownedExecutor = newDaemonThreadPool(DEFAULT_MAX_CONNECTIONS);
+        this.executor = ownedExecutor;
+    }
+
+    /**
+     * Private constructor, to be used only by {@link Builder}
+     *
+     * @param builder   the builder holding the settings
+     * @param baseUrl   URL for connecting to the service
+     * @param transport the {@link HttpTransport} used to reach the service
+     */
+    private WorldpayRestClient(Builder builder, String baseUrl, HttpTransport transport) {
+        if (builder.executor != null) {
+            this.executor = builder.executor;
+        } else {
+            this.ownedExecutor = builder.virtualThreads ? newVirtualThreadPerTaskExecutor()
+                                                        : newDaemonThreadPool(Math.max(1, builder.maxConnections));
+            this.executor = ownedExecutor;
+        }
+        this.tokenCache = builder.tokenCache;
+        this.orderCache = builder.orderCache;
+        this.tokenStore = builder.tokenStore;
+        this.orderStore = builder.orderStore;
+        this.http = new Http.Builder()
+            .setBaseUri(baseUrl)
+            .setServiceKey(builder.serviceKey)
+            .setTransport(transport)
+            .setStreamingMode(builder.streamingMode)
+            .setCodec(builder.jsonCodec)
+            .setCompressionThreshold(builder.requestCompressionThreshold)
+            .setRetryPolicy(builder.retryPolicy)
+            .setCircuitBreakerPolicy(builder.circuitBreakerPolicy)
+            .setRateLimitPolicy(builder.rateLimitPolicy)
+            .setConcurrencyLimitPolicy(builder.concurrencyLimitPolicy)
+            .setHedgePolicy(builder.hedgePolicy)
+            .setRequestCoalescing(builder.requestCoalescing)
+            .setNegativeCachePolicy(builder.negativeCachePolicy)
+            .build();
     }
 
     /**
@@ -81,7 +217,7 @@ public class WorldpayRestClient {
      * @return the order service
      */
     public OrderService getOrderService() {
-        return new OrderService(http);
+        return new OrderService(http, executor, orderCache, orderStore, orderGenerations);
     }
 
     /**
@@ -90,7 +226,7 @@ public class WorldpayRestClient {
      * @return the token service
      */
     public TokenService getTokenService() {
-        return new TokenService(http);
+        return new TokenService(http, executor, tokenCache, tokenStore);
     }
 
     /**
@@ -101,4 +237,499 @@ public class WorldpayRestClient {
     public String getVersion() {
         return http.getVersion();
     }
+
+    /**
+     * Returns the counters of new and reused connections of the transport.
+     *
+     * @return the connection metrics
+     */
+    public ConnectionMetrics getConnectionMetrics() {
+        return http.getConnectionMetrics();
+    }
+
+    /**
+     * Returns the current concurrency limit and the number of calls waiting for a permit.
+     *
+     * @return the concurrency metrics, null unless a {@link ConcurrencyLimitPolicy} is set
+     */
+    public ConcurrencyMetrics getConcurrencyMetrics() {
+        return http.getConcurrencyMetrics();
+    }
+
+    /**
+     * Release the connections held by the transport.
+     *
+     * @throws IOException if the transport fails to close
+     */
+    @Override
+    public void close() throws IOException {
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+        http.close();
+    }
+
+    /**
+     * Bounded pool of daemon threads, one per connection of the pool, as a call holds a connection. No thread is
+     * started until a future returning call is made, and idle threads exit after a minute. Calls are queued while all
+     * threads are busy, up to {@value #QUEUE_CAPACITY}; beyond that they are rejected, and their futures complete
+     * exceptionally with a {@link WorldpayException}, so that the callers are pushed back without ever blocking.
+     *
+     * @param threads the number of threads
+     */
+    private static ExecutorService newDaemonThreadPool(int threads) {
+        final AtomicInteger count = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "worldpay-client-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                                                         new LinkedBlockingQueue<>(QUEUE_CAPACITY), threadFactory,
+                                                         new ThreadPoolExecutor.AbortPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Executor starting a virtual thread per task. Looked up reflectively as the library is built for Java 11.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Virtual threads require Java 21 or later", e);
+        }
+    }
+
+    /**
+     * Builder class to build {@link WorldpayRestClient}
+     */
+    public static class Builder {
+
+        /**
+         * URL for connecting to the service.
+         */
+        private String baseUrl;
+
+        /**
+         * Service key for authentication.
+         */
+        private String serviceKey;
+
+        /**
+         * Built-in transport to use when no transport is given.
+         */
+        private TransportType transportType = TransportType.URL_CONNECTION;
+
+        /**
+         * Custom transport.
+         */
+        private HttpTransport transport;
+
+        /**
+         * Maximum number of pooled connections.
+         */
+        private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+
+        /**
+         * Maximum number of pooled connections per route.
+         */
+        private int maxConnectionsPerRoute = 50;
+
+        /**
+         * Time in milliseconds after which idle pooled connections are evicted.
+         */
+        private long idleConnectionTimeout = 30000;
+
+        /**
+         * Maximum life time in milliseconds of a pooled connection, zero or less means unlimited.
+         */
+        private long connectionTimeToLive;
+
+        /**
+         * Executor running the future returning calls when no executor is given.
+         */
+        private Executor executor;
+
+        /**
+         * Whether future returning calls run on virtual threads.
+         */
+        private boolean virtualThreads;
+
+        /**
+         * How JSON request payloads are sent.
+         */
+        private StreamingMode streamingMode = StreamingMode.FIXED_LENGTH;
+
+        /**
+         * Codec converting payloads to and from JSON.
+         */
+        private JsonCodec jsonCodec = JsonParser.getDefaultCodec();
+
+        /**
+         * Size in bytes from which request payloads are compressed with gzip, negative to never compress them.
+         */
+        private int requestCompressionThreshold = -1;
+
+        /**
+         * When and how often failed calls are attempted again.
+         */
+        private RetryPolicy retryPolicy = RetryPolicy.NONE;
+
+        /**
+         * Settings of the circuit breakers of the endpoints, null to disable them.
+         */
+        private CircuitBreakerPolicy circuitBreakerPolicy;
+
+        /**
+         * Settings of the rate limiter of the service key, null to disable it.
+         */
+        private RateLimitPolicy rateLimitPolicy;
+
+        /**
+         * Settings of the adaptive concurrency limit, null to disable it.
+         */
+        private ConcurrencyLimitPolicy concurrencyLimitPolicy;
+
+        /**
+         * Settings of hedged GET requests, null to disable them.
+         */
+        private HedgePolicy hedgePolicy;
+
+        /**
+         * Whether concurrent identical GETs share one request.
+         */
+        private boolean requestCoalescing;
+
+        /**
+         * Cache of the tokens retrieved, null to disable it.
+         */
+        private TinyLfuCache<String, TokenResponse> tokenCache;
+
+        /**
+         * Cache of the orders, keyed by order code, null to disable it.
+         */
+        private TinyLfuCache<String, Transaction> orderCache;
+
+        /**
+         * Settings of the negative cache, null to disable it.
+         */
+        private NegativeCachePolicy negativeCachePolicy;
+
+        /**
+         * Off-heap stores of the tokens and of the orders, null to disable them.
+         */
+        private MappedFileCache<TokenResponse> tokenStore;
+
+        private MappedFileCache<Transaction> orderStore;
+
+        public Builder() {
+        }
+
+        public Builder setBaseUrl(String baseUrl) {
+            this.baseUrl = baseUrl;
+            return this;
+        }
+
+        public Builder setServiceKey(String serviceKey) {
+            this.serviceKey = serviceKey;
+            return this;
+        }
+
+        public Builder setTransportType(TransportType transportType) {
+            this.transportType = transportType;
+            return this;
+        }
+
+        /**
+         * Use a custom transport, takes precedence over the transport type.
+         *
+         * @param transport the transport
+         *
+         * @return {@link Builder} for method chaining
+         */
+        public Builder setTransport(HttpTransport transport) {
+            this.transport = transport;
+            return this;
+        }
+
+        public Builder setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+            return this;
+        }
+
+        public Builder setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            return this;
+        }
+
+        public Builder setIdleConnectionTimeout(long idleConnectionTimeout) {
+            this.idleConnectionTimeout = idleConnectionTimeout;
+            return this;
+        }
+
+        public Builder setConnectionTimeToLive(long connectionTimeToLive) {
+            this.connectionTimeToLive = connectionTimeToLive;
+            return this;
+        }
+
+        /**
+         * Executor running the future returning calls made without an explicit executor, takes precedence over
+         * virtual threads. The executor is not shut down when the client is closed. By default, the calls run on a
+         * pool of as many daemon threads as {@link #setMaxConnections pooled connections}, queuing up to a thousand
+         * calls; the future of any further call completes exceptionally with a {@link WorldpayException}, the calling
+         * thread never runs the call.
+         *
+         * @param executor the executor
+         *
+         * @return {@link Builder} for method chaining
+         */
+        public Builder setExecutor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Run future returning calls made without an explicit executor on a new virtual thread each, so that tens of
+         * thousands of gateway calls can be in flight without a platform thread pool. Blocking calls made from a
+         * virtual thread park it rather than its carrier, as neither the SDK nor the JDK HTTP clients hold a monitor
+         * while waiting on the network. Requires Java 21 or later.
+         *
+         * @param virtualThreads whether to use virtual threads
+         *
+         * @return {@link Builder} for method chaining
+         */
+        public Builder setVirtualThreads(boolean virtualThreads) {
+            this.virtualThreads = virtualThreads;
+            return this;
+        }
+
+        /**
+         * How JSON request payloads are sent, {@link StreamingMode#FIXED_LENGTH} by default.
+         *
+         * @param streamingMode the streaming mode
+         *
+         * @return {@link Builder} for method chaining
+         */
+        public Builder setStreamingMode(StreamingMode streamingMode) {
+            this.streamingMode = streamingMode;
+            return this;
+        }
+
+        /**
+         * Codec converting payloads to and from JSON, by default a shared {@link GeneratedJsonCodec}, converting the
+         * gateway DTOs with code generated at build time. Use {@code new JacksonJsonCodec(true)} to convert them with
+         * Jackson databind and the Afterburner module when it is on the classpath.
+         *
+         * @param jsonCodec the codec
+         *
+         * @return {@link Builder} for method chaining
+         */
+        public Builder setJsonCodec(JsonCodec jsonCodec) {
+            this.jsonCodec = jsonCodec;
+            return this;
+        }
+
+        /**
+         * Compress request payloads of at least this many bytes with gzip, sending them with a
+         * {@code Content-Encoding: gzip} header. Payloads streamed with {@link StreamingMode#CHUNKED} have no known
+         * length and are compressed whenever a threshold is set. Disabled by default, as the service has to accept
+         * compressed requests. Responses are always requested with {@code Accept-Encoding: gzip} and decompressed as
+         * they are read.
+         *
+         * @param requestCompressionThreshold the size in bytes, negative to never compress request payloads
+         *
+         * @return {@link Builder} for method chaining
+         */
+        public Builder setRequestCompressionThreshold(int requestCompressionThreshold) {
+            this.requestCompressionThreshold = requestCompressionThreshold;
+            return this;
+        }
+
+        /**
+         * Retry calls failing with an I/O error or a retryable status, {@link RetryPolicy#NONE} by default. Once
+         * enabled, orders, captures and refunds are sent with an idempotency key so that the service can recognise
+         * the attempts of the same call.
+         *
+         * @param retryPolicy the retry policy
+         *
+         * @return {@link Builder} for method chaining
+         */
+        public Builder setRetryPolicy(RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * Guard each endpoint with a circuit breaker, so that calls fail fast with a
+         * {@link CircuitBreakerOpenException} instead of waiting on a degraded service. Disabled by default.
+         *
+         * @param circuitBreakerPolicy the settings of the circuit breakers, null to disable them
+         *
+         * @return {@link Builder} for method chaining
+         */
+        public Builder setCircuitBreakerPolicy(CircuitBreakerPolicy circuitBreakerPolicy) {
+            this.circuitBreakerPolicy = circuitBreakerPolicy;
+            return this;
+        }
+
+        /**
+         * Pace the calls made with the service key, and hold them back for as long as the service asks to after
+         * throttling a call. Disabled by default.
+         *
+         * @param rateLimitPolicy the settings of the rate limiter, null to disable it
+         *
+         * @return {@link Builder} for method chaining
+         */
+        public Builder setRateLimitPolicy(RateLimitPolicy rateLimitPolicy) {
+            this.rateLimitPolicy = rateLimitPolicy;
+            return this;
+        }
+
+        /**
+         * Limit the calls in flight to the service, adapting the limit to the latency and failures observed. Calls
+         * over the limit wait briefly for a permit. Disabled by default.
+         *
+         * @param concurrencyLimitPolicy the settings of the concurrency limit, null to disable it
+         *
+         * @return {@link Builder} for method chaining
+         */
+        public Builder setConcurrencyLimitPolicy(ConcurrencyLimitPolicy concurrencyLimitPolicy) {
+            this.concurrencyLimitPolicy = concurrencyLimitPolicy;
+            return this;
+        }
+
+        /**
+         * Hedge GET requests such as {@link OrderService#findOrder} and {@link TokenService#get}: a GET which has not
+         * been answered after a percentile of the recent latencies is sent again, and the first response wins. The
+         * attempts run on daemon threads of the client, not on its executor. Disabled by default.
+         *
+         * @param hedgePolicy the settings of hedged requests, null to disable them
+         *
+         * @return {@link Builder} for method chaining
+         */
+        public Builder setHedgePolicy(HedgePolicy hedgePolicy) {
+            this.hedgePolicy = hedgePolicy;
+            return this;
+        }
+
+        /**
+         * Coalesce concurrent identical reads: callers of {@link OrderService#findOrder} or {@link TokenService#get}
+         * for the same resource while a request for it is in flight wait for that request, and all receive the same
+         * decoded instance or the same exception. Nothing is kept once the request completes. Disabled by default.
+         *
+         * @param requestCoalescing whether concurrent identical GETs share one request
+         *
+         * @return {@link Builder} for method chaining
+         */
+        public Builder setRequestCoalescing(boolean requestCoalescing) {
+            this.requestCoalescing = requestCoalescing;
+            return this;
+        }
+
+        /**
+         * Cache the tokens retrieved by {@link TokenService#get}, so that a token looked up again within the time to
+         * live of the cache is not requested from the gateway. The cache may be shared by several clients of the same
+         * service key. Disabled by default.
+         *
+         * @param tokenCache the cache of the tokens, null to disable it
+         *
+         * @return {@link Builder} for method chaining
+         */
+        public Builder setTokenCache(TinyLfuCache<String, TokenResponse> tokenCache) {
+            this.tokenCache = tokenCache;
+            return this;
+        }
+
+        /**
+         * Cache the orders found by {@link OrderService#findOrder}, and write through the orders returned by
+         * {@link OrderService#create}, {@link OrderService#authorize3Ds} and {@link OrderService#capture}. A refund, a
+         * cancellation, or an authorization or capture which fails, removes the order so that it is found again.
+         * Orders written through carry the {@code OrderResponse} only. Changes made by other clients are seen once the
+         * entry expires. Disabled by default.
+         *
+         * @param orderCache the cache of the orders, keyed by order code, null to disable it
+         *
+         * @return {@link Builder} for method chaining
+         */
+        public Builder setOrderCache(TinyLfuCache<String, Transaction> orderCache) {
+            this.orderCache = orderCache;
+            return this;
+        }
+
+        /**
+         * Remember the tokens and orders recently not found: looking one up again with {@link TokenService#get} or
+         * {@link OrderService#findOrder} fails at once with the same {@code WorldpayException} and API error, without
+         * a call to the gateway. The resources are kept in a probabilistic filter of bounded memory, which may report
+         * a resource never looked up as not found at the false positive rate of the policy. Disabled by default.
+         *
+         * @param negativeCachePolicy the settings of the negative cache, null to disable it
+         *
+         * @return {@link Builder} for method chaining
+         */
+        public Builder setNegativeCachePolicy(NegativeCachePolicy negativeCachePolicy) {
+            this.negativeCachePolicy = negativeCachePolicy;
+            return this;
+        }
+
+        /**
+         * Keep the tokens retrieved by {@link TokenService#get} in an off-heap store backed by a file, looked up when
+         * the token cache, if any, misses. The store survives restarts, so that a new process starts warm. The store
+         * is not closed with the client. Disabled by default.
+         *
+         * @param tokenStore the store of the tokens, null to disable it
+         *
+         * @return {@link Builder} for method chaining
+         */
+        public Builder setTokenStore(MappedFileCache<TokenResponse> tokenStore) {
+            this.tokenStore = tokenStore;
+            return this;
+        }
+
+        /**
+         * Keep the orders in an off-heap store backed by a file, filled and invalidated like the order cache and
+         * looked up when the order cache, if any, misses. The store survives restarts, so that a new process starts
+         * warm. The store is not closed with the client. Disabled by default.
+         *
+         * @param orderStore the store of the orders, keyed by order code, null to disable it
+         *
+         * @return {@link Builder} for method chaining
+         *
+         * @see #setOrderCache(TinyLfuCache)
+         */
+        public Builder setOrderStore(MappedFileCache<Transaction> orderStore) {
+            this.orderStore = orderStore;
+            return this;
+        }
+
+        /**
+         * Build {@link WorldpayRestClient}
+         *
+         * @return {@link WorldpayRestClient}
+         */
+        public WorldpayRestClient build() {
+            if (serviceKey == null) {
+                throw new IllegalArgumentException("serviceKey cannot be null");
+            }
+            String url = baseUrl == null ? PropertyUtils.baseUrl() : baseUrl;
+            return new WorldpayRestClient(this, url, transport == null ? createTransport() : transport);
+        }
+
+        private HttpTransport createTransport() {
+            switch (transportType) {
+                case POOLED:
+                    return new PoolingHttpClientTransport.Builder()
+                        .setMaxConnections(maxConnections)
+                        .setMaxConnectionsPerRoute(maxConnectionsPerRoute)
+                        .setIdleConnectionTimeout(idleConnectionTimeout)
+                        .setConnectionTimeToLive(connectionTimeToLive)
+                        .build();
+                case HTTP2:
+                    return new Http2Transport();
+                default:
+                    return new UrlConnectionTransport();
+            }
+        }
+    }
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.cache;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-min sketch estimating how often keys were accessed recently, with 4 bit counters packed sixteen to a long.
+ * <p>
+ * Each key increments one counter in each of four rows; its frequency is the lowest of the four, at most 15. Once
+ * ten times as many increments as the capacity were recorded, every counter is halved so that old accesses fade.
+ * Counters are updated with compare and set, so that recording an access takes no lock.
+ */
+class FrequencySketch {
+
+    private static final long[] SEEDS = {0x97CB3127A6E8D43FL, 0xC3A5C85C97CB3127L, 0xB492B66FBE98F273L,
+                                         0x9AE16A3B2F90404FL};
+
+    private static final long RESET_MASK = 0x7777777777777777L;
+
+    private static final int MAX_COUNT = 15;
+
+    private final AtomicLongArray table;
+
+    /**
+     * Shift turning a 64 bit hash into a counter index.
+     */
+    private final int shift;
+
+    private final int sampleSize;
+
+    private final AtomicInteger additions = new AtomicInteger();
+
+    /**
+     * @param capacity the number of keys tracked, the maximum size of the cache
+     */
+    FrequencySketch(long capacity) {
+        int counters = Integer.highestOneBit((int) Math.min(1 << 30, Math.max(64, capacity * 4) - 1)) << 1;
+        this.table = new AtomicLongArray(counters >>> 4);
+        this.shift = 64 - Integer.numberOfTrailingZeros(counters);
+        this.sampleSize = (int) Math.min(Integer.MAX_VALUE / 2, Math.max(10, capacity * 10));
+    }
+
+    /**
+     * @param hash the hash code of the key
+     *
+     * @return the estimated number of recent accesses of the key, at most 15
+     */
+    int frequency(int hash) {
+        int frequency = MAX_COUNT;
+        for (long seed : SEEDS) {
+            int index = indexOf(hash, seed);
+            frequency = Math.min(frequency, (int) (table.get(index >>> 4) >>> ((index & 15) << 2)) & MAX_COUNT);
+        }
+        return frequency;
+    }
+
+    /**
+     * Record an access of the key.
+     *
+     * @param hash the hash code of the key
+     */
+    void increment(int hash) {
+        boolean added = false;
+        for (long seed : SEEDS) {
+            added |= incrementAt(indexOf(hash, seed));
+        }
+        if (added && additions.incrementAndGet() == sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * @return whether the counter was below its maximum
+     */
+    private boolean incrementAt(int index) {
+        int slot = index >>> 4;
+        int offset = (index & 15) << 2;
+        while (true) {
+            long current = table.get(slot);
+            if (((current >>> offset) & MAX_COUNT) == MAX_COUNT) {
+                return false;
+            }
+            if (table.compareAndSet(slot, current, current + (1L << offset))) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Halve every counter. Increments racing with the reset may be lost, which only blurs the estimate.
+     */
+    private void reset() {
+        for (int i = 0; i < table.length(); i++) {
+            long current;
+            do {
+                current = table.get(i);
+            } while (!table.compareAndSet(i, current, (current >>> 1) & RESET_MASK));
+        }
+        additions.addAndGet(-sampleSize / 2);
+    }
+
+    private int indexOf(int hash, long seed) {
+        long mixed = (hash + 1L) * seed;
+        mixed ^= mixed >>> 32;
+        return (int) ((mixed * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+}
@@ -0,0 +1,817 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.cache;
+
+import com.worldpay.gateway.clearwater.client.core.exception.WorldpayException;
+import com.worldpay.sdk.codec.CompactBinaryCodec;
+import com.worldpay.sdk.util.JsonCodec;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+import java.util.zip.CRC32;
+
+/**
+ * Cache keeping its entries off the heap, in a memory-mapped file which survives restarts.
+ * <p>
+ * The file starts with a header holding the format version and the geometry of the file, then a hash index of the
+ * keys and a data area used as a ring: entries are appended at its head, and the oldest entries are evicted from its
+ * tail to make room, or once the maximum number of entries is reached. Each entry is a record holding its key, its
+ * expiry time and its value encoded by the codec, a {@link CompactBinaryCodec} by default, protected by a CRC-32.
+ * <p>
+ * A file written by another version of the format, with another geometry, or whose header is damaged, is reset. The
+ * file is not synchronized with the disk on every write: after a crash, recent entries may be lost, and an entry whose
+ * record was torn fails its CRC and is treated as absent; an entry is never returned damaged. Reads share a lock;
+ * writes are serialized.
+ * <p>
+ * The whole file is mapped at once, so it is limited to 2 GB. A file is used by one cache at a time: the cache holds
+ * a lock on the file until it is closed, and building a second cache on a locked file fails, in this process or
+ * another one. Where the file system supports POSIX permissions, the file is created readable and writable by its
+ * owner only, as it holds the values in clear.
+ *
+ * @param <V> the type of the values
+ */
+public class MappedFileCache<V> implements Closeable {
+
+    /**
+     * Format version, to increase whenever the layout of the file changes.
+     */
+    static final int VERSION = 2;
+
+    /**
+     * "WPCACHE" followed by a NUL.
+     */
+    private static final long MAGIC = 0x5750434143484500L;
+
+    private static final int HEADER_SIZE = 64;
+
+    private static final int VERSION_OFFSET = 8;
+
+    private static final int SLOTS_OFFSET = 12;
+
+    private static final int CAPACITY_OFFSET = 16;
+
+    private static final int GEOMETRY_CRC_OFFSET = 24;
+
+    /**
+     * Offset of the state of the ring: head, tail, bytes used and entries, followed by their CRC.
+     */
+    private static final int STATE_OFFSET = 32;
+
+    private static final int STATE_SIZE = 28;
+
+    private static final int SLOT_SIZE = 16;
+
+    /**
+     * Offset field of an empty slot and of a removed one; other slots hold the offset of their record plus one.
+     */
+    private static final long EMPTY = 0;
+
+    private static final long REMOVED = -1;
+
+    private static final int RECORD_MAGIC = 0x57505231;
+
+    /**
+     * Marker of the end of the ring, written where a record does not fit before the end of the data area.
+     */
+    private static final int WRAP = 0x57505750;
+
+    /**
+     * Magic, length, CRC, expiry time and key length.
+     */
+    private static final int RECORD_HEADER = 22;
+
+    private static final int LENGTH_OFFSET = 4;
+
+    private static final int CRC_OFFSET = 8;
+
+    private static final int EXPIRES_OFFSET = 12;
+
+    private static final int KEY_LENGTH_OFFSET = 20;
+
+    private final Class<V> type;
+
+    private final JsonCodec codec;
+
+    private final long expireAfterWrite;
+
+    private final LongSupplier clock;
+
+    private final int slots;
+
+    private final int maximumEntries;
+
+    private final int capacity;
+
+    /**
+     * Offset in the file of the data area.
+     */
+    private final int data;
+
+    private final Path file;
+
+    /**
+     * Channel of the file, kept open to hold the lock.
+     */
+    private final FileChannel channel;
+
+    private final MappedByteBuffer buffer;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * State of the ring and of the index, guarded by the write lock.
+     */
+    private int head;
+
+    private int tail;
+
+    private int used;
+
+    private int count;
+
+    private int removed;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * Private constructor, to be used only by {@link Builder}
+     *
+     * @param builder the builder holding the settings
+     *
+     * @throws IOException       if the file cannot be opened or mapped
+     * @throws WorldpayException if the file is used by another cache
+     */
+    private MappedFileCache(Builder<V> builder) throws IOException {
+        this.type = builder.type;
+        this.codec = builder.codec;
+        this.expireAfterWrite = builder.expireAfterWrite;
+        this.clock = builder.clock;
+        this.maximumEntries = builder.maximumEntries;
+        this.slots = Integer.highestOneBit(maximumEntries * 2 - 1) << 1;
+        this.capacity = builder.maximumSize;
+        long size = HEADER_SIZE + (long) slots * SLOT_SIZE + capacity;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The cache file cannot exceed 2 GB");
+        }
+        this.data = HEADER_SIZE + slots * SLOT_SIZE;
+        this.file = builder.file;
+        this.channel = open(file);
+        try {
+            lock(channel, file);
+            boolean sameSize = channel.size() == size;
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            if (!sameSize || !load()) {
+                reset();
+            }
+        } catch (IOException | RuntimeException e) {
+            try {
+                channel.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @param file the file, created owner only where POSIX permissions are supported
+     *
+     * @return the channel of the file, open for reading and writing
+     *
+     * @throws IOException if the file cannot be opened
+     */
+    private static FileChannel open(Path file) throws IOException {
+        Set<StandardOpenOption> options = EnumSet.of(StandardOpenOption.CREATE, StandardOpenOption.READ,
+                                                     StandardOpenOption.WRITE);
+        if (file.getFileSystem().supportedFileAttributeViews().contains("posix")) {
+            FileAttribute<?> ownerOnly = PosixFilePermissions.asFileAttribute(
+                PosixFilePermissions.fromString("rw-------"));
+            return FileChannel.open(file, options, ownerOnly);
+        }
+        return FileChannel.open(file, options);
+    }
+
+    /**
+     * Lock the whole file for the lifetime of the cache. The lock is released when the channel is closed.
+     *
+     * @param channel the channel of the file
+     * @param file    the file
+     *
+     * @throws IOException       if the file cannot be locked
+     * @throws WorldpayException if the file is locked by another cache
+     */
+    private static void lock(FileChannel channel, Path file) throws IOException {
+        FileLock fileLock;
+        try {
+            fileLock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // locked by another cache of this process
+            fileLock = null;
+        }
+        if (fileLock == null) {
+            throw new WorldpayException("The cache file " + file + " is used by another cache");
+        }
+    }
+
+    /**
+     * @param key the key
+     *
+     * @return the value cached for the key, null if there is none, it expired or its record is damaged
+     */
+    public V getIfPresent(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long hash = Hashing.hash64(key);
+        byte[] value;
+        lock.readLock().lock();
+        try {
+            int slot = find(hash, keyBytes);
+            int record = slot < 0 ? -1 : (int) (buffer.getLong(slotAt(slot) + 8) - 1);
+            if (record < 0 || !isIntact(record)) {
+                misses.increment();
+                return null;
+            }
+            if (buffer.getLong(data + record + EXPIRES_OFFSET) <= clock.getAsLong()) {
+                expirations.increment();
+                misses.increment();
+                return null;
+            }
+            int start = RECORD_HEADER + keyBytes.length;
+            value = new byte[buffer.getInt(data + record + LENGTH_OFFSET) - start];
+            ByteBuffer view = buffer.duplicate();
+            view.position(data + record + start);
+            view.get(value);
+        } finally {
+            lock.readLock().unlock();
+        }
+        try {
+            V result = codec.read(new ByteArrayInputStream(value), type);
+            hits.increment();
+            return result;
+        } catch (IOException e) {
+            misses.increment();
+            return null;
+        }
+    }
+
+    /**
+     * Cache the value, expiring after the time to live of the cache. A value whose record would not fit in the data
+     * area is not cached.
+     *
+     * @param key   the key
+     * @param value the value, not null
+     */
+    public void put(String key, V value) {
+        put(key, value, expireAfterWrite);
+    }
+
+    /**
+     * Cache the value, expiring after the given time to live. A value whose record would not fit in the data area is
+     * not cached.
+     *
+     * @param key        the key
+     * @param value      the value, not null
+     * @param timeToLive the time to live in milliseconds, 0 for an entry which never expires
+     */
+    public void put(String key, V value, long timeToLive) {
+        if (value == null) {
+            throw new NullPointerException("value cannot be null");
+        }
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        byte[] valueBytes;
+        try {
+            valueBytes = codec.write(value);
+        } catch (IOException e) {
+            throw new WorldpayException("Cannot encode the value: " + e.getMessage(), e);
+        }
+        long length = (long) RECORD_HEADER + keyBytes.length + valueBytes.length;
+        if (keyBytes.length > Short.MAX_VALUE || length > capacity) {
+            return;
+        }
+        long expiresAt = timeToLive > 0 ? clock.getAsLong() + timeToLive : Long.MAX_VALUE;
+        long hash = Hashing.hash64(key);
+        lock.writeLock().lock();
+        try {
+            int slot = find(hash, keyBytes);
+            if (slot >= 0) {
+                remove(slot);
+            }
+            while (count >= maximumEntries) {
+                evictTail();
+            }
+            int record = reserve((int) length);
+            write(record, keyBytes, valueBytes, expiresAt);
+            insert(hash, record);
+            writeState();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove the entry of the key, if any.
+     *
+     * @param key the key
+     */
+    public void invalidate(String key) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        long hash = Hashing.hash64(key);
+        lock.writeLock().lock();
+        try {
+            int slot = find(hash, keyBytes);
+            if (slot >= 0) {
+                remove(slot);
+                writeState();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove every entry.
+     */
+    public void invalidateAll() {
+        lock.writeLock().lock();
+        try {
+            reset();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the number of entries, expired entries not yet evicted included
+     */
+    public long size() {
+        lock.readLock().lock();
+        try {
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the counters of the cache since it was opened
+     */
+    public CacheStats getStats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum());
+    }
+
+    /**
+     * Write the entries to the disk and release the lock on the file, so that another cache may use it. The file stays
+     * mapped until the cache is garbage collected, but the cache must not be used any more.
+     *
+     * @throws WorldpayException if the file cannot be closed
+     */
+    @Override
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            buffer.force();
+            channel.close();
+        } catch (IOException e) {
+            throw new WorldpayException("Cannot close the cache file " + file + ": " + e.getMessage(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Read the header and check the ring and the index of an existing file.
+     *
+     * @return false if the file must be reset
+     */
+    private boolean load() {
+        if (buffer.getLong(0) != MAGIC || buffer.getInt(VERSION_OFFSET) != VERSION
+            || buffer.getInt(SLOTS_OFFSET) != slots || buffer.getLong(CAPACITY_OFFSET) != capacity
+            || buffer.getInt(GEOMETRY_CRC_OFFSET) != crc(0, GEOMETRY_CRC_OFFSET)
+            || buffer.getInt(STATE_OFFSET + STATE_SIZE) != crc(STATE_OFFSET, STATE_SIZE)) {
+            return false;
+        }
+        long storedHead = buffer.getLong(STATE_OFFSET);
+        long storedTail = buffer.getLong(STATE_OFFSET + 8);
+        long storedUsed = buffer.getLong(STATE_OFFSET + 16);
+        if (storedHead < 0 || storedHead >= capacity || storedTail < 0 || storedTail >= capacity || storedUsed < 0
+            || storedUsed > capacity) {
+            return false;
+        }
+        head = (int) storedHead;
+        tail = (int) storedTail;
+        used = (int) storedUsed;
+        if (!isRingValid()) {
+            return false;
+        }
+        count = 0;
+        removed = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            long offset = buffer.getLong(slotAt(slot) + 8);
+            if (offset == REMOVED) {
+                removed++;
+            } else if (offset != EMPTY) {
+                int record = (int) (offset - 1);
+                if (offset - 1 < capacity && distance(tail, record) < used && isRecord(record)) {
+                    count++;
+                } else {
+                    buffer.putLong(slotAt(slot) + 8, REMOVED);
+                    removed++;
+                }
+            }
+        }
+        if (count > maximumEntries) {
+            return false;
+        }
+        writeState();
+        return true;
+    }
+
+    /**
+     * @return whether the records from the tail fill exactly the used part of the ring
+     */
+    private boolean isRingValid() {
+        int position = tail;
+        long remaining = used;
+        while (remaining > 0) {
+            int length;
+            if (isWrap(position)) {
+                length = capacity - position;
+            } else if (isRecord(position)) {
+                length = buffer.getInt(data + position + LENGTH_OFFSET);
+            } else {
+                return false;
+            }
+            remaining -= length;
+            position = position + length == capacity ? 0 : position + length;
+        }
+        return remaining == 0 && position == head;
+    }
+
+    /**
+     * Empty the file and write its header.
+     */
+    private void reset() {
+        for (int offset = HEADER_SIZE; offset < data; offset += Long.BYTES) {
+            buffer.putLong(offset, 0);
+        }
+        buffer.putLong(0, MAGIC);
+        buffer.putInt(VERSION_OFFSET, VERSION);
+        buffer.putInt(SLOTS_OFFSET, slots);
+        buffer.putLong(CAPACITY_OFFSET, capacity);
+        buffer.putInt(GEOMETRY_CRC_OFFSET, crc(0, GEOMETRY_CRC_OFFSET));
+        head = 0;
+        tail = 0;
+        used = 0;
+        count = 0;
+        removed = 0;
+        writeState();
+    }
+
+    private void writeState() {
+        buffer.putLong(STATE_OFFSET, head);
+        buffer.putLong(STATE_OFFSET + 8, tail);
+        buffer.putLong(STATE_OFFSET + 16, used);
+        buffer.putInt(STATE_OFFSET + 24, count);
+        buffer.putInt(STATE_OFFSET + STATE_SIZE, crc(STATE_OFFSET, STATE_SIZE));
+    }
+
+    /**
+     * Take room for a record at the head of the ring, evicting the oldest records as needed.
+     *
+     * @param length the length of the record
+     *
+     * @return the offset of the record in the data area
+     */
+    private int reserve(int length) {
+        if (capacity - head < length) {
+            int padding = capacity - head;
+            while (capacity - used < padding) {
+                evictTail();
+            }
+            if (padding >= Integer.BYTES) {
+                buffer.putInt(data + head, WRAP);
+            }
+            used += padding;
+            head = 0;
+        }
+        while (capacity - used < length) {
+            evictTail();
+        }
+        int record = head;
+        used += length;
+        head = head + length == capacity ? 0 : head + length;
+        return record;
+    }
+
+    /**
+     * Evict the oldest record of the ring, or skip the end of the data area.
+     */
+    private void evictTail() {
+        int length;
+        if (isWrap(tail)) {
+            length = capacity - tail;
+        } else {
+            length = buffer.getInt(data + tail + LENGTH_OFFSET);
+            int slot = slotOf(tail);
+            if (slot >= 0) {
+                remove(slot);
+                evictions.increment();
+            }
+        }
+        used -= length;
+        tail = tail + length == capacity ? 0 : tail + length;
+    }
+
+    private void write(int record, byte[] key, byte[] value, long expiresAt) {
+        int offset = data + record;
+        buffer.putInt(offset, RECORD_MAGIC);
+        buffer.putInt(offset + LENGTH_OFFSET, RECORD_HEADER + key.length + value.length);
+        buffer.putLong(offset + EXPIRES_OFFSET, expiresAt);
+        buffer.putShort(offset + KEY_LENGTH_OFFSET, (short) key.length);
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset + RECORD_HEADER);
+        view.put(key);
+        view.put(value);
+        buffer.putInt(offset + CRC_OFFSET, crc(offset + EXPIRES_OFFSET, RECORD_HEADER - EXPIRES_OFFSET
+                                                                         + key.length + value.length));
+    }
+
+    /**
+     * @return the slot of the key, -1 if there is none
+     */
+    private int find(long hash, byte[] key) {
+        int mask = slots - 1;
+        int slot = (int) hash & mask;
+        for (int probe = 0; probe < slots; probe++, slot = (slot + 1) & mask) {
+            long offset = buffer.getLong(slotAt(slot) + 8);
+            if (offset == EMPTY) {
+                return -1;
+            }
+            if (offset != REMOVED && buffer.getLong(slotAt(slot)) == hash && hasKey((int) (offset - 1), key)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return the slot pointing to the record, -1 if the record is no longer indexed
+     */
+    private int slotOf(int record) {
+        if (!isRecord(record)) {
+            return -1;
+        }
+        byte[] key = new byte[buffer.getShort(data + record + KEY_LENGTH_OFFSET)];
+        ByteBuffer view = buffer.duplicate();
+        view.position(data + record + RECORD_HEADER);
+        view.get(key);
+        int slot = find(Hashing.hash64(new String(key, StandardCharsets.UTF_8)), key);
+        return slot >= 0 && buffer.getLong(slotAt(slot) + 8) == record + 1L ? slot : -1;
+    }
+
+    private void insert(long hash, int record) {
+        if (count + removed + 1 > slots * 3L / 4) {
+            rehash();
+        }
+        int mask = slots - 1;
+        int slot = (int) hash & mask;
+        while (true) {
+            long offset = buffer.getLong(slotAt(slot) + 8);
+            if (offset == EMPTY || offset == REMOVED) {
+                if (offset == REMOVED) {
+                    removed--;
+                }
+                buffer.putLong(slotAt(slot), hash);
+                buffer.putLong(slotAt(slot) + 8, record + 1L);
+                count++;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private void remove(int slot) {
+        buffer.putLong(slotAt(slot) + 8, REMOVED);
+        count--;
+        removed++;
+    }
+
+    /**
+     * Rebuild the index without its removed slots.
+     */
+    private void rehash() {
+        long[] hashes = new long[count];
+        long[] offsets = new long[count];
+        int live = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            long offset = buffer.getLong(slotAt(slot) + 8);
+            if (offset != EMPTY && offset != REMOVED) {
+                hashes[live] = buffer.getLong(slotAt(slot));
+                offsets[live++] = offset;
+            }
+            buffer.putLong(slotAt(slot), 0);
+            buffer.putLong(slotAt(slot) + 8, EMPTY);
+        }
+        count = 0;
+        removed = 0;
+        for (int i = 0; i < live; i++) {
+            insert(hashes[i], (int) (offsets[i] - 1));
+        }
+    }
+
+    private int slotAt(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private boolean hasKey(int record, byte[] key) {
+        if (!isRecord(record) || buffer.getShort(data + record + KEY_LENGTH_OFFSET) != key.length) {
+            return false;
+        }
+        int offset = data + record + RECORD_HEADER;
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(offset + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return whether a record starts at the offset, judging by its magic and length
+     */
+    private boolean isRecord(int record) {
+        if (capacity - record < RECORD_HEADER || buffer.getInt(data + record) != RECORD_MAGIC) {
+            return false;
+        }
+        int length = buffer.getInt(data + record + LENGTH_OFFSET);
+        int keyLength = buffer.getShort(data + record + KEY_LENGTH_OFFSET);
+        return length >= RECORD_HEADER && length <= capacity - record && keyLength >= 0
+               && keyLength <= length - RECORD_HEADER;
+    }
+
+    /**
+     * @return whether the record is whole, its CRC matching its content
+     */
+    private boolean isIntact(int record) {
+        if (!isRecord(record)) {
+            return false;
+        }
+        int offset = data + record;
+        int length = buffer.getInt(offset + LENGTH_OFFSET);
+        return buffer.getInt(offset + CRC_OFFSET) == crc(offset + EXPIRES_OFFSET, length - EXPIRES_OFFSET);
+    }
+
+    private boolean isWrap(int position) {
+        return capacity - position < RECORD_HEADER || buffer.getInt(data + position) == WRAP;
+    }
+
+    /**
+     * @return the distance from the tail to the offset, going forward around the ring
+     */
+    private int distance(int from, int to) {
+        return to >= from ? to - from : capacity - from + to;
+    }
+
+    private int crc(int offset, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.limit(offset + length);
+        CRC32 crc = new CRC32();
+        crc.update(view);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Builder class to build {@link MappedFileCache}
+     *
+     * @param <V> the type of the values
+     */
+    public static class Builder<V> {
+
+        private final Class<V> type;
+
+        private Path file;
+
+        /**
+         * Size in bytes of the data area, holding the records.
+         */
+        private int maximumSize = 64 * 1024 * 1024;
+
+        private int maximumEntries = 100000;
+
+        /**
+         * Time to live in milliseconds of the entries, 0 for entries which never expire.
+         */
+        private long expireAfterWrite;
+
+        private JsonCodec codec = new CompactBinaryCodec();
+
+        private LongSupplier clock = System::currentTimeMillis;
+
+        /**
+         * @param type the class of the values
+         */
+        public Builder(Class<V> type) {
+            this.type = type;
+        }
+
+        public Builder<V> setFile(Path file) {
+            this.file = file;
+            return this;
+        }
+
+        public Builder<V> setMaximumSize(int maximumSize) {
+            if (maximumSize < 1024) {
+                throw new IllegalArgumentException("maximumSize must be at least 1024 bytes");
+            }
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        public Builder<V> setMaximumEntries(int maximumEntries) {
+            if (maximumEntries < 1 || maximumEntries > 1 << 26) {
+                throw new IllegalArgumentException("maximumEntries must be between 1 and 2^26");
+            }
+            this.maximumEntries = maximumEntries;
+            return this;
+        }
+
+        public Builder<V> setExpireAfterWrite(long expireAfterWrite) {
+            this.expireAfterWrite = expireAfterWrite;
+            return this;
+        }
+
+        /**
+         * @param codec codec encoding the values, a {@link CompactBinaryCodec} by default; a file must always be
+         *              used with the same codec, as the records another codec wrote read as misses
+         *
+         * @return {@link Builder} for method chaining
+         */
+        public Builder<V> setCodec(JsonCodec codec) {
+            this.codec = codec;
+            return this;
+        }
+
+        /**
+         * @param clock source of the time in milliseconds since the epoch, {@link System#currentTimeMillis()} by
+         *              default, as expiry times outlive the process
+         *
+         * @return {@link Builder} for method chaining
+         */
+        Builder<V> setClock(LongSupplier clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * Build {@link MappedFileCache}, opening the file or creating it.
+         *
+         * @return {@link MappedFileCache}
+         *
+         * @throws WorldpayException if the file cannot be opened or mapped, or is used by another cache
+         */
+        public MappedFileCache<V> build() {
+            if (file == null) {
+                throw new IllegalArgumentException("file cannot be null");
+            }
+            try {
+                return new MappedFileCache<>(this);
+            } catch (IOException e) {
+                throw new WorldpayException("Cannot open the cache file " + file + ": " + e.getMessage(), e);
+            }
+        }
+    }
+}
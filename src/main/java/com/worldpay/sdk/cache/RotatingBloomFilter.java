@@ -0,0 +1,229 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.cache;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Set of strings remembered for a limited time in a fixed amount of memory, answering whether a string may have been
+ * added recently. It may wrongly answer yes, at the given false positive rate, and may forget a string before its time
+ * to live, but never remembers a string for longer.
+ * <p>
+ * Strings are added to the current of two Bloom filters, each taking half the memory, and looked up in both. Once
+ * half the time to live has elapsed since the current filter was created, or it holds as many strings as its false
+ * positive rate allows, it replaces the previous filter and a new one takes its place; the previous filter is dropped
+ * once the time to live has elapsed since it was created. A string is therefore forgotten at most the time to live
+ * after it was last added, usually after at least half of it, and sooner when the filters are rotated because the
+ * current one is full, or late, on the first call after a quiet period. Adding and looking up take no lock.
+ */
+public class RotatingBloomFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final int bits;
+
+    private final int hashes;
+
+    /**
+     * Number of strings a filter holds before it is rotated.
+     */
+    private final int capacity;
+
+    private final long rotationNanos;
+
+    private final LongSupplier ticker;
+
+    private final ReentrantLock rotationLock = new ReentrantLock();
+
+    private volatile Generation current;
+
+    private volatile Generation previous;
+
+    /**
+     * @param maxMemory         the memory in bytes taken by the bits of both filters
+     * @param expireAfter       the time to live in milliseconds of the strings
+     * @param falsePositiveRate the rate at which a string never added is reported as added, between 0 and 1
+     */
+    public RotatingBloomFilter(int maxMemory, long expireAfter, double falsePositiveRate) {
+        this(maxMemory, expireAfter, falsePositiveRate, System::nanoTime);
+    }
+
+    /**
+     * @param maxMemory         the memory in bytes taken by the bits of both filters
+     * @param expireAfter       the time to live in milliseconds of the strings
+     * @param falsePositiveRate the rate at which a string never added is reported as added, between 0 and 1
+     * @param ticker            source of the time in nanoseconds
+     */
+    RotatingBloomFilter(int maxMemory, long expireAfter, double falsePositiveRate, LongSupplier ticker) {
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("falsePositiveRate must be between 0 and 1");
+        }
+        if (expireAfter < 1) {
+            throw new IllegalArgumentException("expireAfter must be at least 1");
+        }
+        this.bits = Math.max(1, maxMemory / 2 / Long.BYTES) * Long.SIZE;
+        this.capacity = (int) Math.max(1, bits * LN2 * LN2 / -Math.log(falsePositiveRate));
+        this.hashes = (int) Math.max(1, Math.round((double) bits / capacity * LN2));
+        this.rotationNanos = TimeUnit.MILLISECONDS.toNanos(expireAfter) / 2;
+        this.ticker = ticker;
+        long now = ticker.getAsLong();
+        this.previous = new Generation(bits, now);
+        this.current = new Generation(bits, now);
+    }
+
+    /**
+     * Remember the string.
+     *
+     * @param key the string
+     */
+    public void put(String key) {
+        long hash = Hashing.hash64(key);
+        Generation generation = current();
+        for (int i = 0; i < hashes; i++) {
+            generation.set(indexOf(hash, i));
+        }
+        if (generation.count.incrementAndGet() >= capacity) {
+            rotate(generation);
+        }
+    }
+
+    /**
+     * @param key the string
+     *
+     * @return false if the string was not added within the time to live, true if it may have been
+     */
+    public boolean mightContain(String key) {
+        long hash = Hashing.hash64(key);
+        return contains(current(), hash) || contains(previous, hash);
+    }
+
+    /**
+     * Forget every string.
+     */
+    public void clear() {
+        rotationLock.lock();
+        try {
+            long now = ticker.getAsLong();
+            previous = new Generation(bits, now);
+            current = new Generation(bits, now);
+        } finally {
+            rotationLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of strings each filter holds before it is rotated
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the current filter, after rotating the filters whose time is up and dropping a previous filter created
+     * more than the time to live ago
+     */
+    private Generation current() {
+        Generation generation = current;
+        long now = ticker.getAsLong();
+        if (now - generation.createdAt < rotationNanos && now - previous.createdAt < 2 * rotationNanos) {
+            return generation;
+        }
+        rotationLock.lock();
+        try {
+            now = ticker.getAsLong();
+            if (now - current.createdAt >= 2 * rotationNanos) {
+                previous = new Generation(bits, now);
+                current = new Generation(bits, now);
+            } else if (now - current.createdAt >= rotationNanos) {
+                previous = current;
+                current = new Generation(bits, now);
+            }
+            if (now - previous.createdAt >= 2 * rotationNanos) {
+                previous = new Generation(bits, now);
+            }
+            return current;
+        } finally {
+            rotationLock.unlock();
+        }
+    }
+
+    /**
+     * Rotate the filters, unless another thread rotated them already.
+     *
+     * @param full the current filter, which reached its capacity
+     */
+    private void rotate(Generation full) {
+        rotationLock.lock();
+        try {
+            if (current == full) {
+                previous = full;
+                current = new Generation(bits, ticker.getAsLong());
+            }
+        } finally {
+            rotationLock.unlock();
+        }
+    }
+
+    private boolean contains(Generation generation, long hash) {
+        for (int i = 0; i < hashes; i++) {
+            if (!generation.get(indexOf(hash, i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the bit set by the i-th hash function, derived from the two halves of the hash
+     */
+    private int indexOf(long hash, int i) {
+        long combined = (hash & 0xFFFFFFFFL) + i * (hash >>> 32);
+        return (int) ((combined & Long.MAX_VALUE) % bits);
+    }
+
+    /**
+     * Bloom filter holding the strings added during one rotation.
+     */
+    private static final class Generation {
+
+        private final AtomicLongArray words;
+
+        private final long createdAt;
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        Generation(int bits, long createdAt) {
+            this.words = new AtomicLongArray(bits / Long.SIZE);
+            this.createdAt = createdAt;
+        }
+
+        void set(int index) {
+            int slot = index >>> 6;
+            long mask = 1L << index;
+            long word;
+            do {
+                word = words.get(slot);
+            } while ((word & mask) == 0 && !words.compareAndSet(slot, word, word | mask));
+        }
+
+        boolean get(int index) {
+            return (words.get(index >>> 6) & (1L << index)) != 0;
+        }
+    }
+}
@@ -0,0 +1,390 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.cache;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Cache bounded in size and time, evicting with the W-TinyLFU policy.
+ * <p>
+ * New entries enter a small window, one percent of the capacity, where they can prove themselves. An entry leaving
+ * the window is admitted to the main area only if it was accessed more often recently than the entry the main area
+ * would evict for it, as estimated by a {@link FrequencySketch}. Both areas order their entries by second chance, an
+ * approximation of LRU which lets reads flag an entry instead of moving it.
+ * <p>
+ * Reads take no lock: a lookup in a {@link ConcurrentHashMap}, a few compare and set on the sketch and a flag. Writes
+ * and evictions are serialized by a lock. Each entry expires once its time to live has elapsed, and is then dropped on
+ * the next read or eviction sweep.
+ * <p>
+ * Values are returned as stored: callers sharing a cached instance must not modify it.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class TinyLfuCache<K, V> {
+
+    /**
+     * Expiry time of entries which never expire.
+     */
+    private static final long NEVER = Long.MAX_VALUE;
+
+    private final long maximumSize;
+
+    private final long windowMax;
+
+    private final long mainMax;
+
+    private final long expireAfterWriteNanos;
+
+    private final LongSupplier ticker;
+
+    private final ConcurrentHashMap<K, Node<K, V>> entries = new ConcurrentHashMap<>();
+
+    private final FrequencySketch sketch;
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    /**
+     * Entries in the window and the main area, oldest first, guarded by the lock. Entries removed by a read or an
+     * invalidation stay until the next sweep and count in the sizes until then.
+     */
+    private final ArrayDeque<Node<K, V>> window = new ArrayDeque<>();
+
+    private final ArrayDeque<Node<K, V>> main = new ArrayDeque<>();
+
+    private long windowSize;
+
+    private long mainSize;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder expirations = new LongAdder();
+
+    /**
+     * Private constructor, to be used only by {@link Builder}
+     *
+     * @param builder the builder holding the settings
+     */
+    private TinyLfuCache(Builder<K, V> builder) {
+        this.maximumSize = builder.maximumSize;
+        this.windowMax = Math.max(1, maximumSize / 100);
+        this.mainMax = Math.max(1, maximumSize - windowMax);
+        this.expireAfterWriteNanos = TimeUnit.MILLISECONDS.toNanos(builder.expireAfterWrite);
+        this.ticker = builder.ticker;
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    /**
+     * @param key the key
+     *
+     * @return the value cached for the key, null if there is none or it expired
+     */
+    public V getIfPresent(K key) {
+        sketch.increment(key.hashCode());
+        Node<K, V> node = entries.get(key);
+        if (node == null) {
+            misses.increment();
+            return null;
+        }
+        if (node.expiresAt - ticker.getAsLong() <= 0) {
+            if (entries.remove(key, node)) {
+                expirations.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        if (!node.referenced) {
+            node.referenced = true;
+        }
+        hits.increment();
+        return node.value;
+    }
+
+    /**
+     * Cache the value, expiring after the time to live of the cache.
+     *
+     * @param key   the key
+     * @param value the value, not null
+     */
+    public void put(K key, V value) {
+        put(key, value, expireAfterWriteNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Cache the value, expiring after the given time to live.
+     *
+     * @param key        the key
+     * @param value      the value, not null
+     * @param timeToLive the time to live, 0 for an entry which never expires
+     * @param unit       the unit of the time to live
+     */
+    public void put(K key, V value, long timeToLive, TimeUnit unit) {
+        if (value == null) {
+            throw new NullPointerException("value cannot be null");
+        }
+        long expiresAt = timeToLive > 0 ? ticker.getAsLong() + unit.toNanos(timeToLive) : NEVER;
+        sketch.increment(key.hashCode());
+        evictionLock.lock();
+        try {
+            Node<K, V> node = entries.get(key);
+            if (node != null) {
+                node.value = value;
+                node.expiresAt = expiresAt;
+                node.referenced = true;
+                return;
+            }
+            node = new Node<>(key, value, expiresAt);
+            entries.put(key, node);
+            window.addLast(node);
+            windowSize++;
+            evict();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Remove the entry of the key, if any.
+     *
+     * @param key the key
+     */
+    public void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Remove every entry.
+     */
+    public void invalidateAll() {
+        evictionLock.lock();
+        try {
+            entries.clear();
+            window.clear();
+            main.clear();
+            windowSize = 0;
+            mainSize = 0;
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of entries, expired entries not yet dropped included
+     */
+    public long size() {
+        return entries.size();
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * @return the counters of the cache
+     */
+    public CacheStats getStats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum());
+    }
+
+    /**
+     * Move the entries overflowing the window to the main area, or evict them, the lock being held.
+     */
+    private void evict() {
+        long now = ticker.getAsLong();
+        int chances = (int) Math.min(Integer.MAX_VALUE, windowSize + 1);
+        while (windowSize > windowMax) {
+            Node<K, V> candidate = window.pollFirst();
+            windowSize--;
+            if (!isLive(candidate, now)) {
+                continue;
+            }
+            if (candidate.referenced && chances-- > 0) {
+                candidate.referenced = false;
+                window.addLast(candidate);
+                windowSize++;
+                continue;
+            }
+            admit(candidate, now);
+        }
+    }
+
+    /**
+     * Admit the candidate to the main area if it is more frequent than the victim of the main area, the lock being
+     * held.
+     *
+     * @param candidate the entry leaving the window
+     * @param now       the current time of the ticker
+     */
+    private void admit(Node<K, V> candidate, long now) {
+        Node<K, V> victim = mainSize < mainMax ? null : sweep(now);
+        if (victim != null && mainSize + 1 >= mainMax) {
+            if (sketch.frequency(candidate.key.hashCode()) <= sketch.frequency(victim.key.hashCode())) {
+                main.addFirst(victim);
+                mainSize++;
+                evict(candidate);
+                return;
+            }
+            evict(victim);
+        } else if (victim != null) {
+            main.addFirst(victim);
+            mainSize++;
+        }
+        candidate.referenced = false;
+        main.addLast(candidate);
+        mainSize++;
+    }
+
+    /**
+     * Find the victim of the main area by second chance, dropping the removed and expired entries on the way.
+     *
+     * @param now the current time of the ticker
+     *
+     * @return the victim, taken out of the main area, or null if the main area holds no live entry
+     */
+    private Node<K, V> sweep(long now) {
+        int chances = (int) Math.min(Integer.MAX_VALUE, mainSize + 1);
+        while (!main.isEmpty()) {
+            Node<K, V> node = main.pollFirst();
+            mainSize--;
+            if (!isLive(node, now)) {
+                continue;
+            }
+            if (node.referenced && chances-- > 0) {
+                node.referenced = false;
+                main.addLast(node);
+                mainSize++;
+                continue;
+            }
+            return node;
+        }
+        return null;
+    }
+
+    /**
+     * @param node an entry taken out of an area
+     * @param now  the current time of the ticker
+     *
+     * @return whether the entry is still cached; an expired entry is removed
+     */
+    private boolean isLive(Node<K, V> node, long now) {
+        if (entries.get(node.key) != node) {
+            return false;
+        }
+        if (node.expiresAt - now <= 0) {
+            if (entries.remove(node.key, node)) {
+                expirations.increment();
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param node the entry to evict for lack of room
+     */
+    private void evict(Node<K, V> node) {
+        if (entries.remove(node.key, node)) {
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Cached entry.
+     */
+    private static final class Node<K, V> {
+
+        private final K key;
+
+        private volatile V value;
+
+        private volatile long expiresAt;
+
+        /**
+         * Whether the entry was accessed since the last sweep passed it.
+         */
+        private volatile boolean referenced;
+
+        Node(K key, V value, long expiresAt) {
+            this.key = key;
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Builder class to build {@link TinyLfuCache}
+     *
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     */
+    public static class Builder<K, V> {
+
+        /**
+         * Number of entries the cache holds at most.
+         */
+        private long maximumSize = 10000;
+
+        /**
+         * Time to live in milliseconds of the entries, 0 for entries which never expire.
+         */
+        private long expireAfterWrite;
+
+        private LongSupplier ticker = System::nanoTime;
+
+        public Builder() {
+        }
+
+        public Builder<K, V> setMaximumSize(long maximumSize) {
+            if (maximumSize < 1) {
+                throw new IllegalArgumentException("maximumSize must be at least 1");
+            }
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        public Builder<K, V> setExpireAfterWrite(long expireAfterWrite) {
+            this.expireAfterWrite = expireAfterWrite;
+            return this;
+        }
+
+        /**
+         * @param ticker source of the time in nanoseconds, {@link System#nanoTime()} by default
+         *
+         * @return {@link Builder} for method chaining
+         */
+        Builder<K, V> setTicker(LongSupplier ticker) {
+            this.ticker = ticker;
+            return this;
+        }
+
+        /**
+         * Build {@link TinyLfuCache}
+         *
+         * @return {@link TinyLfuCache}
+         */
+        public TinyLfuCache<K, V> build() {
+            return new TinyLfuCache<>(this);
+        }
+    }
+}
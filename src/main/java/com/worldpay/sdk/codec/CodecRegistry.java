@@ -0,0 +1,31 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.codec;
+
+import java.util.List;
+
+/**
+ * Provider of {@link TypeCodec}s, looked up by {@link GeneratedJsonCodec} with {@link java.util.ServiceLoader}.
+ * <p>
+ * The codecs of the gateway DTOs are generated at build time, along with their registry, from
+ * {@link GenerateCodecs}.
+ */
+public interface CodecRegistry {
+
+    /**
+     * @return the codecs provided
+     */
+    List<TypeCodec<?>> getCodecs();
+}
@@ -0,0 +1,275 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Conversions shared by the generated codecs.
+ * <p>
+ * Readers handle the tokens a value normally comes as, and hand any other token to Jackson databind, through the
+ * codec of the parser, so that coercions and errors are those of Jackson.
+ */
+final class CodecSupport {
+
+    /**
+     * Private constructor.
+     */
+    private CodecSupport() {
+    }
+
+    /**
+     * Reads a value, the parser being on its first token.
+     *
+     * @param <T> the class of the value
+     */
+    @FunctionalInterface
+    interface ValueReader<T> {
+
+        T read(JsonParser parser) throws IOException;
+    }
+
+    /**
+     * Writes a value, or {@code null}.
+     *
+     * @param <T> the class of the value
+     */
+    @FunctionalInterface
+    interface ValueWriter<T> {
+
+        void write(JsonGenerator generator, T value) throws IOException;
+    }
+
+    static String readString(JsonParser parser) throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        return token == JsonToken.VALUE_NULL ? null : parser.readValueAs(String.class);
+    }
+
+    static Boolean readBoolean(JsonParser parser) throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_TRUE) {
+            return Boolean.TRUE;
+        }
+        if (token == JsonToken.VALUE_FALSE) {
+            return Boolean.FALSE;
+        }
+        return token == JsonToken.VALUE_NULL ? null : parser.readValueAs(Boolean.class);
+    }
+
+    static Integer readInteger(JsonParser parser) throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() == JsonParser.NumberType.INT) {
+            return parser.getIntValue();
+        }
+        return token == JsonToken.VALUE_NULL ? null : parser.readValueAs(Integer.class);
+    }
+
+    static Long readLong(JsonParser parser) throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT && parser.getNumberType() != JsonParser.NumberType.BIG_INTEGER) {
+            return parser.getLongValue();
+        }
+        return token == JsonToken.VALUE_NULL ? null : parser.readValueAs(Long.class);
+    }
+
+    static Double readDouble(JsonParser parser) throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getDoubleValue();
+        }
+        return token == JsonToken.VALUE_NULL ? null : parser.readValueAs(Double.class);
+    }
+
+    static BigDecimal readBigDecimal(JsonParser parser) throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getDecimalValue();
+        }
+        return token == JsonToken.VALUE_NULL ? null : parser.readValueAs(BigDecimal.class);
+    }
+
+    static BigInteger readBigInteger(JsonParser parser) throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return parser.getBigIntegerValue();
+        }
+        return token == JsonToken.VALUE_NULL ? null : parser.readValueAs(BigInteger.class);
+    }
+
+    static <E extends Enum<E>> E readEnum(JsonParser parser, EnumValues<E> values) throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_STRING) {
+            E value = values.get(parser.getText());
+            if (value != null) {
+                return value;
+            }
+        } else if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        return parser.readValueAs(values.getType());
+    }
+
+    static <V> LinkedHashMap<String, V> readMap(JsonParser parser, ValueReader<V> reader) throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw JsonMappingException.from(parser, "Cannot deserialize a Map out of " + token + " token");
+        }
+        LinkedHashMap<String, V> map = new LinkedHashMap<>();
+        for (String name = parser.nextFieldName(); name != null; name = parser.nextFieldName()) {
+            parser.nextToken();
+            map.put(name, reader.read(parser));
+        }
+        return map;
+    }
+
+    static <E> ArrayList<E> readList(JsonParser parser, ValueReader<E> reader) throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token != JsonToken.START_ARRAY) {
+            throw JsonMappingException.from(parser, "Cannot deserialize a List out of " + token + " token");
+        }
+        ArrayList<E> list = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            list.add(reader.read(parser));
+        }
+        return list;
+    }
+
+    static boolean booleanValue(Boolean value) {
+        return value != null && value;
+    }
+
+    static int intValue(Integer value) {
+        return value == null ? 0 : value;
+    }
+
+    static long longValue(Long value) {
+        return value == null ? 0L : value;
+    }
+
+    static double doubleValue(Double value) {
+        return value == null ? 0.0 : value;
+    }
+
+    static void writeString(JsonGenerator generator, String value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(value);
+        }
+    }
+
+    static void writeBoolean(JsonGenerator generator, Boolean value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeBoolean(value);
+        }
+    }
+
+    static void writeInteger(JsonGenerator generator, Integer value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    static void writeLong(JsonGenerator generator, Long value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    static void writeDouble(JsonGenerator generator, Double value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    static void writeBigDecimal(JsonGenerator generator, BigDecimal value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    static void writeBigInteger(JsonGenerator generator, BigInteger value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+
+    static void writeEnum(JsonGenerator generator, Enum<?> value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeString(value.name());
+        }
+    }
+
+    static <V> void writeMap(JsonGenerator generator, Map<String, V> map, ValueWriter<? super V> writer)
+        throws IOException {
+        if (map == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartObject();
+        for (Map.Entry<String, V> entry : map.entrySet()) {
+            generator.writeFieldName(entry.getKey());
+            writer.write(generator, entry.getValue());
+        }
+        generator.writeEndObject();
+    }
+
+    static <E> void writeList(JsonGenerator generator, Collection<E> list, ValueWriter<? super E> writer)
+        throws IOException {
+        if (list == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartArray();
+        for (E element : list) {
+            writer.write(generator, element);
+        }
+        generator.writeEndArray();
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.worldpay.sdk.util.JsonCodec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@link JsonCodec} writing values in a compact binary form of the JSON tokens instead of JSON text, for storage
+ * rather than exchange: the classes with a generated {@link TypeCodec} are converted by it, without reflection, and
+ * any other class by Jackson databind.
+ * <p>
+ * A document starts with a format byte, which cannot start a UTF-8 JSON document, followed by the tokens, each a tag
+ * byte then its payload:
+ * <ul>
+ * <li>a field name is written as its index among the property names of the gateway DTOs, or among the other names
+ * of the document, which are written in UTF-8 the first time they occur;</li>
+ * <li>strings are written in UTF-8 and binary values as is, after their length;</li>
+ * <li>integers are written as variable-length zig-zag integers, of one byte from -64 to 63, floating-point numbers in
+ * their IEEE 754 form, and big numbers as their two's-complement bytes, after their scale for a decimal;</li>
+ * <li>the structure, booleans and nulls are the tag alone.</li>
+ * </ul>
+ * Lengths are unsigned variable-length integers. Every name being recorded, by index or in full, a value remains
+ * readable when properties are added to or removed from its class.
+ * <p>
+ * The documents are not JSON: {@link #read(String, Class)} and {@link #writeString(Object)} are not supported.
+ */
+public class CompactBinaryCodec implements JsonCodec {
+
+    /**
+     * First byte of a document, a byte which never occurs in UTF-8, to change along with the format or {@link #NAMES}.
+     */
+    static final int FORMAT = 0xC1;
+
+    /**
+     * Property names of the gateway DTOs, written as their index.
+     */
+    static final List<String> NAMES = List.of(
+        "orderResponse", "environment", "orderCode", "token", "orderDescription", "amount", "authorizedAmount",
+        "currencyCode", "settlementCurrency", "paymentStatus", "paymentResponse", "customerOrderCode",
+        "customerIdentifiers", "shopperEmailAddress", "redirectURL", "oneTime3DsToken", "riskScore", "resultCodes",
+        "avsResultCode", "cvcResultCode", "value", "reusable", "paymentMethod", "type", "name", "expiryMonth",
+        "expiryYear", "issueNumber", "startMonth", "startYear", "cardType", "maskedCardNumber", "cardSchemeType",
+        "cardSchemeName", "cardIssuer", "countryCode", "cardClass", "cardProductTypeDescNonContactless",
+        "cardProductTypeDescContactless", "prepaid", "apmName", "shopperCountryCode", "billingAddress",
+        "deliveryAddress", "address1", "address2", "address3", "postalCode", "city", "state", "telephoneNumber");
+
+    /**
+     * Indexes of {@link #NAMES}.
+     */
+    static final Map<String, Integer> NAME_INDEXES = indexes(NAMES);
+
+    static final int START_OBJECT = 1;
+
+    static final int END_OBJECT = 2;
+
+    static final int START_ARRAY = 3;
+
+    static final int END_ARRAY = 4;
+
+    /**
+     * Field name written in full, then remembered.
+     */
+    static final int NEW_NAME = 5;
+
+    /**
+     * Index of a field name among {@link #NAMES}, then the names of the document.
+     */
+    static final int NAME_REFERENCE = 6;
+
+    static final int STRING = 7;
+
+    static final int TRUE = 8;
+
+    static final int FALSE = 9;
+
+    static final int NULL = 10;
+
+    static final int INT = 11;
+
+    static final int LONG = 12;
+
+    static final int BIG_INTEGER = 13;
+
+    static final int FLOAT = 14;
+
+    static final int DOUBLE = 15;
+
+    static final int BIG_DECIMAL = 16;
+
+    static final int BINARY = 17;
+
+    private final ObjectMapper mapper;
+
+    /**
+     * Create a codec ignoring unknown properties.
+     */
+    public CompactBinaryCodec() {
+        this.mapper = new ObjectMapper();
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    }
+
+    @Override
+    public <T> T read(InputStream in, Class<T> type) throws IOException {
+        byte[] document;
+        try (InputStream input = in) {
+            document = input.readAllBytes();
+        }
+        return read(document, type);
+    }
+
+    /**
+     * Read a value from a document.
+     *
+     * @param <T>      the class of the value
+     * @param document the document
+     * @param type     the class of the value
+     *
+     * @return the value
+     *
+     * @throws IOException if the document does not hold a value of the type
+     */
+    public <T> T read(byte[] document, Class<T> type) throws IOException {
+        try (CompactParser parser = new CompactParser(mapper, document)) {
+            if (parser.nextToken() == null) {
+                throw JsonMappingException.from(parser, "No content to map due to end-of-input");
+            }
+            TypeCodec<T> codec = GeneratedJsonCodec.codec(type);
+            return codec == null ? mapper.readValue(parser, type) : codec.read(parser);
+        }
+    }
+
+    /**
+     * Not supported, the documents not being JSON.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public <T> T read(String json, Class<T> type) {
+        throw new UnsupportedOperationException("Compact binary documents have no text form");
+    }
+
+    @Override
+    public byte[] write(Object value) throws IOException {
+        try (CompactGenerator generator = new CompactGenerator(mapper, null)) {
+            write(generator, value);
+            return generator.toByteArray();
+        }
+    }
+
+    @Override
+    public void write(OutputStream out, Object value) throws IOException {
+        try (CompactGenerator generator = new CompactGenerator(mapper, out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            write(generator, value);
+        }
+    }
+
+    /**
+     * Not supported, the documents not being JSON.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public String writeString(Object value) {
+        throw new UnsupportedOperationException("Compact binary documents have no text form");
+    }
+
+    private void write(CompactGenerator generator, Object value) throws IOException {
+        TypeCodec<Object> codec = GeneratedJsonCodec.codecOf(value);
+        if (codec == null) {
+            mapper.writeValue(generator, value);
+        } else {
+            codec.write(generator, value);
+        }
+    }
+
+    private static Map<String, Integer> indexes(List<String> names) {
+        Map<String, Integer> indexes = new HashMap<>();
+        for (String name : names) {
+            indexes.put(name, indexes.size());
+        }
+        return Collections.unmodifiableMap(indexes);
+    }
+}
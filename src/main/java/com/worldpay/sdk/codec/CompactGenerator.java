@@ -0,0 +1,390 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.codec;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.base.GeneratorBase;
+import com.fasterxml.jackson.core.json.JsonWriteContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Generator of a {@link CompactBinaryCodec} document, buffered until flushed or closed, or kept in memory without a
+ * stream.
+ */
+final class CompactGenerator extends GeneratorBase {
+
+    private final OutputStream out;
+
+    /**
+     * Indexes of the field names written so far other than {@link CompactBinaryCodec#NAMES}, which follow them,
+     * created with the first one.
+     */
+    private Map<String, Integer> names;
+
+    private byte[] buffer = new byte[256];
+
+    private int length;
+
+    /**
+     * @param codec codec of the values without a generated codec
+     * @param out   the stream to write to, or null to keep the document in memory
+     */
+    CompactGenerator(ObjectCodec codec, OutputStream out) {
+        super(JsonGenerator.Feature.collectDefaults(), codec);
+        this.out = out;
+        buffer[length++] = (byte) CompactBinaryCodec.FORMAT;
+    }
+
+    @Override
+    public void writeStartArray() throws IOException {
+        _verifyValueWrite("start an array");
+        _writeContext = _writeContext.createChildArrayContext();
+        writeTag(CompactBinaryCodec.START_ARRAY);
+    }
+
+    @Override
+    public void writeEndArray() throws IOException {
+        if (!_writeContext.inArray()) {
+            _reportError("Current context not Array but " + _writeContext.typeDesc());
+        }
+        _writeContext = _writeContext.clearAndGetParent();
+        writeTag(CompactBinaryCodec.END_ARRAY);
+    }
+
+    @Override
+    public void writeStartObject() throws IOException {
+        _verifyValueWrite("start an object");
+        _writeContext = _writeContext.createChildObjectContext();
+        writeTag(CompactBinaryCodec.START_OBJECT);
+    }
+
+    @Override
+    public void writeEndObject() throws IOException {
+        if (!_writeContext.inObject()) {
+            _reportError("Current context not Object but " + _writeContext.typeDesc());
+        }
+        _writeContext = _writeContext.clearAndGetParent();
+        writeTag(CompactBinaryCodec.END_OBJECT);
+    }
+
+    @Override
+    public void writeFieldName(String name) throws IOException {
+        if (_writeContext.writeFieldName(name) == JsonWriteContext.STATUS_EXPECT_VALUE) {
+            _reportError("Can not write a field name, expecting a value");
+        }
+        Integer index = CompactBinaryCodec.NAME_INDEXES.get(name);
+        if (index == null && names != null) {
+            index = names.get(name);
+        }
+        if (index != null) {
+            writeTag(CompactBinaryCodec.NAME_REFERENCE);
+            writeVarint(index);
+            return;
+        }
+        if (names == null) {
+            names = new HashMap<>();
+        }
+        names.put(name, CompactBinaryCodec.NAMES.size() + names.size());
+        writeTag(CompactBinaryCodec.NEW_NAME);
+        writeText(name);
+    }
+
+    @Override
+    public void writeString(String text) throws IOException {
+        if (text == null) {
+            writeNull();
+            return;
+        }
+        _verifyValueWrite("write a string");
+        writeTag(CompactBinaryCodec.STRING);
+        writeText(text);
+    }
+
+    @Override
+    public void writeString(char[] text, int offset, int len) throws IOException {
+        writeString(new String(text, offset, len));
+    }
+
+    @Override
+    public void writeRawUTF8String(byte[] text, int offset, int len) throws IOException {
+        writeUTF8String(text, offset, len);
+    }
+
+    @Override
+    public void writeUTF8String(byte[] text, int offset, int len) throws IOException {
+        _verifyValueWrite("write a string");
+        writeTag(CompactBinaryCodec.STRING);
+        writeBytes(text, offset, len);
+    }
+
+    @Override
+    public void writeRaw(String text) throws IOException {
+        _reportUnsupportedOperation();
+    }
+
+    @Override
+    public void writeRaw(String text, int offset, int len) throws IOException {
+        _reportUnsupportedOperation();
+    }
+
+    @Override
+    public void writeRaw(char[] text, int offset, int len) throws IOException {
+        _reportUnsupportedOperation();
+    }
+
+    @Override
+    public void writeRaw(char c) throws IOException {
+        _reportUnsupportedOperation();
+    }
+
+    @Override
+    public void writeBinary(Base64Variant variant, byte[] data, int offset, int len) throws IOException {
+        if (data == null) {
+            writeNull();
+            return;
+        }
+        _verifyValueWrite("write a binary value");
+        writeTag(CompactBinaryCodec.BINARY);
+        writeBytes(data, offset, len);
+    }
+
+    @Override
+    public void writeNumber(int value) throws IOException {
+        _verifyValueWrite("write a number");
+        writeTag(CompactBinaryCodec.INT);
+        writeVarint(zigZag(value));
+    }
+
+    @Override
+    public void writeNumber(long value) throws IOException {
+        _verifyValueWrite("write a number");
+        writeTag(CompactBinaryCodec.LONG);
+        writeVarint((value << 1) ^ (value >> 63));
+    }
+
+    @Override
+    public void writeNumber(BigInteger value) throws IOException {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        _verifyValueWrite("write a number");
+        writeTag(CompactBinaryCodec.BIG_INTEGER);
+        writeBytes(value.toByteArray());
+    }
+
+    @Override
+    public void writeNumber(double value) throws IOException {
+        _verifyValueWrite("write a number");
+        writeTag(CompactBinaryCodec.DOUBLE);
+        writeFixed(Double.doubleToLongBits(value), 8);
+    }
+
+    @Override
+    public void writeNumber(float value) throws IOException {
+        _verifyValueWrite("write a number");
+        writeTag(CompactBinaryCodec.FLOAT);
+        writeFixed(Float.floatToIntBits(value), 4);
+    }
+
+    @Override
+    public void writeNumber(BigDecimal value) throws IOException {
+        if (value == null) {
+            writeNull();
+            return;
+        }
+        _verifyValueWrite("write a number");
+        writeTag(CompactBinaryCodec.BIG_DECIMAL);
+        writeVarint(zigZag(value.scale()));
+        writeBytes(value.unscaledValue().toByteArray());
+    }
+
+    /**
+     * Write a number given as text, as the smallest number which holds it.
+     */
+    @Override
+    public void writeNumber(String encodedValue) throws IOException {
+        if (encodedValue == null) {
+            writeNull();
+            return;
+        }
+        BigDecimal value;
+        try {
+            value = new BigDecimal(encodedValue);
+        } catch (NumberFormatException e) {
+            _reportError("Not a number: " + encodedValue);
+            return;
+        }
+        if (encodedValue.indexOf('.') >= 0 || encodedValue.indexOf('e') >= 0 || encodedValue.indexOf('E') >= 0) {
+            writeNumber(value);
+            return;
+        }
+        BigInteger integer = value.toBigInteger();
+        if (integer.bitLength() < 64) {
+            writeNumber(integer.longValue());
+        } else {
+            writeNumber(integer);
+        }
+    }
+
+    @Override
+    public void writeBoolean(boolean state) throws IOException {
+        _verifyValueWrite("write a boolean value");
+        writeTag(state ? CompactBinaryCodec.TRUE : CompactBinaryCodec.FALSE);
+    }
+
+    @Override
+    public void writeNull() throws IOException {
+        _verifyValueWrite("write a null");
+        writeTag(CompactBinaryCodec.NULL);
+    }
+
+    /**
+     * @return the document written, when kept in memory
+     */
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (out == null) {
+            return;
+        }
+        flushBuffer();
+        if (isEnabled(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM)) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (isClosed()) {
+            return;
+        }
+        super.close();
+        if (out == null) {
+            return;
+        }
+        flushBuffer();
+        if (isEnabled(JsonGenerator.Feature.AUTO_CLOSE_TARGET)) {
+            out.close();
+        } else if (isEnabled(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM)) {
+            out.flush();
+        }
+    }
+
+    @Override
+    protected void _releaseBuffers() {
+    }
+
+    @Override
+    protected void _verifyValueWrite(String typeMsg) throws IOException {
+        if (_writeContext.writeValue() == JsonWriteContext.STATUS_EXPECT_NAME) {
+            _reportError("Can not " + typeMsg + ", expecting field name");
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (length > 0) {
+            out.write(buffer, 0, length);
+            length = 0;
+        }
+    }
+
+    private void writeTag(int tag) {
+        ensureCapacity(1);
+        buffer[length++] = (byte) tag;
+    }
+
+    /**
+     * Write an unsigned variable-length integer, seven bits per byte, least significant first.
+     */
+    private void writeVarint(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[length++] = (byte) (value | 0x80);
+            value >>>= 7;
+        }
+        buffer[length++] = (byte) value;
+    }
+
+    /**
+     * @return the value with its sign in the lowest bit, so that small negative values are small too
+     */
+    private static long zigZag(int value) {
+        return ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL;
+    }
+
+    private void writeFixed(long bits, int size) {
+        ensureCapacity(size);
+        for (int shift = (size - 1) * 8; shift >= 0; shift -= 8) {
+            buffer[length++] = (byte) (bits >>> shift);
+        }
+    }
+
+    /**
+     * Write a text in UTF-8 after its length, encoding it in place when it is short and in ASCII, as most are.
+     */
+    private void writeText(String text) {
+        int chars = text.length();
+        if (chars > 0x7F) {
+            writeBytes(text.getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        ensureCapacity(1 + chars);
+        int start = length;
+        buffer[length++] = (byte) chars;
+        for (int i = 0; i < chars; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                length = start;
+                writeBytes(text.getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            buffer[length++] = (byte) c;
+        }
+    }
+
+    private void writeBytes(byte[] bytes) {
+        writeBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Write bytes after their length.
+     */
+    private void writeBytes(byte[] bytes, int offset, int len) {
+        writeVarint(len);
+        ensureCapacity(len);
+        System.arraycopy(bytes, offset, buffer, length, len);
+        length += len;
+    }
+
+    private void ensureCapacity(int count) {
+        if (length + count > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + count));
+        }
+    }
+}
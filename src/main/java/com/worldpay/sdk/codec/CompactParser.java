@@ -0,0 +1,464 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.codec;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.JsonLocation;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.Version;
+import com.fasterxml.jackson.core.base.ParserMinimalBase;
+import com.fasterxml.jackson.core.json.JsonReadContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Parser of a {@link CompactBinaryCodec} document held in memory.
+ */
+final class CompactParser extends ParserMinimalBase {
+
+    private final byte[] document;
+
+    private int position;
+
+    private ObjectCodec codec;
+
+    private JsonReadContext context = JsonReadContext.createRootContext(null);
+
+    /**
+     * Field names read so far other than {@link CompactBinaryCodec#NAMES}, which come first in the indexes.
+     */
+    private final List<String> names = new ArrayList<>();
+
+    /**
+     * Field name or string of the current token.
+     */
+    private String text;
+
+    private Number number;
+
+    private byte[] binary;
+
+    private boolean closed;
+
+    CompactParser(ObjectCodec codec, byte[] document) {
+        this.codec = codec;
+        this.document = document;
+    }
+
+    @Override
+    public JsonToken nextToken() throws IOException {
+        if (closed) {
+            return null;
+        }
+        if (position == 0) {
+            if (document.length == 0) {
+                return null;
+            }
+            if ((document[position++] & 0xFF) != CompactBinaryCodec.FORMAT) {
+                _reportError("Not a compact binary document");
+            }
+        }
+        if (position >= document.length) {
+            if (!context.inRoot()) {
+                _handleEOF();
+            }
+            _currToken = null;
+            return null;
+        }
+        text = null;
+        number = null;
+        binary = null;
+        int tag = document[position++];
+        switch (tag) {
+            case CompactBinaryCodec.START_OBJECT:
+                value(JsonToken.START_OBJECT);
+                context = context.createChildObjectContext(-1, -1);
+                break;
+            case CompactBinaryCodec.END_OBJECT:
+                if (!context.inObject()) {
+                    _reportError("Unexpected end of object in " + context.typeDesc());
+                }
+                context = context.clearAndGetParent();
+                _currToken = JsonToken.END_OBJECT;
+                break;
+            case CompactBinaryCodec.START_ARRAY:
+                value(JsonToken.START_ARRAY);
+                context = context.createChildArrayContext(-1, -1);
+                break;
+            case CompactBinaryCodec.END_ARRAY:
+                if (!context.inArray()) {
+                    _reportError("Unexpected end of array in " + context.typeDesc());
+                }
+                context = context.clearAndGetParent();
+                _currToken = JsonToken.END_ARRAY;
+                break;
+            case CompactBinaryCodec.NEW_NAME:
+                text = readString();
+                names.add(text);
+                name(text);
+                break;
+            case CompactBinaryCodec.NAME_REFERENCE:
+                text = readName();
+                name(text);
+                break;
+            case CompactBinaryCodec.STRING:
+                text = readString();
+                value(JsonToken.VALUE_STRING);
+                break;
+            case CompactBinaryCodec.TRUE:
+                value(JsonToken.VALUE_TRUE);
+                break;
+            case CompactBinaryCodec.FALSE:
+                value(JsonToken.VALUE_FALSE);
+                break;
+            case CompactBinaryCodec.NULL:
+                value(JsonToken.VALUE_NULL);
+                break;
+            case CompactBinaryCodec.INT:
+                int zigZag = (int) readVarint();
+                number = (zigZag >>> 1) ^ -(zigZag & 1);
+                value(JsonToken.VALUE_NUMBER_INT);
+                break;
+            case CompactBinaryCodec.LONG:
+                long longZigZag = readVarint();
+                number = (longZigZag >>> 1) ^ -(longZigZag & 1);
+                value(JsonToken.VALUE_NUMBER_INT);
+                break;
+            case CompactBinaryCodec.BIG_INTEGER:
+                number = new BigInteger(readBytes());
+                value(JsonToken.VALUE_NUMBER_INT);
+                break;
+            case CompactBinaryCodec.FLOAT:
+                number = Float.intBitsToFloat((int) readFixed(4));
+                value(JsonToken.VALUE_NUMBER_FLOAT);
+                break;
+            case CompactBinaryCodec.DOUBLE:
+                number = Double.longBitsToDouble(readFixed(8));
+                value(JsonToken.VALUE_NUMBER_FLOAT);
+                break;
+            case CompactBinaryCodec.BIG_DECIMAL:
+                int scaleZigZag = (int) readVarint();
+                number = new BigDecimal(new BigInteger(readBytes()), (scaleZigZag >>> 1) ^ -(scaleZigZag & 1));
+                value(JsonToken.VALUE_NUMBER_FLOAT);
+                break;
+            case CompactBinaryCodec.BINARY:
+                binary = readBytes();
+                value(JsonToken.VALUE_EMBEDDED_OBJECT);
+                break;
+            default:
+                _reportError("Unknown tag " + tag + " at byte " + (position - 1));
+        }
+        return _currToken;
+    }
+
+    @Override
+    protected void _handleEOF() throws JsonParseException {
+        _reportInvalidEOF(": expected close marker for " + context.typeDesc(), null);
+    }
+
+    @Override
+    public String getCurrentName() {
+        if (_currToken == JsonToken.START_OBJECT || _currToken == JsonToken.START_ARRAY) {
+            JsonReadContext parent = context.getParent();
+            return parent == null ? null : parent.getCurrentName();
+        }
+        return context.getCurrentName();
+    }
+
+    @Override
+    public void overrideCurrentName(String name) {
+        JsonReadContext target = context;
+        if (_currToken == JsonToken.START_OBJECT || _currToken == JsonToken.START_ARRAY) {
+            target = target.getParent();
+        }
+        try {
+            target.setCurrentName(name);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public JsonStreamContext getParsingContext() {
+        return context;
+    }
+
+    @Override
+    public String getText() throws IOException {
+        if (_currToken == JsonToken.VALUE_STRING || _currToken == JsonToken.FIELD_NAME) {
+            return text;
+        }
+        if (_currToken == JsonToken.VALUE_NUMBER_INT || _currToken == JsonToken.VALUE_NUMBER_FLOAT) {
+            return number.toString();
+        }
+        return _currToken == null ? null : _currToken.asString();
+    }
+
+    @Override
+    public char[] getTextCharacters() throws IOException {
+        String value = getText();
+        return value == null ? null : value.toCharArray();
+    }
+
+    @Override
+    public boolean hasTextCharacters() {
+        return false;
+    }
+
+    @Override
+    public int getTextLength() throws IOException {
+        String value = getText();
+        return value == null ? 0 : value.length();
+    }
+
+    @Override
+    public int getTextOffset() {
+        return 0;
+    }
+
+    @Override
+    public Object getEmbeddedObject() {
+        return _currToken == JsonToken.VALUE_EMBEDDED_OBJECT ? binary : null;
+    }
+
+    @Override
+    public byte[] getBinaryValue(Base64Variant variant) throws IOException {
+        if (_currToken == JsonToken.VALUE_EMBEDDED_OBJECT) {
+            return binary;
+        }
+        if (_currToken != JsonToken.VALUE_STRING) {
+            _reportError("Current token (" + _currToken + ") not VALUE_STRING or VALUE_EMBEDDED_OBJECT, can not "
+                         + "access as binary");
+        }
+        return variant.decode(text);
+    }
+
+    @Override
+    public Number getNumberValue() throws IOException {
+        if (number == null) {
+            _reportError("Current token (" + _currToken + ") not numeric, can not use numeric value accessors");
+        }
+        return number;
+    }
+
+    @Override
+    public NumberType getNumberType() throws IOException {
+        Number value = getNumberValue();
+        if (value instanceof Integer) {
+            return NumberType.INT;
+        }
+        if (value instanceof Long) {
+            return NumberType.LONG;
+        }
+        if (value instanceof BigInteger) {
+            return NumberType.BIG_INTEGER;
+        }
+        if (value instanceof Float) {
+            return NumberType.FLOAT;
+        }
+        return value instanceof Double ? NumberType.DOUBLE : NumberType.BIG_DECIMAL;
+    }
+
+    @Override
+    public int getIntValue() throws IOException {
+        Number value = getNumberValue();
+        if (value instanceof Integer) {
+            return (Integer) value;
+        }
+        long longValue = getLongValue();
+        if (longValue < Integer.MIN_VALUE || longValue > Integer.MAX_VALUE) {
+            reportOverflowInt();
+        }
+        return (int) longValue;
+    }
+
+    @Override
+    public long getLongValue() throws IOException {
+        Number value = getNumberValue();
+        if (value instanceof Integer || value instanceof Long) {
+            return value.longValue();
+        }
+        BigInteger integer = getBigIntegerValue();
+        if (integer.bitLength() > 63) {
+            reportOverflowLong();
+        }
+        return integer.longValue();
+    }
+
+    @Override
+    public BigInteger getBigIntegerValue() throws IOException {
+        Number value = getNumberValue();
+        if (value instanceof BigInteger) {
+            return (BigInteger) value;
+        }
+        if (value instanceof Integer || value instanceof Long) {
+            return BigInteger.valueOf(value.longValue());
+        }
+        return getDecimalValue().toBigInteger();
+    }
+
+    @Override
+    public float getFloatValue() throws IOException {
+        return getNumberValue().floatValue();
+    }
+
+    @Override
+    public double getDoubleValue() throws IOException {
+        return getNumberValue().doubleValue();
+    }
+
+    @Override
+    public BigDecimal getDecimalValue() throws IOException {
+        Number value = getNumberValue();
+        if (value instanceof BigDecimal) {
+            return (BigDecimal) value;
+        }
+        if (value instanceof BigInteger) {
+            return new BigDecimal((BigInteger) value);
+        }
+        if (value instanceof Integer || value instanceof Long) {
+            return BigDecimal.valueOf(value.longValue());
+        }
+        return new BigDecimal(value.toString());
+    }
+
+    @Override
+    public ObjectCodec getCodec() {
+        return codec;
+    }
+
+    @Override
+    public void setCodec(ObjectCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public Version version() {
+        return Version.unknownVersion();
+    }
+
+    @Override
+    public JsonLocation getCurrentLocation() {
+        return JsonLocation.NA;
+    }
+
+    @Override
+    public JsonLocation getTokenLocation() {
+        return JsonLocation.NA;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        _currToken = null;
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Make a value the current token, in the current array or after the current field name.
+     */
+    private void value(JsonToken token) throws IOException {
+        if (context.inObject() && _currToken != JsonToken.FIELD_NAME) {
+            _reportError("Unexpected " + token + " in an object at byte " + (position - 1) + ": expected a name");
+        }
+        context.expectComma();
+        _currToken = token;
+    }
+
+    private void name(String name) throws IOException {
+        if (!context.inObject() || _currToken == JsonToken.FIELD_NAME) {
+            _reportError("Unexpected field name '" + name + "' in " + context.typeDesc());
+        }
+        context.setCurrentName(name);
+        _currToken = JsonToken.FIELD_NAME;
+    }
+
+    private String readName() throws IOException {
+        long index = readVarint();
+        int known = CompactBinaryCodec.NAMES.size();
+        if (index < known) {
+            return CompactBinaryCodec.NAMES.get((int) index);
+        }
+        if (index - known >= names.size()) {
+            _reportError("Unknown field name " + index + " at byte " + position);
+        }
+        return names.get((int) (index - known));
+    }
+
+    private String readString() throws IOException {
+        int length = readLength();
+        String value = new String(document, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    private byte[] readBytes() throws IOException {
+        int length = readLength();
+        byte[] value = Arrays.copyOfRange(document, position, position + length);
+        position += length;
+        return value;
+    }
+
+    private int readLength() throws IOException {
+        long length = readVarint();
+        if (length > document.length - position) {
+            _reportInvalidEOF(" in a value of " + length + " bytes", null);
+        }
+        return (int) length;
+    }
+
+    /**
+     * Read an unsigned variable-length integer, seven bits per byte, least significant first.
+     */
+    private long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position >= document.length) {
+                _reportInvalidEOF(" in a number", null);
+            }
+            byte b = document[position++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        _reportError("Malformed number at byte " + position);
+        return value;
+    }
+
+    private long readFixed(int size) throws IOException {
+        if (size > document.length - position) {
+            _reportInvalidEOF(" in a number", null);
+        }
+        long bits = 0;
+        for (int i = 0; i < size; i++) {
+            bits = bits << 8 | (document[position++] & 0xFF);
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.codec;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Constants of an enum by name, as written by Jackson.
+ *
+ * @param <E> the enum
+ */
+final class EnumValues<E extends Enum<E>> {
+
+    private final Class<E> type;
+
+    private final Map<String, E> byName;
+
+    EnumValues(Class<E> type, E[] values) {
+        this.type = type;
+        this.byName = new HashMap<>(values.length * 2);
+        for (E value : values) {
+            byName.put(value.name(), value);
+        }
+    }
+
+    Class<E> getType() {
+        return type;
+    }
+
+    /**
+     * @param name the name of the constant
+     *
+     * @return the constant, {@code null} if there is none of this name
+     */
+    E get(String name) {
+        return byName.get(name);
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.codec;
+
+import com.worldpay.gateway.clearwater.client.core.dto.ApiError;
+import com.worldpay.gateway.clearwater.client.core.dto.request.CaptureOrderRequest;
+import com.worldpay.gateway.clearwater.client.core.dto.request.OrderAuthorizationRequest;
+import com.worldpay.gateway.clearwater.client.core.dto.request.OrderRequest;
+import com.worldpay.gateway.clearwater.client.core.dto.request.RefundOrderRequest;
+import com.worldpay.gateway.clearwater.client.core.dto.request.TokenRequest;
+import com.worldpay.gateway.clearwater.client.core.dto.response.OrderResponse;
+import com.worldpay.gateway.clearwater.client.core.dto.response.TokenResponse;
+import com.worldpay.gateway.clearwater.client.ui.dto.order.Transaction;
+
+/**
+ * DTOs sent to and received from the gateway, for which codecs are generated into {@code GatewayCodecsRegistry}.
+ */
+@GenerateCodecs({
+    OrderRequest.class, OrderAuthorizationRequest.class, CaptureOrderRequest.class, RefundOrderRequest.class,
+    TokenRequest.class, OrderResponse.class, Transaction.class, TokenResponse.class, ApiError.class
+})
+final class GatewayCodecs {
+
+    /**
+     * Private constructor.
+     */
+    private GatewayCodecs() {
+    }
+}
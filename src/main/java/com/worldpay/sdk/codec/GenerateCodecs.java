@@ -0,0 +1,39 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.codec;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generate a {@link TypeCodec} for each listed class, for the classes of its bean properties, and a
+ * {@link CodecRegistry} named after the annotated type. Only supported on types of this package, as the generated
+ * code uses its package-private helpers.
+ * <p>
+ * Codecs are generated by {@code com.worldpay.sdk.codec.processor.CodecProcessor}, which follows the Jackson defaults
+ * and annotations. A property whose class cannot be handled by generated code is converted by Jackson databind, and
+ * a class with Jackson features the processor does not support gets no codec at all.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateCodecs {
+
+    /**
+     * @return the classes to generate codecs for
+     */
+    Class<?>[] value();
+}
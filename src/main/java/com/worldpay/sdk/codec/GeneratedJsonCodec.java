@@ -0,0 +1,172 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.codec;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.io.SegmentedStringWriter;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.worldpay.sdk.util.JacksonJsonCodec;
+import com.worldpay.sdk.util.JsonCodec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * {@link JsonCodec} converting the classes with a generated {@link TypeCodec} with the Jackson streaming API, without
+ * reflection, and any other class with a {@link JacksonJsonCodec}.
+ * <p>
+ * Codecs are looked up once, from the {@link CodecRegistry} services on the class path. The build generates those of
+ * the gateway DTOs; when they are missing, for instance when the annotation processor did not run, every class is
+ * converted by Jackson databind.
+ */
+public class GeneratedJsonCodec implements JsonCodec {
+
+    /**
+     * Codecs by class.
+     */
+    private static final Map<Class<?>, TypeCodec<?>> CODECS = loadCodecs();
+
+    private final JsonFactory factory;
+
+    private final JsonCodec fallback;
+
+    /**
+     * Create a codec ignoring unknown properties.
+     */
+    public GeneratedJsonCodec() {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.factory = mapper.getFactory();
+        this.fallback = new JacksonJsonCodec(mapper);
+    }
+
+    /**
+     * @return whether any generated codec is on the class path
+     */
+    public static boolean isAvailable() {
+        return !CODECS.isEmpty();
+    }
+
+    /**
+     * @param type the class
+     *
+     * @return whether the class is converted by a generated codec
+     */
+    public boolean hasCodec(Class<?> type) {
+        return CODECS.containsKey(type);
+    }
+
+    @Override
+    public <T> T read(InputStream in, Class<T> type) throws IOException {
+        TypeCodec<T> codec = codec(type);
+        if (codec == null) {
+            return fallback.read(in, type);
+        }
+        try (JsonParser parser = factory.createParser(in)) {
+            return read(parser, codec);
+        }
+    }
+
+    @Override
+    public <T> T read(String json, Class<T> type) throws IOException {
+        TypeCodec<T> codec = codec(type);
+        if (codec == null) {
+            return fallback.read(json, type);
+        }
+        try (JsonParser parser = factory.createParser(json)) {
+            return read(parser, codec);
+        }
+    }
+
+    @Override
+    public byte[] write(Object value) throws IOException {
+        TypeCodec<Object> codec = codecOf(value);
+        if (codec == null) {
+            return fallback.write(value);
+        }
+        ByteArrayBuilder bytes = new ByteArrayBuilder(factory._getBufferRecycler());
+        try (JsonGenerator generator = factory.createGenerator(bytes, JsonEncoding.UTF8)) {
+            codec.write(generator, value);
+        }
+        byte[] result = bytes.toByteArray();
+        bytes.release();
+        return result;
+    }
+
+    @Override
+    public void write(OutputStream out, Object value) throws IOException {
+        TypeCodec<Object> codec = codecOf(value);
+        if (codec == null) {
+            fallback.write(out, value);
+            return;
+        }
+        try (JsonGenerator generator = factory.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            codec.write(generator, value);
+        }
+    }
+
+    @Override
+    public String writeString(Object value) throws IOException {
+        TypeCodec<Object> codec = codecOf(value);
+        if (codec == null) {
+            return fallback.writeString(value);
+        }
+        SegmentedStringWriter writer = new SegmentedStringWriter(factory._getBufferRecycler());
+        try (JsonGenerator generator = factory.createGenerator(writer)) {
+            codec.write(generator, value);
+        }
+        return writer.getAndClear();
+    }
+
+    private static <T> T read(JsonParser parser, TypeCodec<T> codec) throws IOException {
+        if (parser.nextToken() == null) {
+            throw JsonMappingException.from(parser, "No content to map due to end-of-input");
+        }
+        return codec.read(parser);
+    }
+
+    @SuppressWarnings("unchecked")
+    static <T> TypeCodec<T> codec(Class<T> type) {
+        return (TypeCodec<T>) CODECS.get(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    static TypeCodec<Object> codecOf(Object value) {
+        return value == null ? null : (TypeCodec<Object>) CODECS.get(value.getClass());
+    }
+
+    private static Map<Class<?>, TypeCodec<?>> loadCodecs() {
+        Map<Class<?>, TypeCodec<?>> codecs = new HashMap<>();
+        ClassLoader classLoader = GeneratedJsonCodec.class.getClassLoader();
+        for (CodecRegistry registry : ServiceLoader.load(CodecRegistry.class, classLoader)) {
+            for (TypeCodec<?> codec : registry.getCodecs()) {
+                codecs.putIfAbsent(codec.getType(), codec);
+            }
+        }
+        return Collections.unmodifiableMap(codecs);
+    }
+}
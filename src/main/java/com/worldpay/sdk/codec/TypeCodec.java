@@ -0,0 +1,54 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+
+/**
+ * Streaming JSON serializer and deserializer of a single class, free of reflection.
+ *
+ * @param <T> the class converted
+ */
+public interface TypeCodec<T> {
+
+    /**
+     * @return the class converted, instances of subclasses are not handled by this codec
+     */
+    Class<T> getType();
+
+    /**
+     * Write a value, or {@code null}.
+     *
+     * @param generator the generator to write to
+     * @param value     the value
+     *
+     * @throws IOException if the value cannot be written
+     */
+    void write(JsonGenerator generator, T value) throws IOException;
+
+    /**
+     * Read a value, the parser being on its first token. On return the parser is on the last token of the value.
+     *
+     * @param parser the parser to read from
+     *
+     * @return the value, or {@code null}
+     *
+     * @throws IOException if the value cannot be read
+     */
+    T read(JsonParser parser) throws IOException;
+}
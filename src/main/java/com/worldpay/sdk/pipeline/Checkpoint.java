@@ -0,0 +1,181 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.pipeline;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+/**
+ * Progress of a {@link SettlementPipeline} run, saved as a properties file.
+ * <p>
+ * Every record starting before the {@code watermark} offset is done, the records after it which are done are listed
+ * by offset. {@code outputLength} is the length of the output file when the checkpoint was saved, outcomes written
+ * after it are recovered from the output file on resume. {@code input} identifies the input file the offsets refer
+ * to, by its size, last modification time and a CRC-32 of its first block, so that a checkpoint is never applied to
+ * another input file.
+ */
+final class Checkpoint {
+
+    private static final String WATERMARK = "watermark";
+
+    private static final String OUTPUT_LENGTH = "outputLength";
+
+    private static final String COMPLETED = "completed";
+
+    private static final String INPUT = "input";
+
+    /**
+     * Number of bytes at the start of the input file covered by its identity.
+     */
+    private static final int IDENTITY_BLOCK = 64 * 1024;
+
+    /**
+     * Offset before which every record is done.
+     */
+    private final long watermark;
+
+    /**
+     * Length of the output file when saved.
+     */
+    private final long outputLength;
+
+    /**
+     * Offsets of the records done after the watermark.
+     */
+    private final long[] completed;
+
+    /**
+     * Identity of the input file, null for an empty checkpoint.
+     */
+    private final String input;
+
+    Checkpoint(long watermark, long outputLength, long[] completed, String input) {
+        this.watermark = watermark;
+        this.outputLength = outputLength;
+        this.completed = completed;
+        this.input = input;
+    }
+
+    long getWatermark() {
+        return watermark;
+    }
+
+    long getOutputLength() {
+        return outputLength;
+    }
+
+    long[] getCompleted() {
+        return completed;
+    }
+
+    String getInput() {
+        return input;
+    }
+
+    /**
+     * @param input the input file
+     *
+     * @return the identity of the input file, which changes when the file is replaced or modified
+     *
+     * @throws IOException if the file cannot be read
+     */
+    static String identify(Path input) throws IOException {
+        byte[] block = new byte[IDENTITY_BLOCK];
+        int length = 0;
+        try (InputStream in = Files.newInputStream(input)) {
+            int read;
+            while (length < block.length && (read = in.read(block, length, block.length - length)) != -1) {
+                length += read;
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(block, 0, length);
+        return Files.size(input) + ":" + Files.getLastModifiedTime(input).toMillis() + ":"
+               + Long.toHexString(crc.getValue());
+    }
+
+    /**
+     * Load the checkpoint.
+     *
+     * @param path the checkpoint file
+     *
+     * @return the checkpoint, or an empty one if the file does not exist
+     *
+     * @throws IOException if the file cannot be read or is corrupt
+     */
+    static Checkpoint load(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return new Checkpoint(0, 0, new long[0], null);
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        }
+        try {
+            String completed = properties.getProperty(COMPLETED, "").trim();
+            String[] offsets = completed.isEmpty() ? new String[0] : completed.split(",");
+            long[] values = new long[offsets.length];
+            for (int i = 0; i < offsets.length; i++) {
+                values[i] = Long.parseLong(offsets[i].trim());
+            }
+            return new Checkpoint(Long.parseLong(properties.getProperty(WATERMARK, "0")),
+                                  Long.parseLong(properties.getProperty(OUTPUT_LENGTH, "0")), values,
+                                  properties.getProperty(INPUT, ""));
+        } catch (NumberFormatException e) {
+            throw new IOException("Corrupt checkpoint " + path, e);
+        }
+    }
+
+    /**
+     * Save a checkpoint, replacing the previous one atomically so that a crash leaves either of them intact.
+     *
+     * @param path         the checkpoint file
+     * @param watermark    offset before which every record is done
+     * @param outputLength length of the output file
+     * @param completed    offsets of the records done after the watermark
+     * @param input        identity of the input file
+     *
+     * @throws IOException if the file cannot be written
+     */
+    static void save(Path path, long watermark, long outputLength, Collection<Long> completed, String input)
+        throws IOException {
+        StringBuilder offsets = new StringBuilder();
+        for (Long offset : completed) {
+            if (offsets.length() > 0) {
+                offsets.append(',');
+            }
+            offsets.append(offset);
+        }
+        Properties properties = new Properties();
+        properties.setProperty(WATERMARK, Long.toString(watermark));
+        properties.setProperty(OUTPUT_LENGTH, Long.toString(outputLength));
+        properties.setProperty(COMPLETED, offsets.toString());
+        properties.setProperty(INPUT, input);
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+            properties.store(writer, "settlement pipeline checkpoint");
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.pipeline;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Reads UTF-8 lines from a file through a fixed size buffer, keeping track of the byte offset of every line. Only
+ * the current line is held in memory, whatever the size of the file.
+ */
+final class LineReader implements Closeable {
+
+    /**
+     * Size of the read buffer.
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+    private byte[] line = new byte[256];
+
+    /**
+     * Offset of the next byte to be read from the buffer.
+     */
+    private long position;
+
+    /**
+     * Whether the last line returned ended with a line feed.
+     */
+    private boolean terminated = true;
+
+    /**
+     * Open the file and position the reader at the given offset, which must be the start of a line.
+     *
+     * @param path   the file
+     * @param offset offset of the first line to read
+     *
+     * @throws IOException if the file cannot be opened
+     */
+    LineReader(Path path, long offset) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.channel.position(offset);
+        this.position = offset;
+        this.buffer.flip();
+    }
+
+    /**
+     * @return offset of the start of the next line
+     */
+    long position() {
+        return position;
+    }
+
+    /**
+     * @return whether the last line returned ended with a line feed, false for a last line cut short
+     */
+    boolean isTerminated() {
+        return terminated;
+    }
+
+    /**
+     * Read the next line, without its line terminator.
+     *
+     * @return the line, or null at the end of the file
+     *
+     * @throws IOException if the file cannot be read
+     */
+    String readLine() throws IOException {
+        long start = position;
+        int length = 0;
+        while (true) {
+            if (!buffer.hasRemaining()) {
+                buffer.clear();
+                int read = channel.read(buffer);
+                buffer.flip();
+                if (read == -1) {
+                    if (position == start) {
+                        return null;
+                    }
+                    terminated = false;
+                    return decode(length);
+                }
+            }
+            byte b = buffer.get();
+            position++;
+            if (b == '\n') {
+                terminated = true;
+                return decode(length);
+            }
+            if (length == line.length) {
+                line = Arrays.copyOf(line, length * 2);
+            }
+            line[length++] = b;
+        }
+    }
+
+    private String decode(int length) {
+        if (length > 0 && line[length - 1] == '\r') {
+            length--;
+        }
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.pipeline;
+
+/**
+ * Counts of a {@link SettlementPipeline} run.
+ */
+public class PipelineSummary {
+
+    /**
+     * Records processed successfully in this run.
+     */
+    private final long succeeded;
+
+    /**
+     * Records which failed in this run, malformed records included.
+     */
+    private final long failed;
+
+    /**
+     * Records skipped as already completed by a previous run.
+     */
+    private final long skipped;
+
+    PipelineSummary(long succeeded, long failed, long skipped) {
+        this.succeeded = succeeded;
+        this.failed = failed;
+        this.skipped = skipped;
+    }
+
+    public long getSucceeded() {
+        return succeeded;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getSkipped() {
+        return skipped;
+    }
+
+    @Override
+    public String toString() {
+        return "PipelineSummary{succeeded=" + succeeded + ", failed=" + failed + ", skipped=" + skipped + '}';
+    }
+}
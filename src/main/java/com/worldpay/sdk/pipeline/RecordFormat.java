@@ -0,0 +1,32 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.pipeline;
+
+/**
+ * Format of the input file of the {@link SettlementPipeline}.
+ */
+public enum RecordFormat {
+
+    /**
+     * One {@code operation,orderCode,amount} record per line, the amount may be empty. A first line starting with
+     * {@code operation} is taken as a header.
+     */
+    CSV,
+
+    /**
+     * One JSON object per line, e.g. {@code {"operation":"CAPTURE","orderCode":"...","amount":100}}.
+     */
+    JSONL
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.pipeline;
+
+import java.io.Serializable;
+
+/**
+ * Outcome of one record, written as a JSON line to the output file of the {@link SettlementPipeline}.
+ */
+public class SettlementOutcome implements Serializable {
+
+    /**
+     * Serial version id
+     */
+    private static final long serialVersionUID = -6402148372196716645L;
+
+    /**
+     * Byte offset of the record in the input file, identifies the record across runs.
+     */
+    private long offset;
+
+    /**
+     * Operation applied, null if the record could not be parsed.
+     */
+    private SettlementOperation operation;
+
+    /**
+     * Order code, null if the record could not be parsed.
+     */
+    private String orderCode;
+
+    /**
+     * Amount captured or refunded, null for the whole amount.
+     */
+    private Integer amount;
+
+    /**
+     * Whether the operation succeeded.
+     */
+    private boolean success;
+
+    /**
+     * Http status code of the error, null on success.
+     */
+    private Integer httpStatusCode;
+
+    /**
+     * Custom code of the error, null on success.
+     */
+    private String customCode;
+
+    /**
+     * Message of the error, null on success.
+     */
+    private String message;
+
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    public SettlementOperation getOperation() {
+        return operation;
+    }
+
+    public void setOperation(SettlementOperation operation) {
+        this.operation = operation;
+    }
+
+    public String getOrderCode() {
+        return orderCode;
+    }
+
+    public void setOrderCode(String orderCode) {
+        this.orderCode = orderCode;
+    }
+
+    public Integer getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Integer amount) {
+        this.amount = amount;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public Integer getHttpStatusCode() {
+        return httpStatusCode;
+    }
+
+    public void setHttpStatusCode(Integer httpStatusCode) {
+        this.httpStatusCode = httpStatusCode;
+    }
+
+    public String getCustomCode() {
+        return customCode;
+    }
+
+    public void setCustomCode(String customCode) {
+        this.customCode = customCode;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,455 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.pipeline;
+
+import com.worldpay.gateway.clearwater.client.core.dto.ApiError;
+import com.worldpay.gateway.clearwater.client.core.dto.request.CaptureOrderRequest;
+import com.worldpay.gateway.clearwater.client.core.exception.WorldpayException;
+import com.worldpay.sdk.OrderService;
+import com.worldpay.sdk.util.JsonParser;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.NavigableSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Streams capture and refund records from a CSV or JSON lines file into {@link OrderService}, writing the outcome of
+ * every record as a JSON line to an output file.
+ * <p>
+ * The input is read incrementally through a fixed size buffer and at most {@code maxConcurrency} records are in
+ * flight, so memory use does not depend on the size of the file. Records are identified by their byte offset in the
+ * input file. Progress is saved to a checkpoint file every {@code checkpointInterval} outcomes and at the end of the
+ * run; a run restarted after a crash resumes from the checkpoint, and also recovers the outcomes written to the
+ * output file after it, so completed records are not sent again. The checkpoint records the identity of the input
+ * file: a run on another or a modified input file with the same checkpoint fails before sending anything, rather than
+ * skipping the records before the saved offset. Delete the checkpoint and the output to process a new file.
+ * <p>
+ * Failed records are written to the output with their {@link ApiError} details and do not stop the run.
+ * <pre>
+ * PipelineSummary summary = new SettlementPipeline.Builder()
+ *     .setOrderService(client.getOrderService())
+ *     .setInput(Paths.get("captures.csv"))
+ *     .setOutput(Paths.get("captures.out.jsonl"))
+ *     .build()
+ *     .run();
+ * </pre>
+ */
+public class SettlementPipeline {
+
+    private final OrderService orderService;
+
+    private final Path input;
+
+    private final Path output;
+
+    private final Path checkpoint;
+
+    private final RecordFormat format;
+
+    private final int maxConcurrency;
+
+    private final int checkpointInterval;
+
+    /**
+     * Private constructor, to be used only by {@link Builder}
+     *
+     * @param builder the builder
+     */
+    private SettlementPipeline(Builder builder) {
+        this.orderService = builder.orderService;
+        this.input = builder.input;
+        this.output = builder.output;
+        this.checkpoint = builder.checkpoint != null ? builder.checkpoint
+                                                     : builder.output.resolveSibling(
+                                                         builder.output.getFileName() + ".checkpoint");
+        this.format = builder.format != null ? builder.format
+                                             : builder.input.getFileName().toString().toLowerCase().endsWith(".csv")
+                                               ? RecordFormat.CSV : RecordFormat.JSONL;
+        this.maxConcurrency = builder.maxConcurrency;
+        this.checkpointInterval = builder.checkpointInterval;
+    }
+
+    /**
+     * Process the input file, resuming from the checkpoint if there is one. Blocks until every record is done.
+     *
+     * @return the counts of this run
+     *
+     * @throws IOException if a file cannot be read or written, progress up to the failure is checkpointed, or if the
+     *                     checkpoint belongs to another input file
+     */
+    public PipelineSummary run() throws IOException {
+        Checkpoint saved = Checkpoint.load(checkpoint);
+        String identity = Checkpoint.identify(input);
+        if (saved.getInput() != null && !saved.getInput().equals(identity)) {
+            throw new IOException("The checkpoint " + checkpoint + " belongs to another input file than " + input
+                                  + ", or the input file was modified since; delete the checkpoint and the output to"
+                                  + " process it from the start");
+        }
+        NavigableSet<Long> completed = new ConcurrentSkipListSet<>();
+        for (long offset : saved.getCompleted()) {
+            completed.add(offset);
+        }
+        try (FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            recover(out, saved.getOutputLength(), completed);
+            return new Run(out, completed, identity).execute(saved.getWatermark());
+        }
+    }
+
+    /**
+     * Add the records found in the output file past the checkpoint to the completed records, and cut off a last
+     * outcome left incomplete by a crash.
+     */
+    private void recover(FileChannel out, long outputLength, NavigableSet<Long> completed) throws IOException {
+        long end = Math.min(outputLength, out.size());
+        if (out.size() > end) {
+            try (LineReader reader = new LineReader(output, end)) {
+                String line;
+                while ((line = reader.readLine()) != null && reader.isTerminated()) {
+                    if (!line.trim().isEmpty()) {
+                        try {
+                            completed.add(JsonParser.toObject(line, SettlementOutcome.class).getOffset());
+                        } catch (RuntimeException e) {
+                            // not an outcome, keep it but it does not mark any record as done
+                        }
+                    }
+                    end = reader.position();
+                }
+            }
+            out.truncate(end);
+        }
+        out.position(end);
+    }
+
+    /**
+     * State of one run.
+     */
+    private final class Run {
+
+        private final FileChannel out;
+
+        /**
+         * Offsets of the records done at or after the watermark.
+         */
+        private final NavigableSet<Long> completed;
+
+        /**
+         * Offsets of the records in flight.
+         */
+        private final NavigableSet<Long> pending = new ConcurrentSkipListSet<>();
+
+        private final Semaphore permits = new Semaphore(maxConcurrency);
+
+        /**
+         * Guards the output file, the checkpoint and the counters.
+         */
+        private final ReentrantLock lock = new ReentrantLock();
+
+        /**
+         * Offset of the next record to dispatch, every record before it is pending or completed.
+         */
+        private volatile long nextOffset;
+
+        private volatile IOException failure;
+
+        private long succeeded;
+
+        private long failed;
+
+        private long skipped;
+
+        private int sinceCheckpoint;
+
+        /**
+         * Identity of the input file, saved with every checkpoint.
+         */
+        private final String identity;
+
+        Run(FileChannel out, NavigableSet<Long> completed, String identity) {
+            this.out = out;
+            this.completed = completed;
+            this.identity = identity;
+        }
+
+        PipelineSummary execute(long watermark) throws IOException {
+            nextOffset = watermark;
+            // tie the output to the input before the first outcome is written
+            lock.lock();
+            try {
+                saveCheckpoint();
+            } finally {
+                lock.unlock();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            try (LineReader reader = new LineReader(input, watermark)) {
+                long offset = reader.position();
+                String line;
+                while (failure == null && (line = reader.readLine()) != null) {
+                    if (completed.contains(offset)) {
+                        skipped++;
+                    } else if (!line.trim().isEmpty() && !isHeader(offset, line)) {
+                        permits.acquire();
+                        pending.add(offset);
+                        final long recordOffset = offset;
+                        dispatch(offset, line).whenComplete((outcome, e) -> {
+                            try {
+                                complete(recordOffset, outcome);
+                            } finally {
+                                permits.release();
+                            }
+                        });
+                    }
+                    offset = reader.position();
+                    nextOffset = offset;
+                }
+                permits.acquire(maxConcurrency);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while processing " + input);
+            } finally {
+                lock.lock();
+                try {
+                    saveCheckpoint();
+                } finally {
+                    lock.unlock();
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return new PipelineSummary(succeeded, failed, skipped);
+        }
+
+        private boolean isHeader(long offset, String line) {
+            return offset == 0 && format == RecordFormat.CSV && line.trim().toLowerCase().startsWith("operation");
+        }
+
+        private CompletableFuture<SettlementOutcome> dispatch(long offset, String line) {
+            SettlementOutcome outcome = new SettlementOutcome();
+            outcome.setOffset(offset);
+            SettlementRecord record;
+            try {
+                record = parse(line);
+            } catch (RuntimeException e) {
+                outcome.setMessage("Malformed record: " + e.getMessage());
+                return CompletableFuture.completedFuture(outcome);
+            }
+            outcome.setOperation(record.getOperation());
+            outcome.setOrderCode(record.getOrderCode());
+            outcome.setAmount(record.getAmount());
+            CompletableFuture<?> call;
+            if (record.getOperation() == SettlementOperation.CAPTURE) {
+                CaptureOrderRequest captureOrderRequest = new CaptureOrderRequest();
+                captureOrderRequest.setCaptureAmount(record.getAmount());
+                call = orderService.captureAsync(captureOrderRequest, record.getOrderCode());
+            } else if (record.getAmount() == null) {
+                call = orderService.refundAsync(record.getOrderCode());
+            } else {
+                call = orderService.refundAsync(record.getOrderCode(), record.getAmount());
+            }
+            return call.handle((response, e) -> {
+                if (e == null) {
+                    outcome.setSuccess(true);
+                } else {
+                    setError(outcome, e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                }
+                return outcome;
+            });
+        }
+
+        private SettlementRecord parse(String line) {
+            SettlementRecord record;
+            if (format == RecordFormat.CSV) {
+                String[] fields = line.split(",", -1);
+                if (fields.length < 2) {
+                    throw new IllegalArgumentException("expected operation,orderCode,amount");
+                }
+                record = new SettlementRecord();
+                record.setOperation(SettlementOperation.valueOf(fields[0].trim().toUpperCase()));
+                record.setOrderCode(fields[1].trim());
+                if (fields.length > 2 && !fields[2].trim().isEmpty()) {
+                    record.setAmount(Integer.valueOf(fields[2].trim()));
+                }
+            } else {
+                record = JsonParser.toObject(line, SettlementRecord.class);
+            }
+            if (record.getOperation() == null || record.getOrderCode() == null || record.getOrderCode().isEmpty()) {
+                throw new IllegalArgumentException("operation and orderCode are required");
+            }
+            return record;
+        }
+
+        private void setError(SettlementOutcome outcome, Throwable e) {
+            ApiError apiError = e instanceof WorldpayException ? ((WorldpayException) e).getApiError() : null;
+            if (apiError != null) {
+                outcome.setHttpStatusCode(apiError.getHttpStatusCode());
+                outcome.setCustomCode(apiError.getCustomCode());
+                outcome.setMessage(apiError.getMessage());
+            } else {
+                outcome.setMessage(e.getMessage());
+            }
+        }
+
+        /**
+         * Write the outcome and mark the record done. A record whose outcome cannot be written or encoded stays
+         * pending, so that it is sent again by the next run, and fails the run.
+         */
+        private void complete(long offset, SettlementOutcome outcome) {
+            lock.lock();
+            try {
+                if (failure != null) {
+                    return;
+                }
+                String json = JsonParser.toJson(outcome) + "\n";
+                ByteBuffer bytes = ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+                while (bytes.hasRemaining()) {
+                    out.write(bytes);
+                }
+                completed.add(offset);
+                pending.remove(offset);
+                if (outcome.isSuccess()) {
+                    succeeded++;
+                } else {
+                    failed++;
+                }
+                if (++sinceCheckpoint >= checkpointInterval) {
+                    saveCheckpoint();
+                }
+            } catch (IOException e) {
+                failure = e;
+            } catch (RuntimeException e) {
+                failure = new IOException("Cannot write the outcome of the record at offset " + offset + ": "
+                                          + e.getMessage(), e);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Save the checkpoint, the lock must be held.
+         */
+        private void saveCheckpoint() {
+            try {
+                long next = nextOffset;
+                Long firstPending = pending.ceiling(Long.MIN_VALUE);
+                long watermark = firstPending == null ? next : Math.min(firstPending, next);
+                completed.headSet(watermark).clear();
+                out.force(false);
+                Checkpoint.save(checkpoint, watermark, out.position(), completed, identity);
+                sinceCheckpoint = 0;
+            } catch (IOException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Builder class to build {@link SettlementPipeline}
+     */
+    public static class Builder {
+
+        private OrderService orderService;
+
+        private Path input;
+
+        private Path output;
+
+        /**
+         * Checkpoint file, defaults to the output file name followed by {@code .checkpoint}.
+         */
+        private Path checkpoint;
+
+        /**
+         * Input format, derived from the input file extension when not set.
+         */
+        private RecordFormat format;
+
+        /**
+         * Maximum number of records in flight.
+         */
+        private int maxConcurrency = 16;
+
+        /**
+         * Number of outcomes between two checkpoints.
+         */
+        private int checkpointInterval = 1000;
+
+        public Builder() {
+        }
+
+        public Builder setOrderService(OrderService orderService) {
+            this.orderService = orderService;
+            return this;
+        }
+
+        public Builder setInput(Path input) {
+            this.input = input;
+            return this;
+        }
+
+        public Builder setOutput(Path output) {
+            this.output = output;
+            return this;
+        }
+
+        public Builder setCheckpoint(Path checkpoint) {
+            this.checkpoint = checkpoint;
+            return this;
+        }
+
+        public Builder setFormat(RecordFormat format) {
+            this.format = format;
+            return this;
+        }
+
+        public Builder setMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        public Builder setCheckpointInterval(int checkpointInterval) {
+            this.checkpointInterval = checkpointInterval;
+            return this;
+        }
+
+        /**
+         * Build {@link SettlementPipeline}
+         *
+         * @return {@link SettlementPipeline}
+         */
+        public SettlementPipeline build() {
+            if (orderService == null || input == null || output == null) {
+                throw new IllegalArgumentException("orderService, input and output are required");
+            }
+            if (maxConcurrency < 1 || checkpointInterval < 1) {
+                throw new IllegalArgumentException("maxConcurrency and checkpointInterval must be positive");
+            }
+            return new SettlementPipeline(this);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.pipeline;
+
+import java.io.Serializable;
+
+/**
+ * One record of the input file of the {@link SettlementPipeline}.
+ */
+public class SettlementRecord implements Serializable {
+
+    /**
+     * Serial version id
+     */
+    private static final long serialVersionUID = 3311873564721498519L;
+
+    /**
+     * Operation to apply.
+     */
+    private SettlementOperation operation;
+
+    /**
+     * Order code.
+     */
+    private String orderCode;
+
+    /**
+     * Amount to capture or refund, null for the whole amount.
+     */
+    private Integer amount;
+
+    public SettlementOperation getOperation() {
+        return operation;
+    }
+
+    public void setOperation(SettlementOperation operation) {
+        this.operation = operation;
+    }
+
+    public String getOrderCode() {
+        return orderCode;
+    }
+
+    public void setOrderCode(String orderCode) {
+        this.orderCode = orderCode;
+    }
+
+    public Integer getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Integer amount) {
+        this.amount = amount;
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.worldpay.gateway.clearwater.client.core.dto.ApiError;
+import com.worldpay.gateway.clearwater.client.core.dto.request.OrderRequest;
+import com.worldpay.gateway.clearwater.client.core.dto.request.TokenRequest;
+import com.worldpay.gateway.clearwater.client.core.dto.response.OrderResponse;
+import com.worldpay.gateway.clearwater.client.core.dto.response.TokenResponse;
+import com.worldpay.gateway.clearwater.client.ui.dto.order.Transaction;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Default {@link JsonCodec} backed by Jackson.
+ * <p>
+ * An {@link ObjectReader} and {@link ObjectWriter} is built once per class, with its (de)serializer already resolved,
+ * instead of resolving the type on every call. Those of the gateway DTOs are built up front, those of other classes on
+ * first use.
+ * <p>
+ * When {@code com.fasterxml.jackson.module:jackson-module-afterburner}, in the version of the {@code jackson-databind}
+ * in use, is on the classpath, {@link #JacksonJsonCodec(boolean)} can register it to replace reflection with
+ * generated bytecode.
+ */
+public class JacksonJsonCodec implements JsonCodec {
+
+    /**
+     * Class of the Afterburner module.
+     */
+    private static final String AFTERBURNER_MODULE = "com.fasterxml.jackson.module.afterburner.AfterburnerModule";
+
+    /**
+     * Classes whose readers and writers are built up front.
+     */
+    private static final Class<?>[] GATEWAY_TYPES = {
+        OrderRequest.class, OrderResponse.class, Transaction.class, TokenRequest.class, TokenResponse.class,
+        ApiError.class
+    };
+
+    private final ObjectMapper mapper;
+
+    private final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+    /**
+     * Create a codec ignoring unknown properties.
+     */
+    public JacksonJsonCodec() {
+        this(false);
+    }
+
+    /**
+     * Create a codec ignoring unknown properties, optionally accelerated by the Afterburner module.
+     *
+     * @param accelerated whether to register the Afterburner module
+     *
+     * @throws IllegalStateException if acceleration is requested and the module is not on the classpath
+     */
+    public JacksonJsonCodec(boolean accelerated) {
+        this(createMapper(accelerated));
+    }
+
+    /**
+     * Create a codec using the given mapper, which must not be reconfigured afterwards.
+     *
+     * @param mapper the mapper
+     */
+    public JacksonJsonCodec(ObjectMapper mapper) {
+        this.mapper = mapper;
+        for (Class<?> type : GATEWAY_TYPES) {
+            reader(type);
+            writer(type);
+        }
+    }
+
+    /**
+     * @return whether the Afterburner module is on the classpath
+     */
+    public static boolean isAccelerationAvailable() {
+        try {
+            Class.forName(AFTERBURNER_MODULE, false, JacksonJsonCodec.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public <T> T read(InputStream in, Class<T> type) throws IOException {
+        return reader(type).readValue(in);
+    }
+
+    @Override
+    public <T> T read(String json, Class<T> type) throws IOException {
+        return reader(type).readValue(json);
+    }
+
+    @Override
+    public byte[] write(Object value) throws IOException {
+        return writer(value).writeValueAsBytes(value);
+    }
+
+    @Override
+    public void write(OutputStream out, Object value) throws IOException {
+        writer(value).writeValue(out, value);
+    }
+
+    @Override
+    public String writeString(Object value) throws IOException {
+        return writer(value).writeValueAsString(value);
+    }
+
+    private ObjectReader reader(Class<?> type) {
+        ObjectReader reader = readers.get(type);
+        if (reader == null) {
+            reader = readers.computeIfAbsent(type, mapper::readerFor);
+        }
+        return reader;
+    }
+
+    private ObjectWriter writer(Object value) {
+        return value == null ? mapper.writer() : writer(value.getClass());
+    }
+
+    private ObjectWriter writer(Class<?> type) {
+        ObjectWriter writer = writers.get(type);
+        if (writer == null) {
+            writer = writers.computeIfAbsent(type, t -> mapper.writerFor(t)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET));
+        }
+        return writer;
+    }
+
+    private static ObjectMapper createMapper(boolean accelerated) {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        if (accelerated) {
+            if (!isAccelerationAvailable()) {
+                throw new IllegalStateException(AFTERBURNER_MODULE + " is not on the classpath");
+            }
+            try {
+                mapper.registerModule((Module) Class.forName(AFTERBURNER_MODULE).getDeclaredConstructor()
+                    .newInstance());
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot create " + AFTERBURNER_MODULE, e);
+            }
+        }
+        return mapper;
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Converts objects to and from JSON. Implementations must be thread safe.
+ */
+public interface JsonCodec {
+
+    /**
+     * Read a value from a stream, which is closed once read, even if it does not hold a value. Callers which need
+     * the stream afterwards pass it through {@link StreamUtils#closeShield(InputStream)}.
+     *
+     * @param <T>  the class of the value
+     * @param in   the stream to read
+     * @param type the class of the value
+     *
+     * @return the value
+     *
+     * @throws IOException if the stream cannot be read or does not hold a value of the type
+     */
+    <T> T read(InputStream in, Class<T> type) throws IOException;
+
+    /**
+     * Read a value from a string.
+     *
+     * @param <T>  the class of the value
+     * @param json the JSON document
+     * @param type the class of the value
+     *
+     * @return the value
+     *
+     * @throws IOException if the document does not hold a value of the type
+     */
+    <T> T read(String json, Class<T> type) throws IOException;
+
+    /**
+     * Write a value as a UTF-8 encoded JSON document.
+     *
+     * @param value the value
+     *
+     * @return the document
+     *
+     * @throws IOException if the value cannot be converted
+     */
+    byte[] write(Object value) throws IOException;
+
+    /**
+     * Write a value as a UTF-8 encoded JSON document to a stream, which is flushed but not closed.
+     *
+     * @param out   the stream to write to
+     * @param value the value
+     *
+     * @throws IOException if the value cannot be converted or the stream cannot be written
+     */
+    void write(OutputStream out, Object value) throws IOException;
+
+    /**
+     * Write a value as a JSON string.
+     *
+     * @param value the value
+     *
+     * @return the document
+     *
+     * @throws IOException if the value cannot be converted
+     */
+    String writeString(Object value) throws IOException;
+}
@@ -14,24 +14,22 @@
 
 package com.worldpay.sdk.util;
 
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.worldpay.sdk.codec.GeneratedJsonCodec;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 /**
- * Class used for converting to and from JSON.
+ * Class used for converting to and from JSON, through the default {@link JsonCodec}.
  */
 public final class JsonParser {
 
     /**
-     * Parser.
+     * Default codec, using the codecs generated for the gateway DTOs when they are on the class path.
      */
-    private static final ObjectMapper PARSER = new ObjectMapper();
-
-    static {
-        PARSER.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-    }
+    private static final JsonCodec CODEC = GeneratedJsonCodec.isAvailable() ? new GeneratedJsonCodec()
+                                                                            : new JacksonJsonCodec();
 
     /**
      * Private constructor.
@@ -39,6 +37,14 @@ public final class JsonParser {
     private JsonParser() {
     }
 
+    /**
+     * @return the default codec ignoring unknown properties, a {@link GeneratedJsonCodec} or, when no codec was
+     * generated, a {@link JacksonJsonCodec}
+     */
+    public static JsonCodec getDefaultCodec() {
+        return CODEC;
+    }
+
     /**
      * Convert an object to JSON representation.
      *
@@ -48,12 +54,39 @@ public final class JsonParser {
      */
     public static String toJson(Object object) {
         try {
-            return PARSER.writeValueAsString(object);
+            return CODEC.writeString(object);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Convert an object to its UTF-8 encoded JSON representation.
+     *
+     * @param object to convert
+     *
+     * @return the JSON bytes
+     */
+    public static byte[] toJsonBytes(Object object) {
+        try {
+            return CODEC.write(object);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Write the UTF-8 encoded JSON representation of an object to a stream, which is flushed but not closed.
+     *
+     * @param out    the stream to write to
+     * @param object to convert
+     *
+     * @throws IOException if the stream cannot be written
+     */
+    public static void writeJson(OutputStream out, Object object) throws IOException {
+        CODEC.write(out, object);
+    }
+
     /**
      * Convert a string to Object representation.
      *
@@ -65,7 +98,7 @@ public final class JsonParser {
      */
     public static <T> T toObject(String json, Class<T> type) {
         try {
-            return PARSER.readValue(json, type);
+            return CODEC.read(json, type);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
@@ -82,7 +115,7 @@ public final class JsonParser {
      */
     public static <T> T toObject(InputStream in, Class<T> type) {
         try {
-            return PARSER.readValue(in, type);
+            return CODEC.read(in, type);
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
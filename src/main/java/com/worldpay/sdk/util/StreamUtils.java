@@ -0,0 +1,103 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.util;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Helper class for handling response streams.
+ */
+public final class StreamUtils {
+
+    /**
+     * Size of the buffer used to skip unread bytes.
+     */
+    private static final int DRAIN_BUFFER_SIZE = 4096;
+
+    /**
+     * Private constructor.
+     */
+    private StreamUtils() {
+    }
+
+    /**
+     * Wrap the stream so that {@code close()} is ignored. Parsers close their source once the value is read, the
+     * remainder of the payload still has to be drained by the owner of the stream.
+     *
+     * @param in the stream, may be null
+     *
+     * @return the wrapped stream, or null if {@code in} is null
+     */
+    public static InputStream closeShield(InputStream in) {
+        if (in == null) {
+            return null;
+        }
+        return new FilterInputStream(in) {
+            @Override
+            public void close() {
+                // closed by the owner of the stream
+            }
+        };
+    }
+
+    /**
+     * Wrap the stream so that {@code close()} only flushes it, for encoders which have to be closed to write their
+     * trailer while the stream underneath stays owned by the caller.
+     *
+     * @param out the stream
+     *
+     * @return the wrapped stream
+     */
+    public static OutputStream closeShield(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                // closed by the owner of the stream
+                out.flush();
+            }
+        };
+    }
+
+    /**
+     * Read the stream to the end and close it. A fully consumed and closed response stream lets the connection go
+     * back to the keep-alive cache or pool instead of being discarded.
+     *
+     * @param in the stream, may be null
+     *
+     * @throws IOException if the stream cannot be read
+     */
+    public static void drainAndClose(InputStream in) throws IOException {
+        if (in == null) {
+            return;
+        }
+        try {
+            byte[] buffer = new byte[DRAIN_BUFFER_SIZE];
+            while (in.read(buffer) != -1) {
+                // discard
+            }
+        } finally {
+            in.close();
+        }
+    }
+}
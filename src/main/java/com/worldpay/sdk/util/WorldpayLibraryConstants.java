@@ -38,17 +38,28 @@ public final class WorldpayLibraryConstants {
 
     public static final java.lang.String ACCEPT = "Accept";
 
+    public static final java.lang.String ACCEPT_ENCODING = "Accept-Encoding";
+
+    public static final java.lang.String CONTENT_ENCODING = "Content-Encoding";
+
     public static final java.lang.String AUTHORIZATION = "Authorization";
 
     public static final java.lang.String CONTENT_TYPE = "Content-Type";
 
     public static final java.lang.String WP_CLIENT_USER_AGENT = "X-wp-client-user-agent";
 
+    public static final java.lang.String RETRY_AFTER = "Retry-After";
+
     /**
      * JSON header value.
      */
     public static final String APPLICATION_JSON = "application/json";
 
+    /**
+     * gzip content coding.
+     */
+    public static final String GZIP = "gzip";
+
     public static final String COMMA = ",";
 
     public static final String GET = "GET";
@@ -61,6 +72,10 @@ public final class WorldpayLibraryConstants {
 
     public static final int HTTP_ERROR_CODE_300 = 300;
 
+    public static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    public static final int HTTP_SERVICE_UNAVAILABLE = 503;
+
     public static final String OS_NAME_PROP = "os.name=" + System.getProperty("os.name");
 
     public static final String OS_VERSION_PROP = "os.version=" + System.getProperty("os.version");
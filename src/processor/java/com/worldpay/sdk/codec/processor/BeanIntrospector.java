@@ -0,0 +1,696 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.codec.processor;
+
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Builds the {@link BeanModel} of a class the way Jackson databind, with its default configuration, discovers bean
+ * properties: public getters, setters of any visibility, and fields backing a visible getter.
+ * <p>
+ * Jackson annotations which only rename, ignore, order or leave out null or empty properties are honoured. A class
+ * with any other Jackson annotation, with public fields or with properties Jackson sets through a private setter, a
+ * field or a getter, is reported as not writable or not readable, to be converted by Jackson databind instead.
+ */
+final class BeanIntrospector {
+
+    private static final String JACKSON = "com.fasterxml.jackson.";
+
+    private static final String JSON_PROPERTY = "com.fasterxml.jackson.annotation.JsonProperty";
+
+    private static final String JSON_IGNORE = "com.fasterxml.jackson.annotation.JsonIgnore";
+
+    private static final String JSON_INCLUDE = "com.fasterxml.jackson.annotation.JsonInclude";
+
+    private static final String JSON_IGNORE_PROPERTIES = "com.fasterxml.jackson.annotation.JsonIgnoreProperties";
+
+    private static final String JSON_PROPERTY_ORDER = "com.fasterxml.jackson.annotation.JsonPropertyOrder";
+
+    private static final Set<String> CLASS_ANNOTATIONS = new HashSet<>(Arrays.asList(
+        JSON_INCLUDE, JSON_IGNORE_PROPERTIES, JSON_PROPERTY_ORDER));
+
+    private static final Set<String> MEMBER_ANNOTATIONS = new HashSet<>(Arrays.asList(
+        JSON_PROPERTY, JSON_IGNORE, JSON_INCLUDE));
+
+    private static final Set<String> MAP_TYPES = new HashSet<>(Arrays.asList(
+        "java.util.Map", "java.util.HashMap", "java.util.LinkedHashMap"));
+
+    private static final Set<String> LIST_TYPES = new HashSet<>(Arrays.asList(
+        "java.util.Collection", "java.util.List", "java.util.ArrayList"));
+
+    private final Elements elements;
+
+    private final Types types;
+
+    private final Map<String, BeanModel> models = new LinkedHashMap<>();
+
+    BeanIntrospector(ProcessingEnvironment processingEnv) {
+        this.elements = processingEnv.getElementUtils();
+        this.types = processingEnv.getTypeUtils();
+    }
+
+    /**
+     * @return the models built so far, in the order they were built
+     */
+    Collection<BeanModel> getModels() {
+        return Collections.unmodifiableCollection(models.values());
+    }
+
+    /**
+     * Build the model of a class, and of the classes of its bean properties.
+     *
+     * @param type the class
+     *
+     * @return the model
+     */
+    BeanModel introspect(TypeElement type) {
+        BeanModel model = models.get(type.getQualifiedName().toString());
+        if (model != null) {
+            return model;
+        }
+        model = new BeanModel(type);
+        models.put(model.typeName, model);
+        model.writeProblem = checkClass(type);
+        if (model.writeProblem == null) {
+            collectProperties(model);
+        }
+        if (model.writeProblem == null) {
+            resolveTypes(model);
+        }
+        return model;
+    }
+
+    private String checkClass(TypeElement type) {
+        if (type.getKind() != ElementKind.CLASS) {
+            return "not a class";
+        }
+        if (type.getModifiers().contains(Modifier.ABSTRACT)) {
+            return "abstract class";
+        }
+        if (!type.getModifiers().contains(Modifier.PUBLIC)) {
+            return "not public";
+        }
+        if (type.getNestingKind() != NestingKind.TOP_LEVEL && !type.getModifiers().contains(Modifier.STATIC)) {
+            return "inner class";
+        }
+        if (!type.getTypeParameters().isEmpty()) {
+            return "generic class";
+        }
+        for (TypeElement current : hierarchy(type)) {
+            String problem = checkAnnotations(current, CLASS_ANNOTATIONS);
+            if (problem != null) {
+                return problem;
+            }
+            for (ExecutableElement constructor : ElementFilter.constructorsIn(current.getEnclosedElements())) {
+                problem = checkAnnotations(constructor, Collections.emptySet());
+                for (VariableElement parameter : constructor.getParameters()) {
+                    problem = problem == null ? checkAnnotations(parameter, Collections.emptySet()) : problem;
+                }
+                if (problem != null) {
+                    return problem;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void collectProperties(BeanModel model) {
+        TypeElement type = model.type;
+        Map<String, Property> properties = new LinkedHashMap<>();
+        Map<String, String> explicitNames = new LinkedHashMap<>();
+        Set<String> ignored = new HashSet<>();
+        Set<String> fields = new HashSet<>();
+        Set<String> annotatedFields = new HashSet<>();
+        Set<String> hiddenSetters = new HashSet<>();
+        Map<String, Property.Inclusion> inclusions = new LinkedHashMap<>();
+
+        for (TypeElement current : hierarchy(type)) {
+            for (VariableElement field : ElementFilter.fieldsIn(current.getEnclosedElements())) {
+                if (field.getModifiers().contains(Modifier.STATIC)) {
+                    continue;
+                }
+                String problem = checkAnnotations(field, MEMBER_ANNOTATIONS);
+                if (problem != null) {
+                    model.writeProblem = problem;
+                    return;
+                }
+                if (field.getModifiers().contains(Modifier.TRANSIENT)) {
+                    continue;
+                }
+                if (field.getModifiers().contains(Modifier.PUBLIC)) {
+                    model.writeProblem = "public field " + field.getSimpleName();
+                    return;
+                }
+                String name = field.getSimpleName().toString();
+                properties.computeIfAbsent(name, Property::new);
+                fields.add(name);
+                if (find(field, JSON_PROPERTY) != null) {
+                    annotatedFields.add(name);
+                }
+                problem = applyMemberAnnotations(field, name, explicitNames, ignored, inclusions);
+                if (problem != null) {
+                    model.writeProblem = problem;
+                    return;
+                }
+            }
+        }
+
+        for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(type))) {
+            TypeElement owner = (TypeElement) method.getEnclosingElement();
+            if (method.getModifiers().contains(Modifier.STATIC) || owner.getKind() != ElementKind.CLASS
+                || owner.getQualifiedName().contentEquals("java.lang.Object")) {
+                continue;
+            }
+            String problem = checkAnnotations(method, MEMBER_ANNOTATIONS);
+            if (problem != null) {
+                model.writeProblem = problem;
+                return;
+            }
+            String methodName = method.getSimpleName().toString();
+            boolean isPublic = method.getModifiers().contains(Modifier.PUBLIC);
+            int parameters = method.getParameters().size();
+            TypeMirror returnType = method.getReturnType();
+            String name;
+            boolean getter;
+            if (parameters == 0 && methodName.startsWith("get") && methodName.length() > 3
+                && returnType.getKind() != TypeKind.VOID) {
+                name = mangle(methodName.substring(3));
+                getter = true;
+            } else if (parameters == 0 && methodName.startsWith("is") && methodName.length() > 2
+                       && returnType.getKind() == TypeKind.BOOLEAN) {
+                name = mangle(methodName.substring(2));
+                getter = true;
+            } else if (parameters == 1 && methodName.startsWith("set") && methodName.length() > 3) {
+                name = mangle(methodName.substring(3));
+                getter = false;
+            } else {
+                if (find(method, JSON_PROPERTY) != null) {
+                    model.writeProblem = "@JsonProperty on " + methodName + "()";
+                    return;
+                }
+                continue;
+            }
+            if (getter && !isPublic) {
+                if (find(method, JSON_PROPERTY) != null) {
+                    model.writeProblem = "@JsonProperty on non-public " + methodName + "()";
+                    return;
+                }
+                continue;
+            }
+            Property property = properties.computeIfAbsent(name, Property::new);
+            problem = applyMemberAnnotations(method, name, explicitNames, ignored, inclusions);
+            if (problem != null) {
+                model.writeProblem = problem;
+                return;
+            }
+            if (getter) {
+                if (property.getter != null) {
+                    model.writeProblem = "conflicting getters " + property.getter + "() and " + methodName + "()";
+                    return;
+                }
+                property.getter = methodName;
+                property.getterType = returnType;
+            } else if (!isPublic) {
+                hiddenSetters.add(name);
+            } else if (property.setter != null) {
+                model.readProblem = "conflicting setters " + methodName + "()";
+            } else {
+                property.setter = methodName;
+                property.setterType = method.getParameters().get(0).asType();
+            }
+        }
+
+        Set<String> ignoredNames = new HashSet<>();
+        Property.Inclusion classInclusion = Property.Inclusion.ALWAYS;
+        List<String> order = new ArrayList<>();
+        boolean alphabetic = false;
+        for (TypeElement current : hierarchy(type)) {
+            AnnotationMirror include = find(current, JSON_INCLUDE);
+            if (include != null && inclusion(include) != null) {
+                classInclusion = inclusion(include);
+            }
+            AnnotationMirror ignoreProperties = find(current, JSON_IGNORE_PROPERTIES);
+            if (ignoreProperties != null) {
+                ignoredNames.addAll(strings(value(ignoreProperties, "value")));
+            }
+            AnnotationMirror propertyOrder = find(current, JSON_PROPERTY_ORDER);
+            if (propertyOrder != null) {
+                order = strings(value(propertyOrder, "value"));
+                alphabetic = Boolean.TRUE.equals(value(propertyOrder, "alphabetic"));
+            }
+        }
+
+        Map<String, Property> byName = new LinkedHashMap<>();
+        for (Property property : properties.values()) {
+            String name = property.implicitName;
+            if (ignored.contains(name)) {
+                continue;
+            }
+            property.name = explicitNames.getOrDefault(name, name);
+            if (ignoredNames.contains(property.name)) {
+                continue;
+            }
+            if (property.getter == null && annotatedFields.contains(name)) {
+                model.writeProblem = "field " + name + " serialized directly";
+                return;
+            }
+            if (property.getter == null && property.setter == null) {
+                if (hiddenSetters.contains(name)) {
+                    model.readProblem = "property " + name + " only has a non-public setter";
+                }
+                continue;
+            }
+            property.inclusion = inclusions.getOrDefault(name, classInclusion);
+            if (byName.put(property.name, property) != null) {
+                model.writeProblem = "duplicate property " + property.name;
+                return;
+            }
+        }
+        if (byName.values().stream().noneMatch(property -> property.getter != null)) {
+            model.writeProblem = "no properties";
+            return;
+        }
+
+        for (String name : order) {
+            Property property = byName.remove(name);
+            if (property != null) {
+                model.properties.add(property);
+            }
+        }
+        List<Property> remaining = new ArrayList<>(byName.values());
+        if (alphabetic) {
+            remaining.sort((first, second) -> first.name.compareTo(second.name));
+        }
+        model.properties.addAll(remaining);
+
+        checkConstruction(model, fields, hiddenSetters);
+    }
+
+    private void checkConstruction(BeanModel model, Set<String> fields, Set<String> hiddenSetters) {
+        boolean hasSetters = model.properties.stream().anyMatch(property -> property.setter != null);
+        TypeElement builder = hasSetters ? null : findBuilder(model.type);
+        if (builder != null) {
+            model.construction = BeanModel.Construction.BUILDER;
+            Map<String, ExecutableElement> setters = new LinkedHashMap<>();
+            for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(builder))) {
+                String methodName = method.getSimpleName().toString();
+                if (method.getModifiers().contains(Modifier.PUBLIC) && !method.getModifiers().contains(Modifier.STATIC)
+                    && method.getParameters().size() == 1 && methodName.startsWith("set") && methodName.length() > 3) {
+                    setters.put(mangle(methodName.substring(3)), method);
+                }
+            }
+            for (Property property : model.properties) {
+                ExecutableElement setter = setters.get(property.implicitName);
+                if (setter != null) {
+                    property.setter = setter.getSimpleName().toString();
+                    property.setterType = setter.getParameters().get(0).asType();
+                }
+            }
+            return;
+        }
+        if (model.readProblem != null) {
+            return;
+        }
+        if (!hasPublicNoArgConstructor(model.type)) {
+            model.readProblem = "no public no-argument constructor";
+            return;
+        }
+        for (Property property : model.properties) {
+            if (property.setter != null) {
+                continue;
+            }
+            String name = property.implicitName;
+            if (hiddenSetters.contains(name)) {
+                model.readProblem = "property " + name + " has a non-public setter";
+            } else if (isContainer(property.getterType)) {
+                model.readProblem = "property " + name + " is set through its getter";
+            } else if (fields.contains(name)) {
+                model.readProblem = "property " + name + " is set through its field";
+            }
+        }
+    }
+
+    private void resolveTypes(BeanModel model) {
+        for (Property property : model.properties) {
+            if (property.getter != null) {
+                property.writeType = resolve(property.getterType);
+                if (property.writeType == null) {
+                    model.writeProblem = "property " + property.name + " of type " + property.getterType;
+                    return;
+                }
+            }
+            if (property.setter != null) {
+                property.readType = resolve(property.setterType);
+                if (property.readType == null) {
+                    model.readProblem = "property " + property.name + " of type " + property.setterType;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param type the class of a value
+     *
+     * @return how the value is converted, {@code null} if it cannot be
+     */
+    private ValueType resolve(TypeMirror type) {
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return new ValueType(ValueType.Kind.BOOLEAN_VALUE, type, null, null);
+            case INT:
+                return new ValueType(ValueType.Kind.INT_VALUE, type, null, null);
+            case LONG:
+                return new ValueType(ValueType.Kind.LONG_VALUE, type, null, null);
+            case DOUBLE:
+                return new ValueType(ValueType.Kind.DOUBLE_VALUE, type, null, null);
+            case BYTE:
+            case SHORT:
+            case CHAR:
+            case FLOAT:
+                return null;
+            case DECLARED:
+                return declared((DeclaredType) type);
+            default:
+                return new ValueType(ValueType.Kind.OTHER, type, null, null);
+        }
+    }
+
+    private ValueType declared(DeclaredType type) {
+        TypeElement element = (TypeElement) type.asElement();
+        String name = element.getQualifiedName().toString();
+        switch (name) {
+            case "java.lang.String":
+                return new ValueType(ValueType.Kind.STRING, type, null, null);
+            case "java.lang.Boolean":
+                return new ValueType(ValueType.Kind.BOOLEAN, type, null, null);
+            case "java.lang.Integer":
+                return new ValueType(ValueType.Kind.INTEGER, type, null, null);
+            case "java.lang.Long":
+                return new ValueType(ValueType.Kind.LONG, type, null, null);
+            case "java.lang.Double":
+                return new ValueType(ValueType.Kind.DOUBLE, type, null, null);
+            case "java.math.BigDecimal":
+                return new ValueType(ValueType.Kind.BIG_DECIMAL, type, null, null);
+            case "java.math.BigInteger":
+                return new ValueType(ValueType.Kind.BIG_INTEGER, type, null, null);
+            default:
+                break;
+        }
+        List<? extends TypeMirror> arguments = type.getTypeArguments();
+        if (element.getKind() == ElementKind.ENUM) {
+            ValueType.Kind kind = isPlainEnum(element) ? ValueType.Kind.ENUM : ValueType.Kind.OTHER;
+            return new ValueType(kind, type, null, null);
+        }
+        if (MAP_TYPES.contains(name) && arguments.size() == 2 && isString(arguments.get(0))) {
+            ValueType value = element(arguments.get(1));
+            return value == null ? new ValueType(ValueType.Kind.OTHER, type, null, null)
+                                 : new ValueType(ValueType.Kind.MAP, type, value, null);
+        }
+        if (LIST_TYPES.contains(name) && arguments.size() == 1) {
+            ValueType value = element(arguments.get(0));
+            return value == null ? new ValueType(ValueType.Kind.OTHER, type, null, null)
+                                 : new ValueType(ValueType.Kind.LIST, type, value, null);
+        }
+        if (element.getKind() == ElementKind.CLASS && arguments.isEmpty() && !name.startsWith("java.")
+            && !name.startsWith("javax.")) {
+            BeanModel bean = introspect(element);
+            if (bean.isWritable()) {
+                return new ValueType(ValueType.Kind.BEAN, type, null, bean);
+            }
+        }
+        return new ValueType(ValueType.Kind.OTHER, type, null, null);
+    }
+
+    /**
+     * @return how a map value or list element is converted, {@code null} if it must be converted by Jackson databind
+     */
+    private ValueType element(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        ValueType value = declared((DeclaredType) type);
+        switch (value.kind) {
+            case MAP:
+            case LIST:
+            case OTHER:
+                return null;
+            default:
+                return value;
+        }
+    }
+
+    private boolean isString(TypeMirror type) {
+        return type.getKind() == TypeKind.DECLARED
+               && ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName()
+            .contentEquals("java.lang.String");
+    }
+
+    private boolean isContainer(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        TypeMirror erasure = types.erasure(type);
+        return types.isAssignable(erasure, types.erasure(elements.getTypeElement("java.util.Collection").asType()))
+               || types.isAssignable(erasure, types.erasure(elements.getTypeElement("java.util.Map").asType()));
+    }
+
+    /**
+     * @return whether the constants of the enum are written by name, without any Jackson annotation
+     */
+    private boolean isPlainEnum(TypeElement type) {
+        if (checkAnnotations(type, Collections.emptySet()) != null) {
+            return false;
+        }
+        for (Element member : type.getEnclosedElements()) {
+            if (checkAnnotations(member, Collections.emptySet()) != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private TypeElement findBuilder(TypeElement type) {
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            if (!nested.getSimpleName().contentEquals("Builder") || nested.getKind() != ElementKind.CLASS
+                || !nested.getModifiers().containsAll(Arrays.asList(Modifier.PUBLIC, Modifier.STATIC))
+                || !hasPublicNoArgConstructor(nested)) {
+                continue;
+            }
+            for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(nested))) {
+                if (method.getSimpleName().contentEquals("build") && method.getParameters().isEmpty()
+                    && method.getModifiers().contains(Modifier.PUBLIC)
+                    && types.isSameType(method.getReturnType(), type.asType())) {
+                    return nested;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasPublicNoArgConstructor(TypeElement type) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && constructor.getModifiers().contains(Modifier.PUBLIC)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the class and its superclasses, up to but excluding {@code Object}, superclasses first
+     */
+    private static List<TypeElement> hierarchy(TypeElement type) {
+        List<TypeElement> hierarchy = new ArrayList<>();
+        TypeElement current = type;
+        while (current != null && !current.getQualifiedName().contentEquals("java.lang.Object")) {
+            hierarchy.add(0, current);
+            TypeMirror superclass = current.getSuperclass();
+            current = superclass.getKind() == TypeKind.DECLARED
+                      ? (TypeElement) ((DeclaredType) superclass).asElement() : null;
+        }
+        return hierarchy;
+    }
+
+    private String applyMemberAnnotations(Element member, String name, Map<String, String> explicitNames,
+                                          Set<String> ignored, Map<String, Property.Inclusion> inclusions) {
+        AnnotationMirror property = find(member, JSON_PROPERTY);
+        if (property != null) {
+            for (ExecutableElement element : property.getElementValues().keySet()) {
+                if (element.getSimpleName().contentEquals("access")
+                    && !property.getElementValues().get(element).getValue().toString().equals("AUTO")) {
+                    return "@JsonProperty(access) on " + member.getSimpleName();
+                }
+            }
+            String explicit = (String) value(property, "value");
+            if (explicit != null && !explicit.isEmpty()) {
+                String previous = explicitNames.put(name, explicit);
+                if (previous != null && !previous.equals(explicit)) {
+                    return "conflicting names " + previous + " and " + explicit + " for property " + name;
+                }
+            }
+        }
+        AnnotationMirror ignore = find(member, JSON_IGNORE);
+        if (ignore != null && !Boolean.FALSE.equals(value(ignore, "value"))) {
+            ignored.add(name);
+        }
+        AnnotationMirror include = find(member, JSON_INCLUDE);
+        if (include != null && inclusion(include) != null) {
+            inclusions.put(name, inclusion(include));
+        }
+        return null;
+    }
+
+    /**
+     * @return the inclusion of a {@code JsonInclude}, {@code null} to use the default
+     */
+    private Property.Inclusion inclusion(AnnotationMirror include) {
+        Object value = value(include, "value");
+        switch (value == null ? "USE_DEFAULTS" : value.toString()) {
+            case "ALWAYS":
+                return Property.Inclusion.ALWAYS;
+            case "NON_NULL":
+            case "NON_ABSENT":
+                return Property.Inclusion.NON_NULL;
+            case "NON_EMPTY":
+                return Property.Inclusion.NON_EMPTY;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return a description of the first Jackson annotation of the element which is not allowed, or which uses an
+     * attribute that is not supported, {@code null} if there is none
+     */
+    private String checkAnnotations(Element element, Set<String> allowed) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            String name = annotationName(mirror);
+            if (!name.startsWith(JACKSON)) {
+                continue;
+            }
+            String description = "@" + name.substring(name.lastIndexOf('.') + 1) + " on " + element.getSimpleName();
+            if (!allowed.contains(name)) {
+                return description;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : mirror.getElementValues().entrySet()) {
+                String attribute = entry.getKey().getSimpleName().toString();
+                Object value = entry.getValue().getValue();
+                boolean unsupported;
+                switch (name) {
+                    case JSON_INCLUDE:
+                        unsupported = !value.toString().equals("USE_DEFAULTS")
+                                      && (!attribute.equals("value") || inclusion(mirror) == null);
+                        break;
+                    case JSON_IGNORE_PROPERTIES:
+                        unsupported = (attribute.equals("allowGetters") || attribute.equals("allowSetters"))
+                                      && Boolean.TRUE.equals(value);
+                        break;
+                    default:
+                        unsupported = false;
+                }
+                if (unsupported) {
+                    return description + " with " + attribute + " = " + value;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static AnnotationMirror find(Element element, String name) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (annotationName(mirror).equals(name)) {
+                return mirror;
+            }
+        }
+        return null;
+    }
+
+    private static String annotationName(AnnotationMirror mirror) {
+        return ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+    }
+
+    /**
+     * @return the value of an attribute, or its default, enum constants as their {@link VariableElement}
+     */
+    private Object value(AnnotationMirror mirror, String attribute) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+            : elements.getElementValuesWithDefaults(mirror).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(attribute)) {
+                return entry.getValue().getValue();
+            }
+        }
+        return null;
+    }
+
+    private static List<String> strings(Object value) {
+        List<String> strings = new ArrayList<>();
+        if (value instanceof List) {
+            for (Object element : (List<?>) value) {
+                strings.add(String.valueOf(((AnnotationValue) element).getValue()));
+            }
+        }
+        return strings;
+    }
+
+    /**
+     * Property name of an accessor without its prefix, as Jackson derives it by default: leading upper case
+     * characters are made lower case, so that {@code getRedirectURL} is {@code redirectURL} and {@code getURL} is
+     * {@code url}.
+     *
+     * @param base the accessor name without its prefix
+     *
+     * @return the property name
+     */
+    static String mangle(String base) {
+        StringBuilder name = null;
+        for (int i = 0; i < base.length(); i++) {
+            char upper = base.charAt(i);
+            char lower = Character.toLowerCase(upper);
+            if (upper == lower) {
+                break;
+            }
+            if (name == null) {
+                name = new StringBuilder(base);
+            }
+            name.setCharAt(i, lower);
+        }
+        return name == null ? base : name.toString();
+    }
+}
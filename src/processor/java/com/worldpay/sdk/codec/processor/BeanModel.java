@@ -0,0 +1,72 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.codec.processor;
+
+import javax.lang.model.element.TypeElement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bean properties of a class, and whether generated code can write and read it.
+ */
+final class BeanModel {
+
+    /**
+     * How a value is created when it is read.
+     */
+    enum Construction {
+        /**
+         * Public no-argument constructor and property setters.
+         */
+        SETTERS,
+        /**
+         * Nested public {@code Builder} class, its setters and {@code build()} method.
+         */
+        BUILDER
+    }
+
+    final TypeElement type;
+
+    final String typeName;
+
+    final List<Property> properties = new ArrayList<>();
+
+    String codecName;
+
+    /**
+     * Why generated code cannot write the class, {@code null} if it can.
+     */
+    String writeProblem;
+
+    /**
+     * Why generated code cannot read the class, {@code null} if it can.
+     */
+    String readProblem;
+
+    Construction construction = Construction.SETTERS;
+
+    BeanModel(TypeElement type) {
+        this.type = type;
+        this.typeName = type.getQualifiedName().toString();
+    }
+
+    boolean isWritable() {
+        return writeProblem == null;
+    }
+
+    boolean isReadable() {
+        return writeProblem == null && readProblem == null;
+    }
+}
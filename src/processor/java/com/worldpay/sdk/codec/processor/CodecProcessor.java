@@ -0,0 +1,185 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.codec.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates reflection-free {@code TypeCodec}s, on the Jackson streaming API, for the classes listed by
+ * {@code GenerateCodecs}, and registers them as a {@code CodecRegistry} service.
+ * <p>
+ * Codecs follow the bean properties found by {@link BeanIntrospector}. Properties whose class is neither a string, a
+ * number, a boolean, an enum, a bean with a codec, nor a map or list of those, are converted by Jackson databind
+ * through the codec of the parser or generator. A class which cannot be written gets no codec; one which cannot be
+ * read gets a codec reading it with Jackson databind. A class without setters, with a nested {@code Builder}, is read
+ * through its builder.
+ * <p>
+ * The processor is built before the library and run on it by the compiler plugin configuration of the pom.
+ */
+@SupportedAnnotationTypes(CodecProcessor.GENERATE_CODECS)
+public class CodecProcessor extends AbstractProcessor {
+
+    static final String RUNTIME_PACKAGE = "com.worldpay.sdk.codec";
+
+    static final String GENERATE_CODECS = RUNTIME_PACKAGE + ".GenerateCodecs";
+
+    private static final String SERVICE_FILE = "META-INF/services/" + RUNTIME_PACKAGE + ".CodecRegistry";
+
+    private BeanIntrospector introspector;
+
+    /**
+     * Names of the codec classes.
+     */
+    private final Set<String> codecNames = new HashSet<>();
+
+    /**
+     * Qualified names of the generated registries.
+     */
+    private final List<String> registries = new ArrayList<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (introspector == null) {
+            introspector = new BeanIntrospector(processingEnv);
+        }
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                generate((TypeElement) element);
+            }
+        }
+        if (roundEnv.processingOver() && !registries.isEmpty()) {
+            writeServiceFile();
+        }
+        return true;
+    }
+
+    private void generate(TypeElement holder) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(holder).getQualifiedName().toString();
+        if (!packageName.equals(RUNTIME_PACKAGE)) {
+            error(holder, "@GenerateCodecs is only supported on classes of " + RUNTIME_PACKAGE);
+            return;
+        }
+        for (TypeElement type : listedTypes(holder)) {
+            BeanModel model = introspector.introspect(type);
+            if (!model.isWritable()) {
+                note(holder, type + " is converted by Jackson databind: " + model.writeProblem);
+            }
+        }
+
+        List<BeanModel> models = new ArrayList<>();
+        for (BeanModel model : introspector.getModels()) {
+            if (model.isWritable() && model.codecName == null) {
+                model.codecName = codecName(model);
+                models.add(model);
+            }
+        }
+        for (BeanModel model : models) {
+            if (!model.isReadable()) {
+                note(holder, model.typeName + " is read by Jackson databind: " + model.readProblem);
+            }
+            write(holder, packageName + "." + model.codecName,
+                  CodecSourceWriter.codec(processingEnv.getTypeUtils(), packageName, model));
+        }
+
+        String registry = holder.getSimpleName() + "Registry";
+        write(holder, packageName + "." + registry,
+              CodecSourceWriter.registry(packageName, registry, holder.getSimpleName().toString(), models));
+        registries.add(packageName + "." + registry);
+    }
+
+    private List<TypeElement> listedTypes(TypeElement holder) {
+        List<TypeElement> types = new ArrayList<>();
+        for (AnnotationMirror mirror : holder.getAnnotationMirrors()) {
+            if (!((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName()
+                .contentEquals(GENERATE_CODECS)) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                : mirror.getElementValues().entrySet()) {
+                for (Object value : (List<?>) entry.getValue().getValue()) {
+                    Object type = ((AnnotationValue) value).getValue();
+                    if (type instanceof DeclaredType) {
+                        types.add((TypeElement) ((DeclaredType) type).asElement());
+                    } else {
+                        error(holder, "Cannot resolve " + value);
+                    }
+                }
+            }
+        }
+        return types;
+    }
+
+    private String codecName(BeanModel model) {
+        String name = model.type.getSimpleName() + "Codec";
+        for (int i = 2; !codecNames.add(name); i++) {
+            name = model.type.getSimpleName() + "Codec" + i;
+        }
+        return name;
+    }
+
+    private void write(TypeElement holder, String className, String source) {
+        try (Writer writer = processingEnv.getFiler().createSourceFile(className, holder).openWriter()) {
+            writer.write(source);
+        } catch (IOException e) {
+            error(holder, "Cannot write " + className + ": " + e);
+        }
+    }
+
+    private void writeServiceFile() {
+        try {
+            FileObject file = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", SERVICE_FILE);
+            try (Writer writer = file.openWriter()) {
+                for (String registry : registries) {
+                    writer.write(registry);
+                    writer.write('\n');
+                }
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot write " + SERVICE_FILE + ": " + e);
+        }
+    }
+
+    private void note(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, message, element);
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,442 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.codec.processor;
+
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes the source of the {@code TypeCodec} of a {@link BeanModel}, and of a {@code CodecRegistry}.
+ */
+final class CodecSourceWriter {
+
+    private static final String GENERATED = "@Generated(\"" + CodecProcessor.class.getName() + "\")\n";
+
+    /**
+     * Simple names the generated code uses, other than those of the codecs.
+     */
+    private static final Set<String> RESERVED_NAMES = new HashSet<>(Arrays.asList(
+        "JsonGenerator", "JsonParser", "JsonToken", "SerializedString", "TypeReference", "Generated", "IOException",
+        "CodecSupport", "EnumValues", "TypeCodec", "String", "Class", "Override"));
+
+    private final Types types;
+
+    private final String packageName;
+
+    private final BeanModel model;
+
+    /**
+     * Name of the class of the model in the source, imported unless it clashes with another name.
+     */
+    private final String type;
+
+    /**
+     * Constant names in use.
+     */
+    private final Set<String> constants = new HashSet<>();
+
+    /**
+     * Declarations of the constants, by the key they are shared for.
+     */
+    private final Map<String, String> declarations = new LinkedHashMap<>();
+
+    /**
+     * Names of the constants, by the key they are shared for.
+     */
+    private final Map<String, String> names = new LinkedHashMap<>();
+
+    private boolean usesTypeReference;
+
+    private CodecSourceWriter(Types types, String packageName, BeanModel model) {
+        this.types = types;
+        this.packageName = packageName;
+        this.model = model;
+        String simpleName = model.type.getSimpleName().toString();
+        boolean imported = model.type.getNestingKind() == NestingKind.TOP_LEVEL
+                           && !RESERVED_NAMES.contains(simpleName) && !simpleName.contains("Codec");
+        this.type = imported ? simpleName : model.typeName;
+        constants.add("INSTANCE");
+    }
+
+    /**
+     * @param types       type utilities
+     * @param packageName package of the codec
+     * @param model       a writable model
+     *
+     * @return the source of the codec of the model
+     */
+    static String codec(Types types, String packageName, BeanModel model) {
+        return new CodecSourceWriter(types, packageName, model).codec();
+    }
+
+    /**
+     * @param packageName package of the registry
+     * @param name        simple name of the registry
+     * @param holder      simple name of the class annotated with {@code GenerateCodecs}
+     * @param models      models of the codecs provided
+     *
+     * @return the source of the registry
+     */
+    static String registry(String packageName, String name, String holder, List<BeanModel> models) {
+        StringBuilder source = new StringBuilder();
+        source.append("package ").append(packageName).append(";\n\n")
+            .append("import javax.annotation.processing.Generated;\n")
+            .append("import java.util.Arrays;\n")
+            .append("import java.util.Collections;\n")
+            .append("import java.util.List;\n\n")
+            .append("/**\n * {@link CodecRegistry} of the codecs generated from {@link ").append(holder)
+            .append("}.\n */\n")
+            .append(GENERATED)
+            .append("public final class ").append(name).append(" implements CodecRegistry {\n\n")
+            .append("    private static final List<TypeCodec<?>> CODECS = Collections.unmodifiableList(Arrays.asList(");
+        String separator = "\n";
+        for (BeanModel model : models) {
+            source.append(separator).append("        ").append(model.codecName).append(".INSTANCE");
+            separator = ",\n";
+        }
+        source.append("));\n\n")
+            .append("    @Override\n")
+            .append("    public List<TypeCodec<?>> getCodecs() {\n")
+            .append("        return CODECS;\n")
+            .append("    }\n")
+            .append("}\n");
+        return source.toString();
+    }
+
+    private String codec() {
+        StringBuilder write = new StringBuilder();
+        write.append("    @Override\n")
+            .append("    public void write(JsonGenerator generator, ").append(type)
+            .append(" value) throws IOException {\n")
+            .append("        if (value == null) {\n")
+            .append("            generator.writeNull();\n")
+            .append("            return;\n")
+            .append("        }\n")
+            .append("        if (value.getClass() != ").append(type).append(".class) {\n")
+            .append("            generator.writeObject(value);\n")
+            .append("            return;\n")
+            .append("        }\n")
+            .append("        generator.writeStartObject();\n");
+        int index = 0;
+        for (Property property : model.properties) {
+            if (property.writeType != null) {
+                writeProperty(write, property, "v" + index++);
+            }
+        }
+        write.append("        generator.writeEndObject();\n")
+            .append("    }\n");
+
+        StringBuilder read = new StringBuilder();
+        read.append("    @Override\n")
+            .append("    public ").append(type).append(" read(JsonParser parser) throws IOException {\n");
+        if (!model.isReadable()) {
+            read.append("        // ").append(model.readProblem).append("\n")
+                .append("        return parser.readValueAs(").append(type).append(".class);\n")
+                .append("    }\n");
+        } else {
+            readBody(read);
+        }
+
+        StringBuilder source = new StringBuilder();
+        source.append("package ").append(packageName).append(";\n\n")
+            .append("import com.fasterxml.jackson.core.JsonGenerator;\n")
+            .append("import com.fasterxml.jackson.core.JsonParser;\n")
+            .append("import com.fasterxml.jackson.core.JsonToken;\n")
+            .append("import com.fasterxml.jackson.core.io.SerializedString;\n");
+        if (usesTypeReference) {
+            source.append("import com.fasterxml.jackson.core.type.TypeReference;\n");
+        }
+        if (!type.equals(model.typeName)) {
+            source.append("import ").append(model.typeName).append(";\n");
+        }
+        source.append("\n")
+            .append("import javax.annotation.processing.Generated;\n")
+            .append("import java.io.IOException;\n\n")
+            .append("/**\n * {@link TypeCodec} of {@link ").append(type).append("}.\n */\n")
+            .append(GENERATED)
+            .append("final class ").append(model.codecName).append(" implements TypeCodec<").append(type)
+            .append("> {\n\n")
+            .append("    static final ").append(model.codecName).append(" INSTANCE = new ").append(model.codecName)
+            .append("();\n\n");
+        for (String declaration : declarations.values()) {
+            source.append("    ").append(declaration).append("\n\n");
+        }
+        source.append("    private ").append(model.codecName).append("() {\n")
+            .append("    }\n\n")
+            .append("    @Override\n")
+            .append("    public Class<").append(type).append("> getType() {\n")
+            .append("        return ").append(type).append(".class;\n")
+            .append("    }\n\n")
+            .append(write).append("\n")
+            .append(read)
+            .append("}\n");
+        return source.toString();
+    }
+
+    private void writeProperty(StringBuilder write, Property property, String variable) {
+        ValueType value = property.writeType;
+        String name = constant("name:" + property.name, toConstant(property.name) + "_FIELD",
+                               "SerializedString", "new SerializedString(" + literal(property.name) + ")");
+        write.append("        var ").append(variable)
+            .append(" = value.").append(property.getter).append("();\n");
+        String indent = "        ";
+        boolean conditional = !value.isPrimitive() && property.inclusion != Property.Inclusion.ALWAYS;
+        if (conditional) {
+            write.append("        if (").append(variable).append(" != null");
+            if (property.inclusion == Property.Inclusion.NON_EMPTY && value.hasEmptiness()) {
+                write.append(" && !").append(variable).append(".isEmpty()");
+            }
+            write.append(") {\n");
+            indent = "            ";
+        }
+        write.append(indent).append("generator.writeFieldName(").append(name).append(");\n")
+            .append(indent).append(writeStatement(value, variable)).append(";\n");
+        if (conditional) {
+            write.append("        }\n");
+        }
+    }
+
+    private void readBody(StringBuilder read) {
+        boolean builder = model.construction == BeanModel.Construction.BUILDER;
+        String target = builder ? "builder" : "value";
+        read.append("        JsonToken token = parser.getCurrentToken();\n")
+            .append("        if (token == JsonToken.VALUE_NULL) {\n")
+            .append("            return null;\n")
+            .append("        }\n")
+            .append("        if (token != JsonToken.START_OBJECT) {\n")
+            .append("            return parser.readValueAs(").append(type).append(".class);\n")
+            .append("        }\n");
+        if (builder) {
+            read.append("        ").append(type).append(".Builder builder = new ").append(type).append(".Builder();\n");
+        } else {
+            read.append("        ").append(type).append(" value = new ").append(type).append("();\n");
+        }
+        read.append("        for (String name = parser.nextFieldName(); name != null; ")
+            .append("name = parser.nextFieldName()) {\n")
+            .append("            parser.nextToken();\n")
+            .append("            switch (name) {\n");
+        for (Property property : model.properties) {
+            if (property.readType == null) {
+                continue;
+            }
+            read.append("                case ").append(literal(property.name)).append(":\n")
+                .append("                    ").append(target).append(".").append(property.setter).append("(")
+                .append(readExpression(property.readType)).append(");\n")
+                .append("                    break;\n");
+        }
+        read.append("                default:\n")
+            .append("                    parser.skipChildren();\n")
+            .append("            }\n")
+            .append("        }\n")
+            .append("        return ").append(builder ? "builder.build()" : "value").append(";\n")
+            .append("    }\n");
+    }
+
+    private String writeStatement(ValueType value, String expression) {
+        switch (value.kind) {
+            case BOOLEAN_VALUE:
+                return "generator.writeBoolean(" + expression + ")";
+            case INT_VALUE:
+            case LONG_VALUE:
+            case DOUBLE_VALUE:
+                return "generator.writeNumber(" + expression + ")";
+            case MAP:
+                return "CodecSupport.writeMap(generator, " + expression + ", " + writerReference(value.element) + ")";
+            case LIST:
+                return "CodecSupport.writeList(generator, " + expression + ", " + writerReference(value.element) + ")";
+            case BEAN:
+                return value.bean.codecName + ".INSTANCE.write(generator, " + expression + ")";
+            case OTHER:
+                return "generator.writeObject(" + expression + ")";
+            default:
+                return "CodecSupport." + scalarWriter(value.kind) + "(generator, " + expression + ")";
+        }
+    }
+
+    private String writerReference(ValueType value) {
+        if (value.kind == ValueType.Kind.BEAN) {
+            return value.bean.codecName + ".INSTANCE::write";
+        }
+        return "CodecSupport::" + scalarWriter(value.kind);
+    }
+
+    private static String scalarWriter(ValueType.Kind kind) {
+        switch (kind) {
+            case STRING:
+                return "writeString";
+            case BOOLEAN:
+                return "writeBoolean";
+            case INTEGER:
+                return "writeInteger";
+            case LONG:
+                return "writeLong";
+            case DOUBLE:
+                return "writeDouble";
+            case BIG_DECIMAL:
+                return "writeBigDecimal";
+            case BIG_INTEGER:
+                return "writeBigInteger";
+            case ENUM:
+                return "writeEnum";
+            default:
+                throw new IllegalArgumentException(kind.toString());
+        }
+    }
+
+    private String readExpression(ValueType value) {
+        switch (value.kind) {
+            case BOOLEAN_VALUE:
+                return "CodecSupport.booleanValue(CodecSupport.readBoolean(parser))";
+            case INT_VALUE:
+                return "CodecSupport.intValue(CodecSupport.readInteger(parser))";
+            case LONG_VALUE:
+                return "CodecSupport.longValue(CodecSupport.readLong(parser))";
+            case DOUBLE_VALUE:
+                return "CodecSupport.doubleValue(CodecSupport.readDouble(parser))";
+            case ENUM:
+                return "CodecSupport.readEnum(parser, " + enumValues(value.type) + ")";
+            case MAP:
+                return "CodecSupport.readMap(parser, " + readerReference(value.element) + ")";
+            case LIST:
+                return "CodecSupport.readList(parser, " + readerReference(value.element) + ")";
+            case BEAN:
+                return value.bean.codecName + ".INSTANCE.read(parser)";
+            case OTHER:
+                return "parser.readValueAs(" + typeToken(value.type) + ")";
+            default:
+                return "CodecSupport." + scalarReader(value.kind) + "(parser)";
+        }
+    }
+
+    private String readerReference(ValueType value) {
+        switch (value.kind) {
+            case BEAN:
+                return value.bean.codecName + ".INSTANCE::read";
+            case ENUM:
+                return "element -> CodecSupport.readEnum(element, " + enumValues(value.type) + ")";
+            default:
+                return "CodecSupport::" + scalarReader(value.kind);
+        }
+    }
+
+    private static String scalarReader(ValueType.Kind kind) {
+        switch (kind) {
+            case STRING:
+                return "readString";
+            case BOOLEAN:
+                return "readBoolean";
+            case INTEGER:
+                return "readInteger";
+            case LONG:
+                return "readLong";
+            case DOUBLE:
+                return "readDouble";
+            case BIG_DECIMAL:
+                return "readBigDecimal";
+            case BIG_INTEGER:
+                return "readBigInteger";
+            default:
+                throw new IllegalArgumentException(kind.toString());
+        }
+    }
+
+    private String enumValues(TypeMirror type) {
+        String name = erasure(type);
+        String simpleName = name.substring(name.lastIndexOf('.') + 1);
+        return constant("enum:" + name, toConstant(simpleName) + "_VALUES", "EnumValues<" + name + ">",
+                        "new EnumValues<>(" + name + ".class, " + name + ".values())");
+    }
+
+    /**
+     * @return a class literal, or a {@code TypeReference} constant for a parameterized type
+     */
+    private String typeToken(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED || ((DeclaredType) type).getTypeArguments().isEmpty()) {
+            return erasure(type) + ".class";
+        }
+        usesTypeReference = true;
+        String reference = "TypeReference<" + type + ">";
+        return constant("type:" + type, "TYPE_" + declarations.size(), reference, "new " + reference + "() {\n    }");
+    }
+
+    /**
+     * Declare a constant once per key.
+     *
+     * @return the name of the constant
+     */
+    private String constant(String key, String preferredName, String type, String initializer) {
+        String name = names.get(key);
+        if (name != null) {
+            return name;
+        }
+        name = preferredName;
+        for (int i = 2; !constants.add(name); i++) {
+            name = preferredName + "_" + i;
+        }
+        names.put(key, name);
+        declarations.put(key, "private static final " + type + " " + name + " = " + initializer + ";");
+        return name;
+    }
+
+    private String erasure(TypeMirror type) {
+        return types.erasure(type).toString();
+    }
+
+    /**
+     * @return the name in upper case with words separated by underscores, {@code redirectURL} becoming
+     * {@code REDIRECT_URL}
+     */
+    private static String toConstant(String name) {
+        StringBuilder constant = new StringBuilder();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (!Character.isJavaIdentifierPart(c)) {
+                c = '_';
+            } else if (i > 0 && Character.isUpperCase(c) && Character.isLowerCase(name.charAt(i - 1))) {
+                constant.append('_');
+            }
+            constant.append(c);
+        }
+        if (constant.length() == 0 || !Character.isJavaIdentifierStart(constant.charAt(0))) {
+            constant.insert(0, '_');
+        }
+        return constant.toString().toUpperCase(Locale.ROOT);
+    }
+
+    private static String literal(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                literal.append('\\').append(c);
+            } else if (c < 0x20 || c > 0x7e) {
+                literal.append(String.format("\\u%04x", (int) c));
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+}
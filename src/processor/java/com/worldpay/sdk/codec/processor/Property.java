@@ -0,0 +1,62 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.codec.processor;
+
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * Bean property, with its JSON name and accessors.
+ */
+final class Property {
+
+    /**
+     * Which null or empty values are left out when writing, after {@code JsonInclude.Include}.
+     */
+    enum Inclusion {
+        ALWAYS, NON_NULL, NON_EMPTY
+    }
+
+    /**
+     * Name derived from the accessors, which links them together.
+     */
+    final String implicitName;
+
+    /**
+     * Name in JSON.
+     */
+    String name;
+
+    String getter;
+
+    TypeMirror getterType;
+
+    /**
+     * Setter of the bean, or of its builder.
+     */
+    String setter;
+
+    TypeMirror setterType;
+
+    Inclusion inclusion;
+
+    ValueType writeType;
+
+    ValueType readType;
+
+    Property(String implicitName) {
+        this.implicitName = implicitName;
+        this.name = implicitName;
+    }
+}
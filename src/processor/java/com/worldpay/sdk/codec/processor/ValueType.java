@@ -0,0 +1,66 @@
+/*
+ * Copyright 2013 Worldpay
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and limitations under the License.
+ */
+
+package com.worldpay.sdk.codec.processor;
+
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * How a property value is converted.
+ */
+final class ValueType {
+
+    enum Kind {
+        STRING, BOOLEAN, INTEGER, LONG, DOUBLE, BIG_DECIMAL, BIG_INTEGER,
+        BOOLEAN_VALUE, INT_VALUE, LONG_VALUE, DOUBLE_VALUE,
+        ENUM, MAP, LIST, BEAN,
+        /**
+         * Converted by Jackson databind.
+         */
+        OTHER
+    }
+
+    final Kind kind;
+
+    final TypeMirror type;
+
+    /**
+     * Values of a {@link Kind#MAP} or elements of a {@link Kind#LIST}.
+     */
+    final ValueType element;
+
+    /**
+     * Model of a {@link Kind#BEAN}.
+     */
+    final BeanModel bean;
+
+    ValueType(Kind kind, TypeMirror type, ValueType element, BeanModel bean) {
+        this.kind = kind;
+        this.type = type;
+        this.element = element;
+        this.bean = bean;
+    }
+
+    boolean isPrimitive() {
+        return kind == Kind.BOOLEAN_VALUE || kind == Kind.INT_VALUE || kind == Kind.LONG_VALUE
+               || kind == Kind.DOUBLE_VALUE;
+    }
+
+    /**
+     * @return whether the value has an {@code isEmpty()} method
+     */
+    boolean hasEmptiness() {
+        return kind == Kind.STRING || kind == Kind.MAP || kind == Kind.LIST;
+    }
+}
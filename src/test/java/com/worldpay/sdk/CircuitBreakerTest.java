@@ -0,0 +1,254 @@
+package com.worldpay.sdk;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.worldpay.gateway.clearwater.client.core.exception.WorldpayException;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlMatching;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Test {@link CircuitBreaker}.
+ */
+public class CircuitBreakerTest {
+
+    private static final String ENDPOINT = "/orders/{code}";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort());
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private final List<String> transitions = new CopyOnWriteArrayList<>();
+
+    private final ScriptedTransport transport = new ScriptedTransport();
+
+    private final CircuitBreakerPolicy policy = new CircuitBreakerPolicy.Builder()
+        .setMinimumCalls(4)
+        .setFailureRateThreshold(50)
+        .setSlowCallRateThreshold(50)
+        .setSlowCallDuration(1000)
+        .setWindow(10000)
+        .setOpenDuration(5000)
+        .setProbeCalls(2)
+        .setListener((endpoint, from, to) -> transitions.add(endpoint + " " + from + " -> " + to))
+        .build();
+
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker(ENDPOINT, policy, clock::get);
+
+    @Test
+    public void endpointsAreNamedWithoutTheOrderCode() {
+        String base = "https://api.worldpay.com/v1";
+
+        assertThat(CircuitBreakers.endpointOf(base + "/orders", base.length()), is(equalTo("/orders")));
+        assertThat(CircuitBreakers.endpointOf(base + "/orders/abc", base.length()), is(equalTo("/orders/{code}")));
+        assertThat(CircuitBreakers.endpointOf(base + "/orders/abc/capture", base.length()),
+                   is(equalTo("/orders/{code}/capture")));
+        assertThat(CircuitBreakers.endpointOf(base + "/orders/abc/refund?x=1", base.length()),
+                   is(equalTo("/orders/{code}/refund")));
+        assertThat(CircuitBreakers.endpointOf(base + "/tokens/", base.length()), is(equalTo("/tokens")));
+        assertThat(CircuitBreakers.endpointOf(base + "/tokens/token-id", base.length()), is(equalTo("/tokens")));
+    }
+
+    @Test
+    public void failureRateOpensTheCircuit() throws IOException {
+        transport.status = 503;
+        callRepeatedly(4);
+
+        assertThat(circuitBreaker.getState(), is(CircuitState.OPEN));
+        assertRejected();
+        assertThat(transport.calls.get(), is(equalTo(4)));
+        assertThat(transitions, contains(ENDPOINT + " CLOSED -> OPEN"));
+    }
+
+    @Test
+    public void ioErrorsAreFailures() throws IOException {
+        transport.failure = new SocketException("Connection reset");
+        for (int i = 0; i < 4; i++) {
+            try {
+                call();
+                fail("IOException expected");
+            } catch (SocketException e) {
+                // expected
+            }
+        }
+
+        assertThat(circuitBreaker.getState(), is(CircuitState.OPEN));
+    }
+
+    @Test
+    public void clientErrorsAreNotFailures() throws IOException {
+        transport.status = 400;
+        callRepeatedly(10);
+
+        assertThat(circuitBreaker.getState(), is(CircuitState.CLOSED));
+    }
+
+    @Test
+    public void circuitStaysClosedBelowTheMinimumCalls() throws IOException {
+        transport.status = 503;
+        callRepeatedly(3);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(11));
+        callRepeatedly(3);
+
+        assertThat(circuitBreaker.getState(), is(CircuitState.CLOSED));
+    }
+
+    @Test
+    public void slowCallRateOpensTheCircuit() throws IOException {
+        transport.latency = TimeUnit.MILLISECONDS.toNanos(1500);
+        callRepeatedly(4);
+
+        assertThat(circuitBreaker.getState(), is(CircuitState.OPEN));
+    }
+
+    @Test
+    public void successfulProbesCloseTheCircuit() throws IOException {
+        transport.status = 503;
+        callRepeatedly(4);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        transport.status = 200;
+
+        CircuitBreaker.Phase first = circuitBreaker.acquire();
+        CircuitBreaker.Phase second = circuitBreaker.acquire();
+        assertThat(circuitBreaker.getState(), is(CircuitState.HALF_OPEN));
+        assertRejected();
+        circuitBreaker.record(first, true, 0);
+        circuitBreaker.record(second, true, 0);
+
+        assertThat(circuitBreaker.getState(), is(CircuitState.CLOSED));
+        assertThat(transitions, contains(ENDPOINT + " CLOSED -> OPEN", ENDPOINT + " OPEN -> HALF_OPEN",
+                                         ENDPOINT + " HALF_OPEN -> CLOSED"));
+        callRepeatedly(3);
+        assertThat("Failures before closing are forgotten", circuitBreaker.getState(), is(CircuitState.CLOSED));
+    }
+
+    @Test
+    public void failedProbeOpensTheCircuitAgain() throws IOException {
+        transport.status = 503;
+        callRepeatedly(4);
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+
+        call();
+
+        assertThat(circuitBreaker.getState(), is(CircuitState.OPEN));
+        assertThat(transitions, contains(ENDPOINT + " CLOSED -> OPEN", ENDPOINT + " OPEN -> HALF_OPEN",
+                                         ENDPOINT + " HALF_OPEN -> OPEN"));
+        assertRejected();
+    }
+
+    @Test
+    public void openCircuitFailsFastWithoutReachingTheService() {
+        stubFor(post(urlMatching("/orders/.*/capture")).willReturn(aResponse().withStatus(503)));
+        WorldpayRestClient client = new WorldpayRestClient.Builder()
+            .setBaseUrl("http://localhost:" + wireMockRule.port())
+            .setServiceKey("T_S_KEY")
+            .setCircuitBreakerPolicy(policy)
+            .build();
+
+        for (int i = 0; i < 6; i++) {
+            try {
+                client.getOrderService().capture(null, "order-" + i);
+                fail("WorldpayException expected");
+            } catch (CircuitBreakerOpenException e) {
+                assertThat(i, is(greaterThanOrEqualTo(4)));
+                assertThat(e.getEndpoint(), is(equalTo("/orders/{code}/capture")));
+            } catch (WorldpayException e) {
+                assertThat(i, is(lessThan(4)));
+            }
+        }
+        verify(4, postRequestedFor(urlMatching("/orders/.*/capture")));
+    }
+
+    private void callRepeatedly(int times) throws IOException {
+        for (int i = 0; i < times; i++) {
+            call();
+        }
+    }
+
+    private void call() throws IOException {
+        circuitBreaker.execute(transport, new TransportRequest("GET", "https://api.worldpay.com/v1/orders/abc"))
+            .close();
+    }
+
+    private void assertRejected() throws IOException {
+        int calls = transport.calls.get();
+        try {
+            call();
+            fail("CircuitBreakerOpenException expected");
+        } catch (CircuitBreakerOpenException e) {
+            assertThat(e.getEndpoint(), is(equalTo(ENDPOINT)));
+        }
+        assertThat(transport.calls.get(), is(equalTo(calls)));
+    }
+
+    /**
+     * Transport answering with the given status, latency or failure, advancing the test clock.
+     */
+    private class ScriptedTransport implements HttpTransport {
+
+        private final AtomicInteger calls = new AtomicInteger();
+
+        private volatile int status = 200;
+
+        private volatile long latency;
+
+        private volatile IOException failure;
+
+        @Override
+        public TransportResponse execute(TransportRequest request) throws IOException {
+            calls.incrementAndGet();
+            clock.addAndGet(latency);
+            if (failure != null) {
+                throw failure;
+            }
+            final int statusCode = status;
+            return new TransportResponse() {
+                @Override
+                public int getStatusCode() {
+                    return statusCode;
+                }
+
+                @Override
+                public String getHeader(String name) {
+                    return null;
+                }
+
+                @Override
+                public InputStream getBody() {
+                    return null;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
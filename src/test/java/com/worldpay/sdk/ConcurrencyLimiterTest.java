@@ -0,0 +1,267 @@
+package com.worldpay.sdk;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Test {@link ConcurrencyLimiter}.
+ */
+public class ConcurrencyLimiterTest {
+
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(20);
+
+    private final AtomicLong clock = new AtomicLong();
+
+    @Test
+    public void limitGrowsWhileLatencyIsSteady() throws IOException {
+        ConcurrencyLimiter limiter = limiter(10, 100, 0);
+
+        for (int i = 0; i < 20 && limiter.getLimit() < 100; i++) {
+            saturate(limiter, RTT, false);
+        }
+
+        assertThat(limiter.getLimit(), is(equalTo(100)));
+    }
+
+    @Test
+    public void limitShrinksWhenLatencyRises() throws IOException {
+        ConcurrencyLimiter limiter = limiter(50, 100, 0);
+        for (int i = 0; i < 20; i++) {
+            limiter.release(limiter.acquire() - RTT, false);
+        }
+
+        for (int i = 0; i < 20; i++) {
+            saturate(limiter, 4 * RTT, false);
+        }
+
+        assertThat(limiter.getLimit(), is(lessThan(25)));
+    }
+
+    @Test
+    public void limitIsCutWhenCallsFail() throws IOException {
+        ConcurrencyLimiter limiter = limiter(50, 100, 0);
+
+        limiter.release(limiter.acquire(), true);
+        assertThat(limiter.getLimit(), is(equalTo(45)));
+
+        for (int i = 0; i < 100; i++) {
+            limiter.release(limiter.acquire(), true);
+        }
+        assertThat(limiter.getLimit(), is(equalTo(1)));
+    }
+
+    @Test
+    public void limitIsLoweredToProbeTheIdleLatency() throws IOException {
+        ConcurrencyLimiter limiter = limiter(100, 100, 0);
+        for (int i = 0; i < 999; i++) {
+            limiter.release(limiter.acquire() - 4 * RTT, false);
+        }
+        assertThat(limiter.getLimit(), is(equalTo(100)));
+
+        limiter.release(limiter.acquire() - 4 * RTT, false);
+        assertThat(limiter.getLimit(), is(equalTo(10)));
+
+        for (int i = 0; i < 10; i++) {
+            saturate(limiter, RTT, false);
+        }
+        assertThat("The idle latency is the new reference", limiter.getLimit(), is(greaterThan(10)));
+        saturate(limiter, 4 * RTT, false);
+        assertThat(limiter.getLimit(), is(lessThan(25)));
+    }
+
+    @Test
+    public void limitIsKeptWhenDemandIsLow() throws IOException {
+        ConcurrencyLimiter limiter = limiter(50, 100, 0);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.release(limiter.acquire() - RTT, false);
+        }
+
+        assertThat(limiter.getLimit(), is(equalTo(50)));
+    }
+
+    @Test
+    public void callsOverTheLimitAreRejectedWithoutQueue() throws IOException {
+        ConcurrencyLimiter limiter = limiter(2, 2, 0);
+        limiter.acquire();
+        limiter.acquire();
+
+        try {
+            limiter.acquire();
+            fail("ConcurrencyLimitExceededException expected");
+        } catch (ConcurrencyLimitExceededException e) {
+            assertThat(e.getLimit(), is(equalTo(2)));
+        }
+        assertThat(limiter.getRejected(), is(equalTo(1L)));
+        assertThat(limiter.getInFlight(), is(equalTo(2)));
+    }
+
+    @Test
+    public void queuedCallTakesTheReleasedPermit() throws Exception {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(new ConcurrencyLimitPolicy.Builder()
+                                                                .setInitialLimit(1)
+                                                                .setMaxLimit(1)
+                                                                .setMaxQueueWait(10000)
+                                                                .build());
+        long start = limiter.acquire();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<Long> queued = executor.submit(limiter::acquire);
+            while (limiter.getQueueDepth() == 0) {
+                Thread.sleep(1);
+            }
+
+            limiter.release(start, false);
+
+            queued.get(10, TimeUnit.SECONDS);
+            assertThat(limiter.getQueueDepth(), is(equalTo(0)));
+            assertThat(limiter.getInFlight(), is(equalTo(1)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void queuedCallIsRejectedAfterTheMaximumWait() throws IOException {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(new ConcurrencyLimitPolicy.Builder()
+                                                                .setInitialLimit(1)
+                                                                .setMaxLimit(1)
+                                                                .setMaxQueueWait(50)
+                                                                .build());
+        limiter.acquire();
+
+        try {
+            limiter.acquire();
+            fail("ConcurrencyLimitExceededException expected");
+        } catch (ConcurrencyLimitExceededException e) {
+            assertThat(limiter.getQueueDepth(), is(equalTo(0)));
+        }
+    }
+
+    /**
+     * Simulate a service with a fixed capacity against a local stub: beyond its capacity the calls queue on the
+     * service side and the latency grows with the calls in flight. Many more workers than the capacity should not
+     * drive the limit, averaged once settled, up to the number of workers.
+     */
+    @Test
+    public void limitSettlesNearTheCapacityOfAnOverloadedService() throws Exception {
+        int capacity = 8;
+        int workers = 64;
+        long baseLatency = 10;
+        AtomicInteger serverInFlight = new AtomicInteger();
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            int inFlight = serverInFlight.incrementAndGet();
+            try {
+                Thread.sleep(baseLatency * Math.max(capacity, inFlight) / capacity);
+                respond(exchange);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                serverInFlight.decrementAndGet();
+            }
+        });
+        server.start();
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try (WorldpayRestClient client = new WorldpayRestClient.Builder()
+            .setBaseUrl("http://localhost:" + server.getAddress().getPort())
+            .setServiceKey("T_S_KEY")
+            .setConcurrencyLimitPolicy(new ConcurrencyLimitPolicy.Builder()
+                                           .setInitialLimit(workers)
+                                           .setMaxLimit(workers)
+                                           .setMaxQueueDepth(workers)
+                                           .setMaxQueueWait(10000)
+                                           .build())
+            .build()) {
+            ConcurrencyMetrics metrics = client.getConcurrencyMetrics();
+            long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(4);
+            CountDownLatch done = new CountDownLatch(workers);
+            for (int i = 0; i < workers; i++) {
+                executor.execute(() -> {
+                    try {
+                        while (System.nanoTime() - end < 0) {
+                            client.getOrderService().findOrder("order-code");
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            long settled = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+            int maxQueueDepth = 0;
+            long limits = 0;
+            int samples = 0;
+            while (!done.await(20, TimeUnit.MILLISECONDS)) {
+                maxQueueDepth = Math.max(maxQueueDepth, metrics.getQueueDepth());
+                if (System.nanoTime() - settled > 0) {
+                    limits += metrics.getLimit();
+                    samples++;
+                }
+            }
+            long averageLimit = limits / samples;
+
+            assertThat(averageLimit, is(lessThanOrEqualTo((long) workers / 2)));
+            assertThat(averageLimit, is(greaterThanOrEqualTo((long) capacity / 2)));
+            assertThat(maxQueueDepth, is(greaterThan(0)));
+            assertThat(metrics.getRejected(), is(equalTo(0L)));
+        } finally {
+            executor.shutdownNow();
+            server.stop(0);
+        }
+    }
+
+    /**
+     * Complete as many calls as the limit allows, all at once, each taking the given round trip time.
+     */
+    private void saturate(ConcurrencyLimiter limiter, long rtt, boolean failed) throws IOException {
+        int limit = limiter.getLimit();
+        long[] starts = new long[limit];
+        for (int i = 0; i < limit; i++) {
+            starts[i] = limiter.acquire();
+        }
+        clock.addAndGet(rtt);
+        for (long start : starts) {
+            limiter.release(start, failed);
+        }
+    }
+
+    private ConcurrencyLimiter limiter(int initialLimit, int maxLimit, int maxQueueDepth) {
+        return new ConcurrencyLimiter(new ConcurrencyLimitPolicy.Builder()
+                                          .setInitialLimit(initialLimit)
+                                          .setMaxLimit(maxLimit)
+                                          .setMaxQueueDepth(maxQueueDepth)
+                                          .build(), clock::get);
+    }
+
+    private static void respond(HttpExchange exchange) throws IOException {
+        byte[] body = "{\"orderResponse\":{\"orderCode\":\"order-code\"}}".getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
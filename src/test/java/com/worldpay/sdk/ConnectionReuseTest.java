@@ -0,0 +1,107 @@
+package com.worldpay.sdk;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import com.worldpay.gateway.clearwater.client.core.exception.WorldpayException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Test that every response path leaves the connection reusable.
+ */
+public class ConnectionReuseTest {
+
+    private static final int CALLS = 30;
+
+    private HttpServer server;
+
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    @Before
+    public void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                clientPorts.add(exchange.getRemoteAddress().getPort());
+                String path = exchange.getRequestURI().getPath();
+                if (path.startsWith("/tokens/unknown")) {
+                    respond(exchange, 404, "{\"httpStatusCode\":404,\"customCode\":\"TKN_NOT_FOUND\",\"message\":\"not found\"}");
+                } else if (path.startsWith("/tokens")) {
+                    respond(exchange, 200, "{\"token\":\"valid-token\"}");
+                } else {
+                    respond(exchange, 200, "{\"ignored\":\"payload of a call without response type\"}");
+                }
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    public void urlConnectionTransportReusesOneSocketForSequentialCalls() throws IOException {
+        WorldpayRestClient client = createClient(TransportType.URL_CONNECTION);
+        callRepeatedly(client);
+        client.close();
+
+        assertThat("Sockets opened", clientPorts.size(), is(equalTo(1)));
+    }
+
+    @Test
+    public void pooledTransportReusesOneSocketForSequentialCalls() throws IOException {
+        WorldpayRestClient client = createClient(TransportType.POOLED);
+        callRepeatedly(client);
+
+        assertThat("Sockets opened", clientPorts.size(), is(equalTo(1)));
+        assertThat("New connections", client.getConnectionMetrics().getNewConnections(), is(equalTo(1L)));
+        assertThat("Reused connections", client.getConnectionMetrics().getReusedConnections(),
+                   is(equalTo((long) CALLS * 4 - 1)));
+        client.close();
+    }
+
+    private WorldpayRestClient createClient(TransportType transportType) {
+        return new WorldpayRestClient.Builder()
+            .setBaseUrl("http://localhost:" + server.getAddress().getPort())
+            .setServiceKey("T_S_KEY")
+            .setTransportType(transportType)
+            .build();
+    }
+
+    private void callRepeatedly(WorldpayRestClient client) {
+        for (int i = 0; i < CALLS; i++) {
+            assertThat(client.getTokenService().get("valid-token").getToken(), is(equalTo("valid-token")));
+            client.getOrderService().refund("order-code");
+            client.getOrderService().cancel("order-code");
+            try {
+                client.getTokenService().get("unknown");
+                fail("WorldpayException expected");
+            } catch (WorldpayException e) {
+                assertThat(e.getApiError().getCustomCode(), is(equalTo("TKN_NOT_FOUND")));
+            }
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
@@ -0,0 +1,185 @@
+package com.worldpay.sdk;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.worldpay.gateway.clearwater.client.core.dto.request.CaptureOrderRequest;
+import com.worldpay.gateway.clearwater.client.core.dto.response.OrderResponse;
+import com.worldpay.gateway.clearwater.client.core.exception.WorldpayException;
+import com.worldpay.gateway.clearwater.client.ui.dto.order.Transaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Test gzip compression of request and response payloads against a local stub, with every transport.
+ */
+@RunWith(Parameterized.class)
+public class GzipCompressionTest {
+
+    private static final String TRANSACTION = "{\"orderResponse\":{\"orderCode\":\"order-code\","
+                                              + "\"orderDescription\":\"" + repeat("Goods and services ", 200)
+                                              + "\",\"amount\":1999,\"paymentStatus\":\"SUCCESS\"}}";
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> transports() {
+        return Arrays.asList(new Object[][] {{TransportType.URL_CONNECTION}, {TransportType.POOLED},
+                                             {TransportType.HTTP2}});
+    }
+
+    private final TransportType transportType;
+
+    private HttpServer server;
+
+    private volatile String acceptEncoding;
+
+    private volatile String requestEncoding;
+
+    private volatile String requestBody;
+
+    public GzipCompressionTest(TransportType transportType) {
+        this.transportType = transportType;
+    }
+
+    @Before
+    public void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    @After
+    public void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    public void gzipResponseIsDecompressed() {
+        Transaction transaction = createClient(-1).getOrderService().findOrder("order-code");
+
+        assertThat(acceptEncoding, is(equalTo("gzip")));
+        assertThat(transaction.getOrderResponse().getOrderCode(), is(equalTo("order-code")));
+        assertThat(transaction.getOrderResponse().getOrderDescription().length(), is(equalTo(19 * 200)));
+    }
+
+    @Test
+    public void gzipErrorResponseIsDecompressed() {
+        try {
+            createClient(-1).getOrderService().cancel("unknown");
+            fail("WorldpayException expected");
+        } catch (WorldpayException e) {
+            assertThat(e.getApiError().getCustomCode(), is(equalTo("ORDER_NOT_FOUND")));
+        }
+    }
+
+    @Test
+    public void rawResponseIsDecompressed() throws IOException {
+        try (RawResponse response = createClient(-1).getOrderService().findOrderRaw("order-code");
+             InputStream body = response.getBody()) {
+            assertThat(response.getHeader("Content-Encoding"), is(nullValue()));
+            assertThat(new String(body.readAllBytes(), StandardCharsets.UTF_8), is(equalTo(TRANSACTION)));
+        }
+    }
+
+    @Test
+    public void requestAboveThresholdIsCompressed() {
+        OrderResponse orderResponse = createClient(0).getOrderService().capture(captureRequest(), "order-code");
+
+        assertThat(orderResponse.getOrderCode(), is(equalTo("order-code")));
+        assertThat(requestEncoding, is(equalTo("gzip")));
+        assertThat(requestBody, is(equalTo("{\"captureAmount\":500}")));
+    }
+
+    @Test
+    public void requestBelowThresholdIsSentAsIs() {
+        createClient(1024).getOrderService().capture(captureRequest(), "order-code");
+
+        assertThat(requestEncoding, is(nullValue()));
+        assertThat(requestBody, is(equalTo("{\"captureAmount\":500}")));
+    }
+
+    @Test
+    public void streamedRequestIsCompressed() {
+        WorldpayRestClient client = new WorldpayRestClient.Builder()
+            .setBaseUrl("http://localhost:" + server.getAddress().getPort())
+            .setServiceKey("T_S_KEY")
+            .setTransportType(transportType)
+            .setStreamingMode(StreamingMode.CHUNKED)
+            .setRequestCompressionThreshold(1024)
+            .build();
+
+        client.getOrderService().capture(captureRequest(), "order-code");
+
+        assertThat(requestEncoding, is(equalTo("gzip")));
+        assertThat(requestBody, is(equalTo("{\"captureAmount\":500}")));
+    }
+
+    private WorldpayRestClient createClient(int requestCompressionThreshold) {
+        return new WorldpayRestClient.Builder()
+            .setBaseUrl("http://localhost:" + server.getAddress().getPort())
+            .setServiceKey("T_S_KEY")
+            .setTransportType(transportType)
+            .setRequestCompressionThreshold(requestCompressionThreshold)
+            .build();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        requestEncoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        InputStream in = exchange.getRequestBody();
+        if ("gzip".equals(requestEncoding)) {
+            in = new GZIPInputStream(in);
+        }
+        requestBody = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        String path = exchange.getRequestURI().getPath();
+        if (path.endsWith("/capture")) {
+            respond(exchange, 200, "{\"orderCode\":\"order-code\"}");
+        } else if (path.endsWith("/unknown")) {
+            respond(exchange, 404, "{\"httpStatusCode\":404,\"customCode\":\"ORDER_NOT_FOUND\"}");
+        } else {
+            respond(exchange, 200, TRANSACTION);
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            gzip.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+        exchange.sendResponseHeaders(status, bytes.size());
+        exchange.getResponseBody().write(bytes.toByteArray());
+        exchange.close();
+    }
+
+    private static CaptureOrderRequest captureRequest() {
+        CaptureOrderRequest captureOrderRequest = new CaptureOrderRequest();
+        captureOrderRequest.setCaptureAmount(500);
+        return captureOrderRequest;
+    }
+
+    private static String repeat(String text, int times) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            builder.append(text);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,274 @@
+package com.worldpay.sdk;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.worldpay.gateway.clearwater.client.core.dto.request.OrderRequest;
+import com.worldpay.gateway.clearwater.client.ui.dto.order.Transaction;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Test {@link Hedger}.
+ */
+public class HedgerTest {
+
+    private static final String TRANSACTION = "{\"orderResponse\":{\"orderCode\":\"order-code\"}}";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort());
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void hedgeAnswersWhenTheFirstAttemptIsSlow() throws Exception {
+        Hedger hedger = hedger(new HedgePolicy.Builder().setInitialDelay(20).build());
+        TransportResponse fast = new StubResponse();
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AtomicInteger attempts = new AtomicInteger();
+
+        long start = System.nanoTime();
+        TransportResponse response = hedger.execute(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    interrupted.countDown();
+                }
+                return new StubResponse();
+            }
+            return fast;
+        });
+
+        assertThat(response, is(sameInstance(fast)));
+        assertThat(System.nanoTime() - start, is(lessThan(TimeUnit.SECONDS.toNanos(5))));
+        assertThat(hedger.getHedges(), is(equalTo(1L)));
+        assertTrue("The losing attempt is cancelled", interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void losingAttemptKnowsItWasCancelled() throws Exception {
+        Hedger hedger = hedger(new HedgePolicy.Builder().setInitialDelay(20).build());
+        CountDownLatch interrupted = new CountDownLatch(1);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicBoolean winnerCancelled = new AtomicBoolean(true);
+        AtomicInteger attempts = new AtomicInteger();
+
+        hedger.execute(() -> {
+            if (attempts.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(10000);
+                } catch (InterruptedException e) {
+                    cancelled.set(Hedger.isCancelled());
+                    interrupted.countDown();
+                }
+                return new StubResponse();
+            }
+            winnerCancelled.set(Hedger.isCancelled());
+            return new StubResponse();
+        });
+
+        assertTrue("The losing attempt is cancelled", interrupted.await(5, TimeUnit.SECONDS));
+        assertThat(cancelled.get(), is(true));
+        assertThat(winnerCancelled.get(), is(false));
+        assertThat(Hedger.isCancelled(), is(false));
+    }
+
+    @Test
+    public void errorOfTheAttemptIsReported() throws Exception {
+        Hedger hedger = hedger(new HedgePolicy.Builder().setInitialDelay(1000).build());
+
+        try {
+            hedger.execute(() -> {
+                throw new NoClassDefFoundError("Missing");
+            });
+            fail("Error expected");
+        } catch (NoClassDefFoundError e) {
+            assertThat(e.getMessage(), is(equalTo("Missing")));
+        }
+    }
+
+    @Test
+    public void fastAttemptIsNotHedged() throws Exception {
+        Hedger hedger = hedger(new HedgePolicy.Builder().setInitialDelay(1000).build());
+        AtomicInteger attempts = new AtomicInteger();
+
+        hedger.execute(() -> {
+            attempts.incrementAndGet();
+            return new StubResponse();
+        });
+
+        assertThat(attempts.get(), is(equalTo(1)));
+        assertThat(hedger.getHedges(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void failureIsReportedOnceEveryAttemptFailed() throws Exception {
+        Hedger hedger = hedger(new HedgePolicy.Builder().setInitialDelay(5).build());
+        AtomicInteger attempts = new AtomicInteger();
+
+        try {
+            hedger.execute(() -> {
+                if (attempts.incrementAndGet() == 1) {
+                    Thread.sleep(100);
+                }
+                throw new SocketException("Connection reset " + attempts.get());
+            });
+            fail("IOException expected");
+        } catch (SocketException e) {
+            assertThat(attempts.get(), is(equalTo(2)));
+        }
+    }
+
+    @Test
+    public void hedgeRateIsCapped() throws Exception {
+        Hedger hedger = hedger(new HedgePolicy.Builder().setInitialDelay(1).setMinDelay(1).setMaxHedgeRate(10)
+                                   .build());
+
+        for (int i = 0; i < 100; i++) {
+            hedger.execute(() -> {
+                Thread.sleep(5);
+                return new StubResponse();
+            });
+        }
+
+        assertThat(hedger.getHedges(), is(greaterThanOrEqualTo(10L)));
+        assertThat("A burst of 10 then 10 per hundred calls", hedger.getHedges(), is(lessThanOrEqualTo(20L)));
+    }
+
+    @Test
+    public void delayFollowsThePercentileOfTheLatency() throws Exception {
+        Hedger hedger = hedger(new HedgePolicy.Builder().setInitialDelay(1000).setMinDelay(2).build());
+        assertThat(hedger.getDelayNanos(), is(equalTo(TimeUnit.SECONDS.toNanos(1))));
+
+        for (int i = 0; i < 128; i++) {
+            hedger.execute(StubResponse::new);
+        }
+
+        assertThat(hedger.getDelayNanos(), is(equalTo(TimeUnit.MILLISECONDS.toNanos(2))));
+    }
+
+    @Test
+    public void slowFindOrderIsHedged() {
+        stubFor(get(urlEqualTo("/orders/order-code")).inScenario("hedge").whenScenarioStateIs(STARTED)
+                    .willReturn(aResponse().withStatus(200).withBody(TRANSACTION).withFixedDelay(3000))
+                    .willSetStateTo("slow connection"));
+        stubFor(get(urlEqualTo("/orders/order-code")).inScenario("hedge").whenScenarioStateIs("slow connection")
+                    .willReturn(aResponse().withStatus(200).withBody(TRANSACTION)));
+
+        long start = System.nanoTime();
+        Transaction transaction = client().getOrderService().findOrder("order-code");
+
+        assertThat(transaction.getOrderResponse().getOrderCode(), is(equalTo("order-code")));
+        assertThat(System.nanoTime() - start, is(lessThan(TimeUnit.MILLISECONDS.toNanos(2500))));
+    }
+
+    @Test
+    public void asyncFindOrderCompletesOnASingleThreadExecutor() throws Exception {
+        stubFor(get(urlEqualTo("/orders/order-code")).inScenario("hedge").whenScenarioStateIs(STARTED)
+                    .willReturn(aResponse().withStatus(200).withBody(TRANSACTION).withFixedDelay(3000))
+                    .willSetStateTo("slow connection"));
+        stubFor(get(urlEqualTo("/orders/order-code")).inScenario("hedge").whenScenarioStateIs("slow connection")
+                    .willReturn(aResponse().withStatus(200).withBody(TRANSACTION)));
+        ExecutorService singleThread = Executors.newSingleThreadExecutor();
+        try {
+            WorldpayRestClient client = new WorldpayRestClient.Builder()
+                .setBaseUrl("http://localhost:" + wireMockRule.port())
+                .setServiceKey("T_S_KEY")
+                .setExecutor(singleThread)
+                .setHedgePolicy(new HedgePolicy.Builder().setInitialDelay(50).build())
+                .build();
+
+            Transaction transaction = client.getOrderService().findOrderAsync("order-code").get(2500,
+                                                                                                TimeUnit.MILLISECONDS);
+
+            assertThat(transaction.getOrderResponse().getOrderCode(), is(equalTo("order-code")));
+        } finally {
+            singleThread.shutdownNow();
+        }
+    }
+
+    @Test
+    public void postIsNotHedged() {
+        stubFor(post(urlEqualTo("/orders"))
+                    .willReturn(aResponse().withStatus(200).withBody("{\"orderCode\":\"order-code\"}")
+                                    .withFixedDelay(300)));
+
+        client().getOrderService().create(new OrderRequest());
+
+        verify(1, postRequestedFor(urlEqualTo("/orders")));
+        verify(0, getRequestedFor(urlEqualTo("/orders")));
+    }
+
+    private WorldpayRestClient client() {
+        return new WorldpayRestClient.Builder()
+            .setBaseUrl("http://localhost:" + wireMockRule.port())
+            .setServiceKey("T_S_KEY")
+            .setExecutor(executor)
+            .setHedgePolicy(new HedgePolicy.Builder().setInitialDelay(50).build())
+            .build();
+    }
+
+    private Hedger hedger(HedgePolicy policy) {
+        return new Hedger(policy, executor);
+    }
+
+    /**
+     * Empty response.
+     */
+    private static class StubResponse implements TransportResponse {
+
+        @Override
+        public int getStatusCode() {
+            return 200;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return null;
+        }
+
+        @Override
+        public InputStream getBody() {
+            return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+}
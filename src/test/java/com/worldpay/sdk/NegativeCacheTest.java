@@ -0,0 +1,116 @@
+package com.worldpay.sdk;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.worldpay.gateway.clearwater.client.core.dto.ApiError;
+import com.worldpay.gateway.clearwater.client.core.exception.WorldpayException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Test the negative cache of {@link Http}.
+ */
+public class NegativeCacheTest {
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort());
+
+    private WorldpayRestClient client;
+
+    @Before
+    public void setUp() {
+        client = new WorldpayRestClient.Builder()
+            .setBaseUrl("http://localhost:" + wireMockRule.port())
+            .setServiceKey("T_S_KEY")
+            .setNegativeCachePolicy(new NegativeCachePolicy.Builder().build())
+            .build();
+    }
+
+    @Test
+    public void unknownTokenFailsFastWithSameApiError() {
+        stubFor(get(urlEqualTo("/tokens/junk"))
+                    .willReturn(aResponse().withStatus(404)
+                                    .withBody("{\"httpStatusCode\":404,\"customCode\":\"TKN_NOT_FOUND\","
+                                              + "\"message\":\"Token not found\",\"originalRequest\":\"GET\"}")));
+        TokenService tokenService = client.getTokenService();
+
+        WorldpayException first = getToken(tokenService, "junk");
+        WorldpayException second = getToken(tokenService, "junk");
+
+        verify(1, getRequestedFor(urlEqualTo("/tokens/junk")));
+        ApiError error = second.getApiError();
+        assertThat(error.getHttpStatusCode(), is(equalTo(404)));
+        assertThat(error.getCustomCode(), is(equalTo("TKN_NOT_FOUND")));
+        assertThat(error.getMessage(), is(equalTo("Token not found")));
+        assertThat(error.getOriginalRequest(), is(nullValue()));
+        assertThat(second.getMessage(), is(equalTo(first.getMessage())));
+    }
+
+    @Test
+    public void unknownOrderFailsFast() {
+        stubFor(get(urlEqualTo("/orders/junk"))
+                    .willReturn(aResponse().withStatus(404)
+                                    .withBody("{\"httpStatusCode\":404,\"customCode\":\"ORDER_NOT_FOUND\"}")));
+        OrderService orderService = client.getOrderService();
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                orderService.findOrder("junk");
+                fail("WorldpayException expected");
+            } catch (WorldpayException e) {
+                assertThat(e.getApiError().getCustomCode(), is(equalTo("ORDER_NOT_FOUND")));
+            }
+        }
+        verify(1, getRequestedFor(urlEqualTo("/orders/junk")));
+    }
+
+    @Test
+    public void otherErrorsAreNotRemembered() {
+        stubFor(get(urlEqualTo("/tokens/token-id"))
+                    .willReturn(aResponse().withStatus(400)
+                                    .withBody("{\"httpStatusCode\":400,\"customCode\":\"BAD_REQUEST\"}")));
+        TokenService tokenService = client.getTokenService();
+
+        getToken(tokenService, "token-id");
+        getToken(tokenService, "token-id");
+
+        verify(2, getRequestedFor(urlEqualTo("/tokens/token-id")));
+    }
+
+    @Test
+    public void knownTokensAreStillRequested() {
+        stubFor(get(urlEqualTo("/tokens/junk"))
+                    .willReturn(aResponse().withStatus(404)
+                                    .withBody("{\"httpStatusCode\":404,\"customCode\":\"TKN_NOT_FOUND\"}")));
+        stubFor(get(urlEqualTo("/tokens/token-id"))
+                    .willReturn(aResponse().withStatus(200).withBody("{\"token\":\"token-id\"}")));
+        TokenService tokenService = client.getTokenService();
+        getToken(tokenService, "junk");
+
+        assertThat(tokenService.get("token-id").getToken(), is(equalTo("token-id")));
+        assertThat(tokenService.get("token-id").getToken(), is(equalTo("token-id")));
+        verify(2, getRequestedFor(urlEqualTo("/tokens/token-id")));
+    }
+
+    private static WorldpayException getToken(TokenService tokenService, String token) {
+        try {
+            tokenService.get(token);
+        } catch (WorldpayException e) {
+            return e;
+        }
+        throw new AssertionError("WorldpayException expected");
+    }
+}
@@ -0,0 +1,109 @@
+package com.worldpay.sdk;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.worldpay.gateway.clearwater.client.core.exception.WorldpayException;
+import com.worldpay.gateway.clearwater.client.ui.dto.order.Transaction;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.delete;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Test the future returning methods of {@link OrderService}.
+ */
+public class OrderServiceAsyncTest {
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort());
+
+    private ExecutorService executor;
+
+    private OrderService orderService;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(2);
+        orderService = new WorldpayRestClient("http://localhost:" + wireMockRule.port(), "T_S_KEY").getOrderService();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void findOrderAsyncCompletesWithTheTransaction() throws Exception {
+        stubFor(get(urlEqualTo("/orders/order-code"))
+                    .willReturn(aResponse().withStatus(200)
+                                    .withBody("{\"orderResponse\":{\"orderCode\":\"order-code\"}}")));
+
+        Transaction transaction = orderService.findOrderAsync("order-code", executor).get(5, TimeUnit.SECONDS);
+
+        assertThat(transaction.getOrderResponse().getOrderCode(), is(equalTo("order-code")));
+    }
+
+    @Test
+    public void cancelAsyncCompletesExceptionallyWithTheApiError() throws Exception {
+        stubFor(delete(urlEqualTo("/orders/order-code"))
+                    .willReturn(aResponse().withStatus(400)
+                                    .withBody("{\"httpStatusCode\":400,\"customCode\":\"ORDER_NOT_CANCELLABLE\"}")));
+
+        CompletableFuture<Void> future = orderService.cancelAsync("order-code", executor);
+
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("ExecutionException expected");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), is(instanceOf(WorldpayException.class)));
+            assertThat(((WorldpayException) e.getCause()).getApiError().getCustomCode(),
+                       is(equalTo("ORDER_NOT_CANCELLABLE")));
+        }
+    }
+
+    @Test
+    public void errorOfTheCallCompletesExceptionally() throws Exception {
+        CompletableFuture<Object> future = orderService.async(() -> {
+            throw new NoClassDefFoundError("Missing");
+        }, executor);
+
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("ExecutionException expected");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), is(instanceOf(NoClassDefFoundError.class)));
+        }
+    }
+
+    @Test
+    public void rejectedCallCompletesExceptionallyWithWorldpayException() throws Exception {
+        executor.shutdown();
+
+        CompletableFuture<Transaction> future = orderService.findOrderAsync("order-code", executor);
+
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            fail("ExecutionException expected");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause(), is(instanceOf(WorldpayException.class)));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.worldpay.sdk;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.worldpay.gateway.clearwater.client.core.dto.request.CaptureOrderRequest;
+import com.worldpay.gateway.clearwater.client.core.dto.response.OrderResponse;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalToJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlMatching;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test the batch methods of {@link OrderService}.
+ */
+public class OrderServiceBatchTest {
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort());
+
+    private OrderService orderService;
+
+    @Before
+    public void setUp() {
+        orderService = new WorldpayRestClient("http://localhost:" + wireMockRule.port(), "T_S_KEY").getOrderService();
+    }
+
+    @Test
+    public void captureAllReturnsEveryOutcomeWithinTheConcurrencyCap() {
+        stubFor(post(urlMatching("/orders/.*/capture"))
+                    .willReturn(aResponse().withStatus(200).withFixedDelay(100)
+                                    .withBody("{\"orderCode\":\"captured\",\"paymentStatus\":\"SUCCESS\"}")));
+        stubFor(post(urlEqualTo("/orders/order-3/capture"))
+                    .willReturn(aResponse().withStatus(400).withFixedDelay(100)
+                                    .withBody("{\"httpStatusCode\":400,\"customCode\":\"ORDER_NOT_FOUND\"}")));
+        Map<String, CaptureOrderRequest> captures = new LinkedHashMap<>();
+        for (int i = 0; i < 8; i++) {
+            captures.put("order-" + i, new CaptureOrderRequest());
+        }
+
+        long start = System.currentTimeMillis();
+        List<OperationResult<Map.Entry<String, CaptureOrderRequest>, OrderResponse>> results =
+            orderService.captureAll(captures.entrySet(), 2);
+        long elapsed = System.currentTimeMillis() - start;
+
+        assertThat(results.size(), is(equalTo(8)));
+        assertThat(elapsed, is(greaterThanOrEqualTo(400L)));
+        for (OperationResult<Map.Entry<String, CaptureOrderRequest>, OrderResponse> result : results) {
+            if ("order-3".equals(result.getInput().getKey())) {
+                assertThat(result.isSuccess(), is(false));
+                assertThat(result.getApiError().getCustomCode(), is(equalTo("ORDER_NOT_FOUND")));
+            } else {
+                assertThat(result.getResponse().getPaymentStatus(), is(equalTo("SUCCESS")));
+            }
+        }
+    }
+
+    @Test
+    public void refundAllHandsEveryOutcomeToTheSink() {
+        stubFor(post(urlMatching("/orders/.*/refund")).willReturn(aResponse().withStatus(200)));
+        Map<String, Integer> refunds = new LinkedHashMap<>();
+        refunds.put("order-full", null);
+        refunds.put("order-partial", 50);
+        List<OperationResult<Map.Entry<String, Integer>, Void>> results = new ArrayList<>();
+
+        orderService.refundAll(refunds.entrySet(), 4, results::add);
+
+        assertThat(results.size(), is(equalTo(2)));
+        assertThat(results.get(0).isSuccess() && results.get(1).isSuccess(), is(true));
+        verify(postRequestedFor(urlEqualTo("/orders/order-partial/refund"))
+                   .withRequestBody(equalToJson("{\"refundAmount\":50}")));
+        verify(postRequestedFor(urlEqualTo("/orders/order-full/refund")));
+    }
+}
@@ -0,0 +1,153 @@
+package com.worldpay.sdk;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.worldpay.gateway.clearwater.client.core.dto.request.CaptureOrderRequest;
+import com.worldpay.gateway.clearwater.client.core.dto.request.OrderRequest;
+import com.worldpay.gateway.clearwater.client.core.dto.response.OrderResponse;
+import com.worldpay.gateway.clearwater.client.core.exception.WorldpayException;
+import com.worldpay.gateway.clearwater.client.ui.dto.order.Transaction;
+import com.worldpay.sdk.cache.TinyLfuCache;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.delete;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Test the order cache of {@link OrderService}.
+ */
+public class OrderServiceCacheTest {
+
+    private static final String ORDER = "{\"orderCode\":\"order-code\",\"paymentStatus\":\"%s\"}";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort());
+
+    private final TinyLfuCache<String, Transaction> cache = new TinyLfuCache.Builder<String, Transaction>()
+        .setMaximumSize(100)
+        .setExpireAfterWrite(60000)
+        .build();
+
+    private OrderService orderService;
+
+    @Before
+    public void setUp() {
+        orderService = new WorldpayRestClient.Builder()
+            .setBaseUrl("http://localhost:" + wireMockRule.port())
+            .setServiceKey("T_S_KEY")
+            .setOrderCache(cache)
+            .build()
+            .getOrderService();
+        stubFor(get(urlEqualTo("/orders/order-code"))
+                    .willReturn(aResponse().withStatus(200)
+                                    .withBody("{\"orderResponse\":" + String.format(ORDER, "AUTHORIZED") + "}")));
+    }
+
+    @Test
+    public void foundOrderIsRequestedOnce() {
+        Transaction first = orderService.findOrder("order-code");
+        Transaction second = orderService.findOrder("order-code");
+
+        assertThat(second, is(sameInstance(first)));
+        verify(1, getRequestedFor(urlEqualTo("/orders/order-code")));
+    }
+
+    @Test
+    public void createdOrderIsWrittenThrough() {
+        stubFor(post(urlEqualTo("/orders"))
+                    .willReturn(aResponse().withStatus(200).withBody(String.format(ORDER, "AUTHORIZED"))));
+
+        orderService.create(new OrderRequest());
+        Transaction transaction = orderService.findOrder("order-code");
+
+        assertThat(transaction.getOrderResponse().getOrderCode(), is(equalTo("order-code")));
+        verify(0, getRequestedFor(urlEqualTo("/orders/order-code")));
+    }
+
+    @Test
+    public void captureReplacesCachedOrder() {
+        stubFor(post(urlEqualTo("/orders/order-code/capture"))
+                    .willReturn(aResponse().withStatus(200).withBody(String.format(ORDER, "SUCCESS"))));
+        orderService.findOrder("order-code");
+
+        orderService.capture(new CaptureOrderRequest(), "order-code");
+
+        assertThat(orderService.findOrder("order-code").getOrderResponse().getPaymentStatus(),
+                   is(equalTo("SUCCESS")));
+        verify(1, getRequestedFor(urlEqualTo("/orders/order-code")));
+    }
+
+    @Test
+    public void refundInvalidatesCachedOrder() {
+        stubFor(post(urlEqualTo("/orders/order-code/refund")).willReturn(aResponse().withStatus(200)));
+        orderService.findOrder("order-code");
+
+        orderService.refund("order-code");
+        orderService.findOrder("order-code");
+
+        verify(2, getRequestedFor(urlEqualTo("/orders/order-code")));
+    }
+
+    @Test
+    public void orderFoundBeforeARefundIsNotCached() throws Exception {
+        stubFor(get(urlEqualTo("/orders/order-code"))
+                    .willReturn(aResponse().withStatus(200).withFixedDelay(500)
+                                    .withBody("{\"orderResponse\":" + String.format(ORDER, "AUTHORIZED") + "}")));
+        stubFor(post(urlEqualTo("/orders/order-code/refund")).willReturn(aResponse().withStatus(200)));
+        CompletableFuture<Transaction> stale =
+            CompletableFuture.supplyAsync(() -> orderService.findOrder("order-code"));
+        Thread.sleep(200);
+
+        orderService.refund("order-code");
+
+        assertThat(stale.get(5, TimeUnit.SECONDS).getOrderResponse().getPaymentStatus(), is(equalTo("AUTHORIZED")));
+        assertThat(cache.size(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void captureAnsweredBeforeARefundIsNotCached() throws Exception {
+        stubFor(post(urlEqualTo("/orders/order-code/capture"))
+                    .willReturn(aResponse().withStatus(200).withFixedDelay(500)
+                                    .withBody(String.format(ORDER, "SUCCESS"))));
+        stubFor(post(urlEqualTo("/orders/order-code/refund")).willReturn(aResponse().withStatus(200)));
+        CompletableFuture<OrderResponse> capture =
+            CompletableFuture.supplyAsync(() -> orderService.capture(new CaptureOrderRequest(), "order-code"));
+        Thread.sleep(200);
+
+        orderService.refund("order-code");
+
+        assertThat(capture.get(5, TimeUnit.SECONDS).getPaymentStatus(), is(equalTo("SUCCESS")));
+        assertThat(cache.size(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void failedCancelInvalidatesCachedOrder() {
+        stubFor(delete(urlEqualTo("/orders/order-code"))
+                    .willReturn(aResponse().withStatus(400)
+                                    .withBody("{\"httpStatusCode\":400,\"customCode\":\"ORDER_NOT_CANCELLABLE\"}")));
+        orderService.findOrder("order-code");
+
+        try {
+            orderService.cancel("order-code");
+            fail("WorldpayException expected");
+        } catch (WorldpayException e) {
+            assertThat(cache.size(), is(equalTo(0L)));
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.worldpay.sdk;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.worldpay.gateway.clearwater.client.core.dto.request.OrderRequest;
+import com.worldpay.gateway.clearwater.client.core.dto.response.OrderResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test the {@link Flow.Publisher} methods of {@link OrderService}.
+ */
+public class OrderServicePublisherTest {
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort());
+
+    private ExecutorService executor;
+
+    private OrderService orderService;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+        orderService = new WorldpayRestClient("http://localhost:" + wireMockRule.port(), "T_S_KEY").getOrderService();
+        stubFor(post(urlEqualTo("/orders"))
+                    .willReturn(aResponse().withStatus(200).withBody("{\"orderCode\":\"order-code\"}")));
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void createAllOnlyCallsTheGatewayForRequestedResults() throws Exception {
+        ListPublisher source = new ListPublisher(orderRequests("token-", 10));
+        RecordingSubscriber subscriber = new RecordingSubscriber(10);
+
+        orderService.createAll(source, 4, executor).subscribe(subscriber);
+        subscriber.request(2);
+        subscriber.awaitResults(2);
+        Thread.sleep(200);
+
+        assertThat(source.getRequested(), is(equalTo(2L)));
+        assertThat(subscriber.results.size(), is(equalTo(2)));
+        verify(2, postRequestedFor(urlEqualTo("/orders")));
+
+        subscriber.request(Long.MAX_VALUE);
+
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+        assertThat(subscriber.results.size(), is(equalTo(10)));
+        verify(10, postRequestedFor(urlEqualTo("/orders")));
+    }
+
+    @Test
+    public void createAllPublishesFailedOrdersAndCarriesOn() throws Exception {
+        stubFor(post(urlEqualTo("/orders")).withRequestBody(containing("declined"))
+                    .willReturn(aResponse().withStatus(400)
+                                    .withBody("{\"httpStatusCode\":400,\"customCode\":\"TKN_NOT_FOUND\"}")));
+        List<OrderRequest> orderRequests = orderRequests("token-", 3);
+        orderRequests.addAll(orderRequests("declined-", 1));
+        RecordingSubscriber subscriber = new RecordingSubscriber(4);
+
+        orderService.createAll(new ListPublisher(orderRequests), 2, executor).subscribe(subscriber);
+        subscriber.request(Long.MAX_VALUE);
+
+        assertTrue(subscriber.completed.await(5, TimeUnit.SECONDS));
+        int failures = 0;
+        for (OperationResult<OrderRequest, OrderResponse> result : subscriber.results) {
+            if (result.isSuccess()) {
+                assertThat(result.getResponse().getOrderCode(), is(equalTo("order-code")));
+            } else {
+                failures++;
+                assertThat(result.getInput().getToken(), is(equalTo("declined-0")));
+                assertThat(result.getApiError().getCustomCode(), is(equalTo("TKN_NOT_FOUND")));
+            }
+        }
+        assertThat(failures, is(equalTo(1)));
+    }
+
+    private static List<OrderRequest> orderRequests(String tokenPrefix, int count) {
+        List<OrderRequest> orderRequests = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            OrderRequest orderRequest = new OrderRequest();
+            orderRequest.setToken(tokenPrefix + i);
+            orderRequest.setAmount(100);
+            orderRequests.add(orderRequest);
+        }
+        return orderRequests;
+    }
+
+    /**
+     * Publishes a list synchronously on request and records the total demand it received.
+     */
+    private static class ListPublisher implements Flow.Publisher<OrderRequest> {
+
+        private final List<OrderRequest> items;
+
+        private final AtomicLong requested = new AtomicLong();
+
+        ListPublisher(List<OrderRequest> items) {
+            this.items = items;
+        }
+
+        long getRequested() {
+            return requested.get();
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super OrderRequest> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                private int next;
+
+                @Override
+                public synchronized void request(long n) {
+                    requested.addAndGet(n);
+                    for (long i = 0; i < n && next < items.size(); i++) {
+                        subscriber.onNext(items.get(next++));
+                    }
+                    if (next == items.size()) {
+                        next++;
+                        subscriber.onComplete();
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+        }
+    }
+
+    private static class RecordingSubscriber implements Flow.Subscriber<OperationResult<OrderRequest, OrderResponse>> {
+
+        private final List<OperationResult<OrderRequest, OrderResponse>> results = new CopyOnWriteArrayList<>();
+
+        private final CountDownLatch completed = new CountDownLatch(1);
+
+        private final CountDownLatch[] received;
+
+        private volatile Flow.Subscription subscription;
+
+        RecordingSubscriber(int expected) {
+            received = new CountDownLatch[expected + 1];
+            for (int i = 0; i <= expected; i++) {
+                received[i] = new CountDownLatch(i);
+            }
+        }
+
+        void request(long n) {
+            subscription.request(n);
+        }
+
+        void awaitResults(int count) throws InterruptedException {
+            assertTrue(received[count].await(5, TimeUnit.SECONDS));
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(OperationResult<OrderRequest, OrderResponse> item) {
+            results.add(item);
+            for (CountDownLatch latch : received) {
+                latch.countDown();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.worldpay.sdk;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.worldpay.gateway.clearwater.client.core.dto.response.OrderResponse;
+import com.worldpay.gateway.clearwater.client.core.exception.WorldpayException;
+import com.worldpay.gateway.clearwater.client.ui.dto.order.Transaction;
+import com.worldpay.sdk.util.JacksonJsonCodec;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test {@link OrderView}.
+ */
+public class OrderViewTest {
+
+    private static final String ORDER_RESPONSE = "{\"customerIdentifiers\":{\"orderCode\":\"nested\",\"amount\":1},"
+                                                 + "\"token\":\"TEST_RU_8a8d\",\"orderDescription\":\"[{\\\"}\","
+                                                 + "\"authorizedAmount\":1999,\"amount\":1999,"
+                                                 + "\"orderCode\":\"a1b2c3d4-e5f6\",\"paymentStatus\":\"SUCCESS\"}";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort());
+
+    private final JacksonJsonCodec codec = new JacksonJsonCodec();
+
+    @Test
+    public void decodesTheSameValuesAsTheOrderResponse() throws IOException {
+        assertSameAsOrderResponse(ORDER_RESPONSE);
+        assertSameAsOrderResponse("{\"orderCode\":\"caf\\u00e9 \\\"\\/\\\\ \\n\",\"paymentStatus\":\"\u00e9t\u00e9\","
+                                  + "\"amount\":-42}");
+        assertSameAsOrderResponse(" {\n  \"amount\" : 12.0 ,\n  \"orderCode\" : null,\n  \"paymentStatus\" :"
+                                  + " \"FAILED\" ,\"unknown\":[[1,{\"a\":[]}],true,null]\n}\n");
+        assertSameAsOrderResponse("{\"amount\":\"250\"}");
+        assertSameAsOrderResponse("{}");
+    }
+
+    @Test
+    public void decodesTheOrderResponseOfATransaction() throws IOException {
+        String json = "{\"environment\":\"TEST\",\"orderResponse\":" + ORDER_RESPONSE + "}";
+        Transaction transaction = codec.read(json, Transaction.class);
+
+        OrderView view = new OrderView().wrap(bytes(json));
+
+        assertThat(view.getOrderCode(), is(equalTo(transaction.getOrderResponse().getOrderCode())));
+        assertThat(view.getPaymentStatus(), is(equalTo(transaction.getOrderResponse().getPaymentStatus())));
+        assertThat(view.getAmount(), is(equalTo(transaction.getOrderResponse().getAmount())));
+        assertThat(view.getString("token"), is(equalTo("TEST_RU_8a8d")));
+        assertThat(view.getInteger("authorizedAmount"), is(equalTo(1999)));
+    }
+
+    @Test
+    public void wrapInvalidatesTheDecodedValues() {
+        OrderView view = new OrderView().wrap(bytes(ORDER_RESPONSE));
+        assertThat(view.getOrderCode(), is(equalTo("a1b2c3d4-e5f6")));
+
+        byte[] padded = bytes("xx{\"orderCode\":\"other\"}xx");
+        view.wrap(padded, 2, padded.length - 4);
+
+        assertThat(view.getOrderCode(), is(equalTo("other")));
+        assertThat(view.getAmount(), is(nullValue()));
+    }
+
+    @Test(expected = WorldpayException.class)
+    public void malformedPayloadIsRejected() {
+        new OrderView().wrap(bytes("{\"amount\":1999,\"orderCode\":\"unterminated}")).getOrderCode();
+    }
+
+    @Test
+    public void findOrderViewReusesTheView() {
+        stubFor(get(urlEqualTo("/orders/order-code"))
+                    .willReturn(aResponse().withStatus(200).withBody("{\"orderResponse\":" + ORDER_RESPONSE + "}")));
+        OrderService orderService = new WorldpayRestClient("http://localhost:" + wireMockRule.port(), "T_S_KEY")
+            .getOrderService();
+        OrderView view = new OrderView();
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(orderService.findOrderView("order-code", view), is(sameInstance(view)));
+            assertThat(view.getOrderCode(), is(equalTo("a1b2c3d4-e5f6")));
+            assertThat(view.getPaymentStatus(), is(equalTo("SUCCESS")));
+            assertThat(view.getAmount(), is(equalTo(1999)));
+        }
+    }
+
+    private void assertSameAsOrderResponse(String json) throws IOException {
+        OrderResponse orderResponse = codec.read(json, OrderResponse.class);
+
+        OrderView view = new OrderView().wrap(bytes(json));
+
+        assertThat(json, view.getOrderCode(), is(equalTo(orderResponse.getOrderCode())));
+        assertThat(json, view.getPaymentStatus(), is(equalTo(orderResponse.getPaymentStatus())));
+        assertThat(json, view.getAmount(), is(equalTo(orderResponse.getAmount())));
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
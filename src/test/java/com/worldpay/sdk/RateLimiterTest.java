@@ -0,0 +1,213 @@
+package com.worldpay.sdk;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Test {@link RateLimiter}.
+ */
+public class RateLimiterTest {
+
+    private static final long INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort());
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+
+    private final RateLimiter rateLimiter = new RateLimiter(new RateLimitPolicy.Builder()
+                                                                .setPermitsPerSecond(10)
+                                                                .setBurst(3)
+                                                                .setMaxWait(1000)
+                                                                .build(), clock::get);
+
+    @Test
+    public void burstIsLetThroughThenCallsArePaced() {
+        assertThat(rateLimiter.reserve(), is(0L));
+        assertThat(rateLimiter.reserve(), is(0L));
+        assertThat(rateLimiter.reserve(), is(0L));
+        assertThat(rateLimiter.reserve(), is(INTERVAL));
+        assertThat(rateLimiter.reserve(), is(2 * INTERVAL));
+
+        clock.addAndGet(10 * INTERVAL);
+        assertThat("The burst is available again after a quiet period", rateLimiter.reserve(), is(0L));
+        assertThat(rateLimiter.reserve(), is(0L));
+        assertThat(rateLimiter.reserve(), is(0L));
+    }
+
+    @Test
+    public void callBeyondTheMaximumWaitIsRejectedWithoutReservingASlot() {
+        for (int i = 0; i < 13; i++) {
+            rateLimiter.reserve();
+        }
+        try {
+            rateLimiter.reserve();
+            fail("RateLimitExceededException expected");
+        } catch (RateLimitExceededException e) {
+            assertThat(e.getRetryAfter(), is(1100L));
+        }
+
+        clock.addAndGet(INTERVAL);
+        assertThat(rateLimiter.reserve(), is(10 * INTERVAL));
+    }
+
+    @Test
+    public void concurrentCallsEachGetTheirOwnSlot() throws Exception {
+        RateLimiter unbounded = new RateLimiter(new RateLimitPolicy.Builder()
+                                                    .setPermitsPerSecond(1000)
+                                                    .setBurst(1)
+                                                    .setMaxWait(Long.MAX_VALUE / 2000000)
+                                                    .build(), clock::get);
+        int threads = 8;
+        int calls = 10000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Long>> tasks = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                tasks.add(() -> {
+                    long max = 0;
+                    for (int j = 0; j < calls; j++) {
+                        max = Math.max(max, unbounded.reserve());
+                    }
+                    return max;
+                });
+            }
+            long max = 0;
+            for (Future<Long> future : executor.invokeAll(tasks)) {
+                max = Math.max(max, future.get());
+            }
+
+            assertThat(max, is(TimeUnit.MILLISECONDS.toNanos(threads * calls - 1)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void retryAfterIsReadAsSecondsOrHttpDate() {
+        long now = 1445444940000L;
+
+        assertThat(RateLimiter.retryAfter("120", now), is(120000L));
+        assertThat(RateLimiter.retryAfter("Wed, 21 Oct 2015 16:29:30 GMT", now), is(30000L));
+        assertThat(RateLimiter.retryAfter("Wed, 21 Oct 2015 16:28:00 GMT", now), is(0L));
+        assertThat(RateLimiter.retryAfter("soon", now), is(-1L));
+        assertThat(RateLimiter.retryAfter(null, now), is(-1L));
+    }
+
+    @Test
+    public void retryAfterHoldsCallsBack() throws IOException {
+        rateLimiter.onResponse(response(429, "Retry-After", "2"));
+
+        assertRejected(2000);
+    }
+
+    @Test
+    public void exhaustedQuotaHoldsCallsBackUntilReset() throws IOException {
+        rateLimiter.onResponse(response(200, "X-RateLimit-Remaining", "0", "X-RateLimit-Reset", "3"));
+
+        assertRejected(3000);
+    }
+
+    @Test
+    public void remainingQuotaDoesNotHoldCallsBack() throws IOException {
+        rateLimiter.onResponse(response(200, "RateLimit-Remaining", "5", "RateLimit-Reset", "3"));
+
+        assertThat(rateLimiter.reserve(), is(0L));
+    }
+
+    @Test
+    public void throttledCallWithoutHintEmptiesTheBucket() throws IOException {
+        rateLimiter.onResponse(response(429));
+
+        assertThat(rateLimiter.reserve(), is(3 * INTERVAL));
+    }
+
+    @Test
+    public void serviceThrottlingHoldsBackTheNextCalls() {
+        stubFor(get(urlEqualTo("/orders/order-code"))
+                    .willReturn(aResponse().withStatus(429).withHeader("Retry-After", "5")
+                                    .withBody("{\"httpStatusCode\":429,\"customCode\":\"TOO_MANY_REQUESTS\"}")));
+        WorldpayRestClient client = new WorldpayRestClient.Builder()
+            .setBaseUrl("http://localhost:" + wireMockRule.port())
+            .setServiceKey("T_S_KEY")
+            .setRateLimitPolicy(new RateLimitPolicy.Builder().setMaxWait(100).build())
+            .build();
+
+        try {
+            client.getOrderService().findOrder("order-code");
+            fail("RateLimitExceededException expected");
+        } catch (RateLimitExceededException e) {
+            assertThat(e.getRetryAfter(), is(equalTo(5000L)));
+            assertThat(e.getApiError().getCustomCode(), is(equalTo("TOO_MANY_REQUESTS")));
+        }
+        try {
+            client.getOrderService().findOrder("order-code");
+            fail("RateLimitExceededException expected");
+        } catch (RateLimitExceededException e) {
+            assertThat(e.getApiError(), is(equalTo(null)));
+        }
+        verify(1, getRequestedFor(urlEqualTo("/orders/order-code")));
+    }
+
+    private void assertRejected(long retryAfter) {
+        try {
+            rateLimiter.reserve();
+            fail("RateLimitExceededException expected");
+        } catch (RateLimitExceededException e) {
+            assertThat(e.getRetryAfter(), is(retryAfter));
+        }
+    }
+
+    private static TransportResponse response(int statusCode, String... headers) {
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < headers.length; i += 2) {
+            values.put(headers[i], headers[i + 1]);
+        }
+        return new TransportResponse() {
+            @Override
+            public int getStatusCode() {
+                return statusCode;
+            }
+
+            @Override
+            public String getHeader(String name) {
+                return values.get(name);
+            }
+
+            @Override
+            public InputStream getBody() {
+                return null;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
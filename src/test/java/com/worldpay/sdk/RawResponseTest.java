@@ -0,0 +1,103 @@
+package com.worldpay.sdk;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.worldpay.gateway.clearwater.client.core.dto.request.CaptureOrderRequest;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test {@link RawResponse}.
+ */
+public class RawResponseTest {
+
+    private static final String TRANSACTION = "{\"orderResponse\":{\"orderCode\":\"order-code\"},\"unknown\":[1,2,3]}";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort());
+
+    private WorldpayRestClient restClient;
+
+    @Before
+    public void setUp() {
+        restClient = new WorldpayRestClient("http://localhost:" + wireMockRule.port(), "T_S_KEY");
+    }
+
+    @Test
+    public void findOrderRawReturnsStatusHeadersAndPayloadAsReceived() throws IOException {
+        stubFor(get(urlEqualTo("/orders/order-code"))
+                    .willReturn(aResponse().withStatus(200).withHeader("X-Request-Id", "abc")
+                                    .withBody(TRANSACTION)));
+
+        try (RawResponse response = restClient.getOrderService().findOrderRaw("order-code");
+             InputStream body = response.getBody()) {
+            assertThat(response.getStatusCode(), is(equalTo(200)));
+            assertThat(response.getHeader("x-request-id"), is(equalTo("abc")));
+            assertThat(response.getHeaders().get("X-REQUEST-ID"), contains("abc"));
+            assertThat(new String(body.readAllBytes(), StandardCharsets.UTF_8), is(equalTo(TRANSACTION)));
+        }
+    }
+
+    @Test
+    public void transferToWritesThePayloadToTheChannel() throws IOException {
+        StringBuilder payload = new StringBuilder("{\"token\":\"");
+        for (int i = 0; i < 5000; i++) {
+            payload.append("0123456789");
+        }
+        payload.append("\"}");
+        stubFor(get(urlEqualTo("/tokens/valid-token"))
+                    .willReturn(aResponse().withStatus(200).withBody(payload.toString())));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (RawResponse response = restClient.getTokenService().getRaw("valid-token")) {
+            long transferred = response.transferTo(Channels.newChannel(out));
+            assertThat(transferred, is(equalTo((long) payload.length())));
+        }
+
+        assertThat(out.toString(StandardCharsets.UTF_8), is(equalTo(payload.toString())));
+    }
+
+    @Test
+    public void errorStatusIsReturnedWithoutThrowing() throws IOException {
+        String error = "{\"httpStatusCode\":400,\"customCode\":\"ORDER_NOT_CAPTURABLE\"}";
+        CaptureOrderRequest captureOrderRequest = new CaptureOrderRequest();
+        captureOrderRequest.setCaptureAmount(100);
+        stubFor(post(urlEqualTo("/orders/order-code/capture"))
+                    .willReturn(aResponse().withStatus(400).withBody(error)));
+
+        try (RawResponse response = restClient.getOrderService().captureRaw(captureOrderRequest, "order-code")) {
+            assertThat(response.getStatusCode(), is(equalTo(400)));
+            ByteBuffer buffer = response.toByteBuffer();
+            assertThat(StandardCharsets.UTF_8.decode(buffer).toString(), is(equalTo(error)));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void payloadCanOnlyBeConsumedOnce() throws IOException {
+        stubFor(get(urlEqualTo("/orders/order-code"))
+                    .willReturn(aResponse().withStatus(200).withBody(TRANSACTION)));
+
+        try (RawResponse response = restClient.getOrderService().findOrderRaw("order-code")) {
+            response.toByteBuffer();
+            response.getBody();
+        }
+    }
+}
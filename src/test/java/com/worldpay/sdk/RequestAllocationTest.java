@@ -0,0 +1,93 @@
+package com.worldpay.sdk;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Enforce a budget on the bytes allocated to prepare a request, measured with a transport which does no I/O.
+ */
+public class RequestAllocationTest {
+
+    /**
+     * Bytes allocated per call, preparing the request and handling an empty response.
+     */
+    private static final long BUDGET_PER_CALL = 512;
+
+    private static final int CALLS = 10000;
+
+    private com.sun.management.ThreadMXBean threadMXBean;
+
+    private OrderService orderService;
+
+    @Before
+    public void setUp() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        threadMXBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue(threadMXBean.isThreadAllocatedMemorySupported());
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        orderService = new OrderService(new Http("https://api.worldpay.com/v1", "T_S_KEY", new NoContentTransport()));
+    }
+
+    @Test
+    public void requestPreparationStaysWithinBudget() {
+        for (int i = 0; i < CALLS; i++) {
+            orderService.cancel("order-code");
+            orderService.refund("order-code");
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < CALLS; i++) {
+            orderService.cancel("order-code");
+            orderService.refund("order-code");
+        }
+        long perCall = (threadMXBean.getThreadAllocatedBytes(threadId) - before) / (2 * CALLS);
+
+        assertThat(perCall, lessThan(BUDGET_PER_CALL));
+    }
+
+    /**
+     * Transport answering every request with an empty 204 response.
+     */
+    private static class NoContentTransport implements HttpTransport {
+
+        private final TransportResponse response = new TransportResponse() {
+            @Override
+            public int getStatusCode() {
+                return 204;
+            }
+
+            @Override
+            public String getHeader(String name) {
+                return null;
+            }
+
+            @Override
+            public InputStream getBody() {
+                return null;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+
+        @Override
+        public TransportResponse execute(TransportRequest request) {
+            return response;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.worldpay.sdk;
+
+import com.sun.net.httpserver.HttpServer;
+import com.worldpay.gateway.clearwater.client.core.dto.request.OrderRequest;
+import com.worldpay.gateway.clearwater.client.core.dto.response.OrderResponse;
+import com.worldpay.sdk.util.JsonParser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test that request payloads reach the server intact, UTF-8 encoded, with every transport and streaming mode.
+ */
+@RunWith(Parameterized.class)
+public class RequestBodyStreamingTest {
+
+    private static final String SHOPPER_NAME = "Zoë Łukasiewicz 山田太郎 Ωμέγα محمد";
+
+    @Parameterized.Parameters(name = "{0} {1}")
+    public static Collection<Object[]> parameters() {
+        Collection<Object[]> parameters = new ArrayList<>();
+        for (TransportType transportType : TransportType.values()) {
+            for (StreamingMode streamingMode : StreamingMode.values()) {
+                parameters.add(new Object[]{transportType, streamingMode});
+            }
+        }
+        return parameters;
+    }
+
+    private final TransportType transportType;
+
+    private final StreamingMode streamingMode;
+
+    private HttpServer server;
+
+    private volatile byte[] receivedBody;
+
+    private volatile String contentLength;
+
+    private volatile String transferEncoding;
+
+    public RequestBodyStreamingTest(TransportType transportType, StreamingMode streamingMode) {
+        this.transportType = transportType;
+        this.streamingMode = streamingMode;
+    }
+
+    @Before
+    public void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            contentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+            transferEncoding = exchange.getRequestHeaders().getFirst("Transfer-Encoding");
+            receivedBody = readFully(exchange.getRequestBody());
+            byte[] response = "{\"orderCode\":\"order-code\"}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, response.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(response);
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    public void createSendsNonLatinNamesAndLargeCustomerIdentifiersIntact() throws IOException {
+        OrderRequest orderRequest = new OrderRequest();
+        orderRequest.setToken("token");
+        orderRequest.setAmount(1999);
+        orderRequest.setName(SHOPPER_NAME);
+        Map<String, String> customerIdentifiers = new HashMap<>();
+        for (int i = 0; i < 5000; i++) {
+            customerIdentifiers.put("identifier-" + i, "värde-" + i + "-識別子");
+        }
+        orderRequest.setCustomerIdentifiers(customerIdentifiers);
+
+        try (WorldpayRestClient client = new WorldpayRestClient.Builder()
+            .setBaseUrl("http://localhost:" + server.getAddress().getPort())
+            .setServiceKey("T_S_KEY")
+            .setTransportType(transportType)
+            .setStreamingMode(streamingMode)
+            .build()) {
+            OrderResponse response = client.getOrderService().create(orderRequest);
+            assertThat(response.getOrderCode(), is(equalTo("order-code")));
+        }
+
+        OrderRequest received = JsonParser.toObject(new String(receivedBody, StandardCharsets.UTF_8),
+                                                    OrderRequest.class);
+        assertThat(received.getName(), is(equalTo(SHOPPER_NAME)));
+        assertThat(received.getCustomerIdentifiers(), is(equalTo(customerIdentifiers)));
+        if (streamingMode == StreamingMode.CHUNKED && transportType != TransportType.HTTP2) {
+            assertThat(transferEncoding, is(equalTo("chunked")));
+            assertThat(contentLength, is(nullValue()));
+        } else {
+            assertThat(contentLength, is(equalTo(String.valueOf(receivedBody.length))));
+        }
+    }
+
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
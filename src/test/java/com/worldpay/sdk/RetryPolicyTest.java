@@ -0,0 +1,323 @@
+package com.worldpay.sdk;
+
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.http.Fault;
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import com.worldpay.gateway.clearwater.client.core.dto.request.CaptureOrderRequest;
+import com.worldpay.gateway.clearwater.client.core.exception.WorldpayException;
+import com.worldpay.sdk.util.JacksonJsonCodec;
+import com.worldpay.sdk.util.JsonCodec;
+import org.junit.Rule;
+import org.junit.Test;
+
+import javax.net.ssl.SSLHandshakeException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.any;
+import static com.github.tomakehurst.wiremock.client.WireMock.delete;
+import static com.github.tomakehurst.wiremock.client.WireMock.deleteRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.findAll;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.everyItem;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Test {@link RetryPolicy}.
+ */
+public class RetryPolicyTest {
+
+    private static final String ORDER_RESPONSE = "{\"orderCode\":\"order-code\"}";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort());
+
+    @Test
+    public void serverErrorIsRetried() {
+        failFirst("/orders/order-code", aResponse().withStatus(503),
+                  aResponse().withStatus(200).withBody("{\"orderResponse\":" + ORDER_RESPONSE + "}"));
+
+        String orderCode = createClient(policy().build(), StreamingMode.FIXED_LENGTH).getOrderService()
+            .findOrder("order-code").getOrderResponse().getOrderCode();
+
+        assertThat(orderCode, is(equalTo("order-code")));
+        verify(2, getRequestedFor(urlEqualTo("/orders/order-code")));
+    }
+
+    @Test
+    public void connectionFailureIsRetried() {
+        failFirst("/orders/order-code", aResponse().withFault(Fault.EMPTY_RESPONSE),
+                  aResponse().withStatus(204));
+
+        createClient(policy().build(), StreamingMode.FIXED_LENGTH).getOrderService().cancel("order-code");
+
+        verify(2, deleteRequestedFor(urlEqualTo("/orders/order-code")));
+    }
+
+    @Test
+    public void attemptsOfAPostShareOneIdempotencyKey() {
+        failFirst("/orders/order-code/capture", aResponse().withStatus(502),
+                  aResponse().withStatus(200).withBody(ORDER_RESPONSE));
+        CountingCodec codec = new CountingCodec();
+
+        createClient(policy().build(), StreamingMode.CHUNKED, codec).getOrderService()
+            .capture(captureRequest(), "order-code");
+
+        List<LoggedRequest> requests = findAll(postRequestedFor(urlEqualTo("/orders/order-code/capture")));
+        assertThat(requests.size(), is(equalTo(2)));
+        String key = requests.get(0).getHeader(RetryPolicy.IDEMPOTENCY_KEY);
+        assertThat(key, is(notNullValue()));
+        assertThat(requests.get(1).getHeader(RetryPolicy.IDEMPOTENCY_KEY), is(equalTo(key)));
+        assertThat(requests.get(1).getBodyAsString(), is(equalTo(requests.get(0).getBodyAsString())));
+        assertThat("Serializations", codec.writes.get(), is(equalTo(1)));
+    }
+
+    @Test
+    public void noIdempotencyKeyWithoutRetries() {
+        stubFor(post(urlEqualTo("/orders/order-code/capture"))
+                    .willReturn(aResponse().withStatus(200).withBody(ORDER_RESPONSE)));
+
+        createClient(RetryPolicy.NONE, StreamingMode.FIXED_LENGTH).getOrderService()
+            .capture(captureRequest(), "order-code");
+
+        assertThat(findAll(postRequestedFor(urlEqualTo("/orders/order-code/capture"))).get(0)
+                       .getHeader(RetryPolicy.IDEMPOTENCY_KEY), is(nullValue()));
+    }
+
+    @Test
+    public void clientErrorIsNotRetried() {
+        stubFor(delete(urlEqualTo("/orders/order-code"))
+                    .willReturn(aResponse().withStatus(400)
+                                    .withBody("{\"httpStatusCode\":400,\"customCode\":\"ORDER_NOT_CANCELLABLE\"}")));
+
+        try {
+            createClient(policy().build(), StreamingMode.FIXED_LENGTH).getOrderService().cancel("order-code");
+            fail("WorldpayException expected");
+        } catch (WorldpayException e) {
+            assertThat(e.getApiError().getCustomCode(), is(equalTo("ORDER_NOT_CANCELLABLE")));
+        }
+        verify(1, deleteRequestedFor(urlEqualTo("/orders/order-code")));
+    }
+
+    @Test
+    public void lastErrorIsReportedOnceAttemptsAreExhausted() {
+        stubFor(delete(urlEqualTo("/orders/order-code"))
+                    .willReturn(aResponse().withStatus(503)
+                                    .withBody("{\"httpStatusCode\":503,\"customCode\":\"UNAVAILABLE\"}")));
+
+        try {
+            createClient(policy().build(), StreamingMode.FIXED_LENGTH).getOrderService().cancel("order-code");
+            fail("WorldpayException expected");
+        } catch (WorldpayException e) {
+            assertThat(e.getApiError().getCustomCode(), is(equalTo("UNAVAILABLE")));
+        }
+        verify(3, deleteRequestedFor(urlEqualTo("/orders/order-code")));
+    }
+
+    @Test
+    public void attemptsShareTheTimeBudget() throws InterruptedException {
+        stubFor(get(urlEqualTo("/orders/order-code"))
+                    .willReturn(aResponse().withStatus(200).withFixedDelay(1000).withBody("{}")));
+        RetryPolicy retryPolicy = policy().setMaxAttempts(10).setAttemptTimeout(300).setTimeBudget(800).build();
+
+        long start = System.nanoTime();
+        try {
+            createClient(retryPolicy, StreamingMode.FIXED_LENGTH).getOrderService().findOrder("order-code");
+            fail("WorldpayException expected");
+        } catch (WorldpayException e) {
+            long elapsed = (System.nanoTime() - start) / 1000000;
+            assertThat(elapsed, is(lessThan(1500L)));
+        }
+        // delayed requests are logged once served
+        Thread.sleep(1500);
+        int attempts = findAll(getRequestedFor(urlEqualTo("/orders/order-code"))).size();
+        assertThat(attempts, is(greaterThanOrEqualTo(2)));
+        assertThat(attempts, is(lessThanOrEqualTo(3)));
+    }
+
+    @Test
+    public void unlimitedBudgetKeepsTheTransportTimeout() {
+        List<Long> timeouts = new ArrayList<>();
+        RetryPolicy retryPolicy = policy().setAttemptTimeout(0).setTimeBudget(0).build();
+        WorldpayRestClient client = new WorldpayRestClient.Builder()
+            .setServiceKey("T_S_KEY")
+            .setTransport(new TimeoutRecordingTransport(timeouts))
+            .setRetryPolicy(retryPolicy)
+            .build();
+
+        client.getOrderService().findOrder("order-code");
+
+        assertThat(timeouts, is(equalTo(Collections.singletonList(0L))));
+    }
+
+    @Test
+    public void backoffIsJitteredUnderTheCap() {
+        RetryPolicy retryPolicy = new RetryPolicy.Builder().setInitialBackoff(100).setMaxBackoff(1000).build();
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(retryPolicy.getBackoff(1), is(lessThanOrEqualTo(100L)));
+            assertThat(retryPolicy.getBackoff(3), is(lessThanOrEqualTo(400L)));
+            assertThat(retryPolicy.getBackoff(40), is(lessThanOrEqualTo(1000L)));
+            assertThat(retryPolicy.getBackoff(40), is(greaterThanOrEqualTo(0L)));
+        }
+    }
+
+    @Test
+    public void ioErrorsAreClassified() {
+        RetryPolicy retryPolicy = policy().build();
+
+        assertThat(retryPolicy.isRetryable(new SocketException("Connection reset")), is(true));
+        assertThat(retryPolicy.isRetryable(new SocketTimeoutException("Read timed out")), is(true));
+        assertThat(retryPolicy.isRetryable(new InterruptedIOException()), is(false));
+        assertThat(retryPolicy.isRetryable(new SSLHandshakeException("untrusted")), is(false));
+        assertThat(everyStatus(retryPolicy, 500, 502, 503, 504, 408), everyItem(is(true)));
+        assertThat(everyStatus(retryPolicy, 200, 400, 402, 404, 409), everyItem(is(false)));
+    }
+
+    private static List<Boolean> everyStatus(RetryPolicy retryPolicy, int... statusCodes) {
+        List<Boolean> retryable = new ArrayList<>();
+        for (int statusCode : statusCodes) {
+            retryable.add(retryPolicy.isRetryable(statusCode));
+        }
+        return retryable;
+    }
+
+    private static RetryPolicy.Builder policy() {
+        return new RetryPolicy.Builder().setInitialBackoff(10).setMaxBackoff(50);
+    }
+
+    private void failFirst(String url, ResponseDefinitionBuilder failure,
+                           ResponseDefinitionBuilder success) {
+        stubFor(any(urlEqualTo(url)).inScenario("retry")
+                    .whenScenarioStateIs(Scenario.STARTED).willSetStateTo("failed").willReturn(failure));
+        stubFor(any(urlEqualTo(url)).inScenario("retry")
+                    .whenScenarioStateIs("failed").willReturn(success));
+    }
+
+    private WorldpayRestClient createClient(RetryPolicy retryPolicy, StreamingMode streamingMode) {
+        return createClient(retryPolicy, streamingMode, new JacksonJsonCodec());
+    }
+
+    private WorldpayRestClient createClient(RetryPolicy retryPolicy, StreamingMode streamingMode, JsonCodec codec) {
+        return new WorldpayRestClient.Builder()
+            .setBaseUrl("http://localhost:" + wireMockRule.port())
+            .setServiceKey("T_S_KEY")
+            .setStreamingMode(streamingMode)
+            .setJsonCodec(codec)
+            .setRetryPolicy(retryPolicy)
+            .build();
+    }
+
+    private static CaptureOrderRequest captureRequest() {
+        CaptureOrderRequest captureOrderRequest = new CaptureOrderRequest();
+        captureOrderRequest.setCaptureAmount(500);
+        return captureOrderRequest;
+    }
+
+    /**
+     * Transport recording the timeout of every request, answering with an empty transaction.
+     */
+    private static class TimeoutRecordingTransport implements HttpTransport {
+
+        private final List<Long> timeouts;
+
+        TimeoutRecordingTransport(List<Long> timeouts) {
+            this.timeouts = timeouts;
+        }
+
+        @Override
+        public TransportResponse execute(TransportRequest request) {
+            timeouts.add(request.getTimeout());
+            return new TransportResponse() {
+                @Override
+                public int getStatusCode() {
+                    return 200;
+                }
+
+                @Override
+                public String getHeader(String name) {
+                    return null;
+                }
+
+                @Override
+                public InputStream getBody() {
+                    return new ByteArrayInputStream("{}".getBytes(StandardCharsets.UTF_8));
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Codec counting the payloads it serializes.
+     */
+    private static class CountingCodec implements JsonCodec {
+
+        private final JsonCodec delegate = new JacksonJsonCodec();
+
+        private final AtomicInteger writes = new AtomicInteger();
+
+        @Override
+        public <T> T read(InputStream in, Class<T> type) throws IOException {
+            return delegate.read(in, type);
+        }
+
+        @Override
+        public <T> T read(String json, Class<T> type) throws IOException {
+            return delegate.read(json, type);
+        }
+
+        @Override
+        public byte[] write(Object value) throws IOException {
+            writes.incrementAndGet();
+            return delegate.write(value);
+        }
+
+        @Override
+        public void write(OutputStream out, Object value) throws IOException {
+            writes.incrementAndGet();
+            delegate.write(out, value);
+        }
+
+        @Override
+        public String writeString(Object value) throws IOException {
+            writes.incrementAndGet();
+            return delegate.writeString(value);
+        }
+    }
+}
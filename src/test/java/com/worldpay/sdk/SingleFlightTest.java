@@ -0,0 +1,204 @@
+package com.worldpay.sdk;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.worldpay.gateway.clearwater.client.core.dto.response.TokenResponse;
+import com.worldpay.gateway.clearwater.client.core.exception.WorldpayException;
+import com.worldpay.gateway.clearwater.client.ui.dto.order.Transaction;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Test {@link SingleFlight}.
+ */
+public class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort());
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+    private final SingleFlight<String> singleFlight = new SingleFlight<>();
+
+    @After
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void concurrentCallersShareOneCall() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        Object result = new Object();
+
+        List<Future<Object>> futures = submit(() -> singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            await(release);
+            return result;
+        }));
+        awaitWaiters();
+        release.countDown();
+
+        for (Future<Object> future : futures) {
+            assertThat(future.get(5, TimeUnit.SECONDS), is(sameInstance(result)));
+        }
+        assertThat(calls.get(), is(equalTo(1)));
+        assertThat(singleFlight.size(), is(equalTo(0)));
+    }
+
+    @Test
+    public void failureReachesEveryCaller() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        WorldpayException failure = new WorldpayException("API error");
+
+        List<Future<Object>> futures = submit(() -> singleFlight.execute("key", () -> {
+            await(release);
+            throw failure;
+        }));
+        awaitWaiters();
+        release.countDown();
+
+        for (Future<Object> future : futures) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail("WorldpayException expected");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), is(sameInstance(failure)));
+            }
+        }
+        assertThat(singleFlight.size(), is(equalTo(0)));
+    }
+
+    @Test
+    public void completedCallIsNotCached() {
+        AtomicInteger calls = new AtomicInteger();
+
+        singleFlight.execute("key", calls::incrementAndGet);
+        singleFlight.execute("key", calls::incrementAndGet);
+
+        assertThat(calls.get(), is(equalTo(2)));
+    }
+
+    @Test
+    public void differentKeysAreNotCoalesced() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        Future<Integer> first = executor.submit(() -> singleFlight.execute("first", () -> {
+            await(release);
+            return calls.incrementAndGet();
+        }));
+        while (singleFlight.size() == 0) {
+            Thread.sleep(1);
+        }
+
+        assertThat(singleFlight.execute("second", calls::incrementAndGet), is(equalTo(1)));
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS), is(equalTo(2)));
+    }
+
+    @Test
+    public void concurrentFindOrderSendsOneRequest() throws Exception {
+        stubFor(get(urlEqualTo("/orders/order-code"))
+                    .willReturn(aResponse().withStatus(200).withFixedDelay(1000)
+                                    .withBody("{\"orderResponse\":{\"orderCode\":\"order-code\"}}")));
+        OrderService orderService = client().getOrderService();
+
+        List<Future<Transaction>> futures = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            futures.add(executor.submit(() -> orderService.findOrder("order-code")));
+        }
+
+        Transaction transaction = futures.get(0).get(5, TimeUnit.SECONDS);
+        assertThat(transaction.getOrderResponse().getOrderCode(), is(equalTo("order-code")));
+        for (Future<Transaction> future : futures) {
+            assertThat(future.get(5, TimeUnit.SECONDS), is(sameInstance(transaction)));
+        }
+        verify(1, getRequestedFor(urlEqualTo("/orders/order-code")));
+    }
+
+    @Test
+    public void concurrentTokenErrorsReachEveryCaller() throws Exception {
+        stubFor(get(urlEqualTo("/tokens/token-id"))
+                    .willReturn(aResponse().withStatus(404).withFixedDelay(1000)
+                                    .withBody("{\"httpStatusCode\":404,\"customCode\":\"TKN_NOT_FOUND\"}")));
+        TokenService tokenService = client().getTokenService();
+
+        List<Future<TokenResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            futures.add(executor.submit(() -> tokenService.get("token-id")));
+        }
+
+        for (Future<TokenResponse> future : futures) {
+            try {
+                future.get(5, TimeUnit.SECONDS);
+                fail("WorldpayException expected");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause(), is(instanceOf(WorldpayException.class)));
+                assertThat(((WorldpayException) e.getCause()).getApiError().getCustomCode(),
+                           is(equalTo("TKN_NOT_FOUND")));
+            }
+        }
+        verify(1, getRequestedFor(urlEqualTo("/tokens/token-id")));
+    }
+
+    private WorldpayRestClient client() {
+        return new WorldpayRestClient.Builder()
+            .setBaseUrl("http://localhost:" + wireMockRule.port())
+            .setServiceKey("T_S_KEY")
+            .setRequestCoalescing(true)
+            .build();
+    }
+
+    private List<Future<Object>> submit(Callable<Object> task) {
+        List<Future<Object>> futures = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            futures.add(executor.submit(task));
+        }
+        return futures;
+    }
+
+    /**
+     * Give every caller the time to join the call in flight.
+     */
+    private void awaitWaiters() throws InterruptedException {
+        while (singleFlight.size() == 0) {
+            Thread.sleep(1);
+        }
+        Thread.sleep(200);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.worldpay.sdk;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.worldpay.gateway.clearwater.client.core.dto.response.TokenResponse;
+import com.worldpay.gateway.clearwater.client.core.exception.WorldpayException;
+import com.worldpay.sdk.cache.MappedFileCache;
+import com.worldpay.sdk.cache.TinyLfuCache;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.file.Path;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Test the token cache of {@link TokenService}.
+ */
+public class TokenServiceCacheTest {
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort());
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final TinyLfuCache<String, TokenResponse> cache = new TinyLfuCache.Builder<String, TokenResponse>()
+        .setMaximumSize(100)
+        .setExpireAfterWrite(60000)
+        .build();
+
+    @Test
+    public void cachedTokenIsRequestedOnce() {
+        stubToken();
+        TokenService tokenService = client().getTokenService();
+
+        TokenResponse first = tokenService.get("token-id");
+        TokenResponse second = client().getTokenService().get("token-id");
+
+        assertThat(first.getToken(), is(equalTo("token-id")));
+        assertThat(second, is(sameInstance(first)));
+        verify(1, getRequestedFor(urlEqualTo("/tokens/token-id")));
+        assertThat(cache.getStats().getHitCount(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void invalidatedTokenIsRequestedAgain() {
+        stubToken();
+        TokenService tokenService = client().getTokenService();
+
+        tokenService.get("token-id");
+        tokenService.invalidate("token-id");
+        tokenService.get("token-id");
+
+        verify(2, getRequestedFor(urlEqualTo("/tokens/token-id")));
+    }
+
+    @Test
+    public void errorsAreNotCached() {
+        stubFor(get(urlEqualTo("/tokens/token-id"))
+                    .willReturn(aResponse().withStatus(404)
+                                    .withBody("{\"httpStatusCode\":404,\"customCode\":\"TKN_NOT_FOUND\"}")));
+        TokenService tokenService = client().getTokenService();
+
+        for (int i = 0; i < 2; i++) {
+            try {
+                tokenService.get("token-id");
+                fail("WorldpayException expected");
+            } catch (WorldpayException e) {
+                assertThat(e.getApiError().getCustomCode(), is(equalTo("TKN_NOT_FOUND")));
+            }
+        }
+        verify(2, getRequestedFor(urlEqualTo("/tokens/token-id")));
+        assertThat(cache.size(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void storedTokenSurvivesRestart() {
+        stubToken();
+        Path file = folder.getRoot().toPath().resolve("tokens.cache");
+        MappedFileCache<TokenResponse> store = store(file);
+        storeClient(store).getTokenService().get("token-id");
+        store.close();
+
+        TokenResponse token = storeClient(store(file)).getTokenService().get("token-id");
+
+        assertThat(token.getToken(), is(equalTo("token-id")));
+        verify(1, getRequestedFor(urlEqualTo("/tokens/token-id")));
+    }
+
+    private MappedFileCache<TokenResponse> store(Path file) {
+        return new MappedFileCache.Builder<>(TokenResponse.class)
+            .setFile(file)
+            .setMaximumSize(64 * 1024)
+            .setMaximumEntries(100)
+            .build();
+    }
+
+    private WorldpayRestClient storeClient(MappedFileCache<TokenResponse> store) {
+        return new WorldpayRestClient.Builder()
+            .setBaseUrl("http://localhost:" + wireMockRule.port())
+            .setServiceKey("T_S_KEY")
+            .setTokenStore(store)
+            .build();
+    }
+
+    private void stubToken() {
+        stubFor(get(urlEqualTo("/tokens/token-id"))
+                    .willReturn(aResponse().withStatus(200).withBody("{\"token\":\"token-id\",\"reusable\":true}")));
+    }
+
+    private WorldpayRestClient client() {
+        return new WorldpayRestClient.Builder()
+            .setBaseUrl("http://localhost:" + wireMockRule.port())
+            .setServiceKey("T_S_KEY")
+            .setTokenCache(cache)
+            .build();
+    }
+}
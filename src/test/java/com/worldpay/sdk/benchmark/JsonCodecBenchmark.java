@@ -0,0 +1,163 @@
+package com.worldpay.sdk.benchmark;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.worldpay.gateway.clearwater.client.core.dto.ApiError;
+import com.worldpay.gateway.clearwater.client.core.dto.request.OrderRequest;
+import com.worldpay.gateway.clearwater.client.core.dto.response.OrderResponse;
+import com.worldpay.gateway.clearwater.client.core.dto.response.TokenResponse;
+import com.worldpay.gateway.clearwater.client.ui.dto.order.Transaction;
+import com.worldpay.sdk.codec.GeneratedJsonCodec;
+import com.worldpay.sdk.util.JacksonJsonCodec;
+import com.worldpay.sdk.util.JsonCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encode and decode throughput of every gateway DTO with a plain {@code ObjectMapper}, as {@code JsonParser} used to
+ * do, against {@link JacksonJsonCodec} with and without Afterburner, and the build-time generated codecs of
+ * {@link GeneratedJsonCodec}.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main
+ * -Dexec.args=JsonCodecBenchmark}. Add {@code jackson-module-afterburner} to the test classpath and
+ * {@code -p codec=ObjectMapper,JacksonJsonCodec,Generated,Afterburner} to the arguments to include the accelerated codec.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class JsonCodecBenchmark {
+
+    @Param({"OrderRequest", "OrderResponse", "Transaction", "TokenResponse", "ApiError"})
+    public String dto;
+
+    @Param({"ObjectMapper", "JacksonJsonCodec", "Generated"})
+    public String codec;
+
+    private JsonCodec jsonCodec;
+
+    private Class<?> type;
+
+    private byte[] json;
+
+    private Object value;
+
+    @Setup
+    public void setUp() throws IOException {
+        switch (codec) {
+            case "ObjectMapper":
+                jsonCodec = new ObjectMapperCodec();
+                break;
+            case "JacksonJsonCodec":
+                jsonCodec = new JacksonJsonCodec();
+                break;
+            case "Generated":
+                jsonCodec = new GeneratedJsonCodec();
+                break;
+            case "Afterburner":
+                jsonCodec = new JacksonJsonCodec(true);
+                break;
+            default:
+                throw new IllegalArgumentException(codec);
+        }
+        String orderResponse = "{\"orderCode\":\"a1b2c3d4-e5f6\",\"token\":\"TEST_RU_8a8d5a5c-8f3d\","
+                               + "\"orderDescription\":\"Goods and services\",\"amount\":1999,"
+                               + "\"authorizedAmount\":1999,\"currencyCode\":\"GBP\",\"paymentStatus\":\"SUCCESS\","
+                               + "\"shopperEmailAddress\":\"shopper@example.com\","
+                               + "\"customerIdentifiers\":{\"customer\":\"12345\",\"reference\":\"ref-987\"}}";
+        switch (dto) {
+            case "OrderRequest":
+                type = OrderRequest.class;
+                json = bytes("{\"token\":\"TEST_RU_8a8d5a5c-8f3d\",\"orderDescription\":\"Goods and services\","
+                             + "\"amount\":1999,\"currencyCode\":\"GBP\",\"name\":\"Shopper Name\","
+                             + "\"shopperEmailAddress\":\"shopper@example.com\","
+                             + "\"customerIdentifiers\":{\"customer\":\"12345\",\"reference\":\"ref-987\"}}");
+                break;
+            case "OrderResponse":
+                type = OrderResponse.class;
+                json = bytes(orderResponse);
+                break;
+            case "Transaction":
+                type = Transaction.class;
+                json = bytes("{\"orderResponse\":" + orderResponse + "}");
+                break;
+            case "TokenResponse":
+                type = TokenResponse.class;
+                json = bytes("{\"token\":\"TEST_RU_8a8d5a5c-8f3d\",\"reusable\":true,\"paymentMethod\":"
+                             + "{\"type\":\"ObfuscatedCard\",\"name\":\"Shopper Name\",\"expiryMonth\":2,"
+                             + "\"expiryYear\":2030,\"cardType\":\"MASTERCARD\","
+                             + "\"maskedCardNumber\":\"**** **** **** 1111\"}}");
+                break;
+            case "ApiError":
+                type = ApiError.class;
+                json = bytes("{\"httpStatusCode\":400,\"customCode\":\"BAD_REQUEST\","
+                             + "\"message\":\"Some of the request parameters are invalid\","
+                             + "\"description\":\"Amount must be positive\","
+                             + "\"errorHelpUrl\":\"https://online.worldpay.com/api-docs\"}");
+                break;
+            default:
+                throw new IllegalArgumentException(dto);
+        }
+        value = jsonCodec.read(new ByteArrayInputStream(json), type);
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        return jsonCodec.read(new ByteArrayInputStream(json), type);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return jsonCodec.write(value);
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Resolves the type on every call, as {@code JsonParser} did before the codec.
+     */
+    private static class ObjectMapperCodec implements JsonCodec {
+
+        private final ObjectMapper mapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+        @Override
+        public <T> T read(InputStream in, Class<T> type) throws IOException {
+            return mapper.readValue(in, type);
+        }
+
+        @Override
+        public <T> T read(String json, Class<T> type) throws IOException {
+            return mapper.readValue(json, type);
+        }
+
+        @Override
+        public byte[] write(Object value) throws IOException {
+            return mapper.writeValueAsBytes(value);
+        }
+
+        @Override
+        public void write(OutputStream out, Object value) throws IOException {
+            mapper.writeValue(out, value);
+        }
+
+        @Override
+        public String writeString(Object value) throws IOException {
+            return mapper.writeValueAsString(value);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.worldpay.sdk.benchmark;
+
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.URIScheme;
+import org.apache.hc.core5.http.impl.bootstrap.HttpAsyncServer;
+import org.apache.hc.core5.http.nio.AsyncRequestConsumer;
+import org.apache.hc.core5.http.nio.AsyncServerRequestHandler;
+import org.apache.hc.core5.http.nio.entity.AsyncEntityProducers;
+import org.apache.hc.core5.http.nio.entity.DiscardingEntityConsumer;
+import org.apache.hc.core5.http.nio.support.AsyncResponseBuilder;
+import org.apache.hc.core5.http.nio.support.BasicRequestConsumer;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.http2.config.H2Config;
+import org.apache.hc.core5.http2.impl.nio.bootstrap.H2ServerBootstrap;
+import org.apache.hc.core5.http2.ssl.H2ServerTlsStrategy;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.reactor.IOSession;
+import org.apache.hc.core5.reactor.IOSessionListener;
+import org.apache.hc.core5.reactor.ListenerEndpoint;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.security.KeyStore;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local HTTPS stub of the Worldpay REST service used by the benchmarks. Negotiates h2 or HTTP/1.1 through ALPN, adds
+ * a fixed latency to every response and counts the connections it accepts.
+ */
+public final class LocalStub implements AutoCloseable {
+
+    private static final char[] PASSWORD = "changeit".toCharArray();
+
+    private final HttpAsyncServer server;
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    private final SSLContext sslContext;
+
+    private final int port;
+
+    private LocalStub(final long latencyMillis) throws Exception {
+        this.sslContext = createSslContext();
+        this.server = H2ServerBootstrap.bootstrap()
+            .setIOReactorConfig(IOReactorConfig.custom().setIoThreadCount(4).build())
+            .setH2Config(H2Config.custom().setMaxConcurrentStreams(1000).build())
+            .setVersionPolicy(HttpVersionPolicy.NEGOTIATE)
+            .setTlsStrategy(new H2ServerTlsStrategy(sslContext))
+            .setIOSessionListener(new ConnectionCounter())
+            .register("*", new AsyncServerRequestHandler<Message<HttpRequest, Void>>() {
+                @Override
+                public AsyncRequestConsumer<Message<HttpRequest, Void>> prepare(HttpRequest request,
+                                                                                EntityDetails entityDetails,
+                                                                                HttpContext context) {
+                    return new BasicRequestConsumer<>(entityDetails != null ? new DiscardingEntityConsumer<>() : null);
+                }
+
+                @Override
+                public void handle(final Message<HttpRequest, Void> message, final ResponseTrigger trigger,
+                                   final HttpContext context) {
+                    final String body = responseFor(message.getHead().getPath());
+                    scheduler.schedule(() -> {
+                        try {
+                            trigger.submitResponse(AsyncResponseBuilder.create(200)
+                                                       .setEntity(AsyncEntityProducers.create(body, ContentType.APPLICATION_JSON))
+                                                       .build(), context);
+                        } catch (Exception e) {
+                            throw new IllegalStateException(e);
+                        }
+                    }, latencyMillis, TimeUnit.MILLISECONDS);
+                }
+            })
+            .create();
+        server.start();
+        ListenerEndpoint endpoint = server.listen(new InetSocketAddress("localhost", 0), URIScheme.HTTPS).get();
+        this.port = ((InetSocketAddress) endpoint.getAddress()).getPort();
+    }
+
+    /**
+     * Start a stub.
+     *
+     * @param latencyMillis latency added to every response
+     *
+     * @return the started stub
+     *
+     * @throws Exception if the stub cannot be started
+     */
+    public static LocalStub start(long latencyMillis) throws Exception {
+        return new LocalStub(latencyMillis);
+    }
+
+    public String getBaseUrl() {
+        return "https://localhost:" + port;
+    }
+
+    /**
+     * @return an SSL context trusting the self-signed certificate of the stub
+     */
+    public SSLContext getSslContext() {
+        return sslContext;
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    public void resetConnections() {
+        connections.set(0);
+    }
+
+    @Override
+    public void close() {
+        server.close(CloseMode.IMMEDIATE);
+        scheduler.shutdownNow();
+    }
+
+    private static String responseFor(String path) {
+        if (path.startsWith("/tokens")) {
+            return "{\"token\":\"" + path.substring(path.lastIndexOf('/') + 1) + "\",\"reusable\":true}";
+        }
+        if (path.startsWith("/orders/")) {
+            String orderCode = path.substring("/orders/".length()).split("/")[0];
+            return "{\"orderResponse\":{\"orderCode\":\"" + orderCode + "\",\"paymentStatus\":\"SUCCESS\",\"amount\":1999}}";
+        }
+        return "{\"orderCode\":\"stub-order\",\"paymentStatus\":\"SUCCESS\",\"amount\":1999}";
+    }
+
+    /**
+     * Generate a self-signed certificate for localhost with the JDK keytool and build a context which uses it both as
+     * key material and as the only trusted certificate.
+     */
+    private static SSLContext createSslContext() throws Exception {
+        File keyStoreFile = File.createTempFile("worldpay-stub", ".p12");
+        keyStoreFile.delete();
+        keyStoreFile.deleteOnExit();
+        Process keytool = new ProcessBuilder(
+            System.getProperty("java.home") + File.separator + "bin" + File.separator + "keytool",
+            "-genkeypair", "-alias", "stub", "-keyalg", "RSA", "-keysize", "2048", "-validity", "2",
+            "-dname", "CN=localhost", "-ext", "SAN=dns:localhost,ip:127.0.0.1",
+            "-storetype", "PKCS12", "-keystore", keyStoreFile.getAbsolutePath(),
+            "-storepass", new String(PASSWORD), "-keypass", new String(PASSWORD))
+            .inheritIO().start();
+        if (keytool.waitFor() != 0) {
+            throw new IOException("keytool failed with exit code " + keytool.exitValue());
+        }
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        try (InputStream in = new FileInputStream(keyStoreFile)) {
+            keyStore.load(in, PASSWORD);
+        }
+        KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(keyStore, PASSWORD);
+        TrustManagerFactory trustManagers = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagers.init(keyStore);
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(keyManagers.getKeyManagers(), trustManagers.getTrustManagers(), null);
+        return context;
+    }
+
+    /**
+     * Counts the accepted connections.
+     */
+    private class ConnectionCounter implements IOSessionListener {
+
+        @Override
+        public void connected(IOSession session) {
+            connections.incrementAndGet();
+        }
+
+        @Override
+        public void startTls(IOSession session) {
+        }
+
+        @Override
+        public void inputReady(IOSession session) {
+        }
+
+        @Override
+        public void outputReady(IOSession session) {
+        }
+
+        @Override
+        public void timeout(IOSession session) {
+        }
+
+        @Override
+        public void exception(IOSession session, Exception ex) {
+        }
+
+        @Override
+        public void disconnected(IOSession session) {
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.worldpay.sdk.benchmark;
+
+import com.worldpay.gateway.clearwater.client.ui.dto.order.Transaction;
+import com.worldpay.sdk.cache.MappedFileCache;
+import com.worldpay.sdk.util.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Lookups and insertions of {@code Transaction} entries in the off-heap {@link MappedFileCache} against an on-heap
+ * {@link ConcurrentHashMap} holding the decoded objects. The mapped cache decodes every hit and encodes every
+ * insertion, and in exchange keeps no object on the heap; compare the throughput, {@code gc.alloc.rate.norm} and the
+ * heap retained by the map for the same number of entries.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main
+ * -Dexec.args="MappedFileCacheBenchmark -prof gc"}.
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MappedFileCacheBenchmark {
+
+    private static final String TRANSACTION = "{\"environment\":\"TEST\",\"orderResponse\":{"
+                                              + "\"orderCode\":\"%s\",\"token\":\"TEST_RU_8a8d5a5c-8f3d\","
+                                              + "\"orderDescription\":\"Goods and services\",\"amount\":1999,"
+                                              + "\"authorizedAmount\":1999,\"currencyCode\":\"GBP\","
+                                              + "\"paymentStatus\":\"SUCCESS\","
+                                              + "\"shopperEmailAddress\":\"shopper@example.com\","
+                                              + "\"customerIdentifiers\":{\"customer\":\"12345\","
+                                              + "\"reference\":\"ref-987\"}}}";
+
+    @Param({"ConcurrentHashMap", "MappedFileCache"})
+    public String store;
+
+    @Param({"100000"})
+    public int entries;
+
+    private String[] keys;
+
+    private Transaction[] values;
+
+    private ConcurrentHashMap<String, Transaction> map;
+
+    private MappedFileCache<Transaction> cache;
+
+    private Path file;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        keys = new String[entries];
+        values = new Transaction[entries];
+        for (int i = 0; i < entries; i++) {
+            keys[i] = "order-" + i;
+            values[i] = JsonParser.toObject(String.format(TRANSACTION, keys[i]), Transaction.class);
+        }
+        if ("MappedFileCache".equals(store)) {
+            file = Files.createTempFile("transactions", ".cache");
+            cache = new MappedFileCache.Builder<>(Transaction.class)
+                .setFile(file)
+                .setMaximumSize(512 * 1024 * 1024)
+                .setMaximumEntries(entries)
+                .build();
+        } else {
+            map = new ConcurrentHashMap<>(entries * 2);
+        }
+        for (int i = 0; i < entries; i++) {
+            put(keys[i], values[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (file != null) {
+            cache.close();
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Benchmark
+    public Transaction get() {
+        String key = keys[ThreadLocalRandom.current().nextInt(entries)];
+        return cache == null ? map.get(key) : cache.getIfPresent(key);
+    }
+
+    @Benchmark
+    public void put() {
+        int index = ThreadLocalRandom.current().nextInt(entries);
+        put(keys[index], values[index]);
+    }
+
+    private void put(String key, Transaction value) {
+        if (cache == null) {
+            map.put(key, value);
+        } else {
+            cache.put(key, value);
+        }
+    }
+}
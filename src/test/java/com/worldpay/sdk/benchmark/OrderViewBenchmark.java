@@ -0,0 +1,107 @@
+package com.worldpay.sdk.benchmark;
+
+import com.worldpay.gateway.clearwater.client.core.dto.response.OrderResponse;
+import com.worldpay.sdk.HttpTransport;
+import com.worldpay.sdk.OrderService;
+import com.worldpay.sdk.OrderView;
+import com.worldpay.sdk.TransportRequest;
+import com.worldpay.sdk.TransportResponse;
+import com.worldpay.sdk.WorldpayRestClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Bytes allocated per {@code findOrder} reading the order code, payment status and amount, binding the whole
+ * {@code Transaction} against reading them from a reused {@link OrderView}. The transport answers from memory so that
+ * only the decoding differs.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.openjdk.jmh.Main
+ * -Dexec.args="OrderViewBenchmark -prof gc"} and compare {@code gc.alloc.rate.norm}.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class OrderViewBenchmark {
+
+    private static final byte[] TRANSACTION = ("{\"environment\":\"TEST\",\"orderResponse\":{"
+                                               + "\"orderCode\":\"a1b2c3d4-e5f6\",\"token\":\"TEST_RU_8a8d5a5c-8f3d\","
+                                               + "\"orderDescription\":\"Goods and services\",\"amount\":1999,"
+                                               + "\"authorizedAmount\":1999,\"currencyCode\":\"GBP\","
+                                               + "\"paymentStatus\":\"SUCCESS\","
+                                               + "\"shopperEmailAddress\":\"shopper@example.com\","
+                                               + "\"customerIdentifiers\":{\"customer\":\"12345\","
+                                               + "\"reference\":\"ref-987\"}}}").getBytes(StandardCharsets.UTF_8);
+
+    private OrderService orderService;
+
+    private OrderView view;
+
+    @Setup
+    public void setUp() {
+        orderService = new WorldpayRestClient("https://api.worldpay.com/v1", "T_S_KEY", new InMemoryTransport())
+            .getOrderService();
+        view = new OrderView();
+    }
+
+    @Benchmark
+    public void transaction(Blackhole blackhole) {
+        OrderResponse orderResponse = orderService.findOrder("order-code").getOrderResponse();
+        blackhole.consume(orderResponse.getOrderCode());
+        blackhole.consume(orderResponse.getPaymentStatus());
+        blackhole.consume(orderResponse.getAmount());
+    }
+
+    @Benchmark
+    public void orderView(Blackhole blackhole) {
+        OrderView orderView = orderService.findOrderView("order-code", view);
+        blackhole.consume(orderView.getOrderCode());
+        blackhole.consume(orderView.getPaymentStatus());
+        blackhole.consume(orderView.getAmount());
+    }
+
+    /**
+     * Transport answering every request with the same transaction, without I/O.
+     */
+    private static class InMemoryTransport implements HttpTransport {
+
+        @Override
+        public TransportResponse execute(TransportRequest request) {
+            final InputStream body = new ByteArrayInputStream(TRANSACTION);
+            return new TransportResponse() {
+                @Override
+                public int getStatusCode() {
+                    return 200;
+                }
+
+                @Override
+                public String getHeader(String name) {
+                    return null;
+                }
+
+                @Override
+                public InputStream getBody() {
+                    return body;
+                }
+
+                @Override
+                public void close() {
+                }
+            };
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.worldpay.sdk.benchmark;
+
+import com.worldpay.gateway.clearwater.client.core.dto.request.OrderRequest;
+import com.worldpay.sdk.RequestBody;
+import com.worldpay.sdk.StreamingMode;
+import com.worldpay.sdk.util.JsonParser;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compares the time and bytes allocated to write an {@link OrderRequest} with a large {@code customerIdentifiers} map
+ * to a connection stream: serialized to a {@code String} and written with {@code DataOutputStream.writeBytes}, as
+ * before, against the {@link StreamingMode#FIXED_LENGTH} and {@link StreamingMode#CHUNKED} request bodies.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.worldpay.sdk.benchmark.RequestBodyBenchmark}, tuned with {@code benchmark.identifiers} and
+ * {@code benchmark.iterations}.
+ */
+public final class RequestBodyBenchmark {
+
+    private RequestBodyBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int identifiers = Integer.getInteger("benchmark.identifiers", 1000);
+        int iterations = Integer.getInteger("benchmark.iterations", 20000);
+
+        OrderRequest orderRequest = new OrderRequest();
+        orderRequest.setToken("token");
+        orderRequest.setAmount(1999);
+        orderRequest.setName("山田太郎");
+        Map<String, String> customerIdentifiers = new HashMap<>();
+        for (int i = 0; i < identifiers; i++) {
+            customerIdentifiers.put("identifier-" + i, "value-" + i);
+        }
+        orderRequest.setCustomerIdentifiers(customerIdentifiers);
+
+        for (int round = 0; round < 2; round++) {
+            run("String + writeBytes", iterations, out -> new DataOutputStream(out)
+                .writeBytes(JsonParser.toJson(orderRequest)));
+            run("FIXED_LENGTH", iterations, out -> RequestBody.ofBytes(JsonParser.toJsonBytes(orderRequest))
+                .writeTo(out));
+            run("CHUNKED", iterations, out -> RequestBody.ofJson(orderRequest).writeTo(out));
+        }
+    }
+
+    private static void run(String name, int iterations, Write write) throws IOException {
+        com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        CountingOutputStream out = new CountingOutputStream();
+        long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            write.to(out);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        System.out.printf("%-20s %8.1f us/op %10d bytes allocated/op %8d bytes written/op%n", name,
+                          elapsed / 1e3 / iterations, allocated / iterations, out.count / iterations);
+    }
+
+    private interface Write {
+        void to(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Stands in for the connection stream, discarding what is written.
+     */
+    private static class CountingOutputStream extends OutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
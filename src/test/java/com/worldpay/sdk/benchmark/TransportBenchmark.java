@@ -0,0 +1,102 @@
+package com.worldpay.sdk.benchmark;
+
+import com.worldpay.sdk.Http2Transport;
+import com.worldpay.sdk.HttpTransport;
+import com.worldpay.sdk.OrderService;
+import com.worldpay.sdk.UrlConnectionTransport;
+import com.worldpay.sdk.WorldpayRestClient;
+
+import javax.net.ssl.HttpsURLConnection;
+import java.net.http.HttpClient;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares connection count and latency percentiles of the {@link UrlConnectionTransport} and the
+ * {@link Http2Transport} for concurrent {@code findOrder} calls against a {@link LocalStub}.
+ * <p>
+ * Run with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.worldpay.sdk.benchmark.TransportBenchmark}, tuned with the system properties
+ * {@code benchmark.concurrency}, {@code benchmark.calls} and {@code benchmark.latencyMillis}.
+ */
+public final class TransportBenchmark {
+
+    private TransportBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = Integer.getInteger("benchmark.concurrency", 200);
+        int calls = Integer.getInteger("benchmark.calls", 50);
+        long latencyMillis = Long.getLong("benchmark.latencyMillis", 20);
+
+        try (LocalStub stub = LocalStub.start(latencyMillis)) {
+            HttpsURLConnection.setDefaultSSLSocketFactory(stub.getSslContext().getSocketFactory());
+            run("URL_CONNECTION", new UrlConnectionTransport(), stub, concurrency, calls);
+
+            HttpClient http2Client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .sslContext(stub.getSslContext())
+                .build();
+            Http2Transport http2Transport = new Http2Transport(http2Client);
+            run("HTTP2", http2Transport, stub, concurrency, calls);
+            System.out.printf("HTTP2 negotiated h2 for %d exchanges, HTTP/1.1 for %d%n",
+                              http2Transport.getHttp2Exchanges(), http2Transport.getHttp11Exchanges());
+        }
+        System.exit(0);
+    }
+
+    private static void run(String name, HttpTransport transport, LocalStub stub, int concurrency, int calls)
+        throws Exception {
+        WorldpayRestClient client = new WorldpayRestClient(stub.getBaseUrl(), "T_S_KEY", transport);
+        final OrderService orderService = client.getOrderService();
+        stub.resetConnections();
+        for (int i = 0; i < 100; i++) {
+            orderService.findOrder("warmup-" + i);
+        }
+
+        final long[] latencies = new long[concurrency * calls];
+        final AtomicInteger index = new AtomicInteger();
+        final AtomicInteger failures = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(concurrency);
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        for (int w = 0; w < concurrency; w++) {
+            final int worker = w;
+            workers.execute(() -> {
+                try {
+                    for (int c = 0; c < calls; c++) {
+                        long begin = System.nanoTime();
+                        try {
+                            orderService.findOrder("order-" + worker + "-" + c);
+                        } catch (RuntimeException e) {
+                            failures.incrementAndGet();
+                        }
+                        latencies[index.getAndIncrement()] = System.nanoTime() - begin;
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.MINUTES);
+        client.close();
+
+        Arrays.sort(latencies);
+        System.out.printf("%-15s calls=%d failures=%d connections=%d throughput=%.0f/s p50=%.2fms p99=%.2fms max=%.2fms%n",
+                          name, latencies.length, failures.get(), stub.getConnections(),
+                          latencies.length / (elapsed / 1e9),
+                          percentile(latencies, 0.50), percentile(latencies, 0.99),
+                          latencies[latencies.length - 1] / 1e6);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        return sorted[(int) Math.ceil(percentile * sorted.length) - 1] / 1e6;
+    }
+}
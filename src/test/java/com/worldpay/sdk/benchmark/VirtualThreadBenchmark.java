@@ -0,0 +1,98 @@
+package com.worldpay.sdk.benchmark;
+
+import com.worldpay.sdk.Http2Transport;
+import com.worldpay.sdk.HttpTransport;
+import com.worldpay.sdk.OrderService;
+import com.worldpay.sdk.UrlConnectionTransport;
+import com.worldpay.sdk.WorldpayRestClient;
+
+import javax.net.ssl.HttpsURLConnection;
+import java.net.http.HttpClient;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Measures throughput of concurrent {@code findOrder} calls made through the future returning API, once on virtual
+ * threads and once on a fixed pool of platform threads, against a {@link LocalStub}.
+ * <p>
+ * Run on Java 21 with {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.worldpay.sdk.benchmark.VirtualThreadBenchmark}, tuned with {@code benchmark.concurrency}
+ * (default 10000), {@code benchmark.platformThreads}, {@code benchmark.latencyMillis} and {@code benchmark.transport}
+ * ({@code HTTP2} or {@code URL_CONNECTION}). Add {@code -Djdk.tracePinnedThreads=full} to report any carrier thread
+ * pinned while a call blocks.
+ */
+public final class VirtualThreadBenchmark {
+
+    private VirtualThreadBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int concurrency = Integer.getInteger("benchmark.concurrency", 10000);
+        int platformThreads = Integer.getInteger("benchmark.platformThreads", 200);
+        long latencyMillis = Long.getLong("benchmark.latencyMillis", 50);
+
+        try (LocalStub stub = LocalStub.start(latencyMillis)) {
+            HttpsURLConnection.setDefaultSSLSocketFactory(stub.getSslContext().getSocketFactory());
+
+            ExecutorService platformPool = Executors.newFixedThreadPool(platformThreads);
+            run("platform x" + platformThreads, new WorldpayRestClient.Builder()
+                .setBaseUrl(stub.getBaseUrl())
+                .setServiceKey("T_S_KEY")
+                .setTransport(createTransport(stub))
+                .setExecutor(platformPool)
+                .build(), concurrency);
+            platformPool.shutdown();
+
+            WorldpayRestClient virtualClient;
+            try {
+                virtualClient = new WorldpayRestClient.Builder()
+                    .setBaseUrl(stub.getBaseUrl())
+                    .setServiceKey("T_S_KEY")
+                    .setTransport(createTransport(stub))
+                    .setVirtualThreads(true)
+                    .build();
+            } catch (IllegalStateException e) {
+                System.out.println("virtual threads skipped: " + e.getMessage());
+                return;
+            }
+            run("virtual", virtualClient, concurrency);
+        } finally {
+            System.exit(0);
+        }
+    }
+
+    private static HttpTransport createTransport(LocalStub stub) {
+        if ("URL_CONNECTION".equals(System.getProperty("benchmark.transport"))) {
+            return new UrlConnectionTransport();
+        }
+        return new Http2Transport(HttpClient.newBuilder()
+                                      .version(HttpClient.Version.HTTP_2)
+                                      .sslContext(stub.getSslContext())
+                                      .build());
+    }
+
+    private static void run(String name, WorldpayRestClient client, int concurrency) throws Exception {
+        OrderService orderService = client.getOrderService();
+        for (int i = 0; i < 100; i++) {
+            orderService.findOrder("warmup-" + i);
+        }
+
+        AtomicInteger failures = new AtomicInteger();
+        CompletableFuture<?>[] calls = new CompletableFuture<?>[concurrency];
+        long start = System.nanoTime();
+        for (int i = 0; i < concurrency; i++) {
+            calls[i] = orderService.findOrderAsync("order-" + i).exceptionally(e -> {
+                failures.incrementAndGet();
+                return null;
+            });
+        }
+        CompletableFuture.allOf(calls).join();
+        long elapsed = System.nanoTime() - start;
+        client.close();
+
+        System.out.printf("%-15s calls=%d failures=%d elapsed=%.0fms throughput=%.0f/s%n",
+                          name, concurrency, failures.get(), elapsed / 1e6, concurrency / (elapsed / 1e9));
+    }
+}
@@ -0,0 +1,267 @@
+package com.worldpay.sdk.cache;
+
+import com.worldpay.gateway.clearwater.client.core.dto.response.TokenResponse;
+import com.worldpay.gateway.clearwater.client.core.exception.WorldpayException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Test {@link MappedFileCache}.
+ */
+public class MappedFileCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final AtomicLong time = new AtomicLong(1_000_000);
+
+    private Path file;
+
+    @Before
+    public void setUp() throws Exception {
+        file = folder.getRoot().toPath().resolve("tokens.cache");
+    }
+
+    @Test
+    public void valueIsReadBack() {
+        MappedFileCache<TokenResponse> cache = cache(64 * 1024, 100, 0);
+        cache.put("token-id", token("token-id"));
+
+        TokenResponse token = cache.getIfPresent("token-id");
+
+        assertThat(token.getToken(), is(equalTo("token-id")));
+        assertThat(token.isReusable(), is(true));
+        assertThat(cache.getIfPresent("other"), is(nullValue()));
+        assertThat(cache.getStats().getHitCount(), is(equalTo(1L)));
+        assertThat(cache.getStats().getMissCount(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void entriesSurviveReopening() {
+        MappedFileCache<TokenResponse> cache = cache(64 * 1024, 100, 0);
+        for (int i = 0; i < 50; i++) {
+            cache.put("token-" + i, token("token-" + i));
+        }
+        cache.close();
+
+        MappedFileCache<TokenResponse> reopened = cache(64 * 1024, 100, 0);
+
+        assertThat(reopened.size(), is(equalTo(50L)));
+        for (int i = 0; i < 50; i++) {
+            assertThat(reopened.getIfPresent("token-" + i).getToken(), is(equalTo("token-" + i)));
+        }
+    }
+
+    @Test
+    public void entryExpiresAfterTimeToLive() {
+        MappedFileCache<TokenResponse> cache = cache(64 * 1024, 100, 1000);
+        cache.put("token-id", token("token-id"));
+        cache.put("long-lived", token("long-lived"), 5000);
+
+        time.addAndGet(999);
+        assertThat(cache.getIfPresent("token-id"), is(notNullValue()));
+        time.addAndGet(1);
+        assertThat(cache.getIfPresent("token-id"), is(nullValue()));
+        assertThat(cache.getIfPresent("long-lived"), is(notNullValue()));
+        assertThat(cache.getStats().getExpirationCount(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void oldestEntriesAreEvictedBeyondMaximumEntries() {
+        MappedFileCache<TokenResponse> cache = cache(64 * 1024, 10, 0);
+        for (int i = 0; i < 100; i++) {
+            cache.put("token-" + i, token("token-" + i));
+        }
+
+        assertThat(cache.size(), is(equalTo(10L)));
+        assertThat(cache.getIfPresent("token-89"), is(nullValue()));
+        assertThat(cache.getIfPresent("token-90").getToken(), is(equalTo("token-90")));
+        assertThat(cache.getStats().getEvictionCount(), is(equalTo(90L)));
+    }
+
+    @Test
+    public void ringWrapsWithinMaximumSize() {
+        MappedFileCache<TokenResponse> cache = cache(1024, 1000, 0);
+        for (int i = 0; i < 1000; i++) {
+            cache.put("token-" + i, token("token-" + i));
+            assertThat(cache.getIfPresent("token-" + i).getToken(), is(equalTo("token-" + i)));
+        }
+        cache.close();
+
+        MappedFileCache<TokenResponse> reopened = cache(1024, 1000, 0);
+        assertThat(reopened.size(), is(lessThanOrEqualTo(1024L / 40)));
+        assertThat(reopened.getIfPresent("token-999").getToken(), is(equalTo("token-999")));
+        assertThat(reopened.getIfPresent("token-0"), is(nullValue()));
+    }
+
+    @Test
+    public void replacedAndInvalidatedEntries() {
+        MappedFileCache<TokenResponse> cache = cache(64 * 1024, 100, 0);
+        cache.put("token-id", token("first"));
+        cache.put("token-id", token("second"));
+        cache.put("other", token("other"));
+
+        assertThat(cache.getIfPresent("token-id").getToken(), is(equalTo("second")));
+        assertThat(cache.size(), is(equalTo(2L)));
+
+        cache.invalidate("token-id");
+        assertThat(cache.getIfPresent("token-id"), is(nullValue()));
+
+        cache.invalidateAll();
+        assertThat(cache.getIfPresent("other"), is(nullValue()));
+        assertThat(cache.size(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void damagedRecordIsNotReturned() throws Exception {
+        MappedFileCache<TokenResponse> cache = cache(64 * 1024, 100, 0);
+        cache.put("token-id", token("damaged-value"));
+        cache.put("other", token("other"));
+        cache.close();
+
+        byte[] content = Files.readAllBytes(file);
+        int index = indexOf(content, "damaged-value".getBytes(StandardCharsets.UTF_8));
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(index);
+            raf.write('X');
+        }
+
+        MappedFileCache<TokenResponse> reopened = cache(64 * 1024, 100, 0);
+        assertThat(reopened.getIfPresent("token-id"), is(nullValue()));
+        assertThat(reopened.getIfPresent("other").getToken(), is(equalTo("other")));
+    }
+
+    @Test
+    public void fileOfAnotherVersionIsReset() throws Exception {
+        MappedFileCache<TokenResponse> cache = cache(64 * 1024, 100, 0);
+        cache.put("token-id", token("token-id"));
+        cache.close();
+
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(8);
+            raf.writeInt(MappedFileCache.VERSION + 1);
+        }
+
+        MappedFileCache<TokenResponse> reopened = cache(64 * 1024, 100, 0);
+        assertThat(reopened.size(), is(equalTo(0L)));
+        assertThat(reopened.getIfPresent("token-id"), is(nullValue()));
+    }
+
+    @Test
+    public void fileOfAnotherGeometryIsReset() {
+        MappedFileCache<TokenResponse> cache = cache(64 * 1024, 100, 0);
+        cache.put("token-id", token("token-id"));
+        cache.close();
+
+        MappedFileCache<TokenResponse> reopened = cache(32 * 1024, 100, 0);
+        assertThat(reopened.getIfPresent("token-id"), is(nullValue()));
+    }
+
+    @Test
+    public void fileIsUsedByOneCacheAtATime() {
+        MappedFileCache<TokenResponse> cache = cache(64 * 1024, 100, 0);
+        try {
+            cache(64 * 1024, 100, 0);
+            fail("WorldpayException expected");
+        } catch (WorldpayException e) {
+            assertThat(e.getMessage(), containsString("used by another cache"));
+        }
+        cache.close();
+
+        cache(64 * 1024, 100, 0).close();
+    }
+
+    @Test
+    public void fileIsCreatedOwnerOnly() throws Exception {
+        assumeTrue(file.getFileSystem().supportedFileAttributeViews().contains("posix"));
+
+        cache(64 * 1024, 100, 0).close();
+
+        assertThat(PosixFilePermissions.toString(Files.getPosixFilePermissions(file)), is(equalTo("rw-------")));
+    }
+
+    @Test
+    public void concurrentReadsAndWrites() throws Exception {
+        MappedFileCache<TokenResponse> cache = cache(16 * 1024, 200, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int seed = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 5000; i++) {
+                        String key = "token-" + (i * 31 + seed) % 500;
+                        TokenResponse token = cache.getIfPresent(key);
+                        if (token == null) {
+                            cache.put(key, token(key));
+                        } else {
+                            assertThat(token.getToken(), is(equalTo(key)));
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(cache.size(), is(lessThanOrEqualTo(200L)));
+    }
+
+    private MappedFileCache<TokenResponse> cache(int maximumSize, int maximumEntries, long expireAfterWrite) {
+        return new MappedFileCache.Builder<>(TokenResponse.class)
+            .setFile(file)
+            .setMaximumSize(maximumSize)
+            .setMaximumEntries(maximumEntries)
+            .setExpireAfterWrite(expireAfterWrite)
+            .setClock(time::get)
+            .build();
+    }
+
+    private static TokenResponse token(String id) {
+        TokenResponse token = new TokenResponse();
+        token.setToken(id);
+        token.setReusable(true);
+        return token;
+    }
+
+    private static int indexOf(byte[] content, byte[] pattern) {
+        for (int i = 0; i + pattern.length <= content.length; i++) {
+            int j = 0;
+            while (j < pattern.length && content[i + j] == pattern[j]) {
+                j++;
+            }
+            if (j == pattern.length) {
+                return i;
+            }
+        }
+        throw new AssertionError("pattern not found");
+    }
+}
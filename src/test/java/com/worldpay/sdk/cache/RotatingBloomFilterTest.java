@@ -0,0 +1,106 @@
+package com.worldpay.sdk.cache;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test {@link RotatingBloomFilter}.
+ */
+public class RotatingBloomFilterTest {
+
+    private final AtomicLong time = new AtomicLong();
+
+    @Test
+    public void addedKeysAreFound() {
+        RotatingBloomFilter filter = filter(4096, 60000, 0.001);
+        for (int i = 0; i < 1000; i++) {
+            filter.put("/tokens/" + i);
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(filter.mightContain("/tokens/" + i), is(true));
+        }
+    }
+
+    @Test
+    public void falsePositiveRateStaysNearTarget() {
+        RotatingBloomFilter filter = filter(64 * 1024, 60000, 0.01);
+        int capacity = filter.getCapacity();
+        for (int i = 0; i < capacity - 1; i++) {
+            filter.put("/orders/" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (filter.mightContain("/tokens/" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives, is(lessThan(2000)));
+    }
+
+    @Test
+    public void keysExpireWithinTimeToLive() {
+        RotatingBloomFilter filter = filter(4096, 1000, 0.001);
+        filter.put("key");
+
+        time.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+        assertThat(filter.mightContain("key"), is(true));
+        time.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+        assertThat(filter.mightContain("key"), is(false));
+    }
+
+    @Test
+    public void lateRotationKeepsKeysNoLongerThanTimeToLive() {
+        RotatingBloomFilter filter = filter(4096, 1000, 0.001);
+        filter.put("key");
+
+        time.set(TimeUnit.MILLISECONDS.toNanos(950));
+        assertThat(filter.mightContain("key"), is(true));
+        time.set(TimeUnit.MILLISECONDS.toNanos(1100));
+        assertThat(filter.mightContain("key"), is(false));
+    }
+
+    @Test
+    public void idleFilterForgetsEverything() {
+        RotatingBloomFilter filter = filter(4096, 1000, 0.001);
+        filter.put("key");
+
+        time.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertThat(filter.mightContain("key"), is(false));
+    }
+
+    @Test
+    public void fullFilterRotatesAndKeepsRecentKeys() {
+        RotatingBloomFilter filter = filter(256, 60000, 0.01);
+        int capacity = filter.getCapacity();
+        for (int i = 0; i < capacity * 3; i++) {
+            filter.put("key-" + i);
+        }
+
+        for (int i = capacity * 2; i < capacity * 3; i++) {
+            assertThat(filter.mightContain("key-" + i), is(true));
+        }
+    }
+
+    @Test
+    public void clearForgetsEverything() {
+        RotatingBloomFilter filter = filter(4096, 60000, 0.001);
+        filter.put("key");
+
+        filter.clear();
+
+        assertThat(filter.mightContain("key"), is(equalTo(false)));
+    }
+
+    private RotatingBloomFilter filter(int maxMemory, long expireAfter, double falsePositiveRate) {
+        return new RotatingBloomFilter(maxMemory, expireAfter, falsePositiveRate, time::get);
+    }
+}
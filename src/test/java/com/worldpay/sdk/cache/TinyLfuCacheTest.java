@@ -0,0 +1,181 @@
+package com.worldpay.sdk.cache;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Test {@link TinyLfuCache}.
+ */
+public class TinyLfuCacheTest {
+
+    private final AtomicLong time = new AtomicLong();
+
+    @Test
+    public void entryExpiresAfterTimeToLive() {
+        TinyLfuCache<String, String> cache = cache(100, 1000);
+        cache.put("key", "value");
+
+        time.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+        assertThat(cache.getIfPresent("key"), is(equalTo("value")));
+        time.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+        assertThat(cache.getIfPresent("key"), is(nullValue()));
+
+        assertThat(cache.size(), is(equalTo(0L)));
+        assertThat(cache.getStats().getExpirationCount(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void entryTimeToLiveOverridesDefault() {
+        TinyLfuCache<String, String> cache = cache(100, 1000);
+        cache.put("key", "value", 10, TimeUnit.SECONDS);
+
+        time.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertThat(cache.getIfPresent("key"), is(equalTo("value")));
+    }
+
+    @Test
+    public void entryWithoutTimeToLiveNeverExpires() {
+        TinyLfuCache<String, String> cache = cache(100, 0);
+        cache.put("key", "value");
+
+        time.addAndGet(TimeUnit.DAYS.toNanos(365));
+        assertThat(cache.getIfPresent("key"), is(equalTo("value")));
+    }
+
+    @Test
+    public void sizeStaysWithinMaximum() {
+        TinyLfuCache<Integer, Integer> cache = cache(100, 0);
+        for (int i = 0; i < 10000; i++) {
+            cache.put(i, i);
+        }
+
+        assertThat(cache.size(), is(lessThanOrEqualTo(100L)));
+        assertThat(cache.getStats().getEvictionCount(), is(equalTo(10000 - cache.size())));
+    }
+
+    @Test
+    public void frequentEntriesSurviveScan() {
+        // the hot entries are read once every 200 insertions, twice the capacity, which would evict them from an LRU
+        TinyLfuCache<Integer, Integer> cache = cache(100, 0);
+        for (int round = 0; round < 5; round++) {
+            for (int i = 0; i < 50; i++) {
+                if (cache.getIfPresent(i) == null) {
+                    cache.put(i, i);
+                }
+            }
+        }
+
+        for (int i = 0; i < 10000; i++) {
+            cache.put(1000 + i, i);
+            if (i % 4 == 0) {
+                cache.getIfPresent(i / 4 % 50);
+            }
+        }
+
+        int survivors = 0;
+        for (int i = 0; i < 50; i++) {
+            if (cache.getIfPresent(i) != null) {
+                survivors++;
+            }
+        }
+        assertThat(survivors, is(greaterThan(45)));
+    }
+
+    @Test
+    public void putReplacesValue() {
+        TinyLfuCache<String, String> cache = cache(100, 0);
+        cache.put("key", "first");
+        cache.put("key", "second");
+
+        assertThat(cache.getIfPresent("key"), is(equalTo("second")));
+        assertThat(cache.size(), is(equalTo(1L)));
+    }
+
+    @Test
+    public void invalidateRemovesEntries() {
+        TinyLfuCache<String, String> cache = cache(100, 0);
+        cache.put("first", "value");
+        cache.put("second", "value");
+
+        cache.invalidate("first");
+        assertThat(cache.getIfPresent("first"), is(nullValue()));
+        assertThat(cache.getIfPresent("second"), is(equalTo("value")));
+
+        cache.invalidateAll();
+        assertThat(cache.getIfPresent("second"), is(nullValue()));
+        assertThat(cache.size(), is(equalTo(0L)));
+    }
+
+    @Test
+    public void statsCountHitsAndMisses() {
+        TinyLfuCache<String, String> cache = cache(100, 0);
+        assertThat(cache.getStats().getHitRate(), is(equalTo(1.0)));
+
+        cache.getIfPresent("key");
+        cache.put("key", "value");
+        cache.getIfPresent("key");
+        cache.getIfPresent("key");
+        cache.getIfPresent("key");
+
+        CacheStats stats = cache.getStats();
+        assertThat(stats.getHitCount(), is(equalTo(3L)));
+        assertThat(stats.getMissCount(), is(equalTo(1L)));
+        assertThat(stats.getHitRate(), is(equalTo(0.75)));
+    }
+
+    @Test
+    public void concurrentReadsAndWritesKeepBound() throws Exception {
+        TinyLfuCache<Integer, Integer> cache = new TinyLfuCache.Builder<Integer, Integer>()
+            .setMaximumSize(500)
+            .build();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                int seed = t;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 20000; i++) {
+                        int key = (i * 31 + seed) % 2000;
+                        Integer value = cache.getIfPresent(key);
+                        if (value == null) {
+                            cache.put(key, key);
+                        } else {
+                            assertThat(value, is(equalTo(key)));
+                        }
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(cache.size(), is(lessThanOrEqualTo(500L)));
+        CacheStats stats = cache.getStats();
+        assertThat(stats.getHitCount() + stats.getMissCount(), is(equalTo(160000L)));
+    }
+
+    private <K, V> TinyLfuCache<K, V> cache(long maximumSize, long expireAfterWrite) {
+        return new TinyLfuCache.Builder<K, V>()
+            .setMaximumSize(maximumSize)
+            .setExpireAfterWrite(expireAfterWrite)
+            .setTicker(time::get)
+            .build();
+    }
+}
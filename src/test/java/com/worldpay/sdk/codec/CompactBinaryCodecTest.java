@@ -0,0 +1,99 @@
+package com.worldpay.sdk.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.worldpay.gateway.clearwater.client.core.dto.response.TokenResponse;
+import com.worldpay.gateway.clearwater.client.ui.dto.order.Transaction;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.fail;
+
+/**
+ * Test {@link CompactBinaryCodec}.
+ */
+public class CompactBinaryCodecTest {
+
+    private static final String TRANSACTION = "{\"environment\":\"TEST\",\"orderResponse\":{"
+                                              + "\"orderCode\":\"order-code\",\"token\":\"TEST_RU_8a8d5a5c-8f3d\","
+                                              + "\"orderDescription\":\"Zoë 山田\",\"amount\":1999,"
+                                              + "\"authorizedAmount\":1999,\"currencyCode\":\"GBP\","
+                                              + "\"paymentStatus\":\"SUCCESS\","
+                                              + "\"customerIdentifiers\":{\"customer\":\"12345\"}}}";
+
+    private static final String TOKEN_RESPONSE = "{\"token\":\"valid-token\",\"reusable\":true,\"paymentMethod\":"
+                                                 + "{\"type\":\"ObfuscatedCard\",\"name\":\"Shopper Name\","
+                                                 + "\"expiryMonth\":2,\"expiryYear\":2017,"
+                                                 + "\"cardType\":\"MASTERCARD\"}}";
+
+    private final CompactBinaryCodec codec = new CompactBinaryCodec();
+
+    private final GeneratedJsonCodec json = new GeneratedJsonCodec();
+
+    @Test
+    public void gatewayDtosRoundTripInFewerBytesThanJson() throws IOException {
+        for (Object value : new Object[]{json.read(TRANSACTION, Transaction.class),
+                                         json.read(TOKEN_RESPONSE, TokenResponse.class)}) {
+            byte[] document = codec.write(value);
+
+            Object read = codec.read(new ByteArrayInputStream(document), value.getClass());
+
+            assertThat(json.writeString(read), is(equalTo(json.writeString(value))));
+            assertThat(document.length, is(lessThan(json.write(value).length)));
+        }
+    }
+
+    @Test
+    public void otherClassesRoundTripThroughJackson() throws IOException {
+        Map<String, Object> value = new LinkedHashMap<>();
+        value.put("int", -64);
+        value.put("long", Long.MIN_VALUE);
+        value.put("bigInteger", BigInteger.ONE.shiftLeft(100));
+        value.put("double", 0.1);
+        value.put("decimal", new BigDecimal("-12.345"));
+        value.put("flags", Arrays.asList(true, false, null));
+        value.put("nested", Arrays.asList(Collections.singletonMap("int", 1), Collections.singletonMap("int", 2)));
+        value.put("text", "Zoë 山田");
+
+        byte[] document = codec.write(value);
+
+        ObjectMapper mapper = new ObjectMapper();
+        assertThat(mapper.writeValueAsString(codec.read(document, Map.class)),
+                   is(equalTo(mapper.writeValueAsString(value))));
+    }
+
+    @Test
+    public void rejectsJsonAndTruncatedDocuments() throws IOException {
+        byte[] document = codec.write(json.read(TRANSACTION, Transaction.class));
+        assertRejected(new byte[0]);
+        assertRejected(TRANSACTION.getBytes(StandardCharsets.UTF_8));
+        assertRejected(Arrays.copyOf(document, document.length / 2));
+        assertRejected(Arrays.copyOf(document, document.length - 1));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void hasNoTextForm() throws IOException {
+        codec.writeString(Collections.emptyMap());
+    }
+
+    private void assertRejected(byte[] document) {
+        try {
+            codec.read(document, Transaction.class);
+            fail("accepted " + Arrays.toString(document));
+        } catch (IOException e) {
+            // expected
+        }
+    }
+}
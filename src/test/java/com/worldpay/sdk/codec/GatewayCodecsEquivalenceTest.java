@@ -0,0 +1,113 @@
+package com.worldpay.sdk.codec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.worldpay.gateway.clearwater.client.core.dto.ApiError;
+import com.worldpay.gateway.clearwater.client.core.dto.request.CaptureOrderRequest;
+import com.worldpay.gateway.clearwater.client.core.dto.request.OrderAuthorizationRequest;
+import com.worldpay.gateway.clearwater.client.core.dto.request.OrderRequest;
+import com.worldpay.gateway.clearwater.client.core.dto.request.RefundOrderRequest;
+import com.worldpay.gateway.clearwater.client.core.dto.request.TokenRequest;
+import com.worldpay.gateway.clearwater.client.core.dto.response.OrderResponse;
+import com.worldpay.gateway.clearwater.client.core.dto.response.TokenResponse;
+import com.worldpay.gateway.clearwater.client.ui.dto.order.Transaction;
+import com.worldpay.sdk.util.JacksonJsonCodec;
+import com.worldpay.sdk.util.JsonCodec;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Test that the generated codecs of the gateway DTOs write and read them as Jackson databind does.
+ */
+@RunWith(Parameterized.class)
+public class GatewayCodecsEquivalenceTest {
+
+    private static final String THREE_DS_INFO = "{\"shopperIpAddress\":\"195.35.90.111\","
+                                                + "\"shopperSessionId\":\"021ui8ib1\","
+                                                + "\"shopperUserAgent\":\"Mozilla/5.0\","
+                                                + "\"shopperAcceptHeader\":\"text/html\"}";
+
+    @Parameterized.Parameters(name = "{0}")
+    public static Collection<Object[]> parameters() {
+        return Arrays.asList(new Object[][]{
+            {OrderRequest.class, "{\"token\":\"valid-token\",\"orderDescription\":\"Goods\",\"amount\":1999,"
+                                 + "\"currencyCode\":\"GBP\",\"name\":\"Zoë 山田\",\"shopperEmailAddress\":null,"
+                                 + "\"customerIdentifiers\":{\"id\":\"1\",\"missing\":null},\"is3DSOrder\":true,"
+                                 + "\"threeDSecureInfo\":" + THREE_DS_INFO + ",\"unknown\":{\"nested\":[1,{}]}}"},
+            {OrderAuthorizationRequest.class, "{\"threeDSResponseCode\":\"IDENTIFIED\",\"threeDSecureInfo\":"
+                                              + THREE_DS_INFO + "}"},
+            {CaptureOrderRequest.class, "{\"captureAmount\":500}"},
+            {RefundOrderRequest.class, "{\"refundAmount\":\"250\"}"},
+            {TokenRequest.class, "{\"clientKey\":\"T_C_KEY\",\"reusable\":true}"},
+            {OrderResponse.class, "{\"orderCode\":\"code\",\"token\":\"valid-token\",\"amount\":1999,"
+                                  + "\"authorizedAmount\":1999,\"currencyCode\":\"EUR\",\"paymentStatus\":\"SUCCESS\","
+                                  + "\"redirectURL\":\"https://example.com\",\"customerIdentifiers\":{},"
+                                  + "\"orderDescription\":null}"},
+            {Transaction.class, "{\"orderResponse\":{\"orderCode\":\"code\",\"amount\":1999},"
+                                + "\"environment\":\"TEST\"}"},
+            {TokenResponse.class, "{\"token\":\"valid-token\",\"reusable\":true,\"paymentMethod\":"
+                                  + "{\"type\":\"ObfuscatedCard\",\"name\":\"Shopper Name\",\"expiryMonth\":2,"
+                                  + "\"expiryYear\":2017,\"cardType\":\"MASTERCARD\"}}"},
+            {ApiError.class, "{\"httpStatusCode\":400,\"customCode\":\"BAD_REQUEST\",\"message\":\"Bad request\","
+                             + "\"description\":\"Missing token\",\"errorHelpUrl\":null,\"originalRequest\":\"{}\"}"},
+            {OrderRequest.class, "null"}
+        });
+    }
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    private final JsonCodec jackson = new JacksonJsonCodec();
+
+    private final GeneratedJsonCodec generated = new GeneratedJsonCodec();
+
+    private final Class<?> type;
+
+    private final String json;
+
+    public GatewayCodecsEquivalenceTest(Class<?> type, String json) {
+        this.type = type;
+        this.json = json;
+    }
+
+    @Test
+    public void writesWhatJacksonWrites() throws IOException {
+        Object value = jackson.read(json, type);
+
+        JsonNode expected = mapper.readTree(jackson.write(value));
+        assertThat(mapper.readTree(generated.write(value)), is(equalTo(expected)));
+        assertThat(mapper.readTree(generated.writeString(value)), is(equalTo(expected)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        generated.write(out, value);
+        assertThat(mapper.readTree(out.toByteArray()), is(equalTo(expected)));
+    }
+
+    @Test
+    public void readsWhatJacksonReads() throws IOException {
+        JsonNode expected = mapper.readTree(jackson.write(jackson.read(json, type)));
+
+        assertThat(mapper.readTree(jackson.write(generated.read(json, type))), is(equalTo(expected)));
+        Object fromStream = generated.read(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), type);
+        assertThat(mapper.readTree(jackson.write(fromStream)), is(equalTo(expected)));
+    }
+
+    @Test
+    public void roundTripsLikeJackson() throws IOException {
+        byte[] expected = jackson.write(jackson.read(json, type));
+
+        byte[] roundTrip = generated.write(generated.read(json, type));
+
+        assertThat(mapper.readTree(roundTrip), is(equalTo(mapper.readTree(expected))));
+    }
+}
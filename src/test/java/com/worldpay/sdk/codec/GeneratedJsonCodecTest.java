@@ -0,0 +1,104 @@
+package com.worldpay.sdk.codec;
+
+import com.worldpay.gateway.clearwater.client.core.dto.ApiError;
+import com.worldpay.gateway.clearwater.client.core.dto.request.CaptureOrderRequest;
+import com.worldpay.gateway.clearwater.client.core.dto.request.OrderAuthorizationRequest;
+import com.worldpay.gateway.clearwater.client.core.dto.request.OrderRequest;
+import com.worldpay.gateway.clearwater.client.core.dto.request.RefundOrderRequest;
+import com.worldpay.gateway.clearwater.client.core.dto.request.TokenRequest;
+import com.worldpay.gateway.clearwater.client.core.dto.response.OrderResponse;
+import com.worldpay.gateway.clearwater.client.core.dto.response.TokenResponse;
+import com.worldpay.gateway.clearwater.client.ui.dto.order.Transaction;
+import com.worldpay.sdk.util.JacksonJsonCodec;
+import com.worldpay.sdk.util.JsonCodec;
+import com.worldpay.sdk.util.JsonParser;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+/**
+ * Test {@link GeneratedJsonCodec}.
+ */
+public class GeneratedJsonCodecTest {
+
+    private final GeneratedJsonCodec codec = new GeneratedJsonCodec();
+
+    @Test
+    public void gatewayDtosHaveGeneratedCodecs() {
+        assertThat(GeneratedJsonCodec.isAvailable(), is(true));
+        assertThat(JsonParser.getDefaultCodec(), is(instanceOf(GeneratedJsonCodec.class)));
+        for (Class<?> type : new Class<?>[]{
+            OrderRequest.class, OrderAuthorizationRequest.class, CaptureOrderRequest.class, RefundOrderRequest.class,
+            TokenRequest.class, OrderResponse.class, Transaction.class, TokenResponse.class, ApiError.class}) {
+            assertThat(type.getName(), codec.hasCodec(type), is(true));
+        }
+    }
+
+    @Test
+    public void otherClassesAreConvertedByJackson() throws IOException {
+        assertThat(codec.hasCodec(Map.class), is(false));
+
+        String json = codec.writeString(Collections.singletonMap("amount", 1999));
+
+        assertThat(json, is(equalTo("{\"amount\":1999}")));
+        assertThat(codec.read(json, Map.class).get("amount"), is(equalTo(1999)));
+    }
+
+    @Test
+    public void rejectsWhatJacksonRejects() {
+        JsonCodec jackson = new JacksonJsonCodec();
+        for (String json : new String[]{"", "{\"currencyCode\":\"XXX\"}", "{\"amount\":[1]}", "{\"token\":"}) {
+            assertRejected(jackson, json);
+            assertRejected(codec, json);
+        }
+    }
+
+    @Test
+    public void readClosesTheStream() throws IOException {
+        for (JsonCodec jsonCodec : new JsonCodec[]{codec, new JacksonJsonCodec()}) {
+            for (Class<?> type : new Class<?>[]{OrderResponse.class, Map.class}) {
+                ClosingStream in = new ClosingStream("{\"orderCode\":\"order-code\"}");
+
+                jsonCodec.read(in, type);
+
+                assertThat(jsonCodec.getClass().getSimpleName() + " " + type.getSimpleName(), in.closed, is(true));
+            }
+        }
+    }
+
+    private static void assertRejected(JsonCodec codec, String json) {
+        try {
+            codec.read(json, OrderRequest.class);
+            fail(codec.getClass().getSimpleName() + " accepted " + json);
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Stream recording whether it was closed.
+     */
+    private static class ClosingStream extends ByteArrayInputStream {
+
+        private boolean closed;
+
+        ClosingStream(String content) {
+            super(content.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
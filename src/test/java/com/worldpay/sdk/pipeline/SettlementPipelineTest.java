@@ -0,0 +1,139 @@
+package com.worldpay.sdk.pipeline;
+
+import com.github.tomakehurst.wiremock.junit.WireMockRule;
+import com.worldpay.sdk.OrderService;
+import com.worldpay.sdk.WorldpayRestClient;
+import com.worldpay.sdk.util.JsonParser;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.equalToJson;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlMatching;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Test {@link SettlementPipeline}.
+ */
+public class SettlementPipelineTest {
+
+    private static final String CSV = "operation,orderCode,amount\n"
+                                      + "CAPTURE,order-1,\n"
+                                      + "CAPTURE,order-2,500\n"
+                                      + "REFUND,order-3,\n"
+                                      + "REFUND,order-4,250\n"
+                                      + "CAPTURE,order-missing,\n"
+                                      + "VOID,order-5,\n";
+
+    @Rule
+    public WireMockRule wireMockRule = new WireMockRule(wireMockConfig().dynamicPort());
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private OrderService orderService;
+
+    private Path input;
+
+    private Path output;
+
+    @Before
+    public void setUp() throws Exception {
+        orderService = new WorldpayRestClient("http://localhost:" + wireMockRule.port(), "T_S_KEY").getOrderService();
+        stubFor(post(urlMatching("/orders/.*/(capture|refund)"))
+                    .willReturn(aResponse().withStatus(200).withBody("{\"orderCode\":\"order\"}")));
+        stubFor(post(urlEqualTo("/orders/order-missing/capture"))
+                    .willReturn(aResponse().withStatus(404)
+                                    .withBody("{\"httpStatusCode\":404,\"customCode\":\"ORDER_NOT_FOUND\"}")));
+        input = folder.getRoot().toPath().resolve("settlement.csv");
+        output = folder.getRoot().toPath().resolve("settlement.out.jsonl");
+        Files.write(input, CSV.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void runWritesEveryOutcomeAndARerunSendsNothing() throws Exception {
+        PipelineSummary summary = pipeline().run();
+
+        assertThat(summary.getSucceeded(), is(equalTo(4L)));
+        assertThat(summary.getFailed(), is(equalTo(2L)));
+        assertThat(summary.getSkipped(), is(equalTo(0L)));
+        List<String> outcomes = Files.readAllLines(output, StandardCharsets.UTF_8);
+        assertThat(outcomes.size(), is(equalTo(6)));
+        for (String line : outcomes) {
+            SettlementOutcome outcome = JsonParser.toObject(line, SettlementOutcome.class);
+            if ("order-missing".equals(outcome.getOrderCode())) {
+                assertThat(outcome.getCustomCode(), is(equalTo("ORDER_NOT_FOUND")));
+            }
+        }
+        verify(postRequestedFor(urlEqualTo("/orders/order-4/refund"))
+                   .withRequestBody(equalToJson("{\"refundAmount\":250}")));
+
+        PipelineSummary rerun = pipeline().run();
+
+        assertThat(rerun.getSucceeded() + rerun.getFailed(), is(equalTo(0L)));
+        verify(5, postRequestedFor(urlMatching("/orders/.*")));
+    }
+
+    @Test
+    public void runResumesFromTheOutcomesOfACrashedRun() throws Exception {
+        long order2Offset = CSV.indexOf("CAPTURE,order-2");
+        long order3Offset = CSV.indexOf("REFUND,order-3");
+        Files.write(output, ("{\"offset\":" + order2Offset + ",\"success\":true}\n"
+                             + "{\"offset\":" + order3Offset + ",\"succ").getBytes(StandardCharsets.UTF_8));
+
+        PipelineSummary summary = pipeline().run();
+
+        assertThat(summary.getSkipped(), is(equalTo(1L)));
+        assertThat(summary.getSucceeded(), is(equalTo(3L)));
+        verify(0, postRequestedFor(urlEqualTo("/orders/order-2/capture")));
+        verify(1, postRequestedFor(urlEqualTo("/orders/order-3/refund")));
+        List<String> outcomes = Files.readAllLines(output, StandardCharsets.UTF_8);
+        assertThat(outcomes.size(), is(equalTo(6)));
+        for (String line : outcomes) {
+            JsonParser.toObject(line, SettlementOutcome.class);
+        }
+    }
+
+    @Test
+    public void checkpointOfAnotherInputFileIsRejected() throws Exception {
+        pipeline().run();
+        Files.write(input, (CSV + "CAPTURE,order-6,\n").getBytes(StandardCharsets.UTF_8));
+
+        try {
+            pipeline().run();
+            fail("IOException expected");
+        } catch (IOException e) {
+            assertThat(e.getMessage(), containsString("belongs to another input file"));
+        }
+        verify(0, postRequestedFor(urlEqualTo("/orders/order-6/capture")));
+        verify(5, postRequestedFor(urlMatching("/orders/.*")));
+    }
+
+    private SettlementPipeline pipeline() {
+        return new SettlementPipeline.Builder()
+            .setOrderService(orderService)
+            .setInput(input)
+            .setOutput(output)
+            .setMaxConcurrency(2)
+            .setCheckpointInterval(2)
+            .build();
+    }
+}
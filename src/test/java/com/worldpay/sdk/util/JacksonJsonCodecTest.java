@@ -0,0 +1,61 @@
+package com.worldpay.sdk.util;
+
+import com.worldpay.gateway.clearwater.client.core.dto.request.OrderRequest;
+import com.worldpay.gateway.clearwater.client.core.dto.response.OrderResponse;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Test {@code JacksonJsonCodec}
+ */
+public class JacksonJsonCodecTest {
+
+    @Test
+    public void writesAndReadsBackAGatewayDto() throws IOException {
+        JsonCodec codec = new JacksonJsonCodec();
+        OrderRequest orderRequest = new OrderRequest();
+        orderRequest.setToken("token");
+        orderRequest.setAmount(1999);
+        orderRequest.setName("Zoë 山田");
+        orderRequest.setCustomerIdentifiers(Collections.singletonMap("id", "value"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        codec.write(out, orderRequest);
+        out.write(' ');
+        OrderRequest read = codec.read(new ByteArrayInputStream(out.toByteArray()), OrderRequest.class);
+
+        assertThat(read.getName(), is(equalTo("Zoë 山田")));
+        assertThat(read.getCustomerIdentifiers().get("id"), is(equalTo("value")));
+        assertThat(new String(codec.write(orderRequest), StandardCharsets.UTF_8),
+                   is(equalTo(codec.writeString(orderRequest))));
+    }
+
+    @Test
+    public void ignoresUnknownProperties() throws IOException {
+        OrderResponse response = new JacksonJsonCodec().read("{\"orderCode\":\"code\",\"unknown\":1}",
+                                                             OrderResponse.class);
+
+        assertThat(response.getOrderCode(), is(equalTo("code")));
+    }
+
+    @Test
+    public void acceleratedCodecRequiresAfterburner() throws IOException {
+        try {
+            JsonCodec codec = new JacksonJsonCodec(true);
+            assertThat(JacksonJsonCodec.isAccelerationAvailable(), is(true));
+            assertThat(codec.read("{\"orderCode\":\"code\"}", OrderResponse.class).getOrderCode(),
+                       is(equalTo("code")));
+        } catch (IllegalStateException e) {
+            assertThat(JacksonJsonCodec.isAccelerationAvailable(), is(false));
+        }
+    }
+}